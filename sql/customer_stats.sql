@@ -0,0 +1,31 @@
+-- ==============================================
+-- CUSTOMER STATS INDEXES
+-- Hỗ trợ CustomerService.getStats() (đếm theo hạng, top chi tiêu)
+-- ==============================================
+
+USE restaurant_db;
+
+-- Top spenders: ORDER BY total_spent DESC on active customers
+SET @dbname = DATABASE();
+SET @preparedStatement = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = @dbname AND TABLE_NAME = 'customers' AND INDEX_NAME = 'idx_customers_active_spent') = 0,
+    'CREATE INDEX idx_customers_active_spent ON customers(is_active, total_spent)',
+    'SELECT 1'
+));
+PREPARE stmt FROM @preparedStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Counts by tier: GROUP BY tier on active customers
+SET @preparedStatement = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = @dbname AND TABLE_NAME = 'customers' AND INDEX_NAME = 'idx_customers_active_tier') = 0,
+    'CREATE INDEX idx_customers_active_tier ON customers(is_active, tier, birthday)',
+    'SELECT 1'
+));
+PREPARE stmt FROM @preparedStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT '✅ Customer stats indexes created!' AS status;
@@ -0,0 +1,31 @@
+-- ==============================================
+-- LAZY TABLE PAGING INDEXES
+-- Hỗ trợ phân trang keyset (LazyTableModel): khách hàng theo tên, lịch sử kho theo loại
+-- ==============================================
+
+USE restaurant_db;
+
+-- Customer list sorted by name: WHERE is_active = TRUE AND (full_name, id) > (?, ?)
+SET @dbname = DATABASE();
+SET @preparedStatement = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = @dbname AND TABLE_NAME = 'customers' AND INDEX_NAME = 'idx_customers_active_name') = 0,
+    'CREATE INDEX idx_customers_active_name ON customers(is_active, full_name, id)',
+    'SELECT 1'
+));
+PREPARE stmt FROM @preparedStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Stock history filtered by type, newest first: WHERE type = ? AND id < ?
+SET @preparedStatement = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = @dbname AND TABLE_NAME = 'stock_transactions' AND INDEX_NAME = 'idx_stock_tx_type_id') = 0,
+    'CREATE INDEX idx_stock_tx_type_id ON stock_transactions(type, id)',
+    'SELECT 1'
+));
+PREPARE stmt FROM @preparedStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT '✅ Lazy paging indexes created!' AS status;
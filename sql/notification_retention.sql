@@ -0,0 +1,93 @@
+-- ==============================================
+-- NOTIFICATION RETENTION
+-- Gộp thông báo lặp lại (group_key + repeat_count) và
+-- bảng lưu trữ cho thông báo đã đọc quá N ngày
+-- ==============================================
+
+USE restaurant_db;
+
+SET @dbname = DATABASE();
+
+-- 'ORDER' is used for "món sẵn sàng" notifications but was missing from the enum
+ALTER TABLE notifications
+    MODIFY COLUMN type ENUM('INFO', 'SUCCESS', 'WARNING', 'LEAVE_APPROVED', 'LEAVE_REJECTED',
+                            'SCHEDULE', 'ORDER', 'SYSTEM') DEFAULT 'INFO';
+
+-- Coalescing key, e.g. 'table:Bàn 5' - repeated unread notifications with the same key are merged
+SET @preparedStatement = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS
+     WHERE TABLE_SCHEMA = @dbname AND TABLE_NAME = 'notifications' AND COLUMN_NAME = 'group_key') = 0,
+    'ALTER TABLE notifications ADD COLUMN group_key VARCHAR(100) NULL AFTER related_id',
+    'SELECT 1'
+));
+PREPARE stmt FROM @preparedStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Number of events merged into the row
+SET @preparedStatement = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS
+     WHERE TABLE_SCHEMA = @dbname AND TABLE_NAME = 'notifications' AND COLUMN_NAME = 'repeat_count') = 0,
+    'ALTER TABLE notifications ADD COLUMN repeat_count INT NOT NULL DEFAULT 1 AFTER group_key',
+    'SELECT 1'
+));
+PREPARE stmt FROM @preparedStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Bell list / unread count / coalescing: WHERE user_id = ? AND is_read = ? ORDER BY created_at DESC
+SET @preparedStatement = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = @dbname AND TABLE_NAME = 'notifications' AND INDEX_NAME = 'idx_notifications_user_read_created') = 0,
+    'CREATE INDEX idx_notifications_user_read_created ON notifications(user_id, is_read, created_at)',
+    'SELECT 1'
+));
+PREPARE stmt FROM @preparedStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- (user_id) and (user_id, is_read) are prefixes of the index above
+SET @preparedStatement = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = @dbname AND TABLE_NAME = 'notifications' AND INDEX_NAME = 'idx_notifications_unread') > 0,
+    'DROP INDEX idx_notifications_unread ON notifications',
+    'SELECT 1'
+));
+PREPARE stmt FROM @preparedStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @preparedStatement = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = @dbname AND TABLE_NAME = 'notifications' AND INDEX_NAME = 'idx_notifications_user') > 0,
+    'DROP INDEX idx_notifications_user ON notifications',
+    'SELECT 1'
+));
+PREPARE stmt FROM @preparedStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Read notifications older than the retention period are moved here in batches
+CREATE TABLE IF NOT EXISTS notifications_archive (
+    id INT PRIMARY KEY,
+    user_id INT NOT NULL,
+    title VARCHAR(100) NOT NULL,
+    message TEXT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    is_read BOOLEAN DEFAULT TRUE,
+    related_id INT,
+    group_key VARCHAR(100),
+    repeat_count INT NOT NULL DEFAULT 1,
+    created_at DATETIME,
+    archived_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    
+    INDEX idx_notifications_archive_user (user_id, created_at),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Retention period (days) used by the archive job
+INSERT INTO settings (setting_key, setting_value, setting_type, description)
+VALUES ('notification_retention_days', '30', 'NUMBER', 'Số ngày giữ thông báo đã đọc trước khi lưu trữ')
+ON DUPLICATE KEY UPDATE setting_value = setting_value;
+
+SELECT '✅ Notification retention ready!' AS status;
@@ -0,0 +1,46 @@
+-- ==============================================
+-- PROMOTION USAGE LIMITS
+-- Bộ đếm lượt dùng khuyến mãi theo khách hàng
+-- (dùng cho kiểm tra usage_limit_per_customer nguyên tử)
+-- ==============================================
+
+USE restaurant_db;
+
+-- Số lần mỗi khách đã dùng mỗi khuyến mãi
+CREATE TABLE IF NOT EXISTS promotion_customer_usage (
+    promotion_id INT NOT NULL,
+    customer_id INT NOT NULL,
+    used_count INT NOT NULL DEFAULT 0,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    
+    PRIMARY KEY (promotion_id, customer_id),
+    FOREIGN KEY (promotion_id) REFERENCES promotions(id) ON DELETE CASCADE,
+    FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Backfill từ lịch sử sử dụng
+INSERT INTO promotion_customer_usage (promotion_id, customer_id, used_count)
+SELECT promotion_id, customer_id, COUNT(*)
+FROM promotion_usage
+WHERE customer_id IS NOT NULL
+GROUP BY promotion_id, customer_id
+ON DUPLICATE KEY UPDATE used_count = VALUES(used_count);
+
+-- Đồng bộ lại used_count tổng
+UPDATE promotions p
+SET used_count = (SELECT COUNT(*) FROM promotion_usage pu WHERE pu.promotion_id = p.id);
+
+-- Lượt dùng đã giữ trước cho khuyến mãi đông khách (đã cộng vào used_count);
+-- hết hạn mà chưa dùng hết thì phần còn lại được trả về used_count
+CREATE TABLE IF NOT EXISTS promotion_usage_claims (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    promotion_id INT NOT NULL,
+    remaining INT NOT NULL,
+    expires_at DATETIME NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    
+    INDEX idx_claims_expires (expires_at),
+    FOREIGN KEY (promotion_id) REFERENCES promotions(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+SELECT '✅ Promotion usage counters created!' AS status;
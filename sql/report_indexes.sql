@@ -0,0 +1,20 @@
+-- ==============================================
+-- REPORT INDEXES
+-- Hỗ trợ báo cáo / xuất báo cáo theo khoảng thời gian hoàn thành đơn
+-- ==============================================
+
+USE restaurant_db;
+
+-- Completed orders in a date range: WHERE status = 'COMPLETED' AND completed_at >= ? AND completed_at < ?
+SET @dbname = DATABASE();
+SET @preparedStatement = (SELECT IF(
+    (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+     WHERE TABLE_SCHEMA = @dbname AND TABLE_NAME = 'orders' AND INDEX_NAME = 'idx_orders_status_completed') = 0,
+    'CREATE INDEX idx_orders_status_completed ON orders(status, completed_at, id)',
+    'SELECT 1'
+));
+PREPARE stmt FROM @preparedStatement;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SELECT '✅ Report indexes created!' AS status;
@@ -3,12 +3,23 @@ package com.restaurant;
 import com.formdev.flatlaf.FlatLightLaf;
 import com.restaurant.config.AppConfig;
 import com.restaurant.config.DatabaseConnection;
+import com.restaurant.service.CategoryService;
+import com.restaurant.service.CustomerService;
+import com.restaurant.service.NotificationService;
+import com.restaurant.service.ProductService;
+import com.restaurant.service.PromotionService;
+import com.restaurant.service.SettingsService;
+import com.restaurant.service.TableService;
+import com.restaurant.util.StartupTimer;
 import com.restaurant.view.LoginFrame;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * RestaurantPOS - Main Entry Point
@@ -18,6 +29,7 @@ import java.awt.*;
  * 2. FlatLaf Look and Feel
  * 3. UI customizations
  * 4. Login frame
+ * 5. Background warm-up while the login screen is shown (pool + reference data)
  */
 public class Main {
     
@@ -74,6 +86,12 @@ public class Main {
                 LoginFrame loginFrame = new LoginFrame();
                 loginFrame.setVisible(true);
                 
+                // 5. Open the pool and prefetch reference data while the user types
+                startWarmUp();
+                
+                // 6. Archive old read notifications in the background
+                NotificationService.getInstance().startMaintenance();
+                
             } catch (Exception e) {
                 logger.error("❌ Failed to initialize application", e);
                 JOptionPane.showMessageDialog(
@@ -89,11 +107,55 @@ public class Main {
         // Add shutdown hook to cleanup
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             logger.info("Shutting down...");
+            PromotionService.getInstance().releaseReservations();
             DatabaseConnection.getInstance().shutdown();
             logger.info("Application shutdown complete");
         }));
     }
     
+    /**
+     * Warm-up: create the Hikari pool and run a validation query, then load settings,
+     * menu, table layout, role members and the customer directory in parallel into
+     * their caches, so MainFrame opens from memory after login.
+     * Skipped (with a warning) if the database is unreachable - login reports it.
+     */
+    private static void startWarmUp() {
+        ExecutorService pool = Executors.newFixedThreadPool(4, r -> {
+            Thread t = new Thread(r, "startup-warmup");
+            t.setDaemon(true);
+            return t;
+        });
+        StartupTimer timer = new StartupTimer("Login warm-up");
+        
+        CompletableFuture.runAsync(() -> timer.time("pool + validation", () -> {
+            try {
+                DatabaseConnection.getInstance().validate();
+            } catch (Exception e) {
+                throw new IllegalStateException("Database not reachable: " + e.getMessage(), e);
+            }
+        }), pool).thenCompose(v -> CompletableFuture.allOf(
+            // First getInstance() runs loadAllSettings()
+            CompletableFuture.runAsync(() -> timer.time("settings",
+                () -> SettingsService.getInstance()), pool),
+            CompletableFuture.runAsync(() -> timer.time("menu", () -> {
+                CategoryService.getInstance().prefetchCategories();
+                ProductService.getInstance().prefetchProducts();
+            }), pool),
+            CompletableFuture.runAsync(() -> timer.time("tables",
+                () -> TableService.getInstance().prefetchTables()), pool),
+            CompletableFuture.runAsync(() -> timer.time("roles",
+                () -> NotificationService.getInstance().preloadRoleMembers()), pool),
+            CompletableFuture.runAsync(() -> timer.time("customer directory",
+                () -> CustomerService.getInstance().loadDirectory()), pool)
+        )).whenComplete((v, e) -> {
+            if (e != null) {
+                logger.warn("⚠️ Startup warm-up incomplete: {}", e.getMessage());
+            }
+            timer.report();
+            pool.shutdown();
+        });
+    }
+    
     /**
      * Load custom fonts from resources
      */
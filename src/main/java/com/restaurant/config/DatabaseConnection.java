@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Properties;
 
 /**
@@ -120,6 +121,17 @@ public class DatabaseConnection {
         }
     }
     
+    /**
+     * Borrow a connection and run a validation query - opens the pool and the
+     * MySQL handshake ahead of the first real query
+     */
+    public void validate() throws SQLException {
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SELECT 1");
+        }
+    }
+    
     /**
      * Get pool statistics
      */
@@ -0,0 +1,196 @@
+package com.restaurant.dao;
+
+import com.restaurant.config.DatabaseConnection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * KeysetPageSource - PageSource trên một câu SELECT
+ *
+ * Pages are read with
+ * {@code WHERE (sort, id) < (?, ?) ORDER BY sort DESC, id DESC LIMIT 200}
+ * instead of OFFSET, so each page is an index range scan regardless of depth.
+ * Sort expressions must be NOT NULL (wrap nullable columns in COALESCE) and the
+ * value function must return exactly what the expression yields for that row.
+ *
+ * @param <T> loại dòng
+ */
+public class KeysetPageSource<T> implements PageSource<T> {
+    
+    private static final Logger logger = LogManager.getLogger(KeysetPageSource.class);
+    
+    /**
+     * Map the current row of a ResultSet
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+    
+    /**
+     * SQL condition (without WHERE/AND) and its parameters
+     */
+    public record Condition(String sql, List<Object> params) {
+        
+        public static Condition of(String sql, Object... params) {
+            return new Condition(sql, List.of(params));
+        }
+    }
+    
+    private record SortColumn<T>(String expression, Function<T, Object> value) {}
+    
+    private final String select;
+    private final String from;
+    private final String idColumn;
+    private final Function<T, Object> idValue;
+    private final RowMapper<T> mapper;
+    private final Map<String, SortColumn<T>> sortColumns = new HashMap<>();
+    private String baseCondition;
+    private Function<Object, Condition> filter;
+    
+    /**
+     * @param select   column list, e.g. {@code "c.*"}
+     * @param from     FROM clause incl. joins, e.g. {@code "customers c"}
+     * @param idColumn unique, indexed tie-breaker column, e.g. {@code "c.id"}
+     * @param idValue  id of a mapped row (same value as idColumn)
+     * @param mapper   row mapper
+     */
+    public KeysetPageSource(String select, String from, String idColumn,
+                            Function<T, Object> idValue, RowMapper<T> mapper) {
+        this.select = select;
+        this.from = from;
+        this.idColumn = idColumn;
+        this.idValue = idValue;
+        this.mapper = mapper;
+    }
+    
+    /**
+     * Condition applied to every query (e.g. {@code is_active = TRUE})
+     */
+    public KeysetPageSource<T> where(String condition) {
+        this.baseCondition = condition;
+        return this;
+    }
+    
+    /**
+     * Register a server-side sort key
+     */
+    public KeysetPageSource<T> sortable(String key, String expression, Function<T, Object> value) {
+        sortColumns.put(key, new SortColumn<>(expression, value));
+        return this;
+    }
+    
+    /**
+     * Translate {@link Query#filter()} into SQL; returning null means no condition
+     */
+    public KeysetPageSource<T> filter(Function<Object, Condition> filter) {
+        this.filter = filter;
+        return this;
+    }
+    
+    // ==================== PAGE SOURCE ====================
+    
+    @Override
+    public int count(Query query) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM " + from + where(query, null, params);
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            bind(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            logger.error("Error counting rows from {}", from, e);
+        }
+        return 0;
+    }
+    
+    @Override
+    public List<T> fetch(Query query, T after, int skip, int limit) {
+        SortColumn<T> sort = sortColumns.get(query.sortKey());
+        String dir = query.ascending() ? "ASC" : "DESC";
+        
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ").append(select).append(" FROM ").append(from)
+            .append(where(query, after, params))
+            .append(" ORDER BY ");
+        if (sort != null) {
+            sql.append(sort.expression()).append(' ').append(dir).append(", ");
+        }
+        sql.append(idColumn).append(' ').append(dir).append(" LIMIT ?");
+        params.add(limit);
+        if (skip > 0) {
+            sql.append(" OFFSET ?");
+            params.add(skip);
+        }
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            
+            bind(stmt, params);
+            List<T> rows = new ArrayList<>(limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            logger.error("Error fetching page from {}", from, e);
+        }
+        return Collections.emptyList();
+    }
+    
+    // ==================== SQL ====================
+    
+    private String where(Query query, T after, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (baseCondition != null) {
+            conditions.add(baseCondition);
+        }
+        
+        if (filter != null && query.filter() != null) {
+            Condition c = filter.apply(query.filter());
+            if (c != null) {
+                conditions.add("(" + c.sql() + ")");
+                params.addAll(c.params());
+            }
+        }
+        
+        if (after != null) {
+            String op = query.ascending() ? ">" : "<";
+            Object id = idValue.apply(after);
+            SortColumn<T> sort = sortColumns.get(query.sortKey());
+            if (sort == null) {
+                conditions.add(idColumn + " " + op + " ?");
+                params.add(id);
+            } else {
+                Object value = sort.value().apply(after);
+                conditions.add("(" + sort.expression() + " " + op + " ? OR ("
+                    + sort.expression() + " = ? AND " + idColumn + " " + op + " ?))");
+                params.add(value);
+                params.add(value);
+                params.add(id);
+            }
+        }
+        
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+    
+    private static void bind(PreparedStatement stmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            stmt.setObject(i + 1, params.get(i));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.restaurant.dao;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PageSource - Nguồn dữ liệu phân trang cho LazyTableModel
+ *
+ * Rows are addressed relative to the previous row (keyset), not by OFFSET from the
+ * start, so reading deep into a 100k-row listing costs the same as the first page.
+ *
+ * @param <T> loại dòng (Customer, Reservation...)
+ */
+public interface PageSource<T> {
+    
+    /**
+     * Sort + filter of one listing
+     *
+     * @param sortKey   logical sort key known to the source, null = source default (id)
+     * @param ascending sort direction
+     * @param filter    source-specific filter value (keyword, date, type...), null = none
+     */
+    record Query(String sortKey, boolean ascending, Object filter) {
+        
+        /** Newest first, no filter */
+        public static final Query DEFAULT = new Query(null, false, null);
+        
+        public Query withSort(String key, boolean asc) {
+            return new Query(key, asc, filter);
+        }
+        
+        public Query withFilter(Object value) {
+            return new Query(sortKey, ascending, value);
+        }
+    }
+    
+    /**
+     * Number of rows matching the query
+     */
+    int count(Query query);
+    
+    /**
+     * Up to {@code limit} rows after {@code after} (null = from the first row),
+     * skipping the first {@code skip} of them. A non-zero skip is only used to jump
+     * past pages the user scrolled over without looking at.
+     */
+    List<T> fetch(Query query, T after, int skip, int limit);
+    
+    /**
+     * Fixed, already loaded rows (e.g. ranked search results); sort and filter are ignored
+     */
+    static <T> PageSource<T> ofList(List<T> rows) {
+        Map<T, Integer> positions = new IdentityHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            positions.put(rows.get(i), i);
+        }
+        
+        return new PageSource<>() {
+            @Override
+            public int count(Query query) {
+                return rows.size();
+            }
+            
+            @Override
+            public List<T> fetch(Query query, T after, int skip, int limit) {
+                int from = (after == null ? 0 : positions.getOrDefault(after, rows.size() - 1) + 1) + skip;
+                if (from >= rows.size()) return Collections.emptyList();
+                return rows.subList(from, Math.min(rows.size(), from + limit));
+            }
+        };
+    }
+}
@@ -10,6 +10,8 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -136,6 +138,48 @@ public class ReservationDAO implements IReservationDAO {
         return list;
     }
     
+    @Override
+    public PageSource<Reservation> pagesByDate() {
+        // Half-open range instead of DATE(...) so the reservation_time index is used
+        return new KeysetPageSource<Reservation>(
+                "r.*, t.name as table_name", "reservations r LEFT JOIN tables t ON r.table_id = t.id",
+                "r.id", Reservation::getId, this::mapResultSet)
+            .sortable("time", "r.reservation_time", Reservation::getReservationTime)
+            .filter(f -> {
+                LocalDate date = (LocalDate) f;
+                return KeysetPageSource.Condition.of("r.reservation_time >= ? AND r.reservation_time < ?",
+                    date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+            });
+    }
+    
+    @Override
+    public List<Reservation> findActiveBetween(LocalDateTime from, LocalDateTime to) {
+        String sql = """
+            SELECT r.*, t.name as table_name 
+            FROM reservations r 
+            LEFT JOIN tables t ON r.table_id = t.id 
+            WHERE r.status IN ('PENDING', 'CONFIRMED')
+              AND r.reservation_time >= ? AND r.reservation_time < ?
+            ORDER BY r.reservation_time
+            """;
+        
+        List<Reservation> list = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error finding active reservations {} - {}: {}", from, to, e.getMessage(), e);
+        }
+        return list;
+    }
+    
     @Override
     public List<Reservation> findByPhone(String phone) {
         String sql = """
@@ -275,6 +319,25 @@ public class ReservationDAO implements IReservationDAO {
         return false;
     }
     
+    @Override
+    public int markNotified(Collection<Integer> ids) {
+        if (ids.isEmpty()) return 0;
+        String sql = "UPDATE reservations SET notified = TRUE WHERE id IN (" + placeholders(ids.size()) + ")";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            int i = 1;
+            for (int id : ids) {
+                stmt.setInt(i++, id);
+            }
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Error marking {} reservations notified: {}", ids.size(), e.getMessage(), e);
+        }
+        return 0;
+    }
+    
     @Override
     public boolean delete(int id) {
         String sql = "DELETE FROM reservations WHERE id = ?";
@@ -483,4 +546,29 @@ public class ReservationDAO implements IReservationDAO {
         }
         return 0;
     }
+    
+    @Override
+    public int markNoShows(Collection<Integer> ids) {
+        if (ids.isEmpty()) return 0;
+        // Status guard: a guest who arrived after the deadline fired must not become NO_SHOW
+        String sql = "UPDATE reservations SET status = 'NO_SHOW'"
+            + " WHERE status IN ('PENDING', 'CONFIRMED') AND id IN (" + placeholders(ids.size()) + ")";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            int i = 1;
+            for (int id : ids) {
+                stmt.setInt(i++, id);
+            }
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Error marking no-shows: {}", e.getMessage(), e);
+        }
+        return 0;
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
 }
@@ -6,6 +6,7 @@ import com.restaurant.model.Order;
 import com.restaurant.model.Order.OrderStatus;
 import com.restaurant.model.OrderDetail;
 import com.restaurant.model.OrderDetail.ItemStatus;
+import com.restaurant.util.ReportCache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -259,6 +260,7 @@ public class OrderDAOImpl implements IOrderDAO {
             
             if (affected > 0) {
                 logger.info("Order {} completed", orderId);
+                ReportCache.getInstance().invalidateDay(LocalDate.now());
                 return true;
             }
             
@@ -272,15 +274,27 @@ public class OrderDAOImpl implements IOrderDAO {
     @Override
     public boolean cancel(int orderId, int cancelledBy, String reason) {
         String sql = "UPDATE orders SET status = 'CANCELLED', cancelled_by = ?, cancel_reason = ? WHERE id = ?";
+        // Cancelling a completed order removes it from the revenue of the day it was completed on
+        String daySql = "SELECT completed_at FROM orders WHERE id = ?";
         
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             PreparedStatement dayStmt = conn.prepareStatement(daySql)) {
             
             stmt.setInt(1, cancelledBy);
             stmt.setString(2, reason);
             stmt.setInt(3, orderId);
             
             int affected = stmt.executeUpdate();
+            if (affected > 0) {
+                dayStmt.setInt(1, orderId);
+                try (ResultSet rs = dayStmt.executeQuery()) {
+                    Timestamp completedAt = rs.next() ? rs.getTimestamp(1) : null;
+                    if (completedAt != null) {
+                        ReportCache.getInstance().invalidateDay(completedAt.toLocalDateTime().toLocalDate());
+                    }
+                }
+            }
             return affected > 0;
             
         } catch (SQLException e) {
@@ -1,7 +1,10 @@
 package com.restaurant.dao.interfaces;
 
+import com.restaurant.dao.PageSource;
 import com.restaurant.model.Reservation;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +33,11 @@ public interface IReservationDAO {
      */
     List<Reservation> findByDate(LocalDate date);
     
+    /**
+     * Find PENDING/CONFIRMED reservations with from <= time < to
+     */
+    List<Reservation> findActiveBetween(LocalDateTime from, LocalDateTime to);
+    
     /**
      * Find reservations by customer phone
      */
@@ -60,6 +68,12 @@ public interface IReservationDAO {
      */
     boolean markNotified(int id);
     
+    /**
+     * Mark several reservations as notified in one statement
+     * @return number of rows updated
+     */
+    int markNotified(Collection<Integer> ids);
+    
     /**
      * Delete reservation
      */
@@ -78,7 +92,7 @@ public interface IReservationDAO {
      * @param excludeReservationId Exclude this reservation ID (for updates), pass -1 for new
      * @return true if there is a conflict
      */
-    boolean hasTimeConflict(int tableId, java.time.LocalDateTime startTime, int durationMinutes, int excludeReservationId);
+    boolean hasTimeConflict(int tableId, LocalDateTime startTime, int durationMinutes, int excludeReservationId);
     
     /**
      * Find reservations that are no-shows (past reservation time by threshold minutes, still PENDING/CONFIRMED)
@@ -90,4 +104,15 @@ public interface IReservationDAO {
      * Mark reservations as no-show  
      */
     int markNoShows(int thresholdMinutes);
+    
+    /**
+     * Mark these reservations as no-show if they are still PENDING/CONFIRMED
+     * @return number of rows updated
+     */
+    int markNoShows(Collection<Integer> ids);
+    
+    /**
+     * Paged listing for one day (filter: LocalDate), sort key "time"
+     */
+    PageSource<Reservation> pagesByDate();
 }
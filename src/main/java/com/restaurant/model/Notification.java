@@ -29,6 +29,8 @@ public class Notification {
     private NotificationType type;
     private boolean isRead;
     private Integer relatedId;
+    private String groupKey;
+    private int repeatCount = 1;
     private LocalDateTime createdAt;
     
     // Constructors
@@ -68,6 +70,13 @@ public class Notification {
     public Integer getRelatedId() { return relatedId; }
     public void setRelatedId(Integer relatedId) { this.relatedId = relatedId; }
     
+    /** Unread notifications of the same type and group key are merged into one row */
+    public String getGroupKey() { return groupKey; }
+    public void setGroupKey(String groupKey) { this.groupKey = groupKey; }
+    
+    public int getRepeatCount() { return repeatCount; }
+    public void setRepeatCount(int repeatCount) { this.repeatCount = repeatCount; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
@@ -6,7 +6,10 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Promotion - Khuyến mãi, mã giảm giá
@@ -40,6 +43,7 @@ public class Promotion {
     private String applicableHours;   // "11:00-14:00" or "*"
     private String applicableCategories;
     private String applicableProducts;
+    private volatile Rules rules;     // Compiled from applicable* fields
     
     private Integer usageLimit;
     private Integer usageLimitPerCustomer;
@@ -66,10 +70,15 @@ public class Promotion {
      * Check if promotion is currently valid
      */
     public boolean isValid() {
+        return isValidAt(LocalDateTime.now());
+    }
+    
+    /**
+     * Check if promotion is valid at a given time (uses compiled rules, no string parsing)
+     */
+    public boolean isValidAt(LocalDateTime now) {
         if (!isActive) return false;
         
-        LocalDateTime now = LocalDateTime.now();
-        
         // Check date range
         if (now.isBefore(startDate) || now.isAfter(endDate)) {
             return false;
@@ -80,36 +89,27 @@ public class Promotion {
             return false;
         }
         
-        // Check day of week
-        if (!applicableDays.equals("*")) {
-            String todayCode = now.getDayOfWeek().name().substring(0, 3);
-            if (!applicableDays.toUpperCase().contains(todayCode)) {
-                return false;
-            }
-        }
-        
-        // Check hours
-        if (!applicableHours.equals("*")) {
-            if (!isWithinTimeRange(now.toLocalTime())) {
-                return false;
-            }
-        }
-        
-        return true;
+        // Check day of week + hours
+        return getRules().matches(now);
     }
     
-    private boolean isWithinTimeRange(LocalTime now) {
-        try {
-            String[] parts = applicableHours.split("-");
-            if (parts.length != 2) return true;
-            
-            LocalTime start = LocalTime.parse(parts[0].trim());
-            LocalTime end = LocalTime.parse(parts[1].trim());
-            
-            return !now.isBefore(start) && !now.isAfter(end);
-        } catch (Exception e) {
-            return true;
+    /**
+     * Get compiled applicability rules (parsed once, reset when a rule field changes)
+     */
+    public Rules getRules() {
+        Rules compiled = rules;
+        if (compiled == null) {
+            compiled = Rules.compile(this);
+            rules = compiled;
         }
+        return compiled;
+    }
+    
+    /**
+     * Check if promotion covers a product (by product id or its category)
+     */
+    public boolean appliesTo(int productId, int categoryId) {
+        return getRules().appliesTo(productId, categoryId);
     }
     
     /**
@@ -128,10 +128,18 @@ public class Promotion {
     }
     
     /**
-     * Calculate discount amount
+     * Calculate discount amount (promotion covering the whole bill)
      */
     public BigDecimal calculateDiscount(BigDecimal orderAmount) {
-        if (!isValid() || !meetsMinimumOrder(orderAmount)) {
+        return calculateDiscount(orderAmount, orderAmount);
+    }
+    
+    /**
+     * Calculate discount for a promotion limited to some products/categories:
+     * the minimum order applies to the whole bill, the discount only to {@code eligibleAmount}
+     */
+    public BigDecimal calculateDiscount(BigDecimal orderAmount, BigDecimal eligibleAmount) {
+        if (!isValid() || !meetsMinimumOrder(orderAmount) || eligibleAmount.signum() <= 0) {
             return BigDecimal.ZERO;
         }
         
@@ -139,7 +147,7 @@ public class Promotion {
         
         switch (type) {
             case PERCENT -> {
-                discount = orderAmount.multiply(value).divide(BigDecimal.valueOf(100));
+                discount = eligibleAmount.multiply(value).divide(BigDecimal.valueOf(100));
                 if (maxDiscount != null && discount.compareTo(maxDiscount) > 0) {
                     discount = maxDiscount;
                 }
@@ -148,9 +156,9 @@ public class Promotion {
             default -> discount = BigDecimal.ZERO;
         }
         
-        // Cannot exceed order amount
-        if (discount.compareTo(orderAmount) > 0) {
-            discount = orderAmount;
+        // Cannot exceed the amount it applies to
+        if (discount.compareTo(eligibleAmount) > 0) {
+            discount = eligibleAmount;
         }
         
         return discount;
@@ -219,16 +227,16 @@ public class Promotion {
     public void setEndDate(LocalDateTime endDate) { this.endDate = endDate; }
     
     public String getApplicableDays() { return applicableDays; }
-    public void setApplicableDays(String applicableDays) { this.applicableDays = applicableDays; }
+    public void setApplicableDays(String applicableDays) { this.applicableDays = applicableDays; this.rules = null; }
     
     public String getApplicableHours() { return applicableHours; }
-    public void setApplicableHours(String applicableHours) { this.applicableHours = applicableHours; }
+    public void setApplicableHours(String applicableHours) { this.applicableHours = applicableHours; this.rules = null; }
     
     public String getApplicableCategories() { return applicableCategories; }
-    public void setApplicableCategories(String applicableCategories) { this.applicableCategories = applicableCategories; }
+    public void setApplicableCategories(String applicableCategories) { this.applicableCategories = applicableCategories; this.rules = null; }
     
     public String getApplicableProducts() { return applicableProducts; }
-    public void setApplicableProducts(String applicableProducts) { this.applicableProducts = applicableProducts; }
+    public void setApplicableProducts(String applicableProducts) { this.applicableProducts = applicableProducts; this.rules = null; }
     
     public Integer getUsageLimit() { return usageLimit; }
     public void setUsageLimit(Integer usageLimit) { this.usageLimit = usageLimit; }
@@ -251,6 +259,116 @@ public class Promotion {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
+    // ============ Compiled rules ============
+    
+    /**
+     * Applicability rules compiled once from the applicable* strings:
+     * day-of-week bitmask, minute-of-day intervals and category/product id sets.
+     */
+    public static final class Rules {
+        private static final int ALL_DAYS = 0x7F;
+        
+        private final int dayMask;              // bit (dayOfWeek - 1)
+        private final int[] minuteRanges;       // [start0, end0, start1, end1, ...], null = cả ngày
+        private final Set<Integer> categoryIds; // null = tất cả
+        private final Set<Integer> productIds;  // null = tất cả
+        
+        private Rules(int dayMask, int[] minuteRanges, Set<Integer> categoryIds, Set<Integer> productIds) {
+            this.dayMask = dayMask;
+            this.minuteRanges = minuteRanges;
+            this.categoryIds = categoryIds;
+            this.productIds = productIds;
+        }
+        
+        static Rules compile(Promotion p) {
+            return new Rules(
+                parseDays(p.applicableDays),
+                parseHours(p.applicableHours),
+                parseIds(p.applicableCategories),
+                parseIds(p.applicableProducts)
+            );
+        }
+        
+        public boolean matches(LocalDateTime now) {
+            return matchesDay(now.getDayOfWeek())
+                && matchesMinute(now.getHour() * 60 + now.getMinute());
+        }
+        
+        public boolean matchesDay(DayOfWeek day) {
+            return (dayMask & (1 << (day.getValue() - 1))) != 0;
+        }
+        
+        public boolean matchesMinute(int minuteOfDay) {
+            if (minuteRanges == null) return true;
+            for (int i = 0; i < minuteRanges.length; i += 2) {
+                int start = minuteRanges[i];
+                int end = minuteRanges[i + 1];
+                boolean inRange = start <= end
+                    ? minuteOfDay >= start && minuteOfDay <= end
+                    : minuteOfDay >= start || minuteOfDay <= end; // Qua nửa đêm (22:00-02:00)
+                if (inRange) return true;
+            }
+            return false;
+        }
+        
+        /**
+         * True if limited to some products or categories
+         */
+        public boolean isScoped() {
+            return categoryIds != null || productIds != null;
+        }
+        
+        public boolean appliesTo(int productId, int categoryId) {
+            if (!isScoped()) return true;
+            return (productIds != null && productIds.contains(productId))
+                || (categoryIds != null && categoryIds.contains(categoryId));
+        }
+        
+        public int getDayMask() { return dayMask; }
+        
+        private static int parseDays(String days) {
+            if (days == null || days.isBlank() || days.trim().equals("*")) return ALL_DAYS;
+            String upper = days.toUpperCase();
+            int mask = 0;
+            for (DayOfWeek d : DayOfWeek.values()) {
+                if (upper.contains(d.name().substring(0, 3))) {
+                    mask |= 1 << (d.getValue() - 1);
+                }
+            }
+            return mask;
+        }
+        
+        private static int[] parseHours(String hours) {
+            if (hours == null || hours.isBlank() || hours.trim().equals("*")) return null;
+            try {
+                String[] ranges = hours.split(",");
+                int[] result = new int[ranges.length * 2];
+                for (int i = 0; i < ranges.length; i++) {
+                    String[] parts = ranges[i].split("-");
+                    if (parts.length != 2) return null;
+                    LocalTime start = LocalTime.parse(parts[0].trim());
+                    LocalTime end = LocalTime.parse(parts[1].trim());
+                    result[i * 2] = start.getHour() * 60 + start.getMinute();
+                    result[i * 2 + 1] = end.getHour() * 60 + end.getMinute();
+                }
+                return result;
+            } catch (Exception e) {
+                return null; // Sai định dạng = không giới hạn giờ (như trước)
+            }
+        }
+        
+        private static Set<Integer> parseIds(String ids) {
+            if (ids == null || ids.isBlank() || ids.trim().equals("*")) return null;
+            Set<Integer> result = new HashSet<>();
+            for (String token : ids.split("[^0-9]+")) {
+                if (!token.isEmpty()) {
+                    result.add(Integer.parseInt(token));
+                }
+            }
+            return result.isEmpty() ? null : Collections.unmodifiableSet(result);
+        }
+    }
+    
     @Override
     public String toString() {
         return name + " (" + (code != null ? code : "Auto") + ")";
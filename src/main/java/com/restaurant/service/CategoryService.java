@@ -3,9 +3,12 @@ package com.restaurant.service;
 import com.restaurant.dao.impl.CategoryDAOImpl;
 import com.restaurant.dao.interfaces.ICategoryDAO;
 import com.restaurant.model.Category;
+import com.restaurant.util.Prefetched;
+import com.restaurant.util.SingleFlight;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,8 +20,18 @@ public class CategoryService {
     private static final Logger logger = LogManager.getLogger(CategoryService.class);
     private static CategoryService instance;
     
+    /** Prefetched categories older than this are ignored */
+    private static final long PREFETCH_TTL_MS = 10 * 60_000L;
+    
+    /** POS and menu screens opening together share one query */
+    private static final long MIN_RELOAD_MS = 2_000;
+    private static final String ALL = "all";
+    
     private final ICategoryDAO categoryDAO;
     
+    private final Prefetched<List<Category>> prefetchedCategories = new Prefetched<>(PREFETCH_TTL_MS);
+    private final SingleFlight<String, List<Category>> categoryLoads = new SingleFlight<>(MIN_RELOAD_MS);
+    
     private CategoryService() {
         this.categoryDAO = new CategoryDAOImpl();
     }
@@ -34,7 +47,17 @@ public class CategoryService {
      * Get all active categories
      */
     public List<Category> getAllCategories() {
-        return categoryDAO.findAll();
+        List<Category> prefetched = prefetchedCategories.take();
+        if (prefetched != null) return prefetched;
+        // Screens opened together share one query; each caller gets its own list
+        return new ArrayList<>(categoryLoads.load(ALL, categoryDAO::findAll));
+    }
+    
+    /**
+     * Load categories ahead of the first screen (startup warm-up)
+     */
+    public void prefetchCategories() {
+        prefetchedCategories.put(categoryDAO.findAll());
     }
     
     /**
@@ -77,6 +100,8 @@ public class CategoryService {
         category.setActive(true);
         
         boolean success = categoryDAO.insert(category);
+        prefetchedCategories.clear();
+        categoryLoads.invalidate(ALL);
         if (success) {
             logger.info("Category created: {}", category.getName());
             return ServiceResult.success(category, "Đã tạo danh mục: " + category.getName());
@@ -109,6 +134,8 @@ public class CategoryService {
         category.setName(category.getName().trim());
         
         boolean success = categoryDAO.update(category);
+        prefetchedCategories.clear();
+        categoryLoads.invalidate(ALL);
         if (success) {
             logger.info("Category updated: {}", category.getName());
             return ServiceResult.success(category, "Đã cập nhật danh mục");
@@ -134,6 +161,8 @@ public class CategoryService {
         }
         
         boolean success = categoryDAO.deactivate(categoryId);
+        prefetchedCategories.clear();
+        categoryLoads.invalidate(ALL);
         if (success) {
             logger.info("Category deleted: {}", categoryId);
             return ServiceResult.success(null, "Đã xóa danh mục");
@@ -1,9 +1,13 @@
 package com.restaurant.service;
 
 import com.restaurant.config.DatabaseConnection;
+import com.restaurant.dao.KeysetPageSource;
+import com.restaurant.dao.PageSource;
 import com.restaurant.model.Customer;
 import com.restaurant.model.Customer.CustomerTier;
 import com.restaurant.model.Customer.Gender;
+import com.restaurant.util.PhonePrefixIndex;
+import com.restaurant.util.SearchIndex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -11,7 +15,13 @@ import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Customer Service - Quản lý khách hàng và loyalty
@@ -21,6 +31,30 @@ public class CustomerService {
     private static final Logger logger = LogManager.getLogger(CustomerService.class);
     private static CustomerService instance;
     
+    /** In-memory phone directory (active customers) for instant lookup at checkout */
+    private final PhonePrefixIndex phoneIndex = new PhonePrefixIndex();
+    /** Diacritic-insensitive name/phone/email index (active customers) */
+    private final SearchIndex<Customer> searchIndex =
+        new SearchIndex<>(Customer::getId, Customer::getFullName, Customer::getPhone, Customer::getEmail);
+    private volatile boolean phoneIndexLoaded = false;
+    private final AtomicBoolean directoryLoading = new AtomicBoolean();
+    private volatile long directoryAttemptAt;
+    /** Bumped on every directory change, so cached search results know they are stale */
+    private final AtomicLong directoryVersion = new AtomicLong();
+    /** One-shot callbacks waiting for the directory load to finish */
+    private final List<Runnable> directoryWaiters = new CopyOnWriteArrayList<>();
+    
+    /** A failed directory load is retried in the background at most this often */
+    private static final long DIRECTORY_RETRY_MS = 30_000;
+    
+    /** Search results shown in the customer table (ranked, in memory) */
+    private static final int SEARCH_RESULT_LIMIT = 500;
+    
+    /** Stat cards are refreshed at most this often */
+    private static final long STATS_TTL_MS = 30_000;
+    private static final int STATS_TOP_SPENDERS = 5;
+    private volatile CustomerStats cachedStats;
+    
     private CustomerService() {}
     
     public static synchronized CustomerService getInstance() {
@@ -66,7 +100,29 @@ public class CustomerService {
         return null;
     }
     
+    /**
+     * Checkout lookup: always read from the database, since points, tier or is_active may
+     * have been changed on another terminal. The directory only resolves phone -> id (primary
+     * key read); the row read refreshes the cached entry used by suggest/search.
+     */
     public Customer getByPhone(String phone) {
+        PhonePrefixIndex.Entry entry = directoryReady() ? phoneIndex.find(phone) : null;
+        if (entry != null) {
+            Customer customer = getById(entry.getId());
+            boolean samePhone = customer != null
+                && PhonePrefixIndex.normalize(phone).equals(PhonePrefixIndex.normalize(customer.getPhone()));
+            if (samePhone && customer.isActive()) {
+                index(customer);
+                return customer;
+            }
+            if (customer != null) {
+                // Deactivated or phone changed elsewhere: drop the stale entry, look up by phone
+                unindex(entry.getId());
+            }
+        }
+        
+        // Miss (customer may have been created on another terminal) or directory still loading:
+        // one indexed single-row query
         String sql = "SELECT * FROM customers WHERE phone = ? AND is_active = TRUE";
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -74,7 +130,9 @@ public class CustomerService {
             stmt.setString(1, phone);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return mapCustomer(rs);
+                    Customer customer = mapCustomer(rs);
+                    index(customer);
+                    return customer;
                 }
             }
         } catch (SQLException e) {
@@ -83,33 +141,78 @@ public class CustomerService {
         return null;
     }
     
+    /**
+     * Phone prefix suggestions as the cashier types (no DB round trip)
+     */
+    public List<PhonePrefixIndex.Entry> suggestByPhone(String prefix, int limit) {
+        if (!directoryReady()) return Collections.emptyList();
+        return phoneIndex.suggest(prefix, limit);
+    }
+    
     public List<Customer> searchCustomers(String keyword) {
-        List<Customer> customers = new ArrayList<>();
-        String sql = """
-            SELECT * FROM customers 
-            WHERE is_active = TRUE 
-              AND (full_name LIKE ? OR phone LIKE ? OR email LIKE ?)
-            ORDER BY full_name
-            LIMIT 20
-            """;
+        if (!directoryReady()) return Collections.emptyList();
+        return searchIndex.search(keyword, 20);
+    }
+    
+    /**
+     * Paged customer listing for LazyTableModel
+     *
+     * Sort keys: name, points, spent, visits (default: newest first).
+     * A non-empty keyword filter is answered from the in-memory search index; while the
+     * directory is still loading it matches nothing and {@code onDirectoryLoaded} runs
+     * (on the loader thread) once it is in memory, so the caller can reload.
+     */
+    public PageSource<Customer> customerPages(Runnable onDirectoryLoaded) {
+        KeysetPageSource<Customer> table = new KeysetPageSource<Customer>(
+                "*", "customers", "id", Customer::getId, this::mapCustomer)
+            .where("is_active = TRUE")
+            .sortable("name", "full_name", Customer::getFullName)
+            .sortable("points", "COALESCE(loyalty_points, 0)", Customer::getLoyaltyPoints)
+            .sortable("spent", "COALESCE(total_spent, 0)",
+                c -> c.getTotalSpent() != null ? c.getTotalSpent() : BigDecimal.ZERO)
+            .sortable("visits", "COALESCE(visit_count, 0)", Customer::getVisitCount);
         
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        return new PageSource<>() {
+            private String keyword;
+            private long version;
+            private PageSource<Customer> results;
+            private boolean waitingForDirectory;
             
-            String pattern = "%" + keyword + "%";
-            stmt.setString(1, pattern);
-            stmt.setString(2, pattern);
-            stmt.setString(3, pattern);
+            @Override
+            public int count(Query query) {
+                return sourceFor(query).count(query);
+            }
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    customers.add(mapCustomer(rs));
+            @Override
+            public List<Customer> fetch(Query query, Customer after, int skip, int limit) {
+                return sourceFor(query).fetch(query, after, skip, limit);
+            }
+            
+            private synchronized PageSource<Customer> sourceFor(Query query) {
+                String filter = query.filter() != null ? query.filter().toString().trim() : "";
+                if (filter.isEmpty()) return table;
+                if (!directoryReady()) {
+                    if (!waitingForDirectory) {
+                        waitingForDirectory = true;
+                        whenDirectoryReady(() -> {
+                            synchronized (this) {
+                                waitingForDirectory = false;
+                            }
+                            onDirectoryLoaded.run();
+                        });
+                    }
+                    return PageSource.ofList(List.of());
+                }
+                // Same keyword and no customer changed since: reuse the ranked results
+                long current = directoryVersion.get();
+                if (!filter.equals(keyword) || current != version) {
+                    keyword = filter;
+                    version = current;
+                    results = PageSource.ofList(searchIndex.search(filter, SEARCH_RESULT_LIMIT));
                 }
+                return results;
             }
-        } catch (SQLException e) {
-            logger.error("Error searching customers", e);
-        }
-        return customers;
+        };
     }
     
     public boolean createCustomer(Customer customer) {
@@ -137,6 +240,7 @@ public class CustomerService {
                     }
                 }
                 logger.info("Created customer: {} ({})", customer.getFullName(), customer.getPhone());
+                index(customer);
                 return true;
             }
         } catch (SQLException e) {
@@ -166,7 +270,11 @@ public class CustomerService {
             stmt.setString(8, customer.getTier().name());
             stmt.setInt(9, customer.getId());
             
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                index(customer);
+            }
+            return updated;
         } catch (SQLException e) {
             logger.error("Error updating customer", e);
             return false;
@@ -179,60 +287,188 @@ public class CustomerService {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                unindex(id);
+            }
+            return deleted;
         } catch (SQLException e) {
             logger.error("Error deleting customer", e);
             return false;
         }
     }
     
+    // ==================== PHONE DIRECTORY ====================
+    
+    /**
+     * Load the customer directory (phone + search indexes) from the database.
+     * Called from the startup warm-up and from the background retry; never on the EDT.
+     * Returns at once if another thread is already loading it.
+     */
+    public void loadDirectory() {
+        if (!directoryLoading.compareAndSet(false, true)) return;
+        try {
+            directoryAttemptAt = System.currentTimeMillis();
+            String sql = "SELECT * FROM customers WHERE is_active = TRUE";
+            List<Customer> customers = new ArrayList<>();
+            
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                
+                while (rs.next()) {
+                    customers.add(mapCustomer(rs));
+                }
+            } catch (SQLException e) {
+                logger.error("Error loading customer directory", e);
+                return;
+            }
+            
+            List<PhonePrefixIndex.Entry> entries = new ArrayList<>(customers.size());
+            for (Customer c : customers) {
+                entries.add(toPhoneEntry(c));
+            }
+            phoneIndex.load(entries);
+            searchIndex.rebuild(customers);
+            directoryVersion.incrementAndGet();
+            phoneIndexLoaded = true;
+            logger.info("Loaded customer directory: {} customers", customers.size());
+        } finally {
+            directoryLoading.set(false);
+        }
+        if (phoneIndexLoaded) {
+            runDirectoryWaiters();
+        }
+    }
+    
+    /**
+     * Run {@code action} once the directory is in memory: now if it already is,
+     * otherwise on the loader thread when the load finishes
+     */
+    public void whenDirectoryReady(Runnable action) {
+        directoryWaiters.add(action);
+        if (phoneIndexLoaded) {
+            runDirectoryWaiters();
+        }
+    }
+    
+    private void runDirectoryWaiters() {
+        for (Runnable waiter : directoryWaiters) {
+            if (directoryWaiters.remove(waiter)) {
+                waiter.run();
+            }
+        }
+    }
+    
+    /**
+     * True if the directory is in memory. Otherwise the caller gets an empty result and,
+     * unless a load is running or one failed less than DIRECTORY_RETRY_MS ago, a
+     * background load is started - the caller's thread (often the EDT) never waits for it.
+     */
+    private boolean directoryReady() {
+        if (phoneIndexLoaded) return true;
+        long now = System.currentTimeMillis();
+        if (!directoryLoading.get() && now - directoryAttemptAt > DIRECTORY_RETRY_MS) {
+            directoryAttemptAt = now;       // One loader per retry window, however fast the cashier types
+            Thread loader = new Thread(this::loadDirectory, "customer-directory");
+            loader.setDaemon(true);
+            loader.start();
+        }
+        return false;
+    }
+    
+    private void index(Customer c) {
+        phoneIndex.put(toPhoneEntry(c));
+        searchIndex.put(c);
+        directoryVersion.incrementAndGet();
+        cachedStats = null;
+    }
+    
+    private void unindex(int customerId) {
+        phoneIndex.remove(customerId);
+        searchIndex.remove(customerId);
+        directoryVersion.incrementAndGet();
+        cachedStats = null;
+    }
+    
+    /** Index the customer row as written by a loyalty transaction so indexed points/tier stay current */
+    private void reindex(Customer c) {
+        if (phoneIndexLoaded && c.isActive()) {
+            index(c);
+        }
+    }
+    
+    private PhonePrefixIndex.Entry toPhoneEntry(Customer c) {
+        return new PhonePrefixIndex.Entry(c.getId(), c.getPhone(), c.getFullName(),
+            c.getTier() != null ? c.getTier().name() : null);
+    }
+    
     // ==================== LOYALTY ====================
     
     /**
-     * Process order completion: update stats, earn points
+     * Process order completion: update stats, earn points.
+     * One transaction: lock the customer row, compute points/tier/balance in Java,
+     * write customer + ledger with the exact balance.
      */
     public void processOrderCompletion(int customerId, int orderId, BigDecimal orderAmount) {
-        Customer customer = getById(customerId);
-        if (customer == null) return;
-        
-        // Calculate points earned
-        int pointsEarned = customer.calculatePointsFromAmount(orderAmount);
-        
-        // Update customer stats
         String updateSql = """
             UPDATE customers SET 
                 visit_count = visit_count + 1,
-                total_spent = total_spent + ?,
-                loyalty_points = loyalty_points + ?,
+                total_spent = ?,
+                loyalty_points = ?,
                 last_visit = CURDATE(),
                 tier = ?
             WHERE id = ?
             """;
         
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(updateSql)) {
-            
-            // Update tier based on new total
-            customer.setTotalSpent(customer.getTotalSpent().add(orderAmount));
-            customer.updateTier();
-            
-            stmt.setBigDecimal(1, orderAmount);
-            stmt.setInt(2, pointsEarned);
-            stmt.setString(3, customer.getTier().name());
-            stmt.setInt(4, customerId);
-            stmt.executeUpdate();
-            
-            // Record loyalty transaction
-            if (pointsEarned > 0) {
-                recordLoyaltyTransaction(customerId, orderId, pointsEarned, "EARN", 
-                    "Tích điểm từ đơn hàng #" + orderId);
+        int pointsEarned;
+        BigDecimal newTotal;
+        Customer customer;
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                customer = lockCustomer(conn, customerId);
+                if (customer == null) {
+                    conn.rollback();
+                    return;
+                }
+                
+                // Points use the tier before this order; tier is then recomputed from the new total
+                pointsEarned = customer.calculatePointsFromAmount(orderAmount);
+                newTotal = customer.getTotalSpent().add(orderAmount);
+                customer.setTotalSpent(newTotal);
+                customer.updateTier();
+                int balance = customer.getLoyaltyPoints() + pointsEarned;
+                
+                try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                    stmt.setBigDecimal(1, newTotal);
+                    stmt.setInt(2, balance);
+                    stmt.setString(3, customer.getTier().name());
+                    stmt.setInt(4, customerId);
+                    stmt.executeUpdate();
+                }
+                
+                if (pointsEarned > 0) {
+                    insertLedger(conn, customerId, orderId, pointsEarned, balance, "EARN",
+                        "Tích điểm từ đơn hàng #" + orderId);
+                }
+                
+                conn.commit();
+                customer.setLoyaltyPoints(balance);
+                customer.setVisitCount(customer.getVisitCount() + 1);
+                customer.setLastVisit(LocalDate.now());
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
-            
-            logger.info("Processed order for customer {}: +{} points, total spent: {}", 
-                customerId, pointsEarned, customer.getTotalSpent().add(orderAmount));
         } catch (SQLException e) {
             logger.error("Error processing order completion", e);
+            return;
         }
+        
+        reindex(customer);
+        logger.info("Processed order for customer {}: +{} points, total spent: {}", 
+            customerId, pointsEarned, newTotal);
     }
     
     /**
@@ -240,63 +476,92 @@ public class CustomerService {
      * @return discount amount (1 point = 100đ)
      */
     public BigDecimal redeemPoints(int customerId, int orderId, int pointsToRedeem) {
-        Customer customer = getById(customerId);
-        if (customer == null || pointsToRedeem > customer.getLoyaltyPoints()) {
+        if (pointsToRedeem <= 0) {
             return BigDecimal.ZERO;
         }
         
-        String sql = "UPDATE customers SET loyalty_points = loyalty_points - ? WHERE id = ?";
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, pointsToRedeem);
-            stmt.setInt(2, customerId);
-            
-            if (stmt.executeUpdate() > 0) {
-                recordLoyaltyTransaction(customerId, orderId, -pointsToRedeem, "REDEEM", 
-                    "Đổi điểm cho đơn hàng #" + orderId);
-                
-                // 1 point = 100đ
-                return BigDecimal.valueOf(pointsToRedeem * 100);
-            }
-        } catch (SQLException e) {
-            logger.error("Error redeeming points", e);
-        }
-        return BigDecimal.ZERO;
+        boolean redeemed = changePoints(customerId, orderId, -pointsToRedeem, "REDEEM",
+            "Đổi điểm cho đơn hàng #" + orderId);
+        
+        // 1 point = 100đ
+        return redeemed ? BigDecimal.valueOf(pointsToRedeem * 100L) : BigDecimal.ZERO;
+    }
+    
+    /**
+     * Give back points redeemed for an order whose payment did not complete
+     */
+    public boolean refundPoints(int customerId, int orderId, int points) {
+        return changePoints(customerId, orderId, points, "ADJUST",
+            "Hoàn điểm đơn hàng #" + orderId + " (thanh toán không thành công)");
     }
     
     /**
      * Add bonus points (promotion, birthday, etc.)
      */
     public boolean addBonusPoints(int customerId, int points, String reason) {
-        String sql = "UPDATE customers SET loyalty_points = loyalty_points + ? WHERE id = ?";
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, points);
-            stmt.setInt(2, customerId);
-            
-            if (stmt.executeUpdate() > 0) {
-                recordLoyaltyTransaction(customerId, null, points, "BONUS", reason);
-                return true;
+        return changePoints(customerId, null, points, "BONUS", reason);
+    }
+    
+    /**
+     * Change the point balance in one transaction on the locked customer row.
+     * Fails (no change) if the balance would go negative.
+     */
+    private boolean changePoints(int customerId, Integer orderId, int pointsChange, 
+                                 String type, String description) {
+        String updateSql = "UPDATE customers SET loyalty_points = ? WHERE id = ?";
+        
+        Customer customer;
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                customer = lockCustomer(conn, customerId);
+                int balance = customer != null ? customer.getLoyaltyPoints() + pointsChange : -1;
+                if (balance < 0) {
+                    conn.rollback();
+                    return false;
+                }
+                
+                try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                    stmt.setInt(1, balance);
+                    stmt.setInt(2, customerId);
+                    stmt.executeUpdate();
+                }
+                insertLedger(conn, customerId, orderId, pointsChange, balance, type, description);
+                
+                conn.commit();
+                customer.setLoyaltyPoints(balance);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
         } catch (SQLException e) {
-            logger.error("Error adding bonus points", e);
+            logger.error("Error changing loyalty points ({})", type, e);
+            return false;
         }
-        return false;
+        
+        reindex(customer);
+        return true;
     }
     
-    private void recordLoyaltyTransaction(int customerId, Integer orderId, int pointsChange, 
-                                          String type, String description) {
+    private Customer lockCustomer(Connection conn, int customerId) throws SQLException {
+        String sql = "SELECT * FROM customers WHERE id = ? FOR UPDATE";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, customerId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapCustomer(rs) : null;
+            }
+        }
+    }
+    
+    private void insertLedger(Connection conn, int customerId, Integer orderId, int pointsChange,
+                              int balanceAfter, String type, String description) throws SQLException {
         String sql = """
             INSERT INTO loyalty_transactions 
                 (customer_id, order_id, points_change, balance_after, transaction_type, description)
-            VALUES (?, ?, ?, (SELECT loyalty_points FROM customers WHERE id = ?), ?, ?)
+            VALUES (?, ?, ?, ?, ?, ?)
             """;
         
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, customerId);
             if (orderId != null) {
                 stmt.setInt(2, orderId);
@@ -304,18 +569,106 @@ public class CustomerService {
                 stmt.setNull(2, Types.INTEGER);
             }
             stmt.setInt(3, pointsChange);
-            stmt.setInt(4, customerId);
+            stmt.setInt(4, balanceAfter);
             stmt.setString(5, type);
             stmt.setString(6, description);
-            
             stmt.executeUpdate();
-        } catch (SQLException e) {
-            logger.error("Error recording loyalty transaction", e);
         }
     }
     
     // ==================== STATS ====================
     
+    /**
+     * Customer statistics snapshot (cached for a few seconds)
+     */
+    public static final class CustomerStats {
+        private final Map<CustomerTier, Integer> countByTier;
+        private final int activeTotal;
+        private final int upcomingBirthdays;
+        private final List<Customer> topSpenders;
+        private final long loadedAt;
+        
+        CustomerStats(Map<CustomerTier, Integer> countByTier, int activeTotal, int upcomingBirthdays,
+                      List<Customer> topSpenders, long loadedAt) {
+            this.countByTier = Collections.unmodifiableMap(countByTier);
+            this.activeTotal = activeTotal;
+            this.upcomingBirthdays = upcomingBirthdays;
+            this.topSpenders = Collections.unmodifiableList(topSpenders);
+            this.loadedAt = loadedAt;
+        }
+        
+        public int getCount(CustomerTier tier) { return countByTier.getOrDefault(tier, 0); }
+        public Map<CustomerTier, Integer> getCountByTier() { return countByTier; }
+        public int getActiveTotal() { return activeTotal; }
+        public int getUpcomingBirthdays() { return upcomingBirthdays; }
+        public List<Customer> getTopSpenders() { return topSpenders; }
+        public long getLoadedAt() { return loadedAt; }
+    }
+    
+    /**
+     * Counts by tier, active total and birthdays in the next 7 days (one grouped query)
+     * plus the top spenders. Cached for STATS_TTL_MS.
+     */
+    public CustomerStats getStats() {
+        CustomerStats stats = cachedStats;
+        if (stats != null && System.currentTimeMillis() - stats.getLoadedAt() < STATS_TTL_MS) {
+            return stats;
+        }
+        
+        String groupedSql = """
+            SELECT tier, COUNT(*) AS total,
+                   SUM(CASE WHEN birthday IS NOT NULL AND DATEDIFF(
+                           DATE_ADD(birthday, INTERVAL YEAR(CURDATE()) - YEAR(birthday)
+                               + IF(DATE_FORMAT(birthday, '%m%d') < DATE_FORMAT(CURDATE(), '%m%d'), 1, 0) YEAR),
+                           CURDATE()) BETWEEN 0 AND 7
+                       THEN 1 ELSE 0 END) AS birthdays
+            FROM customers
+            WHERE is_active = TRUE
+            GROUP BY tier
+            """;
+        String topSql = "SELECT * FROM customers WHERE is_active = TRUE ORDER BY total_spent DESC LIMIT ?";
+        
+        Map<CustomerTier, Integer> countByTier = new EnumMap<>(CustomerTier.class);
+        int total = 0;
+        int birthdays = 0;
+        List<Customer> top = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(groupedSql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int count = rs.getInt("total");
+                    countByTier.put(CustomerTier.valueOf(rs.getString("tier")), count);
+                    total += count;
+                    birthdays += rs.getInt("birthdays");
+                }
+            }
+            
+            try (PreparedStatement stmt = conn.prepareStatement(topSql)) {
+                stmt.setInt(1, STATS_TOP_SPENDERS);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        top.add(mapCustomer(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error loading customer stats", e);
+            return stats != null ? stats : new CustomerStats(countByTier, 0, 0, top, 0);
+        }
+        
+        stats = new CustomerStats(countByTier, total, birthdays, top, System.currentTimeMillis());
+        cachedStats = stats;
+        return stats;
+    }
+    
+    /**
+     * Force the next getStats() to hit the database
+     */
+    public void invalidateStats() {
+        cachedStats = null;
+    }
+    
     public int getTotalCustomers() {
         String sql = "SELECT COUNT(*) FROM customers WHERE is_active = TRUE";
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
@@ -1,11 +1,15 @@
 package com.restaurant.service;
 
 import com.restaurant.config.DatabaseConnection;
+import com.restaurant.dao.KeysetPageSource;
+import com.restaurant.dao.PageSource;
 import com.restaurant.model.Recipe;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -114,6 +118,8 @@ public class InventoryService {
             
             conn.commit();
             logger.info("Deducted ingredients for product {} x{}", productId, quantity);
+            LiveStatsService.getInstance().onStockChanged(
+                recipes.stream().map(Recipe::getIngredientId).toList());
             return true;
             
         } catch (SQLException e) {
@@ -170,6 +176,37 @@ public class InventoryService {
         return warnings;
     }
     
+    // ==================== STOCK HISTORY ====================
+    
+    /**
+     * One row of stock_transactions for the history table
+     */
+    public record StockMovement(int id, LocalDateTime createdAt, String type, String ingredientName,
+                                String unit, BigDecimal quantity, String note, String username) {}
+    
+    /**
+     * Paged stock history, newest first; filter is the type (IN, OUT, ADJUSTMENT, SALE)
+     */
+    public PageSource<StockMovement> getStockMovementPages() {
+        return new KeysetPageSource<StockMovement>(
+                "st.id, st.created_at, st.type, st.quantity, st.note, i.name AS ingredient_name, i.unit, u.username",
+                "stock_transactions st JOIN ingredients i ON st.ingredient_id = i.id LEFT JOIN users u ON st.user_id = u.id",
+                "st.id", StockMovement::id, rs -> {
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    return new StockMovement(
+                        rs.getInt("id"),
+                        createdAt != null ? createdAt.toLocalDateTime() : null,
+                        rs.getString("type"),
+                        rs.getString("ingredient_name"),
+                        rs.getString("unit"),
+                        rs.getBigDecimal("quantity"),
+                        rs.getString("note"),
+                        rs.getString("username"));
+                })
+            .sortable("quantity", "st.quantity", StockMovement::quantity)
+            .filter(type -> KeysetPageSource.Condition.of("st.type = ?", type.toString()));
+    }
+    
     /**
      * Set training mode on/off
      */
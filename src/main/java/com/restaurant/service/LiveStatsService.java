@@ -0,0 +1,391 @@
+package com.restaurant.service;
+
+import com.restaurant.config.DatabaseConnection;
+import com.restaurant.util.KitchenOrderManager;
+import com.restaurant.util.KitchenOrderManager.KitchenOrder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Live Stats Service - Số liệu trong ngày cho Dashboard, giữ trong bộ nhớ
+ *
+ * - Tải tổng hôm nay một lần (doanh thu, số đơn, số khách, đơn trong bếp,
+ *   thời gian ra món trung bình, nguyên liệu sắp hết)
+ * - Cập nhật từng phần khi đơn hoàn thành / bị hủy, bếp đổi trạng thái, kho bị trừ
+ * - Đối soát lại với database định kỳ và khi sang ngày mới
+ *
+ * All state is owned by the single "live-stats" thread; event methods only queue
+ * work, so callers on the EDT never wait for the database. Listeners receive an
+ * immutable snapshot on that thread.
+ */
+public class LiveStatsService {
+    
+    private static final Logger logger = LogManager.getLogger(LiveStatsService.class);
+    private static LiveStatsService instance;
+    
+    private static final long RECONCILE_MINUTES = 5;
+    
+    /**
+     * Nguyên liệu dưới mức tối thiểu
+     */
+    public record LowStockItem(int ingredientId, String name, double quantity, double minQuantity, String unit) {}
+    
+    /**
+     * Snapshot of today's numbers (immutable)
+     */
+    public record LiveStats(LocalDate day, BigDecimal revenue, int completedOrders, int covers,
+                            int openTickets, double avgTicketMinutes, List<LowStockItem> lowStockItems) {
+        
+        public int lowStockCount() {
+            return lowStockItems.size();
+        }
+    }
+    
+    private record OrderTotals(BigDecimal total, int guests) {}
+    
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "live-stats");
+        t.setDaemon(true);
+        return t;
+    });
+    private final List<Consumer<LiveStats>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean started;
+    
+    // State - worker thread only
+    private LocalDate day;
+    private final Map<Integer, OrderTotals> completedOrders = new HashMap<>();
+    private BigDecimal revenue = BigDecimal.ZERO;
+    private int covers;
+    private int openTickets;
+    /** Kitchen time per ticket, keyed by order code (POS-created tickets have no DB id) */
+    private final Map<String, Long> ticketSeconds = new HashMap<>();
+    private long ticketSecondsTotal;
+    private final Map<Integer, LowStockItem> lowStock = new HashMap<>();
+    
+    private volatile LiveStats snapshot;
+    
+    private LiveStatsService() {}
+    
+    public static synchronized LiveStatsService getInstance() {
+        if (instance == null) {
+            instance = new LiveStatsService();
+        }
+        return instance;
+    }
+    
+    /**
+     * Load today's totals and start listening / reconciling; safe to call repeatedly
+     */
+    public synchronized void start() {
+        if (started) return;
+        started = true;
+        
+        KitchenOrderManager kitchen = KitchenOrderManager.getInstance();
+        kitchen.addListener(this::onKitchenChanged);
+        kitchen.addReadyListener(this::onTicketReady);
+        
+        worker.scheduleWithFixedDelay(this::reconcile, 0, RECONCILE_MINUTES, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Latest snapshot, or null before the first load finished
+     */
+    public LiveStats getSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Re-read everything from the database now (manual refresh)
+     */
+    public void reconcileNow() {
+        if (started) {
+            worker.execute(this::reconcile);
+        }
+    }
+    
+    public void addListener(Consumer<LiveStats> listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(Consumer<LiveStats> listener) {
+        listeners.remove(listener);
+    }
+    
+    // ==================== EVENTS ====================
+    
+    /**
+     * Order paid - add its total and guests to today's figures
+     */
+    public void onOrderCompleted(int orderId) {
+        submit(() -> {
+            String sql = """
+                SELECT total_amount, guest_count, completed_at FROM orders
+                WHERE id = ? AND status = 'COMPLETED'
+                """;
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                
+                stmt.setInt(1, orderId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) return false;
+                    Timestamp completedAt = rs.getTimestamp("completed_at");
+                    if (completedAt == null || !completedAt.toLocalDateTime().toLocalDate().equals(day)) {
+                        return false;
+                    }
+                    return addOrder(orderId, new OrderTotals(rs.getBigDecimal("total_amount"), rs.getInt("guest_count")));
+                }
+            }
+        });
+    }
+    
+    /**
+     * Order cancelled - remove it if it had been counted as completed today
+     */
+    public void onOrderCancelled(int orderId) {
+        submit(() -> {
+            OrderTotals totals = completedOrders.remove(orderId);
+            if (totals == null) return false;
+            revenue = revenue.subtract(totals.total());
+            covers -= totals.guests();
+            return true;
+        });
+    }
+    
+    /**
+     * Stock of these ingredients changed - recheck them against their minimum
+     */
+    public void onStockChanged(Collection<Integer> ingredientIds) {
+        if (ingredientIds.isEmpty()) return;
+        List<Integer> ids = List.copyOf(ingredientIds);
+        submit(() -> {
+            String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(","));
+            String sql = "SELECT id, name, quantity, min_quantity, unit, is_active FROM ingredients WHERE id IN ("
+                + placeholders + ")";
+            
+            boolean changed = false;
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                
+                for (int i = 0; i < ids.size(); i++) {
+                    stmt.setInt(i + 1, ids.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        LowStockItem item = mapLowStock(rs);
+                        boolean low = rs.getBoolean("is_active") && item.quantity() <= item.minQuantity();
+                        LowStockItem previous = low ? lowStock.put(item.ingredientId(), item)
+                                                    : lowStock.remove(item.ingredientId());
+                        changed |= low ? !item.equals(previous) : previous != null;
+                    }
+                }
+            }
+            return changed;
+        });
+    }
+    
+    private void onKitchenChanged(List<KitchenOrder> pending) {
+        // Before the manager has read the database its list is only what this terminal added
+        if (!KitchenOrderManager.getInstance().isLoaded()) return;
+        int count = pending.size();
+        submit(() -> {
+            if (openTickets == count) return false;
+            openTickets = count;
+            return true;
+        });
+    }
+    
+    private void onTicketReady(KitchenOrder order) {
+        long seconds = Duration.between(order.getCreatedAt(), LocalDateTime.now()).getSeconds();
+        submit(() -> {
+            if (ticketSeconds.putIfAbsent(order.getOrderCode(), seconds) != null) return false;
+            ticketSecondsTotal += seconds;
+            return true;
+        });
+    }
+    
+    @FunctionalInterface
+    private interface Update {
+        /** @return true if any figure changed */
+        boolean apply() throws SQLException;
+    }
+    
+    private void submit(Update update) {
+        if (!started) return;
+        worker.execute(() -> {
+            try {
+                if (!LocalDate.now().equals(day)) {
+                    reconcile();    // New day (or first load not finished) - start over
+                    return;
+                }
+                if (update.apply()) {
+                    publish();
+                }
+            } catch (Exception e) {
+                logger.error("Error updating live stats", e);
+            }
+        });
+    }
+    
+    private boolean addOrder(int orderId, OrderTotals totals) {
+        if (completedOrders.putIfAbsent(orderId, totals) != null) return false;
+        revenue = revenue.add(totals.total());
+        covers += totals.guests();
+        return true;
+    }
+    
+    // ==================== RECONCILIATION ====================
+    
+    /**
+     * Reload every figure from the database, logging any drift of the incremental values
+     */
+    private void reconcile() {
+        LocalDate today = LocalDate.now();
+        Timestamp from = Timestamp.valueOf(today.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(today.plusDays(1).atStartOfDay());
+        
+        String ordersSql = """
+            SELECT id, total_amount, guest_count FROM orders
+            WHERE status = 'COMPLETED' AND completed_at >= ? AND completed_at < ?
+            """;
+        String ticketsSql = """
+            SELECT COUNT(DISTINCT o.id)
+            FROM orders o
+            JOIN order_details od ON o.id = od.order_id
+            WHERE o.status = 'OPEN'
+              AND (od.status IN ('COOKING', 'READY')
+                   OR (od.status = 'PENDING' AND od.sent_to_kitchen_at IS NOT NULL))
+            """;
+        String ticketTimeSql = """
+            SELECT o.order_code, TIMESTAMPDIFF(SECOND, MIN(o.created_at), MAX(od.completed_at)) AS seconds
+            FROM order_details od
+            JOIN orders o ON o.id = od.order_id
+            WHERE od.completed_at >= ? AND od.completed_at < ?
+            GROUP BY o.id, o.order_code
+            """;
+        String lowStockSql = """
+            SELECT id, name, quantity, min_quantity, unit FROM ingredients
+            WHERE quantity <= min_quantity AND is_active = TRUE
+            """;
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            Map<Integer, OrderTotals> orders = new HashMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement(ordersSql)) {
+                stmt.setTimestamp(1, from);
+                stmt.setTimestamp(2, to);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        orders.put(rs.getInt("id"),
+                            new OrderTotals(rs.getBigDecimal("total_amount"), rs.getInt("guest_count")));
+                    }
+                }
+            }
+            
+            int tickets;
+            try (PreparedStatement stmt = conn.prepareStatement(ticketsSql);
+                 ResultSet rs = stmt.executeQuery()) {
+                tickets = rs.next() ? rs.getInt(1) : 0;
+            }
+            
+            Map<String, Long> times = new HashMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement(ticketTimeSql)) {
+                stmt.setTimestamp(1, from);
+                stmt.setTimestamp(2, to);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        times.put(rs.getString("order_code"), Math.max(0, rs.getLong("seconds")));
+                    }
+                }
+            }
+            
+            Map<Integer, LowStockItem> low = new HashMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement(lowStockSql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    LowStockItem item = mapLowStock(rs);
+                    low.put(item.ingredientId(), item);
+                }
+            }
+            
+            LiveStats before = today.equals(day) ? snapshot : null;
+            
+            day = today;
+            completedOrders.clear();
+            revenue = BigDecimal.ZERO;
+            covers = 0;
+            orders.forEach(this::addOrder);
+            openTickets = tickets;
+            ticketSeconds.clear();
+            ticketSeconds.putAll(times);
+            ticketSecondsTotal = times.values().stream().mapToLong(Long::longValue).sum();
+            lowStock.clear();
+            lowStock.putAll(low);
+            
+            LiveStats after = buildSnapshot();
+            if (before != null && !sameFigures(before, after)) {
+                logger.info("Live stats drift corrected: revenue {} -> {}, orders {} -> {}, tickets {} -> {}, low stock {} -> {}",
+                    before.revenue(), after.revenue(), before.completedOrders(), after.completedOrders(),
+                    before.openTickets(), after.openTickets(), before.lowStockCount(), after.lowStockCount());
+            }
+            publish();
+        
+        } catch (SQLException e) {
+            logger.error("Error reconciling live stats", e);
+        }
+    }
+    
+    private static boolean sameFigures(LiveStats a, LiveStats b) {
+        return a.revenue().compareTo(b.revenue()) == 0
+            && a.completedOrders() == b.completedOrders()
+            && a.covers() == b.covers()
+            && a.openTickets() == b.openTickets()
+            && a.lowStockItems().equals(b.lowStockItems());
+    }
+    
+    private static LowStockItem mapLowStock(ResultSet rs) throws SQLException {
+        return new LowStockItem(rs.getInt("id"), rs.getString("name"), rs.getDouble("quantity"),
+            rs.getDouble("min_quantity"), rs.getString("unit"));
+    }
+    
+    // ==================== SNAPSHOT ====================
+    
+    private LiveStats buildSnapshot() {
+        double avgMinutes = ticketSeconds.isEmpty() ? 0 : ticketSecondsTotal / 60.0 / ticketSeconds.size();
+        
+        // Furthest below minimum first
+        List<LowStockItem> low = new ArrayList<>(lowStock.values());
+        low.sort(Comparator.comparingDouble((LowStockItem i) -> i.quantity() - i.minQuantity())
+            .thenComparing(LowStockItem::name));
+        
+        return new LiveStats(day, revenue, completedOrders.size(), covers, openTickets, avgMinutes, List.copyOf(low));
+    }
+    
+    private void publish() {
+        LiveStats stats = buildSnapshot();
+        snapshot = stats;
+        for (Consumer<LiveStats> listener : listeners) {
+            try {
+                listener.accept(stats);
+            } catch (Exception e) {
+                logger.error("Live stats listener failed", e);
+            }
+        }
+    }
+}
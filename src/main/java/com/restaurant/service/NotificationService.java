@@ -3,21 +3,58 @@ package com.restaurant.service;
 import com.restaurant.config.DatabaseConnection;
 import com.restaurant.model.Notification;
 import com.restaurant.model.Notification.NotificationType;
+import com.restaurant.model.Role;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Notification Service - Quản lý thông báo trong ứng dụng
+ *
+ * - Gửi theo vai trò: người nhận lấy từ bảng vai trò → user đã cache,
+ *   tất cả dòng được ghi bằng một câu INSERT nhiều giá trị
+ * - Số thông báo chưa đọc giữ trong bộ nhớ, cập nhật khi tạo / đánh dấu đã đọc;
+ *   đồng bộ lại với database mỗi phút (thông báo có thể được tạo từ máy khác)
+ * - Gộp thông báo lặp lại: cùng user, loại và group_key, chưa đọc, trong 10 phút
+ *   → tăng repeat_count của dòng cũ thay vì thêm dòng mới
+ * - Lưu trữ định kỳ: thông báo đã đọc quá N ngày chuyển sang notifications_archive theo lô
  */
 public class NotificationService {
     
     private static final Logger logger = LogManager.getLogger(NotificationService.class);
     private static NotificationService instance;
     
+    private static final long ROLE_CACHE_TTL_MS = 5 * 60_000;
+    private static final long UNREAD_RESYNC_MS = 60_000;
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final int COALESCE_WINDOW_MINUTES = 10;
+    private static final int ARCHIVE_BATCH_SIZE = 1000;
+    private static final int DEFAULT_RETENTION_DAYS = 30;
+    private static final long ARCHIVE_INTERVAL_HOURS = 6;
+    
+    /** role name -> active user ids */
+    private volatile Map<String, List<Integer>> roleMembers;
+    private volatile long roleMembersLoadedAt;
+    
+    private record UnreadCount(int count, long syncedAt) {}
+    private final Map<Integer, UnreadCount> unreadCounts = new ConcurrentHashMap<>();
+    
+    private ScheduledExecutorService maintenance;
+    
     private NotificationService() {}
     
     public static synchronized NotificationService getInstance() {
@@ -75,9 +112,19 @@ public class NotificationService {
     }
     
     /**
-     * Get unread count
+     * Get unread count - from memory, re-counted in the database at most once a minute
      */
     public int getUnreadCount(int userId) {
+        UnreadCount cached = unreadCounts.get(userId);
+        if (cached != null && System.currentTimeMillis() - cached.syncedAt() < UNREAD_RESYNC_MS) {
+            return cached.count();
+        }
+        int count = countUnread(userId);
+        unreadCounts.put(userId, new UnreadCount(count, System.currentTimeMillis()));
+        return count;
+    }
+    
+    private int countUnread(int userId) {
         String sql = "SELECT COUNT(*) FROM notifications WHERE user_id = ? AND is_read = FALSE";
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -98,42 +145,194 @@ public class NotificationService {
      * Create a notification
      */
     public boolean createNotification(Notification notification) {
-        String sql = """
-            INSERT INTO notifications (user_id, title, message, type, related_id)
-            VALUES (?, ?, ?, ?, ?)
-            """;
+        return createNotifications(List.of(notification)) > 0;
+    }
+    
+    /**
+     * Write many notifications in one transaction: those with a group key are first merged
+     * into a matching recent unread row, the rest go in multi-row INSERTs (500 rows each)
+     *
+     * @return number of notifications written (inserted or merged)
+     */
+    public int createNotifications(List<Notification> notifications) {
+        if (notifications.isEmpty()) return 0;
         
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
             
-            stmt.setInt(1, notification.getUserId());
-            stmt.setString(2, notification.getTitle());
-            stmt.setString(3, notification.getMessage());
-            stmt.setString(4, notification.getType().name());
+            List<Notification> fresh = coalesce(conn, notifications);
+            int inserted = 0;
+            for (int start = 0; start < fresh.size(); start += INSERT_BATCH_SIZE) {
+                inserted += insertRows(conn, fresh.subList(start, Math.min(start + INSERT_BATCH_SIZE, fresh.size())));
+            }
+            conn.commit();
             
-            if (notification.getRelatedId() != null) {
-                stmt.setInt(5, notification.getRelatedId());
-            } else {
-                stmt.setNull(5, Types.INTEGER);
+            // Merged rows were already unread - only new rows change the counters
+            for (Notification n : fresh) {
+                adjustUnread(n.getUserId(), 1);
             }
+            return notifications.size() - fresh.size() + inserted;
             
-            return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
-            logger.error("Error creating notification", e);
-            return false;
+            logger.error("Error creating {} notification(s)", notifications.size(), e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Error rolling back: {}", ex.getMessage());
+                }
+            }
+            return 0;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    logger.error("Error closing connection", e);
+                }
+            }
+        }
+    }
+    
+    private int insertRows(Connection conn, List<Notification> rows) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+            "INSERT INTO notifications (user_id, title, message, type, related_id, group_key) VALUES ");
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?)");
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (Notification n : rows) {
+                stmt.setInt(p++, n.getUserId());
+                stmt.setString(p++, n.getTitle());
+                stmt.setString(p++, n.getMessage());
+                stmt.setString(p++, n.getType().name());
+                if (n.getRelatedId() != null) {
+                    stmt.setInt(p++, n.getRelatedId());
+                } else {
+                    stmt.setNull(p++, Types.INTEGER);
+                }
+                stmt.setString(p++, n.getGroupKey());
+            }
+            return stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Merge grouped notifications into unread rows of the same user, type and key created
+     * within the coalescing window (latest title/message win, repeat_count + 1)
+     *
+     * @return notifications that still need a new row
+     */
+    private List<Notification> coalesce(Connection conn, List<Notification> notifications) throws SQLException {
+        List<Notification> grouped = notifications.stream().filter(n -> n.getGroupKey() != null).toList();
+        if (grouped.isEmpty()) return notifications;
+        
+        Set<Integer> userIds = grouped.stream().map(Notification::getUserId).collect(Collectors.toSet());
+        Set<String> keys = grouped.stream().map(Notification::getGroupKey).collect(Collectors.toSet());
+        
+        String sql = "SELECT id, user_id, type, group_key FROM notifications"
+            + " WHERE user_id IN (" + placeholders(userIds.size()) + ") AND is_read = FALSE AND created_at >= ?"
+            + " AND group_key IN (" + placeholders(keys.size()) + ")"
+            + " ORDER BY created_at DESC FOR UPDATE";
+        
+        // user|type|key -> most recent matching row
+        Map<String, Integer> existing = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int p = 1;
+            for (int userId : userIds) {
+                stmt.setInt(p++, userId);
+            }
+            stmt.setTimestamp(p++, new Timestamp(System.currentTimeMillis() - COALESCE_WINDOW_MINUTES * 60_000L));
+            for (String key : keys) {
+                stmt.setString(p++, key);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.putIfAbsent(rs.getInt("user_id") + "|" + rs.getString("type") + "|" + rs.getString("group_key"),
+                        rs.getInt("id"));
+                }
+            }
         }
+        
+        List<Notification> fresh = new ArrayList<>();
+        String updateSql = """
+            UPDATE notifications
+            SET repeat_count = repeat_count + 1, title = ?, message = ?, created_at = CURRENT_TIMESTAMP
+            WHERE id = ?
+            """;
+        try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+            boolean batched = false;
+            for (Notification n : notifications) {
+                Integer id = n.getGroupKey() == null ? null
+                    : existing.get(n.getUserId() + "|" + n.getType().name() + "|" + n.getGroupKey());
+                if (id == null) {
+                    fresh.add(n);
+                    continue;
+                }
+                stmt.setString(1, n.getTitle());
+                stmt.setString(2, n.getMessage());
+                stmt.setInt(3, id);
+                stmt.addBatch();
+                batched = true;
+            }
+            if (batched) {
+                stmt.executeBatch();
+            }
+        }
+        return fresh;
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+    
+    /**
+     * Send the same notification to every active user having one of these roles
+     *
+     * @return number of users notified
+     */
+    public int broadcastToRoles(Collection<String> roleNames, String title, String message,
+                                NotificationType type, Integer relatedId) {
+        return broadcastToRoles(roleNames, title, message, type, relatedId, null);
+    }
+    
+    /**
+     * Broadcast that merges into each user's recent unread notification with the same group key
+     */
+    public int broadcastToRoles(Collection<String> roleNames, String title, String message,
+                                NotificationType type, Integer relatedId, String groupKey) {
+        List<Notification> batch = new ArrayList<>();
+        for (int userId : getUserIdsByRoles(roleNames)) {
+            Notification n = new Notification(userId, title, message, type);
+            n.setRelatedId(relatedId);
+            n.setGroupKey(groupKey);
+            batch.add(n);
+        }
+        int sent = createNotifications(batch);
+        logger.info("Broadcast '{}' to {} user(s) in {}", title, sent, roleNames);
+        return sent;
     }
     
     /**
      * Mark notification as read
      */
-    public boolean markAsRead(int notificationId) {
-        String sql = "UPDATE notifications SET is_read = TRUE WHERE id = ?";
+    public boolean markAsRead(int notificationId, int userId) {
+        String sql = "UPDATE notifications SET is_read = TRUE WHERE id = ? AND user_id = ? AND is_read = FALSE";
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, notificationId);
-            return stmt.executeUpdate() > 0;
+            stmt.setInt(2, userId);
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                adjustUnread(userId, -1);
+            }
+            return updated;
         } catch (SQLException e) {
             logger.error("Error marking notification as read", e);
             return false;
@@ -149,7 +348,9 @@ public class NotificationService {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, userId);
-            return stmt.executeUpdate() >= 0;
+            stmt.executeUpdate();
+            unreadCounts.put(userId, new UnreadCount(0, System.currentTimeMillis()));
+            return true;
         } catch (SQLException e) {
             logger.error("Error marking all as read", e);
             return false;
@@ -195,25 +396,170 @@ public class NotificationService {
      * @param itemCount Number of ready items
      */
     public void notifyWaiters(String tableName, int itemCount) {
-        // Get all active waiters (role_id = 4 for WAITER)
-        String sql = "SELECT id FROM users WHERE role_id = 4 AND is_active = TRUE";
+        broadcastToRoles(List.of(Role.WAITER),
+            "🍽️ Món sẵn sàng",
+            tableName + " có " + itemCount + " món cần lấy",
+            NotificationType.ORDER, null, "table:" + tableName);
+    }
+    
+    // ==================== RETENTION ====================
+    
+    /**
+     * Start the background archive job (every 6 hours, first run after 2 minutes); idempotent
+     */
+    public synchronized void startMaintenance() {
+        if (maintenance != null) return;
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "notification-archiver");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        maintenance.scheduleWithFixedDelay(() -> {
+            int days = SettingsService.getInstance().getInt(
+                SettingsService.KEY_NOTIFICATION_RETENTION_DAYS, DEFAULT_RETENTION_DAYS);
+            archiveReadNotifications(days);
+        }, 2 * 60, ARCHIVE_INTERVAL_HOURS * 3600, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Move read notifications older than {@code days} to notifications_archive,
+     * 1000 rows per transaction so the hot table is never locked for long
+     *
+     * @return number of rows archived
+     */
+    public int archiveReadNotifications(int days) {
+        if (days <= 0) return 0;
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - days * 86_400_000L);
+        String selectSql = """
+            SELECT id FROM notifications
+            WHERE is_read = TRUE AND created_at < ?
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE
+            """;
         
+        int archived = 0;
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                while (true) {
+                    List<Integer> ids = new ArrayList<>();
+                    try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                        stmt.setTimestamp(1, cutoff);
+                        stmt.setInt(2, ARCHIVE_BATCH_SIZE);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                ids.add(rs.getInt(1));
+                            }
+                        }
+                    }
+                    if (ids.isEmpty()) break;
+                    
+                    String in = placeholders(ids.size());
+                    // INSERT IGNORE: another terminal may have archived the same batch concurrently
+                    String copySql = "INSERT IGNORE INTO notifications_archive"
+                        + " (id, user_id, title, message, type, is_read, related_id, group_key, repeat_count, created_at)"
+                        + " SELECT id, user_id, title, message, type, is_read, related_id, group_key, repeat_count, created_at"
+                        + " FROM notifications WHERE id IN (" + in + ")";
+                    try (PreparedStatement copy = conn.prepareStatement(copySql);
+                         PreparedStatement delete = conn.prepareStatement(
+                             "DELETE FROM notifications WHERE id IN (" + in + ")")) {
+                        for (int i = 0; i < ids.size(); i++) {
+                            copy.setInt(i + 1, ids.get(i));
+                            delete.setInt(i + 1, ids.get(i));
+                        }
+                        copy.executeUpdate();
+                        archived += delete.executeUpdate();
+                    }
+                    conn.commit();
+                    
+                    if (ids.size() < ARCHIVE_BATCH_SIZE) break;
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Error archiving notifications", e);
+        }
+        
+        if (archived > 0) {
+            logger.info("Archived {} read notification(s) older than {} days", archived, days);
+        }
+        return archived;
+    }
+    
+    // ==================== UNREAD COUNTERS ====================
+    
+    /** Only users whose count is already known are tracked; others are counted on first read */
+    private void adjustUnread(int userId, int delta) {
+        unreadCounts.computeIfPresent(userId,
+            (id, c) -> new UnreadCount(Math.max(0, c.count() + delta), c.syncedAt()));
+    }
+    
+    // ==================== ROLE MEMBERSHIP ====================
+    
+    /**
+     * Active user ids having any of these roles (cached, reloaded every 5 minutes)
+     */
+    public List<Integer> getUserIdsByRoles(Collection<String> roleNames) {
+        Map<String, List<Integer>> members = roleMembers;
+        if (members == null || System.currentTimeMillis() - roleMembersLoadedAt > ROLE_CACHE_TTL_MS) {
+            members = loadRoleMembers();
+        }
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (String role : roleNames) {
+            ids.addAll(members.getOrDefault(role, List.of()));
+        }
+        return new ArrayList<>(ids);
+    }
+    
+    /**
+     * Load role membership ahead of the first broadcast (startup warm-up)
+     */
+    public void preloadRoleMembers() {
+        loadRoleMembers();
+    }
+    
+    /**
+     * Drop the cached role membership (users created, changed, (de)activated or deleted)
+     */
+    public void invalidateRoleMembers() {
+        roleMembers = null;
+    }
+    
+    private synchronized Map<String, List<Integer>> loadRoleMembers() {
+        Map<String, List<Integer>> current = roleMembers;
+        if (current != null && System.currentTimeMillis() - roleMembersLoadedAt <= ROLE_CACHE_TTL_MS) {
+            return current;     // Another thread just loaded it
+        }
+        
+        String sql = """
+            SELECT u.id, r.name FROM users u
+            JOIN roles r ON u.role_id = r.id
+            WHERE u.is_active = TRUE
+            """;
+        Map<String, List<Integer>> members = new HashMap<>();
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             
             while (rs.next()) {
-                int waiterId = rs.getInt("id");
-                Notification n = new Notification(waiterId,
-                    "🍽️ Món sẵn sàng",
-                    tableName + " có " + itemCount + " món cần lấy",
-                    NotificationType.ORDER);
-                createNotification(n);
-            }
-            logger.info("Notified waiters about ready food for table {}", tableName);
+                members.computeIfAbsent(rs.getString("name"), k -> new ArrayList<>()).add(rs.getInt("id"));
+            }
         } catch (SQLException e) {
-            logger.error("Error notifying waiters", e);
+            logger.error("Error loading role members", e);
+            return current != null ? current : Map.of();
         }
+        
+        members.replaceAll((role, ids) -> List.copyOf(ids));
+        Map<String, List<Integer>> loaded = Map.copyOf(members);
+        roleMembers = loaded;
+        roleMembersLoadedAt = System.currentTimeMillis();
+        return loaded;
     }
     
     private Notification mapNotification(ResultSet rs) throws SQLException {
@@ -229,6 +575,8 @@ public class NotificationService {
         if (!rs.wasNull()) {
             n.setRelatedId(relatedId);
         }
+        n.setGroupKey(rs.getString("group_key"));
+        n.setRepeatCount(Math.max(1, rs.getInt("repeat_count")));
         
         Timestamp createdAt = rs.getTimestamp("created_at");
         if (createdAt != null) {
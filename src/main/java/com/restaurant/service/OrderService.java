@@ -112,6 +112,7 @@ public class OrderService {
         boolean success = orderDAO.complete(orderId);
         if (success) {
             logger.info("Order {} completed (paid)", orderId);
+            LiveStatsService.getInstance().onOrderCompleted(orderId);
         }
         return success;
     }
@@ -134,7 +135,11 @@ public class OrderService {
      * Hủy order
      */
     public boolean cancelOrder(int orderId, int userId, String reason) {
-        return orderDAO.cancel(orderId, userId, reason);
+        boolean success = orderDAO.cancel(orderId, userId, reason);
+        if (success) {
+            LiveStatsService.getInstance().onOrderCancelled(orderId);
+        }
+        return success;
     }
     
     /**
@@ -3,12 +3,17 @@ package com.restaurant.service;
 import com.restaurant.dao.impl.ProductDAOImpl;
 import com.restaurant.dao.interfaces.IProductDAO;
 import com.restaurant.model.Product;
+import com.restaurant.util.SearchIndex;
+import com.restaurant.util.Prefetched;
+import com.restaurant.util.SingleFlight;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service layer for Product operations
@@ -18,8 +23,26 @@ public class ProductService {
     private static final Logger logger = LogManager.getLogger(ProductService.class);
     private static ProductService instance;
     
+    /** Prefetched menu older than this is ignored */
+    private static final long PREFETCH_TTL_MS = 10 * 60_000L;
+    
+    /** POS and menu screens opening together share one query */
+    private static final long MIN_RELOAD_MS = 2_000;
+    private static final String ALL = "all";
+    
     private final IProductDAO productDAO;
     
+    private final Prefetched<List<Product>> prefetchedProducts = new Prefetched<>(PREFETCH_TTL_MS);
+    private final SingleFlight<String, List<Product>> productLoads = new SingleFlight<>(MIN_RELOAD_MS);
+    
+    /** Diacritic-insensitive name/description index of active products */
+    private final SearchIndex<Product> searchIndex =
+        new SearchIndex<>(Product::getId, Product::getName, Product::getDescription);
+    private volatile boolean searchIndexLoaded = false;
+    
+    /** Bumped on every menu change so screens can tell whether their cached menu is stale */
+    private final AtomicLong menuVersion = new AtomicLong();
+    
     private ProductService() {
         this.productDAO = new ProductDAOImpl();
     }
@@ -35,7 +58,17 @@ public class ProductService {
      * Get all active products
      */
     public List<Product> getAllProducts() {
-        return productDAO.findAll();
+        List<Product> prefetched = prefetchedProducts.take();
+        if (prefetched != null) return prefetched;
+        // Screens opened together share one query; each caller gets its own list
+        return new ArrayList<>(productLoads.load(ALL, productDAO::findAll));
+    }
+    
+    /**
+     * Load the menu ahead of the first screen (startup warm-up)
+     */
+    public void prefetchProducts() {
+        prefetchedProducts.put(productDAO.findAll());
     }
     
     /**
@@ -60,13 +93,40 @@ public class ProductService {
     }
     
     /**
-     * Search products
+     * Search products (in-memory, "pho" matches "Phở")
      */
     public List<Product> searchProducts(String keyword) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return productDAO.findAll();
         }
-        return productDAO.search(keyword.trim());
+        ensureSearchIndex();
+        return searchIndex.search(keyword.trim(), Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Reload the search index from the database
+     */
+    public void reloadSearchIndex() {
+        searchIndex.rebuild(productDAO.findAll());
+        searchIndexLoaded = true;
+        menuVersion.incrementAndGet();
+    }
+    
+    /**
+     * Current menu version (changes on create/update/availability/delete)
+     */
+    public long getMenuVersion() {
+        return menuVersion.get();
+    }
+    
+    private void ensureSearchIndex() {
+        if (!searchIndexLoaded) {
+            synchronized (searchIndex) {
+                if (!searchIndexLoaded) {
+                    reloadSearchIndex();
+                }
+            }
+        }
     }
     
     /**
@@ -108,8 +168,12 @@ public class ProductService {
         product.setAvailable(true);
         
         boolean success = productDAO.insert(product);
+        prefetchedProducts.clear();
+        productLoads.invalidate(ALL);
         if (success) {
             logger.info("Product created: {}", product.getName());
+            searchIndex.put(product);
+            menuVersion.incrementAndGet();
             return ServiceResult.success(product, "Đã tạo món: " + product.getName());
         }
         
@@ -144,8 +208,12 @@ public class ProductService {
         product.setName(product.getName().trim());
         
         boolean success = productDAO.update(product);
+        prefetchedProducts.clear();
+        productLoads.invalidate(ALL);
         if (success) {
             logger.info("Product updated: {}", product.getName());
+            searchIndex.put(product);
+            menuVersion.incrementAndGet();
             return ServiceResult.success(product, "Đã cập nhật món");
         }
         
@@ -162,9 +230,14 @@ public class ProductService {
         }
         
         boolean success = productDAO.updateAvailability(productId, available);
+        prefetchedProducts.clear();
+        productLoads.invalidate(ALL);
         if (success) {
             String status = available ? "còn hàng" : "hết hàng";
             logger.info("Product {} set to {}", productId, status);
+            existing.get().setAvailable(available);
+            searchIndex.put(existing.get());
+            menuVersion.incrementAndGet();
             return ServiceResult.success(null, "Đã đánh dấu " + status);
         }
         
@@ -181,8 +254,12 @@ public class ProductService {
         }
         
         boolean success = productDAO.deactivate(productId);
+        prefetchedProducts.clear();
+        productLoads.invalidate(ALL);
         if (success) {
             logger.info("Product deleted: {}", productId);
+            searchIndex.remove(productId);
+            menuVersion.incrementAndGet();
             return ServiceResult.success(null, "Đã xóa món");
         }
         
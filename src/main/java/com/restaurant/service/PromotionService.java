@@ -8,9 +8,15 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Promotion Service - Quản lý khuyến mãi
@@ -20,6 +26,26 @@ public class PromotionService {
     private static final Logger logger = LogManager.getLogger(PromotionService.class);
     private static PromotionService instance;
     
+    /** Rebuild the rule index at least this often to pick up changes made elsewhere */
+    private static final long RULE_INDEX_TTL_MS = 5 * 60 * 1000;
+    /** After a failed rebuild the last index (or an empty one) is served this long before retrying */
+    private static final long RULE_INDEX_RETRY_MS = 30_000;
+    
+    /** Redemptions per minute after which a promotion claims uses in blocks */
+    private static final int HOT_REDEMPTIONS_PER_MINUTE = 30;
+    private static final int RESERVATION_BLOCK = 20;
+    
+    /** Claimed uses not used within this time are given back to used_count */
+    private static final int CLAIM_TTL_SECONDS = 120;
+    
+    private volatile RuleIndex ruleIndex;
+    private final Map<Integer, UsageReservation> reservations = new ConcurrentHashMap<>();
+    
+    /**
+     * One line of the bill, for promotions limited to some products or categories
+     */
+    public record BillLine(int productId, int categoryId, BigDecimal amount) {}
+    
     private PromotionService() {}
     
     public static synchronized PromotionService getInstance() {
@@ -153,6 +179,7 @@ public class PromotionService {
                     }
                 }
                 logger.info("Created promotion: {} ({})", promo.getName(), promo.getCode());
+                invalidateRuleIndex();
                 return true;
             }
         } catch (SQLException e) {
@@ -201,7 +228,11 @@ public class PromotionService {
             stmt.setBoolean(14, promo.isActive());
             stmt.setInt(15, promo.getId());
             
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                invalidateRuleIndex();
+            }
+            return updated;
         } catch (SQLException e) {
             logger.error("Error updating promotion", e);
             return false;
@@ -214,7 +245,11 @@ public class PromotionService {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                invalidateRuleIndex();
+            }
+            return deleted;
         } catch (SQLException e) {
             logger.error("Error deleting promotion", e);
             return false;
@@ -227,7 +262,11 @@ public class PromotionService {
      * Validate a promotion code for an order
      */
     public Promotion validateCode(String code, BigDecimal orderAmount, Customer customer) {
-        Promotion promo = getByCode(code);
+        if (code == null || code.isBlank()) {
+            return null;
+        }
+        
+        Promotion promo = getRuleIndex().byCode.get(code.trim().toUpperCase());
         if (promo == null) {
             return null;
         }
@@ -252,10 +291,10 @@ public class PromotionService {
      */
     public List<Promotion> getAutoApplyPromotions(BigDecimal orderAmount, Customer customer) {
         List<Promotion> result = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
         
-        for (Promotion promo : getActivePromotions()) {
-            if (!promo.isAutoApply()) continue;
-            if (!promo.isValid()) continue;
+        for (Promotion promo : getRuleIndex().autoApply) {
+            if (!promo.isValidAt(now)) continue;
             if (!promo.meetsMinimumOrder(orderAmount)) continue;
             if (customer != null && !promo.isApplicableToTier(customer.getTier())) continue;
             
@@ -266,7 +305,36 @@ public class PromotionService {
     }
     
     /**
-     * Apply promotion to an order
+     * Discount of a promotion on this bill. A promotion limited to some products or
+     * categories only discounts its share of {@code orderAmount} (VAT included), i.e.
+     * orderAmount * covered lines / all lines.
+     */
+    public BigDecimal calculateDiscount(Promotion promo, BigDecimal orderAmount, List<BillLine> lines) {
+        Promotion.Rules rules = promo.getRules();
+        if (!rules.isScoped()) {
+            return promo.calculateDiscount(orderAmount);
+        }
+        
+        BigDecimal all = BigDecimal.ZERO;
+        BigDecimal covered = BigDecimal.ZERO;
+        for (BillLine line : lines) {
+            all = all.add(line.amount());
+            if (rules.appliesTo(line.productId(), line.categoryId())) {
+                covered = covered.add(line.amount());
+            }
+        }
+        BigDecimal eligible = all.signum() == 0
+            ? BigDecimal.ZERO
+            : orderAmount.multiply(covered).divide(all, 0, RoundingMode.HALF_UP);
+        return promo.calculateDiscount(orderAmount, eligible);
+    }
+    
+    /**
+     * Apply promotion to an order - call BEFORE completing the order, so a rejected
+     * redemption can still be charged without the discount.
+     * Global and per-customer limits are enforced with conditional updates in one
+     * short transaction, so two terminals can never redeem the same last use.
+     * Returns false if a limit has been reached.
      */
     public boolean applyPromotion(int promotionId, int orderId, Integer customerId, BigDecimal discountAmount) {
         String usageSql = """
@@ -274,35 +342,477 @@ public class PromotionService {
             VALUES (?, ?, ?, ?)
             """;
         
-        String updateCountSql = "UPDATE promotions SET used_count = used_count + 1 WHERE id = ?";
+        UsageReservation reservation = reservations.computeIfAbsent(promotionId, k -> new UsageReservation());
+        int claimId = reservation.tryTake(promotionId);
+        // The use taken from the local claim goes back unless it was committed or the claim expired,
+        // including when no connection could be had at all
+        boolean holding = claimId > 0;
         
         try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
             conn.setAutoCommit(false);
-            
-            // Record usage
-            try (PreparedStatement stmt = conn.prepareStatement(usageSql)) {
-                stmt.setInt(1, promotionId);
-                stmt.setInt(2, orderId);
-                if (customerId != null) {
-                    stmt.setInt(3, customerId);
-                } else {
-                    stmt.setNull(3, Types.INTEGER);
+            try {
+                // Global limit: a pre-claimed use if one is still valid, otherwise the promotions row
+                boolean fromClaim = claimId > 0 && consumeClaim(conn, claimId);
+                if (claimId > 0 && !fromClaim) {
+                    reservation.discard(claimId);       // Expired; returned by reconciliation
+                    holding = false;
+                }
+                if (!fromClaim && !incrementUsedCount(conn, promotionId)) {
+                    conn.rollback();
+                    logger.warn("Promotion {} usage limit reached", promotionId);
+                    invalidateRuleIndex();
+                    return false;
+                }
+                
+                // Per-customer limit
+                if (customerId != null && !incrementCustomerUsage(conn, promotionId, customerId)) {
+                    conn.rollback();
+                    logger.warn("Promotion {} per-customer limit reached for customer {}", promotionId, customerId);
+                    return false;
+                }
+                
+                // Record usage
+                try (PreparedStatement stmt = conn.prepareStatement(usageSql)) {
+                    stmt.setInt(1, promotionId);
+                    stmt.setInt(2, orderId);
+                    if (customerId != null) {
+                        stmt.setInt(3, customerId);
+                    } else {
+                        stmt.setNull(3, Types.INTEGER);
+                    }
+                    stmt.setBigDecimal(4, discountAmount);
+                    stmt.executeUpdate();
+                }
+                
+                conn.commit();
+                holding = false;
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("Error applying promotion", e);
+            return false;
+        } finally {
+            if (holding) reservation.giveBack(claimId);
+        }
+    }
+    
+    /**
+     * Undo applyPromotion when the order could not be completed afterwards
+     */
+    public void revokePromotion(int promotionId, int orderId, Integer customerId) {
+        String deleteSql = "DELETE FROM promotion_usage WHERE promotion_id = ? AND order_id = ?";
+        String globalSql = "UPDATE promotions SET used_count = GREATEST(used_count - 1, 0) WHERE id = ?";
+        String customerSql = """
+            UPDATE promotion_customer_usage SET used_count = GREATEST(used_count - 1, 0)
+            WHERE promotion_id = ? AND customer_id = ?
+            """;
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int removed;
+                try (PreparedStatement stmt = conn.prepareStatement(deleteSql)) {
+                    stmt.setInt(1, promotionId);
+                    stmt.setInt(2, orderId);
+                    removed = stmt.executeUpdate();
+                }
+                if (removed > 0) {
+                    try (PreparedStatement stmt = conn.prepareStatement(globalSql)) {
+                        stmt.setInt(1, promotionId);
+                        stmt.executeUpdate();
+                    }
+                    if (customerId != null) {
+                        try (PreparedStatement stmt = conn.prepareStatement(customerSql)) {
+                            stmt.setInt(1, promotionId);
+                            stmt.setInt(2, customerId);
+                            stmt.executeUpdate();
+                        }
+                    }
+                }
+                conn.commit();
+                logger.info("Revoked promotion {} usage for order {}", promotionId, orderId);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("Error revoking promotion {} for order {}", promotionId, orderId, e);
+        }
+    }
+    
+    private boolean incrementUsedCount(Connection conn, int promotionId) throws SQLException {
+        String sql = """
+            UPDATE promotions SET used_count = used_count + 1
+            WHERE id = ? AND (usage_limit IS NULL OR used_count < usage_limit)
+            """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, promotionId);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
+    private boolean incrementCustomerUsage(Connection conn, int promotionId, int customerId) throws SQLException {
+        String ensureSql = """
+            INSERT IGNORE INTO promotion_customer_usage (promotion_id, customer_id, used_count)
+            VALUES (?, ?, 0)
+            """;
+        String updateSql = """
+            UPDATE promotion_customer_usage pcu
+            JOIN promotions p ON p.id = pcu.promotion_id
+            SET pcu.used_count = pcu.used_count + 1
+            WHERE pcu.promotion_id = ? AND pcu.customer_id = ?
+              AND (p.usage_limit_per_customer IS NULL OR pcu.used_count < p.usage_limit_per_customer)
+            """;
+        
+        try (PreparedStatement stmt = conn.prepareStatement(ensureSql)) {
+            stmt.setInt(1, promotionId);
+            stmt.setInt(2, customerId);
+            stmt.executeUpdate();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+            stmt.setInt(1, promotionId);
+            stmt.setInt(2, customerId);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
+    // ==================== HOT PROMOTION RESERVATIONS ====================
+    
+    private record Claim(int id, int uses) {}
+    
+    /**
+     * Claim a block of uses for a hot promotion in one short transaction.
+     * The uses are added to used_count at once and tracked in a promotion_usage_claims
+     * row that expires after CLAIM_TTL_SECONDS; whatever is left then is given back
+     * by returnExpiredClaims, so a terminal that crashes cannot leak uses.
+     * Returns null if nothing could be claimed.
+     */
+    private Claim claimUsageBlock(int promotionId) {
+        String selectSql = "SELECT usage_limit, used_count FROM promotions WHERE id = ? FOR UPDATE";
+        String updateSql = "UPDATE promotions SET used_count = used_count + ? WHERE id = ?";
+        String claimSql = """
+            INSERT INTO promotion_usage_claims (promotion_id, remaining, expires_at)
+            VALUES (?, ?, NOW() + INTERVAL ? SECOND)
+            """;
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                returnExpiredClaims(conn, promotionId);
+                
+                int claim = 0;
+                try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                    stmt.setInt(1, promotionId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            Integer limit = (Integer) rs.getObject("usage_limit");
+                            int used = rs.getInt("used_count");
+                            claim = limit == null ? RESERVATION_BLOCK : Math.min(RESERVATION_BLOCK, limit - used);
+                        }
+                    }
+                }
+                
+                if (claim <= 0) {
+                    conn.commit();
+                    return null;
+                }
+                
+                try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                    stmt.setInt(1, claim);
+                    stmt.setInt(2, promotionId);
+                    stmt.executeUpdate();
+                }
+                int claimId = 0;
+                try (PreparedStatement stmt = conn.prepareStatement(claimSql, Statement.RETURN_GENERATED_KEYS)) {
+                    stmt.setInt(1, promotionId);
+                    stmt.setInt(2, claim);
+                    stmt.setInt(3, CLAIM_TTL_SECONDS);
+                    stmt.executeUpdate();
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            claimId = keys.getInt(1);
+                        }
+                    }
+                }
+                conn.commit();
+                return new Claim(claimId, claim);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("Error reserving promotion uses", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Use one pre-claimed use; false if the claim has run out or expired
+     */
+    private boolean consumeClaim(Connection conn, int claimId) throws SQLException {
+        String sql = """
+            UPDATE promotion_usage_claims SET remaining = remaining - 1
+            WHERE id = ? AND remaining > 0 AND expires_at > NOW()
+            """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, claimId);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
+    /**
+     * Give the unused part of expired claims back to used_count (promotionId 0 = all promotions)
+     */
+    private void returnExpiredClaims(Connection conn, int promotionId) throws SQLException {
+        String selectSql = """
+            SELECT id FROM promotion_usage_claims
+            WHERE expires_at <= NOW() AND (? = 0 OR promotion_id = ?)
+            FOR UPDATE
+            """;
+        List<Integer> expired = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+            stmt.setInt(1, promotionId);
+            stmt.setInt(2, promotionId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    expired.add(rs.getInt("id"));
                 }
-                stmt.setBigDecimal(4, discountAmount);
-                stmt.executeUpdate();
             }
+        }
+        for (int claimId : expired) {
+            releaseClaim(conn, claimId);
+        }
+        if (!expired.isEmpty()) {
+            logger.info("Returned {} expired promotion claim(s)", expired.size());
+        }
+    }
+    
+    /**
+     * Subtract a claim's remaining uses from used_count and delete it
+     */
+    private void releaseClaim(Connection conn, int claimId) throws SQLException {
+        String returnSql = """
+            UPDATE promotions p
+            JOIN promotion_usage_claims c ON c.promotion_id = p.id
+            SET p.used_count = GREATEST(p.used_count - c.remaining, 0)
+            WHERE c.id = ?
+            """;
+        String deleteSql = "DELETE FROM promotion_usage_claims WHERE id = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(returnSql)) {
+            stmt.setInt(1, claimId);
+            stmt.executeUpdate();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(deleteSql)) {
+            stmt.setInt(1, claimId);
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Return this terminal's claims to the database (call on shutdown)
+     */
+    public void releaseReservations() {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (UsageReservation reservation : reservations.values()) {
+                    int claimId = reservation.drain();
+                    if (claimId > 0) {
+                        releaseClaim(conn, claimId);
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("Error releasing promotion reservations", e);
+        }
+    }
+    
+    /**
+     * Periodic reconciliation: give back uses of claims whose terminal stopped without releasing them
+     */
+    private void reconcileClaims() {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                returnExpiredClaims(conn, 0);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("Error reconciling promotion claims", e);
+        }
+    }
+    
+    /**
+     * Per-promotion redemption rate tracker + local view of this terminal's current claim.
+     * Only promotions redeemed more than HOT_REDEMPTIONS_PER_MINUTE times a minute
+     * claim blocks, so normal promotions always go straight to the database.
+     * The database round-trip of a claim runs outside this monitor.
+     */
+    private final class UsageReservation {
+        private int claimId;
+        private int available;
+        private long expiresAt;
+        private long windowStart;
+        private int windowCount;
+        private boolean claiming;
+        
+        /**
+         * Id of the claim to take one use from, or 0 to go through the promotions row
+         */
+        int tryTake(int promotionId) {
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                if (now - windowStart > 60_000) {
+                    windowStart = now;
+                    windowCount = 0;
+                }
+                windowCount++;
+                
+                int taken = takeLocal();
+                if (taken > 0 || claiming || windowCount <= HOT_REDEMPTIONS_PER_MINUTE) {
+                    return taken;
+                }
+                claiming = true;
+            }
+            
+            Claim claim = claimUsageBlock(promotionId);
             
-            // Update count
-            try (PreparedStatement stmt = conn.prepareStatement(updateCountSql)) {
-                stmt.setInt(1, promotionId);
-                stmt.executeUpdate();
+            synchronized (this) {
+                claiming = false;
+                if (claim != null) {
+                    claimId = claim.id();
+                    available = claim.uses();
+                    expiresAt = System.currentTimeMillis() + CLAIM_TTL_SECONDS * 1000L;
+                }
+                return takeLocal();
             }
+        }
+        
+        private int takeLocal() {
+            if (available > 0 && System.currentTimeMillis() < expiresAt) {
+                available--;
+                return claimId;
+            }
+            return 0;
+        }
+        
+        /** The use was rolled back in the database */
+        synchronized void giveBack(int id) {
+            if (id == claimId) {
+                available++;
+            }
+        }
+        
+        /** The claim ran out or expired in the database */
+        synchronized void discard(int id) {
+            if (id == claimId) {
+                available = 0;
+            }
+        }
+        
+        synchronized int drain() {
+            int id = claimId;
+            claimId = 0;
+            available = 0;
+            return id;
+        }
+    }
+    
+    // ==================== RULE INDEX ====================
+    
+    /**
+     * Expire the cached rule index; next checkout rebuilds it from the database
+     * (the old one stays as fallback if the rebuild fails)
+     */
+    public void invalidateRuleIndex() {
+        RuleIndex index = ruleIndex;
+        if (index != null) {
+            ruleIndex = index.expiringAt(0);
+        }
+    }
+    
+    private RuleIndex getRuleIndex() {
+        RuleIndex index = ruleIndex;
+        if (index == null || index.isExpired()) {
+            synchronized (this) {
+                index = ruleIndex;
+                if (index == null || index.isExpired()) {
+                    index = loadRuleIndex();
+                }
+            }
+        }
+        return index;
+    }
+    
+    private RuleIndex loadRuleIndex() {
+        reconcileClaims();
+        
+        String sql = "SELECT * FROM promotions WHERE is_active = TRUE AND end_date >= NOW()";
+        List<Promotion> autoApply = new ArrayList<>();
+        Map<String, Promotion> byCode = new HashMap<>();
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
             
-            conn.commit();
-            return true;
+            while (rs.next()) {
+                Promotion p = mapPromotion(rs);
+                p.getRules(); // Compile once here, not at checkout
+                if (p.isAutoApply()) {
+                    autoApply.add(p);
+                } else {
+                    byCode.put(p.getCode().toUpperCase(), p);
+                }
+            }
         } catch (SQLException e) {
-            logger.error("Error applying promotion", e);
-            return false;
+            // Database unreachable: keep serving the last good index (or none) and retry after
+            // RULE_INDEX_RETRY_MS, so checkouts don't each wait for the pool timeout
+            logger.error("Error loading promotion rule index", e);
+            RuleIndex previous = ruleIndex;
+            RuleIndex fallback = previous != null ? previous : new RuleIndex(List.of(), Map.of(), 0);
+            RuleIndex retryLater = fallback.expiringAt(System.currentTimeMillis() + RULE_INDEX_RETRY_MS);
+            ruleIndex = retryLater;
+            return retryLater;
+        }
+        
+        RuleIndex index = new RuleIndex(Collections.unmodifiableList(autoApply),
+                Collections.unmodifiableMap(byCode), System.currentTimeMillis() + RULE_INDEX_TTL_MS);
+        ruleIndex = index;
+        logger.debug("Promotion rule index built: {} auto-apply, {} codes", autoApply.size(), byCode.size());
+        return index;
+    }
+    
+    /**
+     * Immutable snapshot of active promotions with pre-compiled rules
+     */
+    private static final class RuleIndex {
+        final List<Promotion> autoApply;
+        final Map<String, Promotion> byCode;
+        final long expiresAt;
+        
+        RuleIndex(List<Promotion> autoApply, Map<String, Promotion> byCode, long expiresAt) {
+            this.autoApply = autoApply;
+            this.byCode = byCode;
+            this.expiresAt = expiresAt;
+        }
+        
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+        
+        RuleIndex expiringAt(long expiresAt) {
+            return new RuleIndex(autoApply, byCode, expiresAt);
         }
     }
     
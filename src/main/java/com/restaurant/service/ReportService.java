@@ -1,15 +1,23 @@
 package com.restaurant.service;
 
 import com.restaurant.config.DatabaseConnection;
+import com.restaurant.util.ReportCache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Report Service - Thống kê và báo cáo doanh thu
@@ -19,6 +27,18 @@ public class ReportService {
     private static final Logger logger = LogManager.getLogger(ReportService.class);
     private static ReportService instance;
     
+    /** Combined deadline for all dashboard sections */
+    private static final long DASHBOARD_TIMEOUT_SECONDS = 15;
+    
+    /** One thread per dashboard section; each query borrows its own pooled connection */
+    private final ExecutorService loader = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "report-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    
+    private final ReportCache cache = ReportCache.getInstance();
+    
     private ReportService() {}
     
     public static synchronized ReportService getInstance() {
@@ -28,10 +48,64 @@ public class ReportService {
         return instance;
     }
     
+    // ========== Dashboard ==========
+    
+    /**
+     * Tải song song các phần của màn hình báo cáo
+     *
+     * Summary, previous-period summary, daily revenue and top products are
+     * independent, so each runs on its own loader thread and pooled connection.
+     * Every section future completes on its own (render it as soon as it arrives);
+     * all of them share one deadline counted from this call. {@link DashboardLoad#bundle()}
+     * completes when every section has arrived, or fails with the first error/timeout.
+     */
+    public DashboardLoad loadDashboard(DateRange range, int topLimit) {
+        long started = System.nanoTime();
+        DateRange previous = range.previous();
+        
+        CompletableFuture<ReportSummary> summary = section(() -> getSummary(range.from(), range.to()));
+        CompletableFuture<ReportSummary> previousSummary = section(() -> getSummary(previous.from(), previous.to()));
+        CompletableFuture<List<DailyRevenue>> daily = section(() -> List.copyOf(getDailyRevenue(range.from(), range.to())));
+        CompletableFuture<List<TopProduct>> top = section(() -> List.copyOf(getTopProducts(range.from(), range.to(), topLimit)));
+        
+        CompletableFuture<ReportBundle> bundle = CompletableFuture.allOf(summary, previousSummary, daily, top)
+            .thenApply(v -> {
+                logger.debug("Dashboard {}..{} loaded in {} ms", range.from(), range.to(),
+                    (System.nanoTime() - started) / 1_000_000);
+                return new ReportBundle(range, summary.join(), previousSummary.join(), daily.join(), top.join());
+            });
+        
+        return new DashboardLoad(summary, previousSummary, daily, top, bundle);
+    }
+    
+    private <T> CompletableFuture<T> section(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, loader)
+            .orTimeout(DASHBOARD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    // ========== Cached Queries ==========
+    
+    /**
+     * Serve from ReportCache; a failed query is logged, not cached, and yields the fallback
+     */
+    private <T> T cached(String type, LocalDate fromDate, LocalDate toDate, int limit,
+                         ReportCache.Loader<T> loader, T fallback) {
+        try {
+            return cache.get(new ReportCache.Key(type, fromDate, toDate, limit), loader);
+        } catch (Exception e) {
+            logger.error("Error loading {} from {} to {}", type, fromDate, toDate, e);
+            return fallback;
+        }
+    }
+    
     /**
      * Lấy doanh thu theo ngày trong khoảng thời gian
      */
     public List<DailyRevenue> getDailyRevenue(LocalDate fromDate, LocalDate toDate) {
+        return cached("daily_revenue", fromDate, toDate, 0, () -> queryDailyRevenue(fromDate, toDate), List.of());
+    }
+    
+    private List<DailyRevenue> queryDailyRevenue(LocalDate fromDate, LocalDate toDate) throws SQLException {
         List<DailyRevenue> result = new ArrayList<>();
         
         String sql = """
@@ -66,18 +140,19 @@ public class ReportService {
             }
             
             logger.info("Loaded {} days of revenue data from {} to {}", result.size(), fromDate, toDate);
-            
-        } catch (SQLException e) {
-            logger.error("Error loading daily revenue", e);
         }
         
-        return result;
+        return List.copyOf(result);
     }
     
     /**
      * Lấy top món bán chạy trong khoảng thời gian
      */
     public List<TopProduct> getTopProducts(LocalDate fromDate, LocalDate toDate, int limit) {
+        return cached("top_products", fromDate, toDate, limit, () -> queryTopProducts(fromDate, toDate, limit), List.of());
+    }
+    
+    private List<TopProduct> queryTopProducts(LocalDate fromDate, LocalDate toDate, int limit) throws SQLException {
         List<TopProduct> result = new ArrayList<>();
         
         String sql = """
@@ -120,18 +195,20 @@ public class ReportService {
             }
             
             logger.info("Loaded {} top products", result.size());
-            
-        } catch (SQLException e) {
-            logger.error("Error loading top products", e);
         }
         
-        return result;
+        return List.copyOf(result);
     }
     
     /**
      * Lấy thống kê tổng quan
      */
     public ReportSummary getSummary(LocalDate fromDate, LocalDate toDate) {
+        return cached("summary", fromDate, toDate, 0, () -> querySummary(fromDate, toDate),
+            new ReportSummary(BigDecimal.ZERO, 0, 0, 0, BigDecimal.ZERO));
+    }
+    
+    private ReportSummary querySummary(LocalDate fromDate, LocalDate toDate) throws SQLException {
         String sql = """
             SELECT 
                 COALESCE(SUM(o.total_amount), 0) as total_revenue,
@@ -162,9 +239,6 @@ public class ReportService {
                 
                 return new ReportSummary(totalRevenue, totalOrders, totalGuests, tablesUsed, avgPerOrder);
             }
-            
-        } catch (SQLException e) {
-            logger.error("Error loading summary", e);
         }
         
         return new ReportSummary(BigDecimal.ZERO, 0, 0, 0, BigDecimal.ZERO);
@@ -175,17 +249,18 @@ public class ReportService {
      */
     public ReportSummary getPreviousPeriodSummary(LocalDate fromDate, LocalDate toDate) {
         // Calculate same duration for previous period
-        long days = java.time.temporal.ChronoUnit.DAYS.between(fromDate, toDate) + 1;
-        LocalDate prevTo = fromDate.minusDays(1);
-        LocalDate prevFrom = prevTo.minusDays(days - 1);
-        
-        return getSummary(prevFrom, prevTo);
+        DateRange previous = new DateRange(fromDate, toDate).previous();
+        return getSummary(previous.from(), previous.to());
     }
     
     /**
      * Lấy chi tiết các đơn hàng theo ngày
      */
     public List<OrderWithDetails> getOrdersByDate(LocalDate date) {
+        return cached("orders_by_date", date, date, 0, () -> queryOrdersByDate(date), List.of());
+    }
+    
+    private List<OrderWithDetails> queryOrdersByDate(LocalDate date) throws SQLException {
         List<OrderWithDetails> result = new ArrayList<>();
         
         String orderSql = """
@@ -238,21 +313,143 @@ public class ReportService {
                 
                 result.add(new OrderWithDetails(
                     orderId, orderCode, tableName, guestCount,
-                    totalAmount, completedAt, items
+                    totalAmount, completedAt, List.copyOf(items)
                 ));
             }
             
             logger.info("Loaded {} orders for date {}", result.size(), date);
+        }
+        
+        return List.copyOf(result);
+    }
+    
+    // ========== Export Streaming ==========
+    
+    /**
+     * Callback for streamed order lines; return false to stop reading
+     */
+    @FunctionalInterface
+    public interface OrderLineHandler {
+        boolean accept(OrderLine line) throws IOException;
+    }
+    
+    /**
+     * Số dòng món (order_details) trong khoảng thời gian - dùng cho thanh tiến trình xuất
+     */
+    public long countOrderLines(LocalDate fromDate, LocalDate toDate) throws SQLException {
+        String sql = """
+            SELECT COUNT(*)
+            FROM orders o
+            JOIN order_details od ON od.order_id = o.id
+            WHERE o.status = 'COMPLETED'
+              AND o.completed_at >= ? AND o.completed_at < ?
+              AND od.status != 'CANCELLED'
+            """;
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             
+            stmt.setTimestamp(1, Timestamp.valueOf(fromDate.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(toDate.plusDays(1).atStartOfDay()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+    
+    /**
+     * Đọc từng dòng món đã bán trong khoảng thời gian qua con trỏ forward-only
+     *
+     * MySQL Connector/J streams the result row by row when the fetch size is
+     * Integer.MIN_VALUE, so only the current row is held in memory. The connection
+     * is busy until the stream ends; stopping early cancels the query instead of
+     * draining the remaining rows.
+     *
+     * @return number of lines passed to the handler
+     */
+    public long streamOrderLines(LocalDate fromDate, LocalDate toDate, OrderLineHandler handler)
+            throws SQLException, IOException {
+        String sql = """
+            SELECT o.completed_at, o.order_code, t.name as table_name,
+                   p.name as product_name, od.quantity, od.unit_price, od.subtotal
+            FROM orders o
+            JOIN order_details od ON od.order_id = o.id
+            JOIN products p ON od.product_id = p.id
+            LEFT JOIN tables t ON o.table_id = t.id
+            WHERE o.status = 'COMPLETED'
+              AND o.completed_at >= ? AND o.completed_at < ?
+              AND od.status != 'CANCELLED'
+            ORDER BY o.completed_at, o.id, od.id
+            """;
+        
+        long count = 0;
+        boolean stopped = false;
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql,
+                 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setTimestamp(1, Timestamp.valueOf(fromDate.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(toDate.plusDays(1).atStartOfDay()));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    OrderLine line = new OrderLine(
+                        rs.getTimestamp("completed_at").toLocalDateTime(),
+                        rs.getString("order_code"),
+                        rs.getString("table_name"),
+                        rs.getString("product_name"),
+                        rs.getInt("quantity"),
+                        rs.getBigDecimal("unit_price"),
+                        rs.getBigDecimal("subtotal")
+                    );
+                    count++;
+                    if (!handler.accept(line)) {
+                        stopped = true;
+                        stmt.cancel();
+                        break;
+                    }
+                }
+            }
         } catch (SQLException e) {
-            logger.error("Error loading orders by date", e);
+            // Closing a cancelled stream reports the interrupted query - expected
+            if (!stopped) throw e;
         }
         
-        return result;
+        logger.info("Streamed {} order lines from {} to {}", count, fromDate, toDate);
+        return count;
     }
     
     // ========== Inner Classes ==========
     
+    /**
+     * Khoảng ngày báo cáo (bao gồm cả hai đầu)
+     */
+    public record DateRange(LocalDate from, LocalDate to) {
+        
+        /** Same number of days immediately before this range */
+        public DateRange previous() {
+            long days = ChronoUnit.DAYS.between(from, to) + 1;
+            LocalDate prevTo = from.minusDays(1);
+            return new DateRange(prevTo.minusDays(days - 1), prevTo);
+        }
+    }
+    
+    /**
+     * Toàn bộ dữ liệu màn hình báo cáo của một khoảng ngày (bất biến)
+     */
+    public record ReportBundle(DateRange range, ReportSummary summary, ReportSummary previousSummary,
+                               List<DailyRevenue> dailyRevenue, List<TopProduct> topProducts) {}
+    
+    /**
+     * Các phần đang tải của màn hình báo cáo - mỗi phần hoàn thành độc lập
+     */
+    public record DashboardLoad(CompletableFuture<ReportSummary> summary,
+                                CompletableFuture<ReportSummary> previousSummary,
+                                CompletableFuture<List<DailyRevenue>> dailyRevenue,
+                                CompletableFuture<List<TopProduct>> topProducts,
+                                CompletableFuture<ReportBundle> bundle) {}
+    
     public static class DailyRevenue {
         private final LocalDate date;
         private final int orderCount;
@@ -354,6 +551,12 @@ public class ReportService {
         public List<OrderItemDetail> items() { return items; }
     }
     
+    /**
+     * Một dòng món đã bán (xuất báo cáo chi tiết)
+     */
+    public record OrderLine(LocalDateTime completedAt, String orderCode, String tableName,
+                            String productName, int quantity, BigDecimal unitPrice, BigDecimal subtotal) {}
+    
     public static class OrderItemDetail {
         private final int productId;
         private final String productName;
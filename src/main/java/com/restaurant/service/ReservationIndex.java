@@ -0,0 +1,153 @@
+package com.restaurant.service;
+
+import com.restaurant.dao.interfaces.IReservationDAO;
+import com.restaurant.model.Reservation;
+import com.restaurant.model.Table;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Reservation Index - Lịch đặt bàn của từng bàn trong bộ nhớ
+ *
+ * - Đặt bàn PENDING/CONFIRMED từ hôm nay đến HORIZON_DAYS ngày tới, mỗi bàn một tập sắp theo giờ đến
+ * - Mọi đặt bàn chiếm cùng một khung (90 phút) nên hai lịch trùng nhau khi giờ đến cách nhau
+ *   không quá một khung: kiểm tra trùng là một truy vấn khoảng O(log n) trên tập đã sắp
+ * - Tìm bàn trống cho N khách, xếp theo độ vừa sức chứa
+ * - Nạp lại sau RELOAD_MINUTES phút hoặc khi sang ngày (đặt bàn có thể tạo từ máy khác)
+ */
+final class ReservationIndex {
+    
+    private static final Logger logger = LogManager.getLogger(ReservationIndex.class);
+    
+    static final int HORIZON_DAYS = 14;
+    private static final long RELOAD_MINUTES = 10;
+    
+    private record Slot(LocalDateTime start, int reservationId) {}
+    
+    private static final Comparator<Slot> SLOT_ORDER =
+        Comparator.comparing(Slot::start).thenComparingInt(Slot::reservationId);
+    
+    private final IReservationDAO reservationDAO;
+    private final Supplier<List<Table>> tableLoader;
+    private final int durationMinutes;
+    
+    private final Map<Integer, NavigableSet<Slot>> slotsByTable = new HashMap<>();
+    /** reservation id -> (table id, slot), for removal and moves */
+    private final Map<Integer, Map.Entry<Integer, Slot>> slotsById = new HashMap<>();
+    private List<Table> tables = List.of();
+    private LocalDate loadedDay;
+    private long loadedAt;
+    
+    ReservationIndex(IReservationDAO reservationDAO, Supplier<List<Table>> tableLoader, int durationMinutes) {
+        this.reservationDAO = reservationDAO;
+        this.tableLoader = tableLoader;
+        this.durationMinutes = durationMinutes;
+    }
+    
+    /**
+     * True if the whole conflict window of this time lies inside the indexed days
+     */
+    synchronized boolean covers(LocalDateTime time) {
+        ensureLoaded();
+        LocalDateTime first = loadedDay.atStartOfDay();
+        LocalDateTime end = loadedDay.plusDays(HORIZON_DAYS).atStartOfDay();
+        return !time.minusMinutes(durationMinutes).isBefore(first) && time.plusMinutes(durationMinutes).isBefore(end);
+    }
+    
+    /**
+     * Another active reservation of this table starts within one window of {@code time}
+     */
+    synchronized boolean hasConflict(int tableId, LocalDateTime time, int excludeReservationId) {
+        ensureLoaded();
+        NavigableSet<Slot> slots = slotsByTable.get(tableId);
+        if (slots == null) return false;
+        
+        // Same bounds as the SQL check: start BETWEEN time - duration AND time + duration
+        for (Slot slot : slots.subSet(new Slot(time.minusMinutes(durationMinutes), Integer.MIN_VALUE), true,
+                                      new Slot(time.plusMinutes(durationMinutes), Integer.MAX_VALUE), true)) {
+            if (slot.reservationId() != excludeReservationId) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Tables seating at least {@code guests} with no conflict at {@code time},
+     * tightest fit first (fewest empty seats), then by name
+     */
+    synchronized List<Table> findAvailable(LocalDateTime time, int guests, int excludeReservationId) {
+        ensureLoaded();
+        List<Table> result = new ArrayList<>();
+        for (Table table : tables) {
+            if (table.getCapacity() >= guests && !hasConflict(table.getId(), time, excludeReservationId)) {
+                result.add(table);
+            }
+        }
+        result.sort(Comparator.comparingInt((Table t) -> t.getCapacity() - guests)
+            .thenComparing(Table::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+    
+    /**
+     * Add or move a reservation; inactive or out-of-range ones are removed
+     */
+    synchronized void put(Reservation reservation) {
+        if (loadedDay == null) return;      // Not loaded yet - the first load will read it
+        remove(reservation.getId());
+        if (!isActive(reservation)) return;
+        
+        LocalDate day = reservation.getReservationTime().toLocalDate();
+        if (day.isBefore(loadedDay) || !day.isBefore(loadedDay.plusDays(HORIZON_DAYS))) return;
+        add(reservation);
+    }
+    
+    synchronized void remove(int reservationId) {
+        Map.Entry<Integer, Slot> entry = slotsById.remove(reservationId);
+        if (entry != null) {
+            NavigableSet<Slot> slots = slotsByTable.get(entry.getKey());
+            if (slots != null) {
+                slots.remove(entry.getValue());
+            }
+        }
+    }
+    
+    // ==================== LOADING ====================
+    
+    private void ensureLoaded() {
+        LocalDate today = LocalDate.now();
+        if (today.equals(loadedDay) && System.currentTimeMillis() - loadedAt < RELOAD_MINUTES * 60_000) return;
+        
+        List<Reservation> reservations = reservationDAO.findActiveBetween(
+            today.atStartOfDay(), today.plusDays(HORIZON_DAYS).atStartOfDay());
+        
+        slotsByTable.clear();
+        slotsById.clear();
+        reservations.forEach(this::add);
+        tables = List.copyOf(tableLoader.get());
+        loadedDay = today;
+        loadedAt = System.currentTimeMillis();
+        logger.debug("Reservation index loaded: {} reservations on {} tables", reservations.size(), tables.size());
+    }
+    
+    private void add(Reservation reservation) {
+        Slot slot = new Slot(reservation.getReservationTime(), reservation.getId());
+        slotsByTable.computeIfAbsent(reservation.getTableId(), id -> new TreeSet<>(SLOT_ORDER)).add(slot);
+        slotsById.put(reservation.getId(), Map.entry(reservation.getTableId(), slot));
+    }
+    
+    private static boolean isActive(Reservation reservation) {
+        return reservation.getReservationTime() != null
+            && (reservation.getStatus() == Reservation.Status.PENDING
+                || reservation.getStatus() == Reservation.Status.CONFIRMED);
+    }
+}
@@ -1,33 +1,77 @@
 package com.restaurant.service;
 
+import com.restaurant.dao.PageSource;
 import com.restaurant.dao.ReservationDAO;
 import com.restaurant.dao.interfaces.IReservationDAO;
 import com.restaurant.model.Reservation;
+import com.restaurant.model.Table;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
  * Reservation Service - Business logic for reservations
+ *
+ * Reminders and no-shows: today's PENDING/CONFIRMED reservations are held in memory,
+ * each with a timer at (time - 15 min) for the reminder and (time + 30 min) for no-show,
+ * on one scheduler thread (delay queue). Create / update / status changes re-arm the
+ * timers; the day is re-read every 10 minutes and at midnight. Status changes are
+ * written in batches a couple of seconds after they fire.
+ *
+ * Conflict checks and free-table search use {@link ReservationIndex} (next 14 days in memory).
  */
 public class ReservationService {
     
     private static final Logger logger = LogManager.getLogger(ReservationService.class);
     private static ReservationService instance;
     
+    /** Every reservation blocks its table for this long */
+    private static final int RESERVATION_MINUTES = 90;
+    private static final int REMINDER_LEAD_MINUTES = 15;
+    private static final int NO_SHOW_MINUTES = 30;
+    private static final int FLUSH_DELAY_SECONDS = 2;
+    private static final int RESYNC_MINUTES = 10;
+    
     private final IReservationDAO reservationDAO;
-    private Timer reminderTimer;
-    private Consumer<Reservation> reminderCallback;
+    private final ReservationIndex index;
+    private volatile Consumer<Reservation> reminderCallback;
+    private ScheduledExecutorService scheduler;
+    
+    /** Timers of one reservation */
+    private record ScheduledReservation(Reservation reservation, ScheduledFuture<?> reminder, ScheduledFuture<?> noShow) {
+        void cancel() {
+            if (reminder != null) reminder.cancel(false);
+            noShow.cancel(false);
+        }
+    }
+    
+    // Scheduler thread only
+    private final Map<Integer, ScheduledReservation> scheduled = new HashMap<>();
+    private final Set<Integer> pendingNotified = new LinkedHashSet<>();
+    private final Set<Integer> pendingNoShows = new LinkedHashSet<>();
+    private ScheduledFuture<?> flushTask;
     
     private ReservationService() {
         this.reservationDAO = new ReservationDAO();
+        this.index = new ReservationIndex(reservationDAO, () -> TableService.getInstance().getAllTables(),
+            RESERVATION_MINUTES);
     }
     
     public static synchronized ReservationService getInstance() {
@@ -58,19 +102,18 @@ public class ReservationService {
             return ServiceResult.error("Số khách phải lớn hơn 0");
         }
         
-        // Check for time conflict (90 minute reservation window by default)
-        int reservationDurationMinutes = 90;
-        if (reservationDAO.hasTimeConflict(reservation.getTableId(), 
-                reservation.getReservationTime(), reservationDurationMinutes, -1)) {
-            return ServiceResult.error(
-                "Bàn đã có lịch đặt trong khoảng thời gian này.\n" +
-                "Vui lòng chọn thời gian cách ít nhất " + reservationDurationMinutes + " phút.");
+        // Check for time conflict (90 minute reservation window)
+        if (hasConflictForSave(reservation.getTableId(), reservation.getReservationTime(), -1)) {
+            return conflictError();
         }
         
         int id = reservationDAO.create(reservation);
         if (id > 0) {
             reservation.setId(id);
             logger.info("Created reservation: {} for {}", id, reservation.getCustomerName());
+            Reservation saved = reservationDAO.findById(id).orElse(reservation);
+            index.put(saved);
+            reschedule(saved);
             return ServiceResult.success(reservation, "Đặt bàn thành công!");
         }
         
@@ -91,6 +134,13 @@ public class ReservationService {
         return reservationDAO.findByDate(LocalDate.now());
     }
     
+    /**
+     * Paged reservations for LazyTableModel; filter is the day (LocalDate)
+     */
+    public PageSource<Reservation> getReservationPages() {
+        return reservationDAO.pagesByDate();
+    }
+    
     /**
      * Get upcoming reservations for today
      */
@@ -112,10 +162,87 @@ public class ReservationService {
         boolean result = reservationDAO.updateStatus(id, status);
         if (result) {
             logger.info("Updated reservation {} status to {}", id, status);
+            if (status == Reservation.Status.PENDING || status == Reservation.Status.CONFIRMED) {
+                reservationDAO.findById(id).ifPresent(index::put);
+            } else {
+                index.remove(id);
+            }
+            rescheduleStatus(id, status);
         }
         return result;
     }
     
+    /**
+     * Update reservation details (table, time, guests, ...) and re-arm its reminder
+     */
+    public ServiceResult<Reservation> updateReservation(Reservation reservation) {
+        if (reservation.getReservationTime() == null) {
+            return ServiceResult.error("Vui lòng chọn thời gian đặt bàn");
+        }
+        boolean active = reservation.getStatus() == Reservation.Status.PENDING
+            || reservation.getStatus() == Reservation.Status.CONFIRMED;
+        if (active && hasConflictForSave(reservation.getTableId(), reservation.getReservationTime(), reservation.getId())) {
+            return conflictError();
+        }
+        
+        if (!reservationDAO.update(reservation)) {
+            return ServiceResult.error("Không thể cập nhật đặt bàn. Vui lòng thử lại.");
+        }
+        logger.info("Updated reservation {}", reservation.getId());
+        Reservation saved = reservationDAO.findById(reservation.getId()).orElse(reservation);
+        index.put(saved);
+        reschedule(saved);
+        return ServiceResult.success(saved, "Đã cập nhật đặt bàn!");
+    }
+    
+    // ==================== AVAILABILITY ====================
+    
+    /**
+     * Another active reservation of the table starts within 90 minutes of {@code time}
+     * (in memory for the next 14 days, database beyond that)
+     */
+    public boolean hasTimeConflict(int tableId, LocalDateTime time, int excludeReservationId) {
+        if (index.covers(time)) {
+            return index.hasConflict(tableId, time, excludeReservationId);
+        }
+        return reservationDAO.hasTimeConflict(tableId, time, RESERVATION_MINUTES, excludeReservationId);
+    }
+    
+    /**
+     * Tables free at {@code time} that seat {@code guests}, best capacity fit first
+     *
+     * @param excludeReservationId reservation being edited (its own slot is ignored), -1 for new
+     */
+    public List<Table> findAvailableTables(LocalDateTime time, int guests, int excludeReservationId) {
+        if (index.covers(time)) {
+            return index.findAvailable(time, guests, excludeReservationId);
+        }
+        List<Table> result = new ArrayList<>();
+        for (Table table : TableService.getInstance().getAllTables()) {
+            if (table.getCapacity() >= guests
+                    && !reservationDAO.hasTimeConflict(table.getId(), time, RESERVATION_MINUTES, excludeReservationId)) {
+                result.add(table);
+            }
+        }
+        result.sort(Comparator.comparingInt((Table t) -> t.getCapacity() - guests));
+        return result;
+    }
+    
+    /**
+     * Check before writing: the index answers first, then the database confirms
+     * (another terminal may have booked the table since the index was loaded)
+     */
+    private boolean hasConflictForSave(int tableId, LocalDateTime time, int excludeReservationId) {
+        return hasTimeConflict(tableId, time, excludeReservationId)
+            || reservationDAO.hasTimeConflict(tableId, time, RESERVATION_MINUTES, excludeReservationId);
+    }
+    
+    private ServiceResult<Reservation> conflictError() {
+        return ServiceResult.error(
+            "Bàn đã có lịch đặt trong khoảng thời gian này.\n" +
+            "Vui lòng chọn thời gian cách ít nhất " + RESERVATION_MINUTES + " phút.");
+    }
+    
     /**
      * Mark customer as arrived
      */
@@ -130,64 +257,176 @@ public class ReservationService {
         return updateStatus(id, Reservation.Status.CANCELLED);
     }
     
+    // ==================== REMINDER SCHEDULER ====================
+    
     /**
-     * Start reminder timer (checks every minute)
+     * Start the reminder / no-show scheduler; calling again only replaces the callback
+     *
+     * @param callback receives each reminder on the scheduler thread
      */
-    public void startReminderTimer(Consumer<Reservation> callback) {
+    public synchronized void startReminderTimer(Consumer<Reservation> callback) {
         this.reminderCallback = callback;
+        if (scheduler != null) return;
         
-        if (reminderTimer != null) {
-            reminderTimer.cancel();
-        }
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "reservation-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        scheduler = executor;
         
-        reminderTimer = new Timer("ReservationReminder", true);
-        reminderTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                checkReminders();
-            }
-        }, 0, 60000); // Check every minute
+        // Reservations made on other terminals only reach us through this reload
+        scheduler.scheduleWithFixedDelay(this::reloadToday, 0, RESYNC_MINUTES, TimeUnit.MINUTES);
+        scheduleMidnightReload();
         
-        logger.info("Started reservation reminder timer");
+        logger.info("Started reservation scheduler");
+    }
+    
+    /**
+     * Stop the scheduler, writing any queued status changes first
+     */
+    public synchronized void stopReminderTimer() {
+        if (scheduler == null) return;
+        scheduler.execute(() -> {
+            flushStatusChanges();
+            scheduled.values().forEach(ScheduledReservation::cancel);
+            scheduled.clear();
+        });
+        scheduler.shutdown();
+        scheduler = null;
     }
     
     /**
-     * Stop reminder timer
+     * Re-arm the timers of one reservation after it was created or changed (any thread)
      */
-    public void stopReminderTimer() {
-        if (reminderTimer != null) {
-            reminderTimer.cancel();
-            reminderTimer = null;
+    private synchronized void reschedule(Reservation reservation) {
+        if (scheduler != null) {
+            scheduler.execute(() -> schedule(reservation));
         }
     }
     
+    private synchronized void rescheduleStatus(int id, Reservation.Status status) {
+        if (scheduler != null) {
+            scheduler.execute(() -> {
+                ScheduledReservation entry = scheduled.get(id);
+                if (entry != null) {
+                    entry.reservation().setStatus(status);
+                    schedule(entry.reservation());
+                }
+            });
+        }
+    }
+    
+    // ---- scheduler thread only below ----
+    
     /**
-     * Check for reservations needing reminder and mark no-shows
+     * Replace today's timers with what the database has now
      */
-    private void checkReminders() {
-        // 1. Check for no-shows (past 30 minutes)
-        int noShowCount = reservationDAO.markNoShows(30);
-        if (noShowCount > 0) {
-            logger.info("Auto-marked {} reservations as NO_SHOW", noShowCount);
+    private void reloadToday() {
+        LocalDate today = LocalDate.now();
+        List<Reservation> reservations = reservationDAO.findByDate(today);
+        Set<Integer> ids = new HashSet<>();
+        for (Reservation r : reservations) {
+            ids.add(r.getId());
         }
         
-        // 2. Send reminders for upcoming reservations
-        List<Reservation> needReminder = reservationDAO.findNeedingReminder();
+        // Drop today's entries that vanished (deleted); other days' deadlines keep running
+        scheduled.values().removeIf(entry -> {
+            Reservation r = entry.reservation();
+            boolean gone = r.getReservationTime().toLocalDate().equals(today) && !ids.contains(r.getId());
+            if (gone) entry.cancel();
+            return gone;
+        });
+        reservations.forEach(this::schedule);
+        logger.debug("Reservation scheduler: {} active timer(s)", scheduled.size());
+    }
+    
+    private void scheduleMidnightReload() {
+        LocalDateTime nextMidnight = LocalDate.now().plusDays(1).atStartOfDay().plusSeconds(1);
+        scheduler.schedule(() -> {
+            reloadToday();
+            scheduleMidnightReload();
+        }, millisUntil(nextMidnight), TimeUnit.MILLISECONDS);
+    }
+    
+    private void schedule(Reservation r) {
+        ScheduledReservation old = scheduled.remove(r.getId());
+        if (old != null) {
+            old.cancel();
+        }
+        if (r.getReservationTime() == null
+                || (r.getStatus() != Reservation.Status.PENDING && r.getStatus() != Reservation.Status.CONFIRMED)) {
+            return;
+        }
+        
+        LocalDateTime time = r.getReservationTime();
+        ScheduledFuture<?> reminder = null;
+        if (!r.isNotified() && !pendingNotified.contains(r.getId()) && time.isAfter(LocalDateTime.now())) {
+            reminder = scheduler.schedule(() -> fireReminder(r.getId()),
+                millisUntil(time.minusMinutes(REMINDER_LEAD_MINUTES)), TimeUnit.MILLISECONDS);
+        }
+        ScheduledFuture<?> noShow = scheduler.schedule(() -> fireNoShow(r.getId()),
+            millisUntil(time.plusMinutes(NO_SHOW_MINUTES)), TimeUnit.MILLISECONDS);
         
-        for (Reservation reservation : needReminder) {
-            // Mark as notified first
-            reservationDAO.markNotified(reservation.getId());
-            
-            // Trigger callback
-            if (reminderCallback != null) {
-                reminderCallback.accept(reservation);
+        scheduled.put(r.getId(), new ScheduledReservation(r, reminder, noShow));
+    }
+    
+    private void fireReminder(int id) {
+        ScheduledReservation entry = scheduled.get(id);
+        if (entry == null || entry.reservation().isNotified()) return;
+        
+        Reservation reservation = entry.reservation();
+        reservation.setNotified(true);
+        pendingNotified.add(id);
+        scheduleFlush();
+        
+        Consumer<Reservation> callback = reminderCallback;
+        if (callback != null) {
+            callback.accept(reservation);
+        }
+        logger.info("Sent reminder for reservation: {} - {} at {}", 
+            id, reservation.getCustomerName(), reservation.getFormattedTime());
+    }
+    
+    private void fireNoShow(int id) {
+        ScheduledReservation entry = scheduled.remove(id);
+        if (entry == null) return;
+        entry.cancel();
+        entry.reservation().setStatus(Reservation.Status.NO_SHOW);
+        pendingNoShows.add(id);
+        scheduleFlush();
+    }
+    
+    /** Status writes are collected for a couple of seconds and sent as one UPDATE each */
+    private void scheduleFlush() {
+        if (flushTask == null || flushTask.isDone()) {
+            flushTask = scheduler.schedule(this::flushStatusChanges, FLUSH_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+    
+    private void flushStatusChanges() {
+        if (!pendingNotified.isEmpty()) {
+            List<Integer> ids = new ArrayList<>(pendingNotified);
+            pendingNotified.clear();
+            reservationDAO.markNotified(ids);
+        }
+        if (!pendingNoShows.isEmpty()) {
+            List<Integer> ids = new ArrayList<>(pendingNoShows);
+            pendingNoShows.clear();
+            ids.forEach(index::remove);
+            int count = reservationDAO.markNoShows(ids);
+            if (count > 0) {
+                logger.info("Auto-marked {} reservations as NO_SHOW", count);
             }
-            
-            logger.info("Sent reminder for reservation: {} - {} at {}", 
-                reservation.getId(), reservation.getCustomerName(), reservation.getFormattedTime());
         }
     }
     
+    private static long millisUntil(LocalDateTime time) {
+        return Math.max(0, Duration.between(LocalDateTime.now(), time).toMillis());
+    }
+    
     /**
      * Search by phone
      */
@@ -359,35 +359,16 @@ public class ScheduleService {
             logger.error("Error getting staff name", e);
         }
         
-        // Get all managers and admins
-        String managerSql = """
-            SELECT u.id FROM users u
-            JOIN roles r ON u.role_id = r.id
-            WHERE r.name IN ('ADMIN', 'MANAGER') AND u.is_active = TRUE
-            """;
-        
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(managerSql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            NotificationService notifService = NotificationService.getInstance();
-            String details = staffName + " xin nghỉ " + request.getLeaveType().getDisplayName() + 
-                           " từ " + request.getStartDate() + " đến " + request.getEndDate();
-            
-            while (rs.next()) {
-                int managerId = rs.getInt("id");
-                com.restaurant.model.Notification n = new com.restaurant.model.Notification(
-                    managerId, 
-                    "📝 Yêu cầu nghỉ phép mới", 
-                    details,
-                    com.restaurant.model.Notification.NotificationType.INFO
-                );
-                notifService.createNotification(n);
-            }
-            logger.info("Notified managers about new leave request from {}", staffName);
-        } catch (SQLException e) {
-            logger.error("Error notifying managers", e);
-        }
+        // All managers and admins, inserted in one batch
+        String details = staffName + " xin nghỉ " + request.getLeaveType().getDisplayName() + 
+                       " từ " + request.getStartDate() + " đến " + request.getEndDate();
+        NotificationService.getInstance().broadcastToRoles(
+            List.of(com.restaurant.model.Role.ADMIN, com.restaurant.model.Role.MANAGER),
+            "📝 Yêu cầu nghỉ phép mới",
+            details,
+            com.restaurant.model.Notification.NotificationType.INFO,
+            null);
+        logger.info("Notified managers about new leave request from {}", staffName);
     }
     
     public boolean approveLeaveRequest(int requestId, int reviewerId) {
@@ -7,21 +7,23 @@ import org.apache.logging.log4j.Logger;
 import java.sql.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * SettingsService - Quản lý cấu hình hệ thống
  * 
  * Singleton với cache trong memory để tối ưu performance.
  * Settings được load từ database khi khởi động và cache lại.
+ * Thread-safe: the startup warm-up loads settings while the login screen reads them.
  */
 public class SettingsService {
     
     private static final Logger logger = LogManager.getLogger(SettingsService.class);
     private static SettingsService instance;
     
-    // Cache settings in memory
-    private final Map<String, String> cache = new HashMap<>();
-    private boolean loaded = false;
+    // Cache settings in memory; a reload swaps in a complete new map
+    private volatile Map<String, String> cache = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
     
     // Default keys
     public static final String KEY_RESTAURANT_NAME = "restaurant_name";
@@ -46,6 +48,7 @@ public class SettingsService {
     public static final String KEY_FONT_SIZE = "display_font_size";
     public static final String KEY_PRIMARY_COLOR = "display_primary_color";
     public static final String KEY_KITCHEN_COLUMNS = "display_kitchen_columns";
+    public static final String KEY_NOTIFICATION_RETENTION_DAYS = "notification_retention_days";
     
     private SettingsService() {
         loadAllSettings();
@@ -61,8 +64,8 @@ public class SettingsService {
     /**
      * Load all settings from database into cache
      */
-    public void loadAllSettings() {
-        cache.clear();
+    public synchronized void loadAllSettings() {
+        Map<String, String> fresh = new ConcurrentHashMap<>();
         String sql = "SELECT setting_key, setting_value FROM settings";
         
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
@@ -72,32 +75,34 @@ public class SettingsService {
             while (rs.next()) {
                 String key = rs.getString("setting_key");
                 String value = rs.getString("setting_value");
-                cache.put(key, value != null ? value : "");
+                fresh.put(key, value != null ? value : "");
             }
             
+            cache = fresh;
             loaded = true;
-            logger.info("Loaded {} settings from database", cache.size());
+            logger.info("Loaded {} settings from database", fresh.size());
             
         } catch (SQLException e) {
             logger.error("Error loading settings", e);
-            setDefaults();
+            setDefaults(fresh);
+            cache = fresh;
         }
     }
     
     /**
      * Set default values if database fails
      */
-    private void setDefaults() {
-        cache.put(KEY_RESTAURANT_NAME, "RestaurantPOS");
-        cache.put(KEY_RESTAURANT_ADDRESS, "123 Nguyễn Huệ, Quận 1, TP.HCM");
-        cache.put(KEY_RESTAURANT_PHONE, "028 1234 5678");
-        cache.put(KEY_VAT_PERCENT, "10");
-        cache.put(KEY_SERVICE_CHARGE_PERCENT, "5");
-        cache.put(KEY_RECEIPT_FOOTER, "Cảm ơn quý khách!\nHẹn gặp lại!");
-        cache.put(KEY_KITCHEN_AUTO_PRINT, "true");
-        cache.put(KEY_THEME, "dark");
-        cache.put(KEY_FONT_SIZE, "14");
-        cache.put(KEY_PRIMARY_COLOR, "#28a745");
+    private void setDefaults(Map<String, String> target) {
+        target.put(KEY_RESTAURANT_NAME, "RestaurantPOS");
+        target.put(KEY_RESTAURANT_ADDRESS, "123 Nguyễn Huệ, Quận 1, TP.HCM");
+        target.put(KEY_RESTAURANT_PHONE, "028 1234 5678");
+        target.put(KEY_VAT_PERCENT, "10");
+        target.put(KEY_SERVICE_CHARGE_PERCENT, "5");
+        target.put(KEY_RECEIPT_FOOTER, "Cảm ơn quý khách!\nHẹn gặp lại!");
+        target.put(KEY_KITCHEN_AUTO_PRINT, "true");
+        target.put(KEY_THEME, "dark");
+        target.put(KEY_FONT_SIZE, "14");
+        target.put(KEY_PRIMARY_COLOR, "#28a745");
     }
     
     /**
@@ -175,7 +180,7 @@ public class SettingsService {
             int affected = stmt.executeUpdate();
             
             if (affected > 0) {
-                cache.put(key, value); // Update cache
+                cache.put(key, value != null ? value : ""); // Update cache
                 logger.info("Setting saved: {} = {}", key, value);
                 return true;
             }
@@ -219,7 +224,7 @@ public class SettingsService {
             conn.commit();
             
             // Update cache
-            cache.putAll(settings);
+            settings.forEach((key, value) -> cache.put(key, value != null ? value : ""));
             logger.info("Saved {} settings", settings.size());
             return true;
             
@@ -4,9 +4,12 @@ import com.restaurant.dao.impl.TableDAOImpl;
 import com.restaurant.dao.interfaces.ITableDAO;
 import com.restaurant.model.Table;
 import com.restaurant.model.Table.TableStatus;
+import com.restaurant.util.Prefetched;
+import com.restaurant.util.SingleFlight;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,8 +21,18 @@ public class TableService {
     private static final Logger logger = LogManager.getLogger(TableService.class);
     private static TableService instance;
     
+    /** Table status changes often; an older prefetch is ignored */
+    private static final long PREFETCH_TTL_MS = 2 * 60_000L;
+    
+    /** POS, reservations and the availability index asking together share one query */
+    private static final long MIN_RELOAD_MS = 1_000;
+    private static final String ALL = "all";
+    
     private final ITableDAO tableDAO;
     
+    private final Prefetched<List<Table>> prefetchedTables = new Prefetched<>(PREFETCH_TTL_MS);
+    private final SingleFlight<String, List<Table>> tableLoads = new SingleFlight<>(MIN_RELOAD_MS);
+    
     private TableService() {
         this.tableDAO = new TableDAOImpl();
     }
@@ -35,7 +48,17 @@ public class TableService {
      * Get all active tables
      */
     public List<Table> getAllTables() {
-        return tableDAO.findAll();
+        List<Table> prefetched = prefetchedTables.take();
+        if (prefetched != null) return prefetched;
+        // Screens opened together share one query; each caller gets its own list
+        return new ArrayList<>(tableLoads.load(ALL, tableDAO::findAll));
+    }
+    
+    /**
+     * Load the table layout ahead of the first screen (startup warm-up)
+     */
+    public void prefetchTables() {
+        prefetchedTables.put(tableDAO.findAll());
     }
     
     /**
@@ -111,6 +134,8 @@ public class TableService {
         }
         
         boolean success = tableDAO.insert(table);
+        prefetchedTables.clear();
+        tableLoads.invalidate(ALL);
         if (success) {
             logger.info("Table created: {}", table.getName());
             return ServiceResult.success(table, "Đã tạo bàn: " + table.getName());
@@ -143,6 +168,8 @@ public class TableService {
         table.setName(table.getName().trim());
         
         boolean success = tableDAO.update(table);
+        prefetchedTables.clear();
+        tableLoads.invalidate(ALL);
         if (success) {
             logger.info("Table updated: {}", table.getName());
             return ServiceResult.success(table, "Đã cập nhật bàn");
@@ -170,6 +197,8 @@ public class TableService {
         }
         
         boolean success = tableDAO.openTable(tableId, orderId, guestCount);
+        prefetchedTables.clear();
+        tableLoads.invalidate(ALL);
         if (success) {
             logger.info("Table {} opened with {} guests", table.getName(), guestCount);
             return ServiceResult.success(table, "Đã mở " + table.getName());
@@ -188,6 +217,8 @@ public class TableService {
         }
         
         boolean success = tableDAO.closeTable(tableId);
+        prefetchedTables.clear();
+        tableLoads.invalidate(ALL);
         if (success) {
             logger.info("Table {} closed", tableId);
             return ServiceResult.success(null, "Đã đóng bàn");
@@ -206,6 +237,8 @@ public class TableService {
         }
         
         boolean success = tableDAO.updateStatus(tableId, status);
+        prefetchedTables.clear();
+        tableLoads.invalidate(ALL);
         if (success) {
             logger.info("Table {} status: {}", tableId, status);
             return ServiceResult.success(null, "Đã cập nhật trạng thái");
@@ -229,6 +262,8 @@ public class TableService {
         }
         
         boolean success = tableDAO.deactivate(tableId);
+        prefetchedTables.clear();
+        tableLoads.invalidate(ALL);
         if (success) {
             logger.info("Table deleted: {}", tableId);
             return ServiceResult.success(null, "Đã xóa bàn");
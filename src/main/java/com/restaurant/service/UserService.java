@@ -3,6 +3,7 @@ package com.restaurant.service;
 import com.restaurant.dao.impl.UserDAOImpl;
 import com.restaurant.dao.interfaces.IUserDAO;
 import com.restaurant.model.User;
+import com.restaurant.util.SearchIndex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -18,6 +19,13 @@ public class UserService {
     private static UserService instance;
     private final IUserDAO userDAO;
     
+    /** Diacritic-insensitive username/full name index of active users */
+    private final SearchIndex<User> searchIndex =
+        new SearchIndex<>(User::getId, User::getUsername, User::getFullName);
+    private volatile boolean searchIndexLoaded = false;
+    /** Indexed fields of the list the index was last built from; guarded by searchIndex */
+    private String indexedUsers;
+    
     private UserService() {
         this.userDAO = new UserDAOImpl();
     }
@@ -30,10 +38,14 @@ public class UserService {
     }
     
     /**
-     * Get all active users
+     * Get all active users (also refreshes the search index from the same read if the list changed)
      */
     public List<User> getAllUsers() {
-        return userDAO.findAll();
+        List<User> users = userDAO.findAll();
+        synchronized (searchIndex) {
+            rebuildIfChanged(users);
+        }
+        return users;
     }
     
     /**
@@ -65,10 +77,49 @@ public class UserService {
     }
     
     /**
-     * Search users
+     * Search active users by username / full name - ranked, diacritic-insensitive ("duc" finds "Đức")
      */
     public List<User> searchUsers(String keyword) {
-        return userDAO.search(keyword);
+        if (keyword == null || keyword.isBlank()) {
+            return getAllUsers();
+        }
+        ensureSearchIndex();
+        return searchIndex.search(keyword, Integer.MAX_VALUE);
+    }
+    
+    private void ensureSearchIndex() {
+        if (!searchIndexLoaded) {
+            synchronized (searchIndex) {
+                if (!searchIndexLoaded) {
+                    rebuildIfChanged(userDAO.findAll());
+                }
+            }
+        }
+    }
+    
+    /** Rebuild the index unless it was built from the same ids, usernames and full names; call under searchIndex */
+    private void rebuildIfChanged(List<User> users) {
+        StringBuilder key = new StringBuilder();
+        for (User u : users) {
+            key.append(u.getId()).append('\u0000').append(u.getUsername())
+               .append('\u0000').append(u.getFullName()).append('\n');
+        }
+        String indexed = key.toString();
+        if (searchIndexLoaded && indexed.equals(indexedUsers)) return;
+        searchIndex.rebuild(users);
+        indexedUsers = indexed;
+        searchIndexLoaded = true;
+    }
+    
+    /** Re-read one user into the search index (active users only) */
+    private void reindex(int userId) {
+        if (!searchIndexLoaded) return;
+        Optional<User> user = userDAO.findById(userId);
+        if (user.isPresent() && user.get().isActive()) {
+            searchIndex.put(user.get());
+        } else {
+            searchIndex.remove(userId);
+        }
     }
     
     /**
@@ -84,6 +135,8 @@ public class UserService {
         boolean result = userDAO.insert(user);
         if (result) {
             logger.info("User created successfully: {}", user.getUsername());
+            reindex(user.getId());
+            NotificationService.getInstance().invalidateRoleMembers();
         }
         return result;
     }
@@ -95,6 +148,8 @@ public class UserService {
         boolean result = userDAO.update(user);
         if (result) {
             logger.info("User updated successfully: {}", user.getId());
+            reindex(user.getId());
+            NotificationService.getInstance().invalidateRoleMembers();
         }
         return result;
     }
@@ -124,6 +179,8 @@ public class UserService {
         boolean result = userDAO.deactivate(id);
         if (result) {
             logger.info("User deactivated: {}", id);
+            searchIndex.remove(id);
+            NotificationService.getInstance().invalidateRoleMembers();
         }
         return result;
     }
@@ -135,6 +192,8 @@ public class UserService {
         boolean result = userDAO.activate(id);
         if (result) {
             logger.info("User activated: {}", id);
+            reindex(id);
+            NotificationService.getInstance().invalidateRoleMembers();
         }
         return result;
     }
@@ -146,6 +205,8 @@ public class UserService {
         boolean result = userDAO.delete(id);
         if (result) {
             logger.info("User deleted permanently: {}", id);
+            searchIndex.remove(id);
+            NotificationService.getInstance().invalidateRoleMembers();
         }
         return result;
     }
@@ -0,0 +1,163 @@
+package com.restaurant.util;
+
+import com.restaurant.service.ReportService.DailyRevenue;
+import com.restaurant.service.ReportService.OrderLine;
+import com.restaurant.service.ReportService.ReportSummary;
+import com.restaurant.service.ReportService.TopProduct;
+import com.restaurant.util.ReportExporter.ReportData;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Export benchmark - Kiểm tra xuất báo cáo lớn chạy với heap cố định
+ *
+ * Streams synthetic order lines through ReportExporter (no database needed) and
+ * records the live heap left after each GC. The export must finish, write every row
+ * and keep the peak under --max-heap-mb, otherwise the exit code is non-zero.
+ * Run it with a small -Xmx so a regression to in-memory export fails with OOM.
+ *
+ * Usage:
+ *   java -Xmx128m -cp restaurant-pos.jar com.restaurant.util.ExportBenchmark
+ *        [--rows 2000000] [--format csv|xlsx|both] [--max-heap-mb 96] [--out /tmp] [--seed 42]
+ */
+public class ExportBenchmark {
+    
+    private static final Logger logger = LogManager.getLogger(ExportBenchmark.class);
+    
+    private static final String[] PRODUCTS = {
+        "Phở bò tái", "Bún chả Hà Nội", "Cơm tấm sườn", "Gỏi cuốn", "Bánh xèo",
+        "Cà phê sữa đá", "Trà đào cam sả", "Lẩu thái hải sản", "Chả giò", "Nước mía"
+    };
+    
+    public static void main(String[] args) {
+        long rows = 2_000_000;
+        String format = "both";
+        long maxHeapMb = 96;
+        File outDir = new File(System.getProperty("java.io.tmpdir"));
+        long seed = 42;
+        
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--rows" -> rows = Long.parseLong(value);
+                case "--format" -> format = value;
+                case "--max-heap-mb" -> maxHeapMb = Long.parseLong(value);
+                case "--out" -> outDir = new File(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                default -> logger.warn("Unknown option: {}", args[i]);
+            }
+        }
+        
+        boolean ok = true;
+        try {
+            if (!format.equals("xlsx")) {
+                ok &= run("csv", new File(outDir, "export-benchmark.csv"), rows, maxHeapMb, seed);
+            }
+            if (!format.equals("csv")) {
+                ok &= run("xlsx", new File(outDir, "export-benchmark.xlsx"), rows, maxHeapMb, seed);
+            }
+        } catch (Exception | OutOfMemoryError e) {
+            logger.error("❌ Export benchmark failed", e);
+            System.exit(1);
+        }
+        System.exit(ok ? 0 : 2);
+    }
+    
+    private static boolean run(String format, File file, long rows, long maxHeapMb, long seed) throws Exception {
+        System.gc();
+        long[] peak = {0};
+        long started = System.nanoTime();
+        
+        ReportExporter.Progress progress = new ReportExporter.Progress() {
+            @Override
+            public void rowsWritten(long written) {
+                peak[0] = Math.max(peak[0], liveHeapMb());
+                if (written % 500_000 == 0) {
+                    logger.info("{}: {} rows, live heap {} MB", format, written, liveHeapMb());
+                }
+            }
+            
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        };
+        
+        ReportData data = sampleData();
+        ReportExporter.LineSource source = handler -> {
+            Random rnd = new Random(seed);
+            LocalDateTime time = LocalDateTime.of(2025, 1, 1, 10, 0);
+            for (long i = 0; i < rows; i++) {
+                if (i % 4 == 0) time = time.plusSeconds(15);
+                int quantity = 1 + rnd.nextInt(4);
+                BigDecimal price = BigDecimal.valueOf(25_000 + rnd.nextInt(20) * 5_000L);
+                OrderLine line = new OrderLine(time, "ORD" + (i / 4), "Bàn " + (1 + rnd.nextInt(30)),
+                    PRODUCTS[rnd.nextInt(PRODUCTS.length)], quantity, price,
+                    price.multiply(BigDecimal.valueOf(quantity)));
+                if (!handler.accept(line)) return i;
+            }
+            return rows;
+        };
+        
+        long written = format.equals("csv")
+            ? ReportExporter.writeCsv(file, data, source, progress)
+            : ReportExporter.writeExcel(file, data, source, progress);
+        
+        double seconds = (System.nanoTime() - started) / 1e9;
+        logger.info("{}: {} rows in {}s ({} rows/s), file {} MB, live heap peak {} MB of max {} MB",
+            format, written, String.format("%.1f", seconds), String.format("%.0f", written / seconds),
+            file.length() / (1024 * 1024), peak[0], Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        
+        boolean ok = written == rows && peak[0] <= maxHeapMb;
+        if (ok) {
+            logger.info("✅ {} export within {} MB heap", format, maxHeapMb);
+        } else {
+            logger.error("❌ {} export: wrote {} of {} rows, heap peak {} MB (limit {} MB)",
+                format, written, rows, peak[0], maxHeapMb);
+        }
+        file.delete();
+        return ok;
+    }
+    
+    private static ReportData sampleData() {
+        LocalDate to = LocalDate.of(2025, 12, 31);
+        LocalDate from = to.minusDays(364);
+        List<DailyRevenue> daily = new ArrayList<>();
+        for (LocalDate d = to; !d.isBefore(from); d = d.minusDays(1)) {
+            daily.add(new DailyRevenue(d, 120, BigDecimal.valueOf(30_000_000),
+                BigDecimal.valueOf(500_000), BigDecimal.valueOf(29_500_000)));
+        }
+        List<TopProduct> top = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS.length; i++) {
+            top.add(new TopProduct(i + 1, i + 1, PRODUCTS[i], null, 1000 - i * 50,
+                BigDecimal.valueOf(50_000_000L - i * 2_000_000L)));
+        }
+        ReportSummary summary = new ReportSummary(BigDecimal.valueOf(10_767_500_000L), 43_800,
+            120_000, 30, BigDecimal.valueOf(245_833));
+        return new ReportData("Benchmark", from, to, summary, daily, top);
+    }
+    
+    // ==================== HEAP ====================
+    
+    /** Heap still in use right after the most recent GC of each pool - live data, not garbage */
+    private static long liveHeapMb() {
+        long bytes = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null) {
+                bytes += pool.getCollectionUsage().getUsed();
+            }
+        }
+        return bytes / (1024 * 1024);
+    }
+}
@@ -7,27 +7,60 @@ import org.apache.logging.log4j.Logger;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 /**
  * Shared state manager for Kitchen Orders
  * Loads orders from database for real-time sync across multiple instances
+ *
+ * State is kept in concurrent maps indexed by order id, by status (pending orders) and by
+ * table name (orders ready for serving), so lookups are O(1) and lock-free. KitchenOrder and
+ * OrderItem are immutable: panels change an order through the manager (updateStatus,
+ * setItemProgress, ...), which swaps in a new instance under its lock. Listeners receive an
+ * immutable snapshot, rebuilt only after an order was added, removed or changed.
  */
 public class KitchenOrderManager {
     
     private static final Logger logger = LogManager.getLogger(KitchenOrderManager.class);
     private static KitchenOrderManager instance;
     
-    private final List<KitchenOrder> pendingOrders = new CopyOnWriteArrayList<>();
-    private final List<KitchenOrder> completedOrders = new CopyOnWriteArrayList<>();
+    /** Kitchen, waiter and POS reloads this close together share one query */
+    private static final long MIN_RELOAD_MS = 1_000;
+    private static final String ORDERS = "orders";
+    
+    private static final Comparator<KitchenOrder> BY_CREATED =
+        Comparator.comparing(KitchenOrder::getCreatedAt).thenComparingInt(KitchenOrder::getId);
+    
+    // Writes to the maps and indexes below are made while holding this manager's lock
+    private final Map<Integer, KitchenOrder> pendingOrders = new ConcurrentHashMap<>();
+    private final Map<Integer, KitchenOrder> completedOrders = new ConcurrentHashMap<>();
+    private final Map<OrderStatus, Set<Integer>> pendingByStatus = new EnumMap<>(OrderStatus.class);
+    private final Map<String, Set<Integer>> completedByTable = new ConcurrentHashMap<>();
+    private List<KitchenOrder> snapshot = List.of();
+    private boolean snapshotStale;
+    
     private final List<Consumer<List<KitchenOrder>>> listeners = new CopyOnWriteArrayList<>();
     private final List<Consumer<KitchenOrder>> readyListeners = new CopyOnWriteArrayList<>();
+    private final SingleFlight<String, Boolean> loads = new SingleFlight<>(MIN_RELOAD_MS);
+    private volatile boolean loaded;
     
-    private KitchenOrderManager() {}
+    private KitchenOrderManager() {
+        // Filled once here and never structurally changed, so lock-free reads are safe
+        for (OrderStatus status : OrderStatus.values()) {
+            pendingByStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
     
     public static synchronized KitchenOrderManager getInstance() {
         if (instance == null) {
@@ -40,8 +73,23 @@ public class KitchenOrderManager {
      * Load orders from database - call this to sync with real data
      * Loads OPEN orders with items that have been sent to kitchen (COOKING or READY status)
      * or items that have sent_to_kitchen_at set (for waiting queue)
+     *
+     * Concurrent calls wait for the query already running, and calls within MIN_RELOAD_MS
+     * of the last load reuse it; listeners are notified once per actual load
      */
     public void loadFromDatabase() {
+        loads.load(ORDERS, this::queryOrders);
+    }
+    
+    /**
+     * Load after a write made on this machine (e.g. items sent to kitchen), never reusing an older load
+     */
+    public void reloadFromDatabase() {
+        loads.invalidate(ORDERS);
+        loadFromDatabase();
+    }
+    
+    private boolean queryOrders() {
         // Only load items that have been sent to kitchen:
         // - COOKING or READY status, OR
         // - PENDING with sent_to_kitchen_at set (sent but not started)
@@ -64,19 +112,18 @@ public class KitchenOrderManager {
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             
-            Map<Integer, KitchenOrder> orderMap = new HashMap<>();
+            Map<Integer, KitchenOrder> headers = new HashMap<>();
+            Map<Integer, List<OrderItem>> itemsByOrder = new HashMap<>();
             
             while (rs.next()) {
                 int orderId = rs.getInt("order_id");
                 
                 // Create or get order
-                KitchenOrder order = orderMap.get(orderId);
-                if (order == null) {
+                if (!headers.containsKey(orderId)) {
                     String orderCode = rs.getString("order_code");
                     String tableName = rs.getString("table_name");
                     LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
-                    order = new KitchenOrder(orderId, orderCode, tableName, createdAt);
-                    orderMap.put(orderId, order);
+                    headers.put(orderId, new KitchenOrder(orderId, orderCode, tableName, createdAt, List.of(), OrderStatus.WAITING));
                 }
                 
                 // Add item
@@ -86,98 +133,102 @@ public class KitchenOrderManager {
                 int productId = rs.getInt("product_id");
                 String itemStatus = rs.getString("item_status");
                 
-                OrderItem item = new OrderItem(itemId, itemName, quantity, productId);
-                item.setReady("READY".equals(itemStatus));
-                
                 // Set current step based on status
-                if ("COOKING".equals(itemStatus)) {
-                    item.setCurrentStep(1);
-                } else if ("READY".equals(itemStatus)) {
-                    item.setCurrentStep(3); // Completed
-                }
+                boolean ready = "READY".equals(itemStatus);
+                int step = "COOKING".equals(itemStatus) ? 1 : ready ? 3 : 0;   // 3 = Completed
                 
-                order.getItems().add(item);
+                itemsByOrder.computeIfAbsent(orderId, id -> new ArrayList<>())
+                    .add(new OrderItem(itemId, itemName, quantity, productId, ready, step));
             }
             
             // After loading all items, determine each order's status
-            for (KitchenOrder order : orderMap.values()) {
-                List<OrderItem> items = order.getItems();
-                if (items.isEmpty()) {
-                    continue;
-                }
-                
-                // Count items by status
-                boolean hasAnyPending = items.stream().anyMatch(i -> !i.isReady() && i.getCurrentStep() == 0);
-                boolean hasAnyCooking = items.stream().anyMatch(i -> !i.isReady() && i.getCurrentStep() > 0);
-                boolean allReady = items.stream().allMatch(OrderItem::isReady);
-                
-                if (allReady) {
-                    order.setStatus(OrderStatus.READY);
-                } else if (hasAnyCooking || items.stream().anyMatch(OrderItem::isReady)) {
-                    // Some items cooking or some already ready -> PREPARING
-                    order.setStatus(OrderStatus.PREPARING);
-                } else if (hasAnyPending) {
-                    // All items pending, none started -> WAITING
-                    order.setStatus(OrderStatus.WAITING);
-                } else {
-                    // Default to PREPARING if unclear
-                    order.setStatus(OrderStatus.PREPARING);
-                }
-                
-                logger.debug("Order {} status determined: {} (pending:{}, cooking:{}, allReady:{})", 
-                    order.getOrderCode(), order.getStatus(), hasAnyPending, hasAnyCooking, allReady);
+            Map<Integer, KitchenOrder> orderMap = new HashMap<>();
+            for (KitchenOrder header : headers.values()) {
+                List<OrderItem> items = itemsByOrder.get(header.getId());
+                KitchenOrder order = header.withItems(items, statusOf(items));
+                orderMap.put(order.getId(), order);
+                logger.debug("Order {} status determined: {}", order.getOrderCode(), order.getStatus());
             }
             
-            // Update pending orders
-            pendingOrders.clear();
-            pendingOrders.addAll(orderMap.values());
+            boolean changed = replacePending(orderMap);
+            boolean firstLoad = !loaded;
+            loaded = true;
             
             logger.info("Kitchen: Loaded {} orders from database", orderMap.size());
-            notifyListeners();
-            
+            if (changed || firstLoad) {
+                notifyListeners();
+            }
+            return true;
+        
         } catch (SQLException e) {
             logger.error("Error loading orders from database: {}", e.getMessage(), e);
+            return false;
         }
     }
     
+    /**
+     * True once the pending list has been read from the database at least once
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
     /**
      * Add new order from POS
      */
     public void addOrder(KitchenOrder order) {
-        pendingOrders.add(order);
+        synchronized (this) {
+            putPending(order);
+        }
         notifyListeners();
     }
     
     /**
-     * Get all pending orders
+     * Get all pending orders, oldest first (a copy the caller may sort or modify)
      */
     public List<KitchenOrder> getPendingOrders() {
-        return new ArrayList<>(pendingOrders);
+        return new ArrayList<>(snapshot());
+    }
+    
+    /**
+     * Number of pending orders with this status
+     */
+    public int countPendingOrders(OrderStatus status) {
+        return pendingByStatus.get(status).size();
     }
     
     /**
      * Get completed orders ready for serving
      */
     public List<KitchenOrder> getCompletedOrders() {
-        return new ArrayList<>(completedOrders);
+        return new ArrayList<>(completedOrders.values());
     }
     
     /**
      * Check if a table has order ready for serving
      */
     public boolean hasReadyOrderForTable(String tableName) {
-        return completedOrders.stream()
-            .anyMatch(o -> o.getTableName().equals(tableName));
+        return completedByTable.containsKey(tableName);
+    }
+    
+    /**
+     * Names of tables with an order ready for serving (for rendering the whole floor)
+     */
+    public Set<String> getReadyTableNames() {
+        return Set.copyOf(completedByTable.keySet());
     }
     
     /**
      * Get ready order for table
      */
     public KitchenOrder getReadyOrderForTable(String tableName) {
-        return completedOrders.stream()
-            .filter(o -> o.getTableName().equals(tableName))
-            .findFirst()
-            .orElse(null);
+        Set<Integer> ids = completedByTable.get(tableName);
+        if (ids == null) return null;
+        for (Integer id : ids) {
+            KitchenOrder order = completedOrders.get(id);
+            if (order != null) return order;
+        }
+        return null;
     }
     
     /**
@@ -185,27 +236,31 @@ public class KitchenOrderManager {
      * Updates all items to SERVED status in database so they don't reappear on refresh
      */
     public void completeOrder(int orderId) {
-        for (KitchenOrder order : pendingOrders) {
-            if (order.getId() == orderId) {
-                order.setStatus(OrderStatus.READY);
-                completedOrders.add(order);
-                pendingOrders.remove(order);
-                
-                // Mark all items as SERVED in database to prevent reloading
-                String updateSql = "UPDATE order_details SET status = 'SERVED' WHERE order_id = ?";
-                try (Connection conn = DatabaseConnection.getInstance().getConnection();
-                     PreparedStatement stmt = conn.prepareStatement(updateSql)) {
-                    stmt.setInt(1, orderId);
-                    int updated = stmt.executeUpdate();
-                    logger.info("Marked order {} items as SERVED in DB (updated {} rows)", orderId, updated);
-                } catch (SQLException e) {
-                    logger.error("Error marking order {} as served: {}", orderId, e.getMessage(), e);
-                }
-                
-                // Notify ready listeners (POS)
-                notifyReadyListeners(order);
-                break;
+        KitchenOrder order;
+        synchronized (this) {
+            order = removePending(orderId);
+            if (order != null) {
+                order = order.withItems(order.getItems(), OrderStatus.READY);
+                completedOrders.put(orderId, order);
+                completedByTable.computeIfAbsent(order.getTableName(), t -> ConcurrentHashMap.newKeySet()).add(orderId);
+            }
+        }
+        
+        if (order != null) {
+            // Mark all items as SERVED in database to prevent reloading
+            String updateSql = "UPDATE order_details SET status = 'SERVED' WHERE order_id = ?";
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                stmt.setInt(1, orderId);
+                int updated = stmt.executeUpdate();
+                logger.info("Marked order {} items as SERVED in DB (updated {} rows)", orderId, updated);
+            } catch (SQLException e) {
+                logger.error("Error marking order {} as served: {}", orderId, e.getMessage(), e);
             }
+            loads.invalidate(ORDERS);
+            
+            // Notify ready listeners (POS)
+            notifyReadyListeners(order);
         }
         notifyListeners();
     }
@@ -214,21 +269,97 @@ public class KitchenOrderManager {
      * Mark order as served (remove from completed)
      */
     public void markServed(String tableName) {
-        completedOrders.removeIf(o -> o.getTableName().equals(tableName));
+        synchronized (this) {
+            Set<Integer> ids = completedByTable.remove(tableName);
+            if (ids != null) {
+                ids.forEach(completedOrders::remove);
+            }
+        }
         notifyListeners();
     }
     
+    // ==================== KITCHEN ACTIONS ====================
+    // Each returns the order as it is now, or null if it is no longer pending.
+    // Database writes (order_details status) stay with the caller.
+    
+    /**
+     * Change the status of a pending order
+     */
+    public KitchenOrder updateStatus(int orderId, OrderStatus status) {
+        return update(orderId, order -> order.withItems(order.getItems(), status));
+    }
+    
+    /**
+     * Start cooking every item (step 1) - order becomes PREPARING
+     */
+    public KitchenOrder startCooking(int orderId) {
+        return update(orderId, order -> order.withItems(
+            order.getItems().stream().map(i -> i.isReady() ? i : i.withProgress(false, 1)).toList(),
+            OrderStatus.PREPARING));
+    }
+    
+    /**
+     * Mark every item as ready (step 3) - order becomes READY
+     */
+    public KitchenOrder markAllReady(int orderId) {
+        return update(orderId, order -> order.withItems(
+            order.getItems().stream().map(i -> i.withProgress(true, 3)).toList(),
+            OrderStatus.READY));
+    }
+    
+    /**
+     * Set ready flag and cooking step of one item; the order status follows its items
+     */
+    public KitchenOrder setItemProgress(int orderId, int itemIndex, boolean ready, int step) {
+        return update(orderId, order -> {
+            if (itemIndex < 0 || itemIndex >= order.getItems().size()) return order;
+            List<OrderItem> items = new ArrayList<>(order.getItems());
+            items.set(itemIndex, items.get(itemIndex).withProgress(ready, step));
+            return order.withItems(items, statusOf(items));
+        });
+    }
+    
     /**
      * Mark order item as ready
      */
-    public void markItemReady(int orderId, String itemName) {
-        for (KitchenOrder order : pendingOrders) {
-            if (order.getId() == orderId) {
-                order.markItemReady(itemName);
-                notifyListeners();
-                break;
+    public KitchenOrder markItemReady(int orderId, String itemName) {
+        return update(orderId, order -> {
+            List<OrderItem> items = new ArrayList<>(order.getItems());
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i).getName().equals(itemName)) {
+                    items.set(i, items.get(i).withProgress(true, items.get(i).getCurrentStep()));
+                    break;
+                }
             }
+            // Check if all items are ready
+            return order.withItems(items, items.stream().allMatch(OrderItem::isReady) ? OrderStatus.READY : OrderStatus.PREPARING);
+        });
+    }
+    
+    /**
+     * Replace a pending order with {@code change} applied to it; listeners hear only about real changes
+     */
+    private KitchenOrder update(int orderId, UnaryOperator<KitchenOrder> change) {
+        KitchenOrder updated;
+        synchronized (this) {
+            KitchenOrder current = pendingOrders.get(orderId);
+            if (current == null) return null;
+            updated = change.apply(current);
+            if (updated.equals(current)) return current;
+            putPending(updated);
         }
+        notifyListeners();
+        return updated;
+    }
+    
+    /**
+     * Order status from its items: all ready -> READY, any started or ready -> PREPARING, none started -> WAITING
+     */
+    private static OrderStatus statusOf(List<OrderItem> items) {
+        if (items.isEmpty()) return OrderStatus.PREPARING;      // Default to PREPARING if unclear
+        if (items.stream().allMatch(OrderItem::isReady)) return OrderStatus.READY;
+        boolean anyStarted = items.stream().anyMatch(i -> i.isReady() || i.getCurrentStep() > 0);
+        return anyStarted ? OrderStatus.PREPARING : OrderStatus.WAITING;
     }
     
     /**
@@ -260,9 +391,9 @@ public class KitchenOrderManager {
     }
     
     private void notifyListeners() {
-        List<KitchenOrder> snapshot = new ArrayList<>(pendingOrders);
+        List<KitchenOrder> orders = snapshot();
         for (Consumer<List<KitchenOrder>> listener : listeners) {
-            listener.accept(snapshot);
+            listener.accept(orders);
         }
     }
     
@@ -276,63 +407,115 @@ public class KitchenOrderManager {
      * Clear all orders (for testing)
      */
     public void clear() {
-        pendingOrders.clear();
-        completedOrders.clear();
+        synchronized (this) {
+            pendingOrders.clear();
+            pendingByStatus.values().forEach(Set::clear);
+            completedOrders.clear();
+            completedByTable.clear();
+            snapshotStale = true;
+        }
         notifyListeners();
     }
     
+    // ==================== INDEX MAINTENANCE ====================
+    
+    /**
+     * Pending orders, oldest first; immutable (list and orders) and shared until an order changes
+     */
+    private synchronized List<KitchenOrder> snapshot() {
+        if (snapshotStale) {
+            snapshot = pendingOrders.values().stream().sorted(BY_CREATED).toList();
+            snapshotStale = false;
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Apply a database load order by order: new or changed orders are put, closed ones removed.
+     * Orders equal to the ones already held are kept, so an unchanged load keeps the snapshot
+     *
+     * @return whether any pending order was added, changed or removed
+     */
+    private synchronized boolean replacePending(Map<Integer, KitchenOrder> loadedOrders) {
+        boolean changed = false;
+        for (Integer id : List.copyOf(pendingOrders.keySet())) {
+            if (!loadedOrders.containsKey(id)) {
+                removePending(id);
+                changed = true;
+            }
+        }
+        for (KitchenOrder order : loadedOrders.values()) {
+            if (!order.equals(pendingOrders.get(order.getId()))) {
+                putPending(order);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+    
+    private synchronized void putPending(KitchenOrder order) {
+        KitchenOrder previous = pendingOrders.put(order.getId(), order);
+        if (previous != null) {
+            pendingByStatus.get(previous.getStatus()).remove(order.getId());
+        }
+        pendingByStatus.get(order.getStatus()).add(order.getId());
+        snapshotStale = true;
+    }
+    
+    private synchronized KitchenOrder removePending(int orderId) {
+        KitchenOrder order = pendingOrders.remove(orderId);
+        if (order != null) {
+            pendingByStatus.get(order.getStatus()).remove(orderId);
+            snapshotStale = true;
+        }
+        return order;
+    }
+    
     // ============ KitchenOrder class ============
-    public static class KitchenOrder {
-        private static int idCounter = 1;
+    /**
+     * Immutable - change an order through the manager, which replaces the instance
+     */
+    public static final class KitchenOrder {
+        /** Orders created on this terminal get negative ids, never colliding with database ids */
+        private static final AtomicInteger localIds = new AtomicInteger();
         
         private final int id;
         private final String orderCode;
         private final String tableName;
         private final LocalDateTime createdAt;
         private final List<OrderItem> items;
-        private OrderStatus status;
+        private final OrderStatus status;
         
         // Constructor for POS (new order)
         public KitchenOrder(String orderCode, String tableName, List<OrderItem> items) {
-            this.id = idCounter++;
+            this.id = localIds.decrementAndGet();
             this.orderCode = orderCode;
             this.tableName = tableName;
             this.createdAt = LocalDateTime.now();
-            this.items = new ArrayList<>(items);
+            this.items = List.copyOf(items);
             this.status = OrderStatus.WAITING;
         }
         
-        // Constructor for database loading
-        public KitchenOrder(int id, String orderCode, String tableName, LocalDateTime createdAt) {
+        // Constructor for database loading and manager updates
+        private KitchenOrder(int id, String orderCode, String tableName, LocalDateTime createdAt,
+                             List<OrderItem> items, OrderStatus status) {
             this.id = id;
             this.orderCode = orderCode;
             this.tableName = tableName;
             this.createdAt = createdAt;
-            this.items = new ArrayList<>();
-            this.status = OrderStatus.WAITING;
+            this.items = List.copyOf(items);
+            this.status = status;
         }
         
         public int getId() { return id; }
         public String getOrderCode() { return orderCode; }
         public String getTableName() { return tableName; }
         public LocalDateTime getCreatedAt() { return createdAt; }
-        public List<OrderItem> getItems() { return items; }
+        public List<OrderItem> getItems() { return items; }     // Unmodifiable
         public OrderStatus getStatus() { return status; }
-        public void setStatus(OrderStatus status) { this.status = status; }
         
-        public void markItemReady(String itemName) {
-            for (OrderItem item : items) {
-                if (item.getName().equals(itemName)) {
-                    item.setReady(true);
-                    break;
-                }
-            }
-            // Check if all items are ready
-            if (items.stream().allMatch(OrderItem::isReady)) {
-                this.status = OrderStatus.READY;
-            } else {
-                this.status = OrderStatus.PREPARING;
-            }
+        private KitchenOrder withItems(List<OrderItem> items, OrderStatus status) {
+            return new KitchenOrder(id, orderCode, tableName, createdAt, items, status);
         }
         
         /**
@@ -353,15 +536,34 @@ public class KitchenOrderManager {
             }
             return result;
         }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof KitchenOrder other)) return false;
+            return id == other.id && status == other.status
+                && Objects.equals(orderCode, other.orderCode)
+                && Objects.equals(tableName, other.tableName)
+                && Objects.equals(createdAt, other.createdAt)
+                && items.equals(other.items);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, status, items);
+        }
     }
     
-    public static class OrderItem {
-        private int orderDetailId; // For DB updates
+    /**
+     * Immutable - see KitchenOrder
+     */
+    public static final class OrderItem {
+        private final int orderDetailId; // For DB updates
         private final String name;
         private final int quantity;
         private final int productId; // For recipe lookup
-        private boolean ready;
-        private int currentStep; // Current cooking step (0 = not started)
+        private final boolean ready;
+        private final int currentStep; // Current cooking step (0 = not started)
         
         public OrderItem(String name, int quantity) {
             this(0, name, quantity, 0); // Default orderDetailId = 0, productId = 0
@@ -372,29 +574,41 @@ public class KitchenOrderManager {
         }
         
         public OrderItem(int orderDetailId, String name, int quantity, int productId) {
+            this(orderDetailId, name, quantity, productId, false, 0);
+        }
+        
+        private OrderItem(int orderDetailId, String name, int quantity, int productId, boolean ready, int currentStep) {
             this.orderDetailId = orderDetailId;
             this.name = name;
             this.quantity = quantity;
             this.productId = productId;
-            this.ready = false;
-            this.currentStep = 0;
+            this.ready = ready;
+            this.currentStep = currentStep;
         }
         
         public int getOrderDetailId() { return orderDetailId; }
-        public void setOrderDetailId(int orderDetailId) { this.orderDetailId = orderDetailId; }
         public String getName() { return name; }
         public int getQuantity() { return quantity; }
         public int getProductId() { return productId; }
         public boolean isReady() { return ready; }
-        public void setReady(boolean ready) { this.ready = ready; }
         public int getCurrentStep() { return currentStep; }
-        public void setCurrentStep(int currentStep) { this.currentStep = currentStep; }
         
-        /**
-         * Advance to next cooking step
-         */
-        public void advanceStep() {
-            this.currentStep++;
+        private OrderItem withProgress(boolean ready, int currentStep) {
+            return new OrderItem(orderDetailId, name, quantity, productId, ready, currentStep);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof OrderItem other)) return false;
+            return orderDetailId == other.orderDetailId && quantity == other.quantity
+                && productId == other.productId && ready == other.ready
+                && currentStep == other.currentStep && Objects.equals(name, other.name);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(orderDetailId, name, ready, currentStep);
         }
     }
     
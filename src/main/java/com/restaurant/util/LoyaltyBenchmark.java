@@ -0,0 +1,188 @@
+package com.restaurant.util;
+
+import com.restaurant.config.DatabaseConnection;
+import com.restaurant.service.CustomerService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loyalty benchmark - Kiểm tra tích/đổi điểm khi nhiều quầy thanh toán đồng thời
+ *
+ * Runs concurrent checkouts (earn + occasional redeem) against a small set of hot
+ * customers, then verifies that every customer's balance equals its starting
+ * balance plus the ledger rows written during the run, and that each ledger row's
+ * balance_after follows from the previous one. Prints throughput and latency.
+ *
+ * Writes to the configured database - run it against a scratch copy.
+ *
+ * Usage:
+ *   java -cp restaurant-pos.jar com.restaurant.util.LoyaltyBenchmark
+ *        [--threads 50] [--checkouts 40] [--customers 5] [--seed 42]
+ */
+public class LoyaltyBenchmark {
+    
+    private static final Logger logger = LogManager.getLogger(LoyaltyBenchmark.class);
+    
+    public static void main(String[] args) {
+        int threads = 50;
+        int checkouts = 40;
+        int customers = 5;
+        long seed = 42;
+        
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--checkouts" -> checkouts = Integer.parseInt(value);
+                case "--customers" -> customers = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                default -> logger.warn("Unknown option: {}", args[i]);
+            }
+        }
+        
+        int exitCode;
+        try {
+            exitCode = run(threads, checkouts, customers, seed) ? 0 : 2;
+        } catch (Exception e) {
+            logger.error("❌ Loyalty benchmark failed", e);
+            exitCode = 1;
+        } finally {
+            DatabaseConnection.getInstance().shutdown();
+        }
+        System.exit(exitCode);
+    }
+    
+    private static boolean run(int threads, int checkouts, int customerCount, long seed) throws Exception {
+        int[] customerIds = queryIds("SELECT id FROM customers WHERE is_active = TRUE ORDER BY id LIMIT " + customerCount);
+        int[] orderIds = queryIds("SELECT id FROM orders ORDER BY id DESC LIMIT 1000");
+        if (customerIds.length == 0 || orderIds.length == 0) {
+            logger.error("Need at least one customer and one order in the database");
+            return false;
+        }
+        
+        long ledgerStart = queryIds("SELECT COALESCE(MAX(id), 0) FROM loyalty_transactions")[0];
+        Map<Integer, Integer> startPoints = loadPoints(customerIds);
+        
+        CustomerService service = CustomerService.getInstance();
+        long[] latencies = new long[threads * checkouts];
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long started = System.nanoTime();
+        
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            final Random rnd = new Random(seed + t);
+            pool.submit(() -> {
+                for (int i = 0; i < checkouts; i++) {
+                    int customerId = customerIds[rnd.nextInt(customerIds.length)];
+                    int orderId = orderIds[rnd.nextInt(orderIds.length)];
+                    long begin = System.nanoTime();
+                    
+                    if (rnd.nextInt(5) == 0) {
+                        service.redeemPoints(customerId, orderId, 1 + rnd.nextInt(50));
+                    }
+                    service.processOrderCompletion(customerId, orderId,
+                        BigDecimal.valueOf(50_000 + rnd.nextInt(20) * 25_000L));
+                    
+                    latencies[thread * checkouts + i] = System.nanoTime() - begin;
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(30, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        
+        Arrays.sort(latencies);
+        logger.info("{} checkouts on {} threads in {}s ({} /s), p50 {} ms, p95 {} ms, max {} ms",
+            latencies.length, threads, String.format("%.2f", seconds),
+            String.format("%.0f", latencies.length / seconds),
+            latencies[latencies.length / 2] / 1_000_000,
+            latencies[(int) (latencies.length * 0.95)] / 1_000_000,
+            latencies[latencies.length - 1] / 1_000_000);
+        
+        return verify(customerIds, startPoints, ledgerStart);
+    }
+    
+    /**
+     * Balance = start + ledger changes, and balance_after chains without gaps
+     */
+    private static boolean verify(int[] customerIds, Map<Integer, Integer> startPoints, long ledgerStart)
+            throws SQLException {
+        Map<Integer, Integer> endPoints = loadPoints(customerIds);
+        String sql = """
+            SELECT points_change, balance_after FROM loyalty_transactions
+            WHERE customer_id = ? AND id > ? ORDER BY id
+            """;
+        
+        boolean ok = true;
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            for (int customerId : customerIds) {
+                stmt.setInt(1, customerId);
+                stmt.setLong(2, ledgerStart);
+                
+                int balance = startPoints.get(customerId);
+                int rows = 0;
+                int broken = 0;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        balance += rs.getInt("points_change");
+                        if (balance != rs.getInt("balance_after")) broken++;
+                        rows++;
+                    }
+                }
+                
+                int actual = endPoints.get(customerId);
+                if (balance != actual || broken > 0) {
+                    ok = false;
+                    logger.error("❌ Customer {}: ledger says {}, balance is {}, {} of {} rows inconsistent",
+                        customerId, balance, actual, broken, rows);
+                } else {
+                    logger.info("✅ Customer {}: {} ledger rows, balance {}", customerId, rows, actual);
+                }
+            }
+        }
+        return ok;
+    }
+    
+    private static Map<Integer, Integer> loadPoints(int[] customerIds) throws SQLException {
+        Map<Integer, Integer> points = new HashMap<>();
+        String sql = "SELECT loyalty_points FROM customers WHERE id = ?";
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            for (int id : customerIds) {
+                stmt.setInt(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    points.put(id, rs.next() ? rs.getInt(1) : 0);
+                }
+            }
+        }
+        return points;
+    }
+    
+    private static int[] queryIds(String sql) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,181 @@
+package com.restaurant.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * PhonePrefixIndex - Chỉ mục số điện thoại trong bộ nhớ
+ *
+ * Lưu số điện thoại đã chuẩn hóa trong mảng đã sắp xếp (kèm id và vài trường hay dùng),
+ * tra cứu chính xác / theo tiền tố bằng binary search, không cần truy vấn DB.
+ * Đọc không khóa (snapshot bất biến), ghi copy-on-write.
+ */
+public class PhonePrefixIndex {
+    
+    /**
+     * Entry - Dữ liệu khách hàng tối thiểu cho gợi ý tại quầy
+     */
+    public static final class Entry {
+        private final int id;
+        private final String phone;
+        private final String fullName;
+        private final String tier;
+        
+        public Entry(int id, String phone, String fullName, String tier) {
+            this.id = id;
+            this.phone = phone;
+            this.fullName = fullName;
+            this.tier = tier;
+        }
+        
+        public int getId() { return id; }
+        public String getPhone() { return phone; }
+        public String getFullName() { return fullName; }
+        public String getTier() { return tier; }
+        
+        @Override
+        public String toString() {
+            return phone + " - " + fullName;
+        }
+    }
+    
+    /** Immutable sorted snapshot: keys[i] is the normalized phone of entries[i] */
+    private static final class Snapshot {
+        final String[] keys;
+        final Entry[] entries;
+        
+        Snapshot(String[] keys, Entry[] entries) {
+            this.keys = keys;
+            this.entries = entries;
+        }
+    }
+    
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new Entry[0]);
+    
+    /**
+     * Normalize a phone number: keep digits only, +84/84 prefix becomes 0
+     */
+    public static String normalize(String phone) {
+        if (phone == null) return "";
+        StringBuilder sb = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+            }
+        }
+        if (sb.length() > 9 && sb.charAt(0) == '8' && sb.charAt(1) == '4') {
+            sb.replace(0, 2, "0");
+        }
+        return sb.toString();
+    }
+    
+    // ==================== BUILD ====================
+    
+    /**
+     * Replace the whole index (startup load)
+     */
+    public synchronized void load(List<Entry> entries) {
+        List<Entry> valid = new ArrayList<>(entries.size());
+        for (Entry e : entries) {
+            if (!normalize(e.getPhone()).isEmpty()) {
+                valid.add(e);
+            }
+        }
+        valid.sort((a, b) -> normalize(a.getPhone()).compareTo(normalize(b.getPhone())));
+        
+        String[] keys = new String[valid.size()];
+        Entry[] arr = new Entry[valid.size()];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = valid.get(i);
+            keys[i] = normalize(arr[i].getPhone());
+        }
+        snapshot = new Snapshot(keys, arr);
+    }
+    
+    /**
+     * Insert or replace the entry for a customer id
+     */
+    public synchronized void put(Entry entry) {
+        Snapshot s = removeFrom(snapshot, entry.getId());
+        String key = normalize(entry.getPhone());
+        if (key.isEmpty()) {
+            snapshot = s;
+            return;
+        }
+        
+        int pos = Arrays.binarySearch(s.keys, key);
+        if (pos < 0) pos = -pos - 1;
+        
+        String[] keys = new String[s.keys.length + 1];
+        Entry[] entries = new Entry[s.entries.length + 1];
+        System.arraycopy(s.keys, 0, keys, 0, pos);
+        System.arraycopy(s.entries, 0, entries, 0, pos);
+        keys[pos] = key;
+        entries[pos] = entry;
+        System.arraycopy(s.keys, pos, keys, pos + 1, s.keys.length - pos);
+        System.arraycopy(s.entries, pos, entries, pos + 1, s.entries.length - pos);
+        snapshot = new Snapshot(keys, entries);
+    }
+    
+    /**
+     * Remove the entry for a customer id
+     */
+    public synchronized void remove(int id) {
+        snapshot = removeFrom(snapshot, id);
+    }
+    
+    private static Snapshot removeFrom(Snapshot s, int id) {
+        for (int i = 0; i < s.entries.length; i++) {
+            if (s.entries[i].getId() == id) {
+                String[] keys = new String[s.keys.length - 1];
+                Entry[] entries = new Entry[s.entries.length - 1];
+                System.arraycopy(s.keys, 0, keys, 0, i);
+                System.arraycopy(s.entries, 0, entries, 0, i);
+                System.arraycopy(s.keys, i + 1, keys, i, keys.length - i);
+                System.arraycopy(s.entries, i + 1, entries, i, entries.length - i);
+                return new Snapshot(keys, entries);
+            }
+        }
+        return s;
+    }
+    
+    // ==================== QUERY ====================
+    
+    /**
+     * Exact lookup by phone number
+     */
+    public Entry find(String phone) {
+        Snapshot s = snapshot;
+        String key = normalize(phone);
+        if (key.isEmpty()) return null;
+        
+        int pos = Arrays.binarySearch(s.keys, key);
+        return pos >= 0 ? s.entries[pos] : null;
+    }
+    
+    /**
+     * Entries whose phone starts with the given digits (sorted by phone)
+     */
+    public List<Entry> suggest(String prefix, int limit) {
+        Snapshot s = snapshot;
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) return Collections.emptyList();
+        
+        int pos = Arrays.binarySearch(s.keys, key);
+        if (pos < 0) pos = -pos - 1;
+        
+        List<Entry> result = new ArrayList<>();
+        for (int i = pos; i < s.keys.length && result.size() < limit; i++) {
+            if (!s.keys[i].startsWith(key)) break;
+            result.add(s.entries[i]);
+        }
+        return result;
+    }
+    
+    public int size() {
+        return snapshot.keys.length;
+    }
+}
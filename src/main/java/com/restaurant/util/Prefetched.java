@@ -0,0 +1,39 @@
+package com.restaurant.util;
+
+/**
+ * Prefetched - Kết quả nạp sẵn lúc khởi động, dùng một lần
+ *
+ * - put() được gọi từ luồng warm-up khi màn hình đăng nhập đang hiện
+ * - take() trả kết quả nếu còn mới (trong ttl) rồi xóa, nên chỉ lần đọc đầu tiên
+ *   dùng bộ nhớ; các lần sau vẫn đọc database như trước
+ * - clear() khi dữ liệu bị sửa trên máy này
+ */
+public final class Prefetched<T> {
+    
+    private final long ttlMillis;
+    private T value;
+    private long loadedAt;
+    
+    public Prefetched(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+    
+    public synchronized void put(T value) {
+        this.value = value;
+        this.loadedAt = System.currentTimeMillis();
+    }
+    
+    /**
+     * The prefetched value if still fresh, otherwise null; either way it is consumed
+     */
+    public synchronized T take() {
+        T result = value;
+        value = null;
+        if (result == null || System.currentTimeMillis() - loadedAt > ttlMillis) return null;
+        return result;
+    }
+    
+    public synchronized void clear() {
+        value = null;
+    }
+}
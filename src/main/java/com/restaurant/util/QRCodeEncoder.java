@@ -0,0 +1,453 @@
+package com.restaurant.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * QR Code Encoder - Mã hóa chuỗi thành ma trận QR theo ISO/IEC 18004, không cần thư viện hay mạng
+ *
+ * - Chế độ byte (UTF-8), mức sửa lỗi M (~15%)
+ * - Tự chọn phiên bản nhỏ nhất (1..40) đủ chứa dữ liệu
+ * - Chọn mặt nạ có điểm phạt thấp nhất
+ *
+ * Only what payment QR codes need is implemented (one byte-mode segment, level M).
+ */
+public final class QRCodeEncoder {
+    
+    // Level M, indexed by version (index 0 unused)
+    private static final int[] ECC_CODEWORDS_PER_BLOCK = {
+        -1, 10, 16, 26, 18, 24, 16, 18, 22, 22, 26, 30, 22, 22, 24, 24, 28, 28, 26, 26, 26,
+        26, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28
+    };
+    private static final int[] NUM_ERROR_CORRECTION_BLOCKS = {
+        -1, 1, 1, 1, 2, 2, 4, 4, 4, 5, 5, 5, 8, 9, 9, 10, 10, 11, 13, 14, 16,
+        17, 17, 18, 20, 21, 23, 25, 26, 28, 29, 31, 33, 35, 37, 38, 40, 43, 45, 47, 49
+    };
+    /** Format bits of error correction level M */
+    private static final int ECL_FORMAT_BITS = 0;
+    
+    private final int version;
+    private final int size;
+    private final boolean[][] modules;
+    private final boolean[][] isFunction;
+    
+    private QRCodeEncoder(int version, byte[] dataCodewords) {
+        this.version = version;
+        this.size = version * 4 + 17;
+        this.modules = new boolean[size][size];
+        this.isFunction = new boolean[size][size];
+        
+        drawFunctionPatterns();
+        drawCodewords(addEccAndInterleave(dataCodewords));
+        
+        int bestMask = 0;
+        int minPenalty = Integer.MAX_VALUE;
+        for (int mask = 0; mask < 8; mask++) {
+            applyMask(mask);
+            drawFormatBits(mask);
+            int penalty = penaltyScore();
+            if (penalty < minPenalty) {
+                bestMask = mask;
+                minPenalty = penalty;
+            }
+            applyMask(mask);    // XOR again to undo
+        }
+        applyMask(bestMask);
+        drawFormatBits(bestMask);
+    }
+    
+    /**
+     * Encode text (UTF-8) in the smallest version that fits
+     *
+     * @throws IllegalArgumentException if the text is too long for version 40
+     */
+    public static QRCodeEncoder encode(String text) {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        
+        for (int version = 1; version <= 40; version++) {
+            int countBits = version <= 9 ? 8 : 16;
+            int capacityBits = getNumDataCodewords(version) * 8;
+            if (data.length >= (1 << countBits) || 4 + countBits + data.length * 8 > capacityBits) continue;
+            
+            BitBuffer bits = new BitBuffer(capacityBits);
+            bits.append(0b0100, 4);             // Byte mode
+            bits.append(data.length, countBits);
+            for (byte b : data) {
+                bits.append(b & 0xFF, 8);
+            }
+            bits.append(0, Math.min(4, capacityBits - bits.length));          // Terminator
+            bits.append(0, (8 - bits.length % 8) % 8);                           // Byte align
+            for (int pad = 0xEC; bits.length < capacityBits; pad ^= 0xEC ^ 0x11) {
+                bits.append(pad, 8);
+            }
+            return new QRCodeEncoder(version, bits.toBytes());
+        }
+        throw new IllegalArgumentException("Text too long for a QR code: " + data.length + " bytes");
+    }
+    
+    public int getVersion() {
+        return version;
+    }
+    
+    /** Modules per side, without the quiet zone */
+    public int getSize() {
+        return size;
+    }
+    
+    public boolean isDark(int x, int y) {
+        return modules[y][x];
+    }
+    
+    // ==================== FUNCTION PATTERNS ====================
+    
+    private void drawFunctionPatterns() {
+        for (int i = 0; i < size; i++) {
+            setFunction(6, i, i % 2 == 0);
+            setFunction(i, 6, i % 2 == 0);
+        }
+        
+        drawFinderPattern(3, 3);
+        drawFinderPattern(size - 4, 3);
+        drawFinderPattern(3, size - 4);
+        
+        int[] positions = getAlignmentPatternPositions();
+        int count = positions.length;
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < count; j++) {
+                // Skip the three corners occupied by finder patterns
+                if ((i == 0 && j == 0) || (i == 0 && j == count - 1) || (i == count - 1 && j == 0)) continue;
+                drawAlignmentPattern(positions[i], positions[j]);
+            }
+        }
+        
+        drawFormatBits(0);      // Reserve the area; real bits are drawn after masking
+        drawVersion();
+    }
+    
+    private void drawFinderPattern(int x, int y) {
+        for (int dy = -4; dy <= 4; dy++) {
+            for (int dx = -4; dx <= 4; dx++) {
+                int dist = Math.max(Math.abs(dx), Math.abs(dy));
+                int xx = x + dx;
+                int yy = y + dy;
+                if (xx >= 0 && xx < size && yy >= 0 && yy < size) {
+                    setFunction(xx, yy, dist != 2 && dist != 4);
+                }
+            }
+        }
+    }
+    
+    private void drawAlignmentPattern(int x, int y) {
+        for (int dy = -2; dy <= 2; dy++) {
+            for (int dx = -2; dx <= 2; dx++) {
+                setFunction(x + dx, y + dy, Math.max(Math.abs(dx), Math.abs(dy)) != 1);
+            }
+        }
+    }
+    
+    private void drawFormatBits(int mask) {
+        int data = ECL_FORMAT_BITS << 3 | mask;
+        int rem = data;
+        for (int i = 0; i < 10; i++) {
+            rem = (rem << 1) ^ ((rem >>> 9) * 0x537);
+        }
+        int bits = (data << 10 | rem) ^ 0x5412;
+        
+        // First copy, around the top-left finder
+        for (int i = 0; i <= 5; i++) {
+            setFunction(8, i, getBit(bits, i));
+        }
+        setFunction(8, 7, getBit(bits, 6));
+        setFunction(8, 8, getBit(bits, 7));
+        setFunction(7, 8, getBit(bits, 8));
+        for (int i = 9; i < 15; i++) {
+            setFunction(14 - i, 8, getBit(bits, i));
+        }
+        
+        // Second copy, split between the other two finders
+        for (int i = 0; i < 8; i++) {
+            setFunction(size - 1 - i, 8, getBit(bits, i));
+        }
+        for (int i = 8; i < 15; i++) {
+            setFunction(8, size - 15 + i, getBit(bits, i));
+        }
+        setFunction(8, size - 8, true);     // Always dark
+    }
+    
+    private void drawVersion() {
+        if (version < 7) return;
+        
+        int rem = version;
+        for (int i = 0; i < 12; i++) {
+            rem = (rem << 1) ^ ((rem >>> 11) * 0x1F25);
+        }
+        int bits = version << 12 | rem;
+        
+        for (int i = 0; i < 18; i++) {
+            boolean bit = getBit(bits, i);
+            int a = size - 11 + i % 3;
+            int b = i / 3;
+            setFunction(a, b, bit);
+            setFunction(b, a, bit);
+        }
+    }
+    
+    private int[] getAlignmentPatternPositions() {
+        if (version == 1) return new int[0];
+        
+        int count = version / 7 + 2;
+        int step = (version * 8 + count * 3 + 5) / (count * 4 - 4) * 2;
+        int[] result = new int[count];
+        result[0] = 6;
+        for (int i = count - 1, pos = size - 7; i >= 1; i--, pos -= step) {
+            result[i] = pos;
+        }
+        return result;
+    }
+    
+    private void setFunction(int x, int y, boolean dark) {
+        modules[y][x] = dark;
+        isFunction[y][x] = true;
+    }
+    
+    // ==================== DATA ====================
+    
+    /**
+     * Split data into blocks, append Reed-Solomon ECC to each and interleave
+     */
+    private byte[] addEccAndInterleave(byte[] data) {
+        int numBlocks = NUM_ERROR_CORRECTION_BLOCKS[version];
+        int blockEccLen = ECC_CODEWORDS_PER_BLOCK[version];
+        int rawCodewords = getNumRawDataModules(version) / 8;
+        int numShortBlocks = numBlocks - rawCodewords % numBlocks;
+        int shortBlockLen = rawCodewords / numBlocks;
+        
+        byte[][] blocks = new byte[numBlocks][];
+        byte[] divisor = reedSolomonDivisor(blockEccLen);
+        for (int i = 0, k = 0; i < numBlocks; i++) {
+            int dataLen = shortBlockLen - blockEccLen + (i < numShortBlocks ? 0 : 1);
+            byte[] dat = Arrays.copyOfRange(data, k, k + dataLen);
+            k += dataLen;
+            byte[] ecc = reedSolomonRemainder(dat, divisor);
+            
+            // Short blocks get a dummy byte so all blocks have the same length
+            byte[] block = new byte[shortBlockLen + 1];
+            System.arraycopy(dat, 0, block, 0, dat.length);
+            System.arraycopy(ecc, 0, block, block.length - blockEccLen, blockEccLen);
+            blocks[i] = block;
+        }
+        
+        byte[] result = new byte[rawCodewords];
+        int n = 0;
+        for (int i = 0; i < blocks[0].length; i++) {
+            for (int j = 0; j < numBlocks; j++) {
+                if (i != shortBlockLen - blockEccLen || j >= numShortBlocks) {
+                    result[n++] = blocks[j][i];
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Place codewords in the zig-zag order, two columns at a time from the bottom right
+     */
+    private void drawCodewords(byte[] data) {
+        int i = 0;
+        for (int right = size - 1; right >= 1; right -= 2) {
+            if (right == 6) right = 5;      // Skip the vertical timing pattern
+            for (int vert = 0; vert < size; vert++) {
+                for (int j = 0; j < 2; j++) {
+                    int x = right - j;
+                    boolean upward = ((right + 1) & 2) == 0;
+                    int y = upward ? size - 1 - vert : vert;
+                    if (!isFunction[y][x] && i < data.length * 8) {
+                        modules[y][x] = getBit(data[i >>> 3], 7 - (i & 7));
+                        i++;
+                    }
+                    // Remainder bits stay light
+                }
+            }
+        }
+    }
+    
+    private void applyMask(int mask) {
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                boolean invert = switch (mask) {
+                    case 0 -> (x + y) % 2 == 0;
+                    case 1 -> y % 2 == 0;
+                    case 2 -> x % 3 == 0;
+                    case 3 -> (x + y) % 3 == 0;
+                    case 4 -> (x / 3 + y / 2) % 2 == 0;
+                    case 5 -> x * y % 2 + x * y % 3 == 0;
+                    case 6 -> (x * y % 2 + x * y % 3) % 2 == 0;
+                    default -> ((x + y) % 2 + x * y % 3) % 2 == 0;
+                };
+                modules[y][x] ^= invert & !isFunction[y][x];
+            }
+        }
+    }
+    
+    // ==================== MASK PENALTY ====================
+    
+    private int penaltyScore() {
+        int result = 0;
+        
+        // Runs of five or more modules of one color, in rows and columns
+        for (int a = 0; a < size; a++) {
+            int rowRun = 1;
+            int colRun = 1;
+            for (int b = 1; b < size; b++) {
+                if (modules[a][b] == modules[a][b - 1]) {
+                    rowRun++;
+                } else {
+                    result += runPenalty(rowRun);
+                    rowRun = 1;
+                }
+                if (modules[b][a] == modules[b - 1][a]) {
+                    colRun++;
+                } else {
+                    result += runPenalty(colRun);
+                    colRun = 1;
+                }
+            }
+            result += runPenalty(rowRun) + runPenalty(colRun);
+        }
+        
+        // 2x2 blocks of one color
+        for (int y = 0; y < size - 1; y++) {
+            for (int x = 0; x < size - 1; x++) {
+                boolean c = modules[y][x];
+                if (c == modules[y][x + 1] && c == modules[y + 1][x] && c == modules[y + 1][x + 1]) {
+                    result += 3;
+                }
+            }
+        }
+        
+        // Finder-like 1:1:3:1:1 patterns with four light modules on one side
+        for (int a = 0; a < size; a++) {
+            for (int b = 0; b + 11 <= size; b++) {
+                if (matchesFinderLike(a, b, true)) result += 40;
+                if (matchesFinderLike(a, b, false)) result += 40;
+            }
+        }
+        
+        // Balance of dark and light modules
+        int dark = 0;
+        for (boolean[] row : modules) {
+            for (boolean m : row) {
+                if (m) dark++;
+            }
+        }
+        int total = size * size;
+        int k = (Math.abs(dark * 20 - total * 10) + total - 1) / total - 1;
+        result += k * 10;
+        return result;
+    }
+    
+    private static int runPenalty(int run) {
+        return run >= 5 ? run - 2 : 0;
+    }
+    
+    private static final boolean[] FINDER_LIKE = {true, false, true, true, true, false, true, false, false, false, false};
+    
+    /** Pattern (or its mirror) at offset b of row a (horizontal) or column a (vertical) */
+    private boolean matchesFinderLike(int a, int b, boolean horizontal) {
+        boolean forward = true;
+        boolean backward = true;
+        for (int i = 0; i < FINDER_LIKE.length; i++) {
+            boolean m = horizontal ? modules[a][b + i] : modules[b + i][a];
+            forward &= m == FINDER_LIKE[i];
+            backward &= m == FINDER_LIKE[FINDER_LIKE.length - 1 - i];
+        }
+        return forward || backward;
+    }
+    
+    // ==================== REED-SOLOMON ====================
+    
+    private static byte[] reedSolomonDivisor(int degree) {
+        byte[] result = new byte[degree];
+        result[degree - 1] = 1;
+        int root = 1;
+        for (int i = 0; i < degree; i++) {
+            for (int j = 0; j < result.length; j++) {
+                result[j] = (byte) gfMultiply(result[j] & 0xFF, root);
+                if (j + 1 < result.length) {
+                    result[j] ^= result[j + 1];
+                }
+            }
+            root = gfMultiply(root, 0x02);
+        }
+        return result;
+    }
+    
+    private static byte[] reedSolomonRemainder(byte[] data, byte[] divisor) {
+        byte[] result = new byte[divisor.length];
+        for (byte b : data) {
+            int factor = (b ^ result[0]) & 0xFF;
+            System.arraycopy(result, 1, result, 0, result.length - 1);
+            result[result.length - 1] = 0;
+            for (int i = 0; i < result.length; i++) {
+                result[i] ^= (byte) gfMultiply(divisor[i] & 0xFF, factor);
+            }
+        }
+        return result;
+    }
+    
+    /** Multiplication in GF(2^8) modulo x^8 + x^4 + x^3 + x^2 + 1 */
+    private static int gfMultiply(int x, int y) {
+        int z = 0;
+        for (int i = 7; i >= 0; i--) {
+            z = (z << 1) ^ ((z >>> 7) * 0x11D);
+            z ^= ((y >>> i) & 1) * x;
+        }
+        return z;
+    }
+    
+    // ==================== CAPACITY ====================
+    
+    /** Modules available for data + ECC after all function patterns */
+    private static int getNumRawDataModules(int version) {
+        int result = (16 * version + 128) * version + 64;
+        if (version >= 2) {
+            int numAlign = version / 7 + 2;
+            result -= (25 * numAlign - 10) * numAlign - 55;
+            if (version >= 7) {
+                result -= 36;
+            }
+        }
+        return result;
+    }
+    
+    private static int getNumDataCodewords(int version) {
+        return getNumRawDataModules(version) / 8
+            - ECC_CODEWORDS_PER_BLOCK[version] * NUM_ERROR_CORRECTION_BLOCKS[version];
+    }
+    
+    private static boolean getBit(int value, int i) {
+        return ((value >>> i) & 1) != 0;
+    }
+    
+    /** Fixed-capacity big-endian bit buffer */
+    private static final class BitBuffer {
+        private final byte[] data;
+        private int length;
+        
+        BitBuffer(int capacityBits) {
+            this.data = new byte[(capacityBits + 7) / 8];
+        }
+        
+        void append(int value, int bits) {
+            for (int i = bits - 1; i >= 0; i--, length++) {
+                if (((value >>> i) & 1) != 0) {
+                    data[length >>> 3] |= (byte) (0x80 >>> (length & 7));
+                }
+            }
+        }
+        
+        byte[] toBytes() {
+            return data;
+        }
+    }
+}
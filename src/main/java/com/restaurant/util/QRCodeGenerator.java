@@ -1,49 +1,122 @@
 package com.restaurant.util;
 
-import javax.imageio.ImageIO;
+import com.restaurant.service.SettingsService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.math.BigDecimal;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * QR Code Generator utility for VietQR payment
+ * QR Code Generator - Mã VietQR chuyển khoản, tạo hoàn toàn offline
+ *
+ * - Nội dung theo chuẩn EMVCo / NAPAS VietQR (BIN ngân hàng + số tài khoản + số tiền + nội dung)
+ * - Vẽ ảnh QR tại máy bằng QRCodeEncoder, không gọi img.vietqr.io
+ * - Tài khoản lấy từ cài đặt (bank_name, bank_account_number, bank_account_name)
+ * - Ảnh đã vẽ được giữ trong cache LRU theo (số tiền, nội dung, kích thước)
  */
 public class QRCodeGenerator {
     
-    // Bank settings - TODO: Load from SettingsService
-    private static final String BANK_ID = "970436"; // VietcomBank
-    private static final String ACCOUNT_NO = "1029849106";
-    private static final String ACCOUNT_NAME = "DOAN VINH HUNG";
+    private static final Logger logger = LogManager.getLogger(QRCodeGenerator.class);
+    
+    private static final int MAX_CACHED = 64;
+    private static final int QUIET_ZONE = 4;
+    private static final int MAX_DESCRIPTION_LENGTH = 25;
+    
+    /** NAPAS application id and the "transfer to account" service code */
+    private static final String NAPAS_GUID = "A000000727";
+    private static final String SERVICE_TO_ACCOUNT = "QRIBFTTA";
+    
+    /** Bank name (lower case, no spaces) -> NAPAS BIN */
+    private static final Map<String, String> BANK_BINS = Map.ofEntries(
+        Map.entry("vietcombank", "970436"),
+        Map.entry("vcb", "970436"),
+        Map.entry("vietinbank", "970415"),
+        Map.entry("bidv", "970418"),
+        Map.entry("agribank", "970405"),
+        Map.entry("techcombank", "970407"),
+        Map.entry("mb", "970422"),
+        Map.entry("mbbank", "970422"),
+        Map.entry("acb", "970416"),
+        Map.entry("vpbank", "970432"),
+        Map.entry("sacombank", "970403"),
+        Map.entry("tpbank", "970423"),
+        Map.entry("vib", "970441"),
+        Map.entry("shb", "970443"),
+        Map.entry("hdbank", "970437"),
+        Map.entry("ocb", "970448"),
+        Map.entry("msb", "970426"),
+        Map.entry("seabank", "970440"),
+        Map.entry("eximbank", "970431"),
+        Map.entry("lpbank", "970449")
+    );
+    
+    private record BankAccount(String bin, String accountNo) {}
+    
+    private record Key(long amount, String description, int size) {}
+    
+    /** Guarded by itself; cleared when the bank account changes */
+    private static final Map<Key, ImageIcon> cache = new LinkedHashMap<>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ImageIcon> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+    private static BankAccount cachedAccount;
+    /** Bank settings last warned about; POS asks on every cart change, so each bad setting is logged once */
+    private static volatile String warnedSettings;
+    
+    private static final ExecutorService renderer = Executors.newFixedThreadPool(
+        Math.min(4, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread t = new Thread(r, "qr-renderer");
+            t.setDaemon(true);
+            return t;
+        });
     
     /**
      * Generate VietQR code for a specific amount
      * @param amount Payment amount
      * @param description Payment description
      * @param size QR code size in pixels
-     * @return ImageIcon with QR code, or null if failed
+     * @return ImageIcon with QR code, or null if the bank account is not configured
      */
     public static ImageIcon generateVietQR(BigDecimal amount, String description, int size) {
+        BankAccount account = bankAccount();
+        if (account == null) return null;
+        
+        long amountValue = amount == null ? 0 : amount.longValue();
+        Key key = new Key(amountValue, cleanDescription(description), size);
+        synchronized (cache) {
+            if (!account.equals(cachedAccount)) {
+                cache.clear();
+                cachedAccount = account;
+            }
+            ImageIcon cached = cache.get(key);
+            if (cached != null) return cached;
+        }
+        
         try {
-            long amountValue = amount.longValue();
-            String cleanDescription = description.replaceAll("[^a-zA-Z0-9]", "");
-            
-            String vietQRUrl = String.format(
-                "https://img.vietqr.io/image/%s-%s-compact2.png?amount=%d&addInfo=%s&accountName=%s",
-                BANK_ID, ACCOUNT_NO, amountValue, cleanDescription, 
-                ACCOUNT_NAME.replace(" ", "%20")
-            );
-            
-            URL url = new URL(vietQRUrl);
-            Image image = ImageIO.read(url);
-            if (image != null) {
-                Image scaled = image.getScaledInstance(size, size, Image.SCALE_SMOOTH);
-                return new ImageIcon(scaled);
+            String payload = buildPayload(account, key.amount(), key.description());
+            ImageIcon icon = new ImageIcon(render(QRCodeEncoder.encode(payload), size));
+            synchronized (cache) {
+                if (account.equals(cachedAccount)) {
+                    cache.put(key, icon);
+                }
             }
+            return icon;
         } catch (Exception e) {
-            System.err.println("Failed to generate QR: " + e.getMessage());
+            logger.error("Failed to generate QR: {}", e.getMessage(), e);
+            return null;
         }
-        return null;
     }
     
     /**
@@ -53,24 +126,131 @@ public class QRCodeGenerator {
         return generateVietQR(amount, description, 220);
     }
     
+    /**
+     * Generate on the shared renderer pool - several codes (split bills) render in parallel
+     */
+    public static CompletableFuture<ImageIcon> generateVietQRAsync(BigDecimal amount, String description, int size) {
+        return CompletableFuture.supplyAsync(() -> generateVietQR(amount, description, size), renderer);
+    }
+    
     /**
      * Get bank account info for display
      */
     public static String getBankInfo() {
-        return "STK: " + ACCOUNT_NO + " - VietcomBank";
+        SettingsService settings = SettingsService.getInstance();
+        return "STK: " + settings.get(SettingsService.KEY_BANK_ACCOUNT_NUMBER)
+            + " - " + settings.get(SettingsService.KEY_BANK_NAME);
     }
     
     /**
      * Get account number for copy
      */
     public static String getAccountNo() {
-        return ACCOUNT_NO;
+        return SettingsService.getInstance().get(SettingsService.KEY_BANK_ACCOUNT_NUMBER);
     }
     
     /**
      * Get account name
      */
     public static String getAccountName() {
-        return ACCOUNT_NAME;
+        return SettingsService.getInstance().get(SettingsService.KEY_BANK_ACCOUNT_NAME);
+    }
+    
+    // ==================== PAYLOAD ====================
+    
+    /**
+     * EMVCo merchant-presented payload; CRC-16 over everything up to and including "6304"
+     */
+    private static String buildPayload(BankAccount account, long amount, String description) {
+        String beneficiary = tlv("00", account.bin()) + tlv("01", account.accountNo());
+        String merchantAccount = tlv("00", NAPAS_GUID) + tlv("01", beneficiary) + tlv("02", SERVICE_TO_ACCOUNT);
+        
+        StringBuilder sb = new StringBuilder(160);
+        sb.append(tlv("00", "01"));
+        sb.append(tlv("01", amount > 0 ? "12" : "11"));     // Dynamic when the amount is fixed
+        sb.append(tlv("38", merchantAccount));
+        sb.append(tlv("53", "704"));                        // VND
+        if (amount > 0) {
+            sb.append(tlv("54", Long.toString(amount)));
+        }
+        sb.append(tlv("58", "VN"));
+        if (!description.isEmpty()) {
+            sb.append(tlv("62", tlv("08", description)));
+        }
+        sb.append("6304");
+        sb.append(String.format("%04X", crc16(sb)));
+        return sb.toString();
+    }
+    
+    private static String tlv(String id, String value) {
+        return id + String.format("%02d", value.length()) + value;
+    }
+    
+    /** CRC-16/CCITT-FALSE: poly 0x1021, init 0xFFFF */
+    private static int crc16(CharSequence data) {
+        int crc = 0xFFFF;
+        for (byte b : data.toString().getBytes(StandardCharsets.UTF_8)) {
+            crc ^= (b & 0xFF) << 8;
+            for (int i = 0; i < 8; i++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+        }
+        return crc & 0xFFFF;
+    }
+    
+    /** Banking apps only accept plain ASCII letters, digits and spaces here */
+    private static String cleanDescription(String description) {
+        if (description == null) return "";
+        String clean = description.replaceAll("[^a-zA-Z0-9 ]", "").trim();
+        return clean.length() > MAX_DESCRIPTION_LENGTH ? clean.substring(0, MAX_DESCRIPTION_LENGTH) : clean;
+    }
+    
+    private static BankAccount bankAccount() {
+        SettingsService settings = SettingsService.getInstance();
+        String bankName = settings.get(SettingsService.KEY_BANK_NAME).trim();
+        String accountNo = settings.get(SettingsService.KEY_BANK_ACCOUNT_NUMBER).replaceAll("\\s", "");
+        String bin = bankName.matches("\\d{6}")
+            ? bankName
+            : BANK_BINS.get(bankName.toLowerCase(Locale.ROOT).replaceAll("[\\s-]", ""));
+        
+        if (bin == null || accountNo.isEmpty()) {
+            String settingsKey = bankName + "|" + accountNo;
+            if (!settingsKey.equals(warnedSettings)) {
+                warnedSettings = settingsKey;
+                logger.warn("Bank account not configured for VietQR (bank '{}', account '{}')", bankName, accountNo);
+            }
+            return null;
+        }
+        return new BankAccount(bin, accountNo);
+    }
+    
+    // ==================== RENDERING ====================
+    
+    /**
+     * Whole pixels per module (crisp edges), centered with a quiet zone
+     */
+    private static BufferedImage render(QRCodeEncoder qr, int size) {
+        int modules = qr.getSize() + QUIET_ZONE * 2;
+        int scale = Math.max(1, size / modules);
+        int imageSize = Math.max(size, modules * scale);
+        int offset = (imageSize - qr.getSize() * scale) / 2;
+        
+        BufferedImage image = new BufferedImage(imageSize, imageSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, imageSize, imageSize);
+            g.setColor(Color.BLACK);
+            for (int y = 0; y < qr.getSize(); y++) {
+                for (int x = 0; x < qr.getSize(); x++) {
+                    if (qr.isDark(x, y)) {
+                        g.fillRect(offset + x * scale, offset + y * scale, scale, scale);
+                    }
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
     }
 }
@@ -0,0 +1,235 @@
+package com.restaurant.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.*;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh Scheduler - Một bộ lập lịch dùng chung cho mọi việc tự làm mới của các màn hình
+ *
+ * - Mỗi panel đăng ký việc làm mới kèm chu kỳ; tất cả chạy trên một executor
+ * - Panel đang bị ẩn (CardLayout) thì tạm dừng; khi hiện lại mà đã lỡ một chu kỳ thì làm mới ngay
+ * - Lệch ngẫu nhiên ±10% để các máy / các panel không cùng gọi database một lúc
+ * - Làm mới chậm (> SLOW_MS) hoặc lỗi thì giãn chu kỳ gấp đôi, tối đa MAX_BACKOFF lần
+ * - shutdown() khi đăng xuất: hủy mọi đăng ký, lần đăng nhập sau tạo bộ lập lịch mới
+ *
+ * A registration never overlaps itself: the next run is scheduled when the previous one ends.
+ */
+public class RefreshScheduler {
+    
+    private static final Logger logger = LogManager.getLogger(RefreshScheduler.class);
+    private static RefreshScheduler instance;
+    
+    private static final long SLOW_MS = 1_500;
+    private static final int MAX_BACKOFF = 8;
+    private static final double JITTER = 0.10;
+    
+    private final ScheduledThreadPoolExecutor executor;
+    private final Set<Registration> registrations = ConcurrentHashMap.newKeySet();
+    
+    private RefreshScheduler() {
+        executor = new ScheduledThreadPoolExecutor(2, r -> {
+            Thread t = new Thread(r, "refresh-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+    
+    public static synchronized RefreshScheduler getInstance() {
+        if (instance == null) {
+            instance = new RefreshScheduler();
+        }
+        return instance;
+    }
+    
+    /**
+     * Refresh that runs on a scheduler thread (database work); touch Swing only via invokeLater
+     */
+    public Registration register(JComponent owner, String name, long periodMs, Runnable refresh) {
+        return add(new Registration(owner, name, periodMs, refresh, true));
+    }
+    
+    /**
+     * Refresh that must run on the EDT; the scheduler waits for it, so its duration counts for back-off
+     */
+    public Registration registerOnEdt(JComponent owner, String name, long periodMs, Runnable refresh) {
+        return add(new Registration(owner, name, periodMs, () -> runOnEdtAndWait(refresh), true));
+    }
+    
+    /**
+     * Fixed-rate repaint tick (no jitter, no back-off), paused while the owner is hidden
+     */
+    public Registration animate(JComponent owner, long periodMs, Runnable tick) {
+        return add(new Registration(owner, "animation", periodMs, () -> SwingUtilities.invokeLater(tick), false));
+    }
+    
+    /**
+     * Cancel every registration and stop the executor (logout / exit)
+     */
+    public void shutdown() {
+        synchronized (RefreshScheduler.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+        registrations.forEach(Registration::cancel);
+        executor.shutdownNow();
+        logger.info("Refresh scheduler stopped");
+    }
+    
+    private Registration add(Registration registration) {
+        registrations.add(registration);
+        registration.start();
+        return registration;
+    }
+    
+    private static void runOnEdtAndWait(Runnable refresh) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            refresh.run();
+            return;
+        }
+        try {
+            SwingUtilities.invokeAndWait(refresh);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    // ==================== REGISTRATION ====================
+    
+    /**
+     * One periodic refresh of one component
+     */
+    public final class Registration implements HierarchyListener {
+        
+        private final JComponent owner;
+        private final String name;
+        private final long periodMs;
+        private final Runnable refresh;
+        private final boolean adaptive;
+        
+        private volatile boolean showing;
+        private volatile boolean cancelled;
+        private ScheduledFuture<?> next;
+        private boolean running;
+        private long lastRunAt = System.currentTimeMillis();     // Panels load once when built
+        private int backoff = 1;
+        
+        private Registration(JComponent owner, String name, long periodMs, Runnable refresh, boolean adaptive) {
+            this.owner = owner;
+            this.name = name;
+            this.periodMs = periodMs;
+            this.refresh = refresh;
+            this.adaptive = adaptive;
+        }
+        
+        private void start() {
+            owner.addHierarchyListener(this);
+            showing = owner.isShowing();
+            if (showing) {
+                scheduleIn(periodMs);
+            }
+        }
+        
+        /**
+         * Stop this refresh; safe to call more than once
+         */
+        public void cancel() {
+            cancelled = true;
+            registrations.remove(this);
+            SwingUtilities.invokeLater(() -> owner.removeHierarchyListener(this));
+            synchronized (this) {
+                if (next != null) {
+                    next.cancel(false);
+                    next = null;
+                }
+            }
+        }
+        
+        /**
+         * Run as soon as possible, then continue the normal period (no-op while a run is in progress)
+         */
+        public void refreshNow() {
+            scheduleIn(0);
+        }
+        
+        @Override
+        public void hierarchyChanged(HierarchyEvent e) {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) == 0) return;
+            
+            showing = owner.isShowing();
+            if (showing) {
+                // Refresh right away only if a run was missed while hidden
+                long due;
+                synchronized (this) {
+                    due = lastRunAt + periodMs - System.currentTimeMillis();
+                }
+                scheduleIn(Math.max(0, due));
+            }
+        }
+        
+        private synchronized void scheduleIn(long delayMs) {
+            if (cancelled || running) return;       // A running tick schedules the next one itself
+            if (next != null) {
+                next.cancel(false);
+            }
+            try {
+                next = executor.schedule(this::tick, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                next = null;                        // Shut down
+            }
+        }
+        
+        private void tick() {
+            synchronized (this) {
+                next = null;
+                if (cancelled || !showing) return;  // Paused; resumed by hierarchyChanged
+                running = true;
+            }
+            
+            long start = System.currentTimeMillis();
+            boolean failed = false;
+            try {
+                refresh.run();
+            } catch (Exception e) {
+                failed = true;
+                logger.warn("Refresh '{}' failed: {}", name, e.getMessage());
+            }
+            long took = System.currentTimeMillis() - start;
+            
+            long delay;
+            synchronized (this) {
+                running = false;
+                lastRunAt = System.currentTimeMillis();
+                delay = periodMs;
+                if (adaptive) {
+                    int previous = backoff;
+                    backoff = (failed || took > SLOW_MS) ? Math.min(backoff * 2, MAX_BACKOFF) : 1;
+                    if (backoff != previous) {
+                        logger.info("Refresh '{}' took {} ms{} - interval x{}", name, took, failed ? " (failed)" : "", backoff);
+                    }
+                    delay = periodMs * backoff;
+                    delay += (long) (delay * JITTER * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+                }
+            }
+            if (showing) {
+                scheduleIn(delay);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.restaurant.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ReportCache - Bộ nhớ đệm kết quả báo cáo theo khoảng ngày
+ *
+ * - Khóa: (loại truy vấn, từ ngày, đến ngày, limit), loại bỏ LRU khi đầy
+ * - Khoảng đã kết thúc trước hôm nay: lịch sử không đổi, giữ đến khi bị LRU đẩy ra
+ * - Khoảng có chứa hôm nay: bị xóa khi đơn hàng của ngày đó hoàn thành / bị hủy
+ *   (hủy một đơn đã hoàn thành ngày trước cũng xóa các khoảng chứa ngày đó)
+ *
+ * Values must be immutable - callers share the cached instance.
+ */
+public class ReportCache {
+    
+    private static final Logger logger = LogManager.getLogger(ReportCache.class);
+    private static final int MAX_ENTRIES = 256;
+    private static ReportCache instance;
+    
+    /**
+     * Cache key of one report query
+     */
+    public record Key(String type, LocalDate from, LocalDate to, int limit) {
+        
+        boolean contains(LocalDate day) {
+            return !day.isBefore(from) && !day.isAfter(to);
+        }
+    }
+    
+    /**
+     * Query that may fail; failures are never cached
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws Exception;
+    }
+    
+    private final Map<Key, Object> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    /** Bumped by every invalidation; a load that overlapped one is not stored */
+    private long version;
+    
+    private ReportCache() {}
+    
+    public static synchronized ReportCache getInstance() {
+        if (instance == null) {
+            instance = new ReportCache();
+        }
+        return instance;
+    }
+    
+    /**
+     * Cached value, or run the loader (outside the lock) and cache its result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key, Loader<T> loader) throws Exception {
+        long loadVersion;
+        synchronized (this) {
+            Object cached = entries.get(key);
+            if (cached != null) {
+                return (T) cached;
+            }
+            loadVersion = version;
+        }
+        
+        T value = loader.load();
+        
+        synchronized (this) {
+            // An order of a cached day changed while we were reading - the value may be stale
+            if (value != null && version == loadVersion) {
+                entries.put(key, value);
+            }
+        }
+        return value;
+    }
+    
+    /**
+     * Drop every cached range containing this day
+     */
+    public synchronized void invalidateDay(LocalDate day) {
+        version++;
+        int before = entries.size();
+        entries.keySet().removeIf(key -> key.contains(day));
+        if (entries.size() != before) {
+            logger.debug("Invalidated {} cached reports containing {}", before - entries.size(), day);
+        }
+    }
+    
+    public synchronized void clear() {
+        version++;
+        entries.clear();
+    }
+}
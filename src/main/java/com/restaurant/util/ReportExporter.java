@@ -0,0 +1,475 @@
+package com.restaurant.util;
+
+import com.restaurant.service.ReportService.DailyRevenue;
+import com.restaurant.service.ReportService.OrderLine;
+import com.restaurant.service.ReportService.OrderLineHandler;
+import com.restaurant.service.ReportService.ReportSummary;
+import com.restaurant.service.ReportService.TopProduct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * ReportExporter - Xuất báo cáo doanh thu ra CSV / Excel dạng luồng
+ *
+ * - Phần tổng quan (thống kê, doanh thu theo ngày, top món) nhỏ, ghi trực tiếp
+ * - Chi tiết món đã bán đọc từng dòng từ LineSource và ghi ngay ra file
+ * - Excel dùng SXSSFWorkbook: chỉ giữ ROW_WINDOW dòng trong bộ nhớ, phần còn lại xả ra file tạm
+ * - Tự sang sheet mới khi vượt giới hạn 1.048.576 dòng của Excel
+ *
+ * Memory use is bounded by the row window and the writer buffer, not by the
+ * number of lines, so a year of order lines exports on the same heap as a day.
+ * A cancelled or failed export deletes the partial file.
+ */
+public class ReportExporter {
+    
+    private static final Logger logger = LogManager.getLogger(ReportExporter.class);
+    
+    /** Rows kept in memory per SXSSF sheet before flushing to the temp file */
+    public static final int ROW_WINDOW = 100;
+    private static final int PROGRESS_EVERY = 1000;
+    private static final int CSV_BUFFER = 64 * 1024;
+    private static final int MAX_SHEET_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DATE_TIME_FMT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final String[] LINE_COLUMNS = {
+        "Thời gian", "Mã đơn", "Bàn", "Tên món", "Số lượng", "Đơn giá", "Thành tiền"
+    };
+    private static final String RULE = "═══════════════════════════════════════════════════════════════";
+    
+    /**
+     * Forward-only source of order lines (database cursor or generated rows)
+     */
+    @FunctionalInterface
+    public interface LineSource {
+        long stream(OrderLineHandler handler) throws SQLException, IOException;
+    }
+    
+    /**
+     * Progress sink; checked once per line so cancellation stops the cursor promptly
+     */
+    public interface Progress {
+        void rowsWritten(long rows);
+        
+        boolean isCancelled();
+    }
+    
+    /**
+     * Small, already aggregated part of the report
+     */
+    public record ReportData(String periodLabel, LocalDate fromDate, LocalDate toDate,
+                             ReportSummary summary, List<DailyRevenue> dailyRevenue,
+                             List<TopProduct> topProducts) {}
+    
+    private ReportExporter() {}
+    
+    // ==================== CSV ====================
+    
+    /**
+     * @return number of order lines written
+     * @throws CancellationException if progress reported cancellation
+     */
+    public static long writeCsv(File file, ReportData data, LineSource lines, Progress progress)
+            throws IOException, SQLException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8), CSV_BUFFER)) {
+            
+            writer.write('\ufeff'); // BOM for Excel UTF-8
+            
+            writer.write("╔══════════════════════════════════════════════════════════════╗\n");
+            writer.write("║           BÁO CÁO DOANH THU - RESTAURANT POS                 ║\n");
+            writer.write("╚══════════════════════════════════════════════════════════════╝\n\n");
+            writer.write("Ngày xuất báo cáo:," + LocalDate.now().format(DATE_FMT) + "\n");
+            writer.write("Kỳ báo cáo:," + csv(data.periodLabel()) + "\n");
+            writer.write("Từ ngày:," + data.fromDate().format(DATE_FMT) + "\n");
+            writer.write("Đến ngày:," + data.toDate().format(DATE_FMT) + "\n\n");
+            
+            csvSection(writer, "                     THỐNG KÊ TỔNG QUAN                        ");
+            ReportSummary summary = data.summary();
+            writer.write("Chỉ số,Giá trị\n");
+            writer.write("Tổng doanh thu," + amount(summary.totalRevenue()) + "\n");
+            writer.write("Số đơn hàng," + summary.totalOrders() + "\n");
+            writer.write("Số khách hàng," + summary.totalGuests() + "\n");
+            writer.write("Trung bình/đơn," + amount(summary.avgPerOrder()) + "\n\n");
+            
+            csvSection(writer, "                    DOANH THU THEO NGÀY                         ");
+            writer.write("Ngày,Số đơn,Doanh thu,Giảm giá,Thực thu\n");
+            long total = 0;
+            for (DailyRevenue dr : data.dailyRevenue()) {
+                writer.write(dr.date().format(DATE_FMT) + "," + dr.orderCount() + ","
+                    + amount(dr.grossRevenue()) + "," + amount(dr.discount()) + ","
+                    + amount(dr.netRevenue()) + "\n");
+                total += amount(dr.netRevenue());
+            }
+            writer.write("\nTỔNG CỘNG,,,," + total + "\n\n");
+            
+            csvSection(writer, "                    TOP MÓN BÁN CHẠY                           ");
+            writer.write("Hạng,Tên món,Số lượng bán,Doanh thu\n");
+            for (TopProduct tp : data.topProducts()) {
+                writer.write(tp.rank() + "," + csv(tp.name()) + "," + tp.quantity() + ","
+                    + amount(tp.revenue()) + "\n");
+            }
+            writer.write("\n");
+            
+            csvSection(writer, "                    CHI TIẾT MÓN ĐÃ BÁN                        ");
+            writer.write(String.join(",", LINE_COLUMNS) + "\n");
+            long written = streamLines(lines, progress, line -> {
+                writer.write(line.completedAt().format(DATE_TIME_FMT));
+                writer.write(',');
+                writer.write(csv(line.orderCode()));
+                writer.write(',');
+                writer.write(csv(line.tableName()));
+                writer.write(',');
+                writer.write(csv(line.productName()));
+                writer.write(',');
+                writer.write(Integer.toString(line.quantity()));
+                writer.write(',');
+                writer.write(Long.toString(amount(line.unitPrice())));
+                writer.write(',');
+                writer.write(Long.toString(amount(line.subtotal())));
+                writer.write('\n');
+            });
+            
+            writer.write("\n" + RULE + "\n");
+            writer.write("                          HẾT BÁO CÁO                           \n");
+            writer.write(RULE + "\n");
+            
+            logger.info("CSV report written: {} ({} order lines)", file.getAbsolutePath(), written);
+            return written;
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        }
+    }
+    
+    private static void csvSection(Writer writer, String title) throws IOException {
+        writer.write(RULE + "\n" + title + "\n" + RULE + "\n\n");
+    }
+    
+    /** Quote a CSV field when it contains a separator, quote or line break */
+    private static String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+    
+    // ==================== EXCEL ====================
+    
+    /**
+     * @return number of order lines written
+     * @throws CancellationException if progress reported cancellation
+     */
+    public static long writeExcel(File file, ReportData data, LineSource lines, Progress progress)
+            throws IOException, SQLException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Styles styles = new Styles(workbook);
+            writeSummarySheet(workbook, styles, data);
+            
+            // Detail sheets - rows stream through the SXSSF window
+            int[] sheetRow = {0};
+            SXSSFSheet[] sheet = {null};
+            int[] sheetNo = {0};
+            
+            long written = streamLines(lines, progress, line -> {
+                if (sheet[0] == null || sheetRow[0] >= MAX_SHEET_ROWS) {
+                    sheetNo[0]++;
+                    sheet[0] = createLineSheet(workbook, styles,
+                        sheetNo[0] == 1 ? "Chi tiết món" : "Chi tiết món (" + sheetNo[0] + ")");
+                    sheetRow[0] = 1;
+                }
+                
+                Row row = sheet[0].createRow(sheetRow[0]++);
+                Cell time = row.createCell(0);
+                time.setCellValue(line.completedAt());
+                time.setCellStyle(styles.dateTime);
+                row.createCell(1).setCellValue(line.orderCode());
+                row.createCell(2).setCellValue(line.tableName() != null ? line.tableName() : "");
+                row.createCell(3).setCellValue(line.productName());
+                row.createCell(4).setCellValue(line.quantity());
+                Cell price = row.createCell(5);
+                price.setCellValue(amount(line.unitPrice()));
+                price.setCellStyle(styles.number);
+                Cell subtotal = row.createCell(6);
+                subtotal.setCellValue(amount(line.subtotal()));
+                subtotal.setCellStyle(styles.number);
+            });
+            
+            if (sheet[0] == null) {
+                createLineSheet(workbook, styles, "Chi tiết món");
+            }
+            
+            try (OutputStream out = new FileOutputStream(file)) {
+                workbook.write(out);
+            }
+            
+            logger.info("Excel report written: {} ({} order lines, {} detail sheets)",
+                file.getAbsolutePath(), written, Math.max(1, sheetNo[0]));
+            return written;
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+    
+    private static void writeSummarySheet(SXSSFWorkbook workbook, Styles styles, ReportData data) {
+        SXSSFSheet sheet = workbook.createSheet("Báo cáo doanh thu");
+        sheet.trackAllColumnsForAutoSizing();
+        int rowNum = 0;
+        
+        // Title row (merged)
+        Row titleRow = sheet.createRow(rowNum++);
+        titleRow.setHeightInPoints(30);
+        setCell(titleRow, 0, "📊 BÁO CÁO DOANH THU - RESTAURANT POS", styles.title);
+        sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 4));
+        rowNum++;
+        
+        // Info section
+        rowNum = labelRow(sheet, rowNum, "Ngày xuất:", LocalDate.now().format(DATE_FMT), styles.section, styles.data);
+        rowNum = labelRow(sheet, rowNum, "Kỳ báo cáo:", data.periodLabel(), styles.section, styles.data);
+        rowNum = labelRow(sheet, rowNum, "Từ ngày:", data.fromDate().format(DATE_FMT), styles.section, styles.data);
+        rowNum = labelRow(sheet, rowNum, "Đến ngày:", data.toDate().format(DATE_FMT), styles.section, styles.data);
+        rowNum++;
+        
+        // Summary section
+        rowNum = sectionRow(sheet, rowNum, "📈 THỐNG KÊ TỔNG QUAN", styles, 4);
+        ReportSummary summary = data.summary();
+        rowNum = valueRow(sheet, rowNum, "Tổng doanh thu", amount(summary.totalRevenue()), styles.header, styles.currency);
+        rowNum = valueRow(sheet, rowNum, "Số đơn hàng", summary.totalOrders(), styles.header, styles.data);
+        rowNum = valueRow(sheet, rowNum, "Số khách", summary.totalGuests(), styles.header, styles.data);
+        rowNum = valueRow(sheet, rowNum, "Trung bình/đơn", amount(summary.avgPerOrder()), styles.header, styles.currency);
+        rowNum++;
+        
+        // Revenue table
+        rowNum = sectionRow(sheet, rowNum, "📅 DOANH THU THEO NGÀY", styles, 4);
+        rowNum = headerRow(sheet, rowNum, new String[]{"Ngày", "Số đơn", "Doanh thu", "Giảm giá", "Thực thu"}, styles.header);
+        long total = 0;
+        for (DailyRevenue dr : data.dailyRevenue()) {
+            Row row = sheet.createRow(rowNum++);
+            setCell(row, 0, dr.date().format(DATE_FMT), styles.data);
+            setCell(row, 1, dr.orderCount(), styles.data);
+            setCell(row, 2, amount(dr.grossRevenue()), styles.currency);
+            setCell(row, 3, amount(dr.discount()), styles.currency);
+            setCell(row, 4, amount(dr.netRevenue()), styles.currency);
+            total += amount(dr.netRevenue());
+        }
+        Row totalRow = sheet.createRow(rowNum++);
+        setCell(totalRow, 0, "TỔNG CỘNG", styles.total);
+        setCell(totalRow, 4, total, styles.total);
+        rowNum++;
+        
+        // Top products
+        rowNum = sectionRow(sheet, rowNum, "🏆 TOP MÓN BÁN CHẠY", styles, 3);
+        rowNum = headerRow(sheet, rowNum, new String[]{"Hạng", "Tên món", "Số lượng", "Doanh thu"}, styles.header);
+        for (TopProduct tp : data.topProducts()) {
+            Row row = sheet.createRow(rowNum++);
+            setCell(row, 0, tp.rank(), styles.data);
+            setCell(row, 1, tp.name(), styles.data);
+            setCell(row, 2, tp.quantity(), styles.data);
+            setCell(row, 3, amount(tp.revenue()), styles.currency);
+        }
+        
+        for (int i = 0; i < 5; i++) {
+            sheet.autoSizeColumn(i);
+            sheet.setColumnWidth(i, Math.min(sheet.getColumnWidth(i) + 512, 10000));
+        }
+    }
+    
+    private static SXSSFSheet createLineSheet(SXSSFWorkbook workbook, Styles styles, String name) {
+        SXSSFSheet sheet = workbook.createSheet(name);
+        headerRow(sheet, 0, LINE_COLUMNS, styles.header);
+        sheet.createFreezePane(0, 1);
+        
+        // Fixed widths - auto-sizing would need every row in memory
+        int[] widths = {18, 14, 10, 32, 10, 14, 16};
+        for (int i = 0; i < widths.length; i++) {
+            sheet.setColumnWidth(i, widths[i] * 256);
+        }
+        return sheet;
+    }
+    
+    private static int sectionRow(SXSSFSheet sheet, int rowNum, String title, Styles styles, int lastColumn) {
+        setCell(sheet.createRow(rowNum), 0, title, styles.section);
+        sheet.addMergedRegion(new CellRangeAddress(rowNum, rowNum, 0, lastColumn));
+        return rowNum + 1;
+    }
+    
+    private static int headerRow(SXSSFSheet sheet, int rowNum, String[] columns, CellStyle style) {
+        Row row = sheet.createRow(rowNum);
+        for (int i = 0; i < columns.length; i++) {
+            setCell(row, i, columns[i], style);
+        }
+        return rowNum + 1;
+    }
+    
+    private static int labelRow(SXSSFSheet sheet, int rowNum, String label, String value,
+                                CellStyle labelStyle, CellStyle valueStyle) {
+        Row row = sheet.createRow(rowNum);
+        setCell(row, 0, label, labelStyle);
+        setCell(row, 1, value, valueStyle);
+        return rowNum + 1;
+    }
+    
+    private static int valueRow(SXSSFSheet sheet, int rowNum, String label, long value,
+                                CellStyle labelStyle, CellStyle valueStyle) {
+        Row row = sheet.createRow(rowNum);
+        setCell(row, 0, label, labelStyle);
+        setCell(row, 1, value, valueStyle);
+        return rowNum + 1;
+    }
+    
+    private static void setCell(Row row, int column, String value, CellStyle style) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(style);
+    }
+    
+    private static void setCell(Row row, int column, long value, CellStyle style) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(style);
+    }
+    
+    /**
+     * Cell styles shared by all sheets (a workbook allows ~64k styles, never create per row)
+     */
+    private static final class Styles {
+        final XSSFCellStyle title;
+        final XSSFCellStyle header;
+        final XSSFCellStyle section;
+        final XSSFCellStyle data;
+        final XSSFCellStyle currency;
+        final XSSFCellStyle total;
+        final XSSFCellStyle number;
+        final XSSFCellStyle dateTime;
+        
+        Styles(SXSSFWorkbook workbook) {
+            title = (XSSFCellStyle) workbook.createCellStyle();
+            title.setFont(font(workbook, 18, new byte[]{(byte) 255, (byte) 255, (byte) 255}));
+            fill(title, new byte[]{(byte) 40, (byte) 167, (byte) 69}); // Green
+            title.setAlignment(HorizontalAlignment.CENTER);
+            
+            header = (XSSFCellStyle) workbook.createCellStyle();
+            header.setFont(font(workbook, 11, new byte[]{(byte) 255, (byte) 255, (byte) 255}));
+            fill(header, new byte[]{(byte) 52, (byte) 58, (byte) 64}); // Dark gray
+            header.setAlignment(HorizontalAlignment.CENTER);
+            border(header);
+            
+            section = (XSSFCellStyle) workbook.createCellStyle();
+            section.setFont(font(workbook, 12, null));
+            fill(section, new byte[]{(byte) 230, (byte) 230, (byte) 230}); // Light gray
+            
+            data = (XSSFCellStyle) workbook.createCellStyle();
+            border(data);
+            
+            currency = (XSSFCellStyle) workbook.createCellStyle();
+            currency.cloneStyleFrom(data);
+            currency.setDataFormat(workbook.createDataFormat().getFormat("#,##0"));
+            currency.setAlignment(HorizontalAlignment.RIGHT);
+            
+            total = (XSSFCellStyle) workbook.createCellStyle();
+            total.setFont(font(workbook, 11, null));
+            fill(total, new byte[]{(byte) 255, (byte) 243, (byte) 205}); // Light yellow
+            total.setBorderBottom(BorderStyle.DOUBLE);
+            
+            number = (XSSFCellStyle) workbook.createCellStyle();
+            number.setDataFormat(workbook.createDataFormat().getFormat("#,##0"));
+            
+            dateTime = (XSSFCellStyle) workbook.createCellStyle();
+            dateTime.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy hh:mm"));
+        }
+        
+        private static XSSFFont font(SXSSFWorkbook workbook, int points, byte[] rgb) {
+            XSSFFont font = (XSSFFont) workbook.createFont();
+            font.setBold(true);
+            font.setFontHeightInPoints((short) points);
+            if (rgb != null) {
+                font.setColor(new XSSFColor(rgb, null));
+            }
+            return font;
+        }
+        
+        private static void fill(XSSFCellStyle style, byte[] rgb) {
+            style.setFillForegroundColor(new XSSFColor(rgb, null));
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        }
+        
+        private static void border(XSSFCellStyle style) {
+            style.setBorderBottom(BorderStyle.THIN);
+            style.setBorderTop(BorderStyle.THIN);
+            style.setBorderLeft(BorderStyle.THIN);
+            style.setBorderRight(BorderStyle.THIN);
+        }
+    }
+    
+    // ==================== STREAMING ====================
+    
+    @FunctionalInterface
+    private interface LineWriter {
+        void write(OrderLine line) throws IOException;
+    }
+    
+    private static long streamLines(LineSource lines, Progress progress, LineWriter writer)
+            throws SQLException, IOException {
+        long[] written = {0};
+        boolean[] cancelled = {false};
+        
+        lines.stream(line -> {
+            if (progress.isCancelled()) {
+                cancelled[0] = true;
+                return false;
+            }
+            writer.write(line);
+            if (++written[0] % PROGRESS_EVERY == 0) {
+                progress.rowsWritten(written[0]);
+            }
+            return true;
+        });
+        
+        if (cancelled[0]) {
+            throw new CancellationException("Export cancelled after " + written[0] + " lines");
+        }
+        progress.rowsWritten(written[0]);
+        return written[0];
+    }
+    
+    private static long amount(BigDecimal value) {
+        return value != null ? value.longValue() : 0;
+    }
+}
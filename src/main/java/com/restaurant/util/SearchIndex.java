@@ -0,0 +1,353 @@
+package com.restaurant.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * SearchIndex - Chỉ mục tìm kiếm toàn văn trong bộ nhớ
+ *
+ * - Bỏ dấu tiếng Việt ("phở" ~ "pho", "Đức" ~ "duc"), không phân biệt hoa thường
+ * - Tách từ, đánh chỉ mục tiền tố (edge n-gram) của từng từ
+ * - Mọi từ trong truy vấn phải khớp (tiền tố của một từ trong tài liệu)
+ * - Từ toàn chữ số (số điện thoại) khớp cả chuỗi con, ví dụ gõ mấy số cuối
+ * - Xếp hạng: khớp trọn từ > khớp tiền tố, ưu tiên khớp đầu chuỗi và chuỗi ngắn
+ * - Cập nhật từng phần qua put/remove từ service sở hữu
+ *
+ * @param <T> loại đối tượng được đánh chỉ mục (Product, Customer, User...)
+ */
+public class SearchIndex<T> {
+    
+    /** Longest prefix stored in the postings map; longer query tokens are verified per document */
+    private static final int MAX_PREFIX = 8;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    
+    private static final class Doc<T> {
+        final T item;
+        final String text;      // folded, tokens joined by space
+        final String[] tokens;
+        
+        Doc(T item, String text, String[] tokens) {
+            this.item = item;
+            this.text = text;
+            this.tokens = tokens;
+        }
+    }
+    
+    /** Growable int list of document ids, kept sorted so removal is a binary search */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+        
+        void add(int id) {
+            int pos = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0 && pos < size) return;         // Already present
+            if (pos < 0) pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+        
+        void remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+                size--;
+            }
+        }
+    }
+    
+    private static final class Hit<T> {
+        final Doc<T> doc;
+        final int score;
+        
+        Hit(Doc<T> doc, int score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+    
+    private final ToIntFunction<T> idFunction;
+    private final List<Function<T, String>> fields;
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private Doc<T>[] slots = newSlots(64);
+    private int slotCount;                     // High-water mark of used slots
+    private final Postings freeSlots = new Postings();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * @param idFunction unique id of an item
+     * @param fields     searchable text fields (null values are ignored)
+     */
+    @SafeVarargs
+    public SearchIndex(ToIntFunction<T> idFunction, Function<T, String>... fields) {
+        this.idFunction = idFunction;
+        this.fields = List.of(fields);
+    }
+    
+    // ==================== TEXT ====================
+    
+    /**
+     * Lowercase and strip Vietnamese / Unicode diacritics
+     */
+    public static String fold(String s) {
+        if (s == null || s.isEmpty()) return "";
+        String decomposed = Normalizer.normalize(s, Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return stripped.replace('đ', 'd').replace('Đ', 'D').toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Fold and split into alphanumeric tokens
+     */
+    public static List<String> tokenize(String s) {
+        String folded = fold(s);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean alnum = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (alnum && start < 0) {
+                start = i;
+            } else if (!alnum && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+    
+    // ==================== UPDATE ====================
+    
+    /**
+     * Replace the whole index
+     */
+    public void rebuild(Collection<? extends T> items) {
+        lock.writeLock().lock();
+        try {
+            slotById.clear();
+            slots = newSlots(Math.max(64, items.size()));
+            slotCount = 0;
+            freeSlots.size = 0;
+            postings.clear();
+            for (T item : items) {
+                addLocked(item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Insert or replace one item
+     */
+    public void put(T item) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(idFunction.applyAsInt(item));
+            addLocked(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void addLocked(T item) {
+        int id = idFunction.applyAsInt(item);
+        List<String> tokens = new ArrayList<>();
+        for (Function<T, String> field : fields) {
+            tokens.addAll(tokenize(field.apply(item)));
+        }
+        
+        int slot;
+        if (freeSlots.size > 0) {
+            slot = freeSlots.ids[--freeSlots.size];
+        } else {
+            if (slotCount == slots.length) {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+            slot = slotCount++;
+        }
+        
+        String[] arr = tokens.toArray(new String[0]);
+        slots[slot] = new Doc<>(item, String.join(" ", tokens), arr);
+        slotById.put(id, slot);
+        
+        for (String key : prefixKeys(arr)) {
+            postings.computeIfAbsent(key, k -> new Postings()).add(slot);
+        }
+    }
+    
+    private void removeLocked(int id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) return;
+        
+        Doc<T> old = slots[slot];
+        slots[slot] = null;
+        freeSlots.add(slot);
+        
+        for (String key : prefixKeys(old.tokens)) {
+            Postings p = postings.get(key);
+            if (p != null) {
+                p.remove(slot);
+                if (p.size == 0) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> Doc<T>[] newSlots(int capacity) {
+        return (Doc<T>[]) new Doc[capacity];
+    }
+    
+    /**
+     * Distinct prefixes (1..MAX_PREFIX chars) of all tokens; for all-digit tokens the
+     * prefixes of every suffix too, so a phone number is found by any run of its digits
+     */
+    private static Collection<String> prefixKeys(String[] tokens) {
+        Set<String> keys = new HashSet<>();
+        for (String token : tokens) {
+            int lastStart = isDigits(token) ? token.length() - 1 : 0;
+            for (int start = 0; start <= lastStart; start++) {
+                int max = Math.min(token.length() - start, MAX_PREFIX);
+                for (int len = 1; len <= max; len++) {
+                    keys.add(token.substring(start, start + len));
+                }
+            }
+        }
+        return keys;
+    }
+    
+    private static boolean isDigits(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return !token.isEmpty();
+    }
+    
+    // ==================== QUERY ====================
+    
+    /**
+     * Ranked search; every query token must prefix-match a token of the item
+     */
+    public List<T> search(String query, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty() || limit <= 0) return Collections.emptyList();
+        String foldedQuery = String.join(" ", queryTokens);
+        
+        lock.readLock().lock();
+        try {
+            // Start from the smallest postings list
+            Postings smallest = null;
+            for (String token : queryTokens) {
+                Postings p = postings.get(token.length() > MAX_PREFIX ? token.substring(0, MAX_PREFIX) : token);
+                if (p == null) return Collections.emptyList();
+                if (smallest == null || p.size < smallest.size) {
+                    smallest = p;
+                }
+            }
+            
+            // Keep the best `limit` hits in a heap (worst kept hit on top)
+            Comparator<Hit<T>> ranking = (a, b) -> a.score != b.score
+                ? Integer.compare(b.score, a.score)
+                : Integer.compare(a.doc.text.length(), b.doc.text.length());
+            PriorityQueue<Hit<T>> top = new PriorityQueue<>(ranking.reversed());
+            
+            for (int i = 0; i < smallest.size; i++) {
+                Doc<T> doc = slots[smallest.ids[i]];
+                int score = score(doc, queryTokens, foldedQuery);
+                if (score == 0) continue;
+                
+                Hit<T> hit = new Hit<>(doc, score);
+                if (top.size() < limit) {
+                    top.add(hit);
+                } else if (ranking.compare(hit, top.peek()) < 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+            
+            List<Hit<T>> hits = new ArrayList<>(top);
+            hits.sort(ranking);
+            
+            List<T> result = new ArrayList<>(hits.size());
+            for (Hit<T> hit : hits) {
+                result.add(hit.doc.item);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /** 0 if some query token matches nothing, otherwise a relevance score */
+    private static int score(Doc<?> doc, List<String> queryTokens, String foldedQuery) {
+        int score = 0;
+        for (String q : queryTokens) {
+            int best = 0;
+            for (int i = 0; i < doc.tokens.length; i++) {
+                String t = doc.tokens[i];
+                int s = t.equals(q) ? 3
+                    : t.startsWith(q) ? 2
+                    : isDigits(q) && t.contains(q) ? 1     // Giữa / cuối số điện thoại
+                    : 0;
+                if (s > 0 && i == 0) s++;  // Khớp từ đầu tiên
+                best = Math.max(best, s);
+            }
+            if (best == 0) return 0;
+            score += best;
+        }
+        if (doc.text.startsWith(foldedQuery)) score += 5;
+        return score;
+    }
+    
+    /**
+     * The indexed item with this id, or null
+     */
+    public T get(int id) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            return slot != null ? slots[slot].item : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
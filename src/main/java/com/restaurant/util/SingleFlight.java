@@ -0,0 +1,95 @@
+package com.restaurant.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Single Flight - Gộp các lần nạp trùng nhau
+ *
+ * - Nhiều luồng cùng nạp một khóa: chỉ một luồng chạy truy vấn, các luồng khác chờ và dùng chung kết quả
+ * - Kết quả vừa nạp xong (trong minIntervalMs) được dùng lại thay vì nạp lần nữa
+ * - invalidate() sau khi ghi: lần gọi sau nạp mới, không dùng lại lần nạp đã bắt đầu trước đó
+ * - Lỗi không được giữ lại: lần gọi sau nạp lại
+ *
+ * The loader runs on the first caller's thread; results are shared, so they must not be mutated.
+ */
+public final class SingleFlight<K, V> {
+    
+    private final long minIntervalMs;
+    
+    private final class Flight {
+        final long generation;
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        volatile long completedAt;
+        
+        Flight(long generation) {
+            this.generation = generation;
+        }
+    }
+    
+    private final Map<K, Flight> flights = new HashMap<>();
+    private final Map<K, Long> generations = new HashMap<>();
+    
+    public SingleFlight(long minIntervalMs) {
+        this.minIntervalMs = minIntervalMs;
+    }
+    
+    /**
+     * Result of the in-flight or just-finished load of this key, or run {@code loader} now
+     *
+     * @throws RuntimeException whatever the (shared) loader threw
+     */
+    public V load(K key, Supplier<V> loader) {
+        Flight flight;
+        boolean owner = false;
+        synchronized (this) {
+            long generation = generations.getOrDefault(key, 0L);
+            flight = flights.get(key);
+            boolean reusable = flight != null && flight.generation == generation
+                && (!flight.result.isDone() || System.currentTimeMillis() - flight.completedAt < minIntervalMs);
+            if (!reusable) {
+                flight = new Flight(generation);
+                flights.put(key, flight);
+                owner = true;
+            }
+        }
+        
+        if (owner) {
+            try {
+                V value = loader.get();
+                flight.completedAt = System.currentTimeMillis();
+                flight.result.complete(value);
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    flights.remove(key, flight);
+                }
+                flight.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+        
+        try {
+            return flight.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+    
+    /**
+     * Data behind this key changed: the next load reads fresh data
+     */
+    public synchronized void invalidate(K key) {
+        generations.merge(key, 1L, Long::sum);
+        flights.remove(key);
+    }
+    
+    public synchronized void invalidateAll() {
+        for (K key : flights.keySet()) {
+            generations.merge(key, 1L, Long::sum);
+        }
+        flights.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package com.restaurant.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup Timer - Đo thời gian từng giai đoạn khởi động
+ *
+ * - phase(name) ghi thời gian từ mốc trước đến giờ
+ * - time(name, task) đo riêng một việc (các việc chạy song song)
+ * - report() ghi một dòng log: từng giai đoạn, tổng, và uptime của JVM
+ *
+ * Thread-safe: phases may be recorded from background loaders as well as the EDT.
+ */
+public class StartupTimer {
+    
+    private static final Logger logger = LogManager.getLogger(StartupTimer.class);
+    
+    private record Phase(String name, long millis) {}
+    
+    private final String name;
+    private final long startedAt = System.nanoTime();
+    private final List<Phase> phases = new ArrayList<>();
+    private long lastMark = startedAt;
+    
+    public StartupTimer(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Record the time since the previous phase (or since creation)
+     */
+    public synchronized void phase(String phaseName) {
+        long now = System.nanoTime();
+        phases.add(new Phase(phaseName, (now - lastMark) / 1_000_000));
+        lastMark = now;
+    }
+    
+    /**
+     * Run a task and record its own duration; does not move the phase mark,
+     * so tasks running in parallel can each be timed
+     */
+    public void time(String phaseName, Runnable task) {
+        long start = System.nanoTime();
+        task.run();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        synchronized (this) {
+            phases.add(new Phase(phaseName, millis));
+        }
+    }
+    
+    /**
+     * Milliseconds since this timer was created
+     */
+    public long elapsedMillis() {
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
+    
+    /**
+     * Log "name: a 12 ms, b 30 ms → total 42 ms (JVM uptime 3.2 s)"
+     */
+    public synchronized void report() {
+        StringBuilder sb = new StringBuilder();
+        for (Phase phase : phases) {
+            if (!sb.isEmpty()) sb.append(", ");
+            sb.append(phase.name()).append(' ').append(phase.millis()).append(" ms");
+        }
+        logger.info("⏱ {}: {} → total {} ms (JVM uptime {} s)", name, sb, elapsedMillis(),
+            String.format("%.1f", ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0));
+    }
+}
@@ -0,0 +1,743 @@
+package com.restaurant.util;
+
+import com.restaurant.config.DatabaseConnection;
+import com.restaurant.model.Customer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Synthetic data generator - Sinh dữ liệu lịch sử lớn để test hiệu năng báo cáo
+ *
+ * Bulk-loads years of orders, order lines, stock/loyalty/promotion history and
+ * notifications into the existing schema using JDBC batches. Product popularity
+ * and returning customers follow a Zipf skew, orders cluster around lunch and
+ * dinner peaks and weekends are busier. The same --seed and --end always produce
+ * the same data set.
+ *
+ * Requires the reference data from seed.sql (products, tables, users, ingredients).
+ *
+ * Usage:
+ *   java -cp restaurant-pos.jar com.restaurant.util.SyntheticDataGenerator
+ *        [--seed 42] [--days 1095] [--lines 5000000] [--customers 50000] [--end 2026-01-31]
+ */
+public class SyntheticDataGenerator {
+    
+    private static final Logger logger = LogManager.getLogger(SyntheticDataGenerator.class);
+    
+    private static final int ORDERS_PER_COMMIT = 2000;
+    private static final double AVG_LINES_PER_ORDER = 3.5;
+    private static final double CUSTOMER_ORDER_RATIO = 0.45;
+    private static final double PROMOTION_ORDER_RATIO = 0.08;
+    private static final double CANCEL_RATIO = 0.03;
+    private static final double VAT_PERCENT = 8.0;
+    
+    private static final String[] LAST_NAMES = {
+        "Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ",
+        "Võ", "Đặng", "Bùi", "Đỗ", "Hồ", "Ngô", "Dương", "Lý"
+    };
+    private static final String[] MIDDLE_NAMES = {
+        "Văn", "Thị", "Hoàng", "Minh", "Ngọc", "Thanh", "Quốc", "Thu", "Đức", "Hữu"
+    };
+    private static final String[] FIRST_NAMES = {
+        "An", "Bình", "Cường", "Dũng", "Em", "Giang", "Hà", "Hải", "Hạnh", "Hùng",
+        "Hương", "Khoa", "Lan", "Linh", "Long", "Mai", "Nam", "Nga", "Phong", "Phúc",
+        "Quân", "Quỳnh", "Sơn", "Tâm", "Thảo", "Trang", "Tuấn", "Vy", "Yến"
+    };
+    
+    private final long seed;
+    private final int days;
+    private final long targetLines;
+    private final int customerCount;
+    private final LocalDate endDate;
+    private final Random rnd;
+    
+    // Reference data (loaded from DB)
+    private int[] productIds;
+    private long[] productPrices;
+    private double[] productCdf;
+    private int[] tableIds;
+    private int[] tableCapacities;
+    private String[] tableNames;
+    private int[] staffIds;
+    private int[] waiterIds;
+    private int[] ingredientIds;
+    private int[] promotionIds;
+    private boolean[] promotionPercent;
+    private long[] promotionValues;
+    private long[] promotionMaxDiscounts;
+    private long[] promotionUsage;
+    
+    // Generated customers + running loyalty state
+    private int[] customerIds;
+    private double[] customerCdf;
+    private long[] customerSpent;
+    private int[] customerVisits;
+    private int[] customerPoints;
+    private LocalDate[] customerLastVisit;
+    private final Customer scratchCustomer = new Customer();
+    
+    // Counters
+    private long orderCount;
+    private long lineCount;
+    private long stockCount;
+    private long loyaltyCount;
+    private long promoUsageCount;
+    private long notificationCount;
+    
+    // Committed so far (customers, then orders every ORDERS_PER_COMMIT); a failure only rolls back the rest
+    private boolean customersCommitted;
+    private int committedBatches;
+    private long committedOrders;
+    
+    public SyntheticDataGenerator(long seed, int days, long targetLines, int customerCount, LocalDate endDate) {
+        this.seed = seed;
+        this.days = days;
+        this.targetLines = targetLines;
+        this.customerCount = customerCount;
+        this.endDate = endDate;
+        this.rnd = new Random(seed);
+    }
+    
+    public static void main(String[] args) {
+        long seed = 42;
+        int days = 1095;
+        long lines = 5_000_000;
+        int customers = 50_000;
+        LocalDate end = LocalDate.now().minusDays(1);
+        
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--days" -> days = Integer.parseInt(value);
+                case "--lines" -> lines = Long.parseLong(value);
+                case "--customers" -> customers = Integer.parseInt(value);
+                case "--end" -> end = LocalDate.parse(value);
+                default -> logger.warn("Unknown option: {}", args[i]);
+            }
+        }
+        
+        try {
+            new SyntheticDataGenerator(seed, days, lines, customers, end).run();
+        } catch (SQLException e) {
+            logger.error("❌ Synthetic data generation failed", e);
+            System.exit(1);
+        } finally {
+            DatabaseConnection.getInstance().shutdown();
+        }
+    }
+    
+    /**
+     * Generate the whole data set
+     */
+    public void run() throws SQLException {
+        LocalDate startDate = endDate.minusDays(days - 1L);
+        logger.info("Generating ~{} order lines, {} customers, {} → {} (seed={})",
+            targetLines, customerCount, startDate, endDate, seed);
+        long startNanos = System.nanoTime();
+        
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                loadReferenceData(conn);
+                generateCustomers(conn, startDate);
+                generateOrders(conn, startDate);
+                writeCustomerTotals(conn);
+                writePromotionCounts(conn);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                if (customersCommitted) {
+                    logger.error("Generation failed after commits: {} customers and {} orders in {} batches "
+                        + "stay in the database; only the uncommitted rest was rolled back. "
+                        + "Customer/loyalty totals and promotion counts were not written - "
+                        + "reload the schema before generating again",
+                        customerCount, committedOrders, committedBatches);
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        logger.info("✅ Done in {}s: {} orders, {} lines, {} stock, {} loyalty, {} promo usage, {} notifications",
+            String.format("%.1f", seconds), orderCount, lineCount, stockCount,
+            loyaltyCount, promoUsageCount, notificationCount);
+        logger.info("   Throughput: {} order lines/s", Math.round(lineCount / Math.max(seconds, 0.001)));
+    }
+    
+    // ==================== REFERENCE DATA ====================
+    
+    private void loadReferenceData(Connection conn) throws SQLException {
+        List<long[]> products = queryRows(conn,
+            "SELECT id, price FROM products WHERE is_active = TRUE ORDER BY id", 2);
+        if (products.isEmpty()) {
+            throw new SQLException("No products found - run seed.sql first");
+        }
+        productIds = new int[products.size()];
+        productPrices = new long[products.size()];
+        for (int i = 0; i < products.size(); i++) {
+            productIds[i] = (int) products.get(i)[0];
+            productPrices[i] = products.get(i)[1];
+        }
+        productCdf = zipfCdf(productIds.length, 1.1);
+        
+        List<Integer> tIds = new ArrayList<>();
+        List<Integer> tCaps = new ArrayList<>();
+        List<String> tNames = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT id, capacity, name FROM tables WHERE is_active = TRUE ORDER BY id");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                tIds.add(rs.getInt("id"));
+                tCaps.add(Math.max(1, rs.getInt("capacity")));
+                tNames.add(rs.getString("name"));
+            }
+        }
+        if (tIds.isEmpty()) {
+            throw new SQLException("No tables found - run seed.sql first");
+        }
+        tableIds = tIds.stream().mapToInt(Integer::intValue).toArray();
+        tableCapacities = tCaps.stream().mapToInt(Integer::intValue).toArray();
+        tableNames = tNames.toArray(new String[0]);
+        
+        staffIds = toIntArray(queryRows(conn, "SELECT id FROM users WHERE is_active = TRUE ORDER BY id", 1));
+        waiterIds = toIntArray(queryRows(conn, """
+            SELECT u.id FROM users u JOIN roles r ON u.role_id = r.id
+            WHERE r.name = 'WAITER' AND u.is_active = TRUE ORDER BY u.id
+            """, 1));
+        if (staffIds.length == 0) {
+            throw new SQLException("No users found - run seed.sql first");
+        }
+        if (waiterIds.length == 0) {
+            waiterIds = staffIds;
+        }
+        
+        ingredientIds = toIntArray(queryRows(conn, "SELECT id FROM ingredients WHERE is_active = TRUE ORDER BY id", 1));
+        
+        List<Integer> pIds = new ArrayList<>();
+        List<Boolean> pPercent = new ArrayList<>();
+        List<Long> pValues = new ArrayList<>();
+        List<Long> pMax = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT id, type, value, max_discount FROM promotions WHERE type IN ('PERCENT', 'FIXED') ORDER BY id");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                pIds.add(rs.getInt("id"));
+                pPercent.add("PERCENT".equals(rs.getString("type")));
+                pValues.add(rs.getBigDecimal("value").longValue());
+                BigDecimal max = rs.getBigDecimal("max_discount");
+                pMax.add(max != null ? max.longValue() : Long.MAX_VALUE);
+            }
+        }
+        promotionIds = pIds.stream().mapToInt(Integer::intValue).toArray();
+        promotionPercent = new boolean[pPercent.size()];
+        for (int i = 0; i < promotionPercent.length; i++) promotionPercent[i] = pPercent.get(i);
+        promotionValues = pValues.stream().mapToLong(Long::longValue).toArray();
+        promotionMaxDiscounts = pMax.stream().mapToLong(Long::longValue).toArray();
+        promotionUsage = new long[promotionIds.length];
+        
+        logger.info("Reference data: {} products, {} tables, {} staff ({} waiters), {} ingredients, {} promotions",
+            productIds.length, tableIds.length, staffIds.length, waiterIds.length,
+            ingredientIds.length, promotionIds.length);
+    }
+    
+    private List<long[]> queryRows(Connection conn, String sql, int columns) throws SQLException {
+        List<long[]> rows = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                long[] row = new long[columns];
+                for (int c = 0; c < columns; c++) {
+                    row[c] = rs.getBigDecimal(c + 1).longValue();
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+    
+    private static int[] toIntArray(List<long[]> rows) {
+        int[] result = new int[rows.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (int) rows.get(i)[0];
+        }
+        return result;
+    }
+    
+    // ==================== CUSTOMERS ====================
+    
+    private void generateCustomers(Connection conn, LocalDate startDate) throws SQLException {
+        int baseId = maxId(conn, "customers");
+        Set<String> phones = new HashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT phone FROM customers");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                phones.add(rs.getString(1));
+            }
+        }
+        
+        customerIds = new int[customerCount];
+        customerSpent = new long[customerCount];
+        customerVisits = new int[customerCount];
+        customerPoints = new int[customerCount];
+        customerLastVisit = new LocalDate[customerCount];
+        customerCdf = zipfCdf(customerCount, 0.8);
+        
+        String sql = """
+            INSERT INTO customers (id, full_name, phone, email, birthday, gender, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < customerCount; i++) {
+                int id = baseId + i + 1;
+                customerIds[i] = id;
+                
+                String phone;
+                do {
+                    phone = "09" + String.format("%08d", rnd.nextInt(100_000_000));
+                } while (!phones.add(phone));
+                
+                boolean female = rnd.nextBoolean();
+                String middle = female ? "Thị" : MIDDLE_NAMES[rnd.nextInt(MIDDLE_NAMES.length)];
+                String name = LAST_NAMES[rnd.nextInt(LAST_NAMES.length)] + " " + middle + " "
+                    + FIRST_NAMES[rnd.nextInt(FIRST_NAMES.length)];
+                
+                stmt.setInt(1, id);
+                stmt.setString(2, name);
+                stmt.setString(3, phone);
+                if (rnd.nextDouble() < 0.4) {
+                    stmt.setString(4, "kh" + id + "@email.com");
+                } else {
+                    stmt.setNull(4, Types.VARCHAR);
+                }
+                stmt.setDate(5, Date.valueOf(LocalDate.of(1960 + rnd.nextInt(45), 1, 1).plusDays(rnd.nextInt(365))));
+                stmt.setString(6, female ? "FEMALE" : "MALE");
+                stmt.setTimestamp(7, Timestamp.valueOf(startDate.minusDays(rnd.nextInt(30)).atTime(10, 0)));
+                stmt.addBatch();
+                
+                if ((i + 1) % 5000 == 0) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+        conn.commit();
+        customersCommitted = true;
+        logger.info("Inserted {} customers", customerCount);
+    }
+    
+    // ==================== ORDERS ====================
+    
+    private void generateOrders(Connection conn, LocalDate startDate) throws SQLException {
+        long orderId = maxId(conn, "orders");
+        
+        // Spread the target over all days, weighted by weekday and a slow growth trend
+        double[] dayWeights = new double[days];
+        double weightSum = 0;
+        for (int d = 0; d < days; d++) {
+            dayWeights[d] = dayFactor(startDate.plusDays(d), d);
+            weightSum += dayWeights[d];
+        }
+        double ordersPerWeight = targetLines / AVG_LINES_PER_ORDER / weightSum;
+        
+        String orderSql = """
+            INSERT INTO orders (id, order_code, customer_id, table_id, user_id, guest_count, status,
+                                subtotal, discount_amount, tax_percent, tax_amount, total_amount,
+                                promotion_id, loyalty_points_earned, loyalty_points_used,
+                                created_at, completed_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+        String detailSql = """
+            INSERT INTO order_details (order_id, product_id, quantity, original_price, unit_price,
+                                       subtotal, status, sent_to_kitchen_at, completed_at, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+        String stockSql = """
+            INSERT INTO stock_transactions (ingredient_id, type, quantity, unit_cost,
+                                            reference_type, reference_id, note, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+        String loyaltySql = """
+            INSERT INTO loyalty_transactions (customer_id, order_id, points_change, balance_after,
+                                              transaction_type, description, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+        String promoSql = """
+            INSERT INTO promotion_usage (promotion_id, order_id, customer_id, discount_amount, used_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+        String notificationSql = """
+            INSERT INTO notifications (user_id, title, message, type, is_read, created_at)
+            VALUES (?, ?, ?, 'INFO', ?, ?)
+            """;
+        
+        try (PreparedStatement orderStmt = conn.prepareStatement(orderSql);
+             PreparedStatement detailStmt = conn.prepareStatement(detailSql);
+             PreparedStatement stockStmt = conn.prepareStatement(stockSql);
+             PreparedStatement loyaltyStmt = conn.prepareStatement(loyaltySql);
+             PreparedStatement promoStmt = conn.prepareStatement(promoSql);
+             PreparedStatement notificationStmt = conn.prepareStatement(notificationSql)) {
+            
+            PreparedStatement[] batches = {
+                orderStmt, detailStmt, promoStmt, loyaltyStmt, stockStmt, notificationStmt
+            };
+            int pendingOrders = 0;
+            LocalDate unreadFrom = endDate.minusDays(1);
+            
+            for (int d = 0; d < days; d++) {
+                LocalDate day = startDate.plusDays(d);
+                int ordersToday = (int) Math.round(ordersPerWeight * dayWeights[d] * (0.9 + 0.2 * rnd.nextDouble()));
+                
+                // Restock every 3 days
+                if (d % 3 == 0) {
+                    for (int ingredientId : ingredientIds) {
+                        addStock(stockStmt, ingredientId, "IN", 5 + rnd.nextInt(20), "MANUAL", null,
+                            "Nhập kho định kỳ", day.atTime(7, 30));
+                    }
+                }
+                
+                for (int o = 0; o < ordersToday; o++) {
+                    orderId++;
+                    writeOrder(orderStmt, detailStmt, stockStmt, loyaltyStmt, promoStmt, notificationStmt,
+                        orderId, day, !day.isBefore(unreadFrom));
+                    
+                    if (++pendingOrders >= ORDERS_PER_COMMIT) {
+                        flush(conn, batches);
+                        pendingOrders = 0;
+                    }
+                }
+                
+                if ((d + 1) % 30 == 0) {
+                    logger.info("  {} / {} days, {} orders, {} lines", d + 1, days, orderCount, lineCount);
+                }
+            }
+            flush(conn, batches);
+        }
+    }
+    
+    private void writeOrder(PreparedStatement orderStmt, PreparedStatement detailStmt,
+                            PreparedStatement stockStmt, PreparedStatement loyaltyStmt,
+                            PreparedStatement promoStmt, PreparedStatement notificationStmt,
+                            long orderId, LocalDate day, boolean unread) throws SQLException {
+        int tableIdx = rnd.nextInt(tableIds.length);
+        int guests = 1 + rnd.nextInt(tableCapacities[tableIdx]);
+        LocalDateTime createdAt = day.atStartOfDay().plusSeconds(sampleSecondOfDay());
+        LocalDateTime completedAt = createdAt.plusMinutes(30 + rnd.nextInt(90));
+        boolean cancelled = rnd.nextDouble() < CANCEL_RATIO;
+        String itemStatus = cancelled ? "CANCELLED" : "SERVED";
+        
+        // Order lines
+        int lines = 1 + guests / 2 + geometric(0.45);
+        long subtotal = 0;
+        for (int l = 0; l < lines; l++) {
+            int productIdx = Arrays.binarySearch(productCdf, rnd.nextDouble());
+            productIdx = productIdx >= 0 ? productIdx : Math.min(-productIdx - 1, productIds.length - 1);
+            int quantity = rnd.nextDouble() < 0.8 ? 1 : 2 + rnd.nextInt(3);
+            long price = productPrices[productIdx];
+            long lineTotal = price * quantity;
+            subtotal += lineTotal;
+            LocalDateTime sentAt = createdAt.plusMinutes(l);
+            
+            detailStmt.setLong(1, orderId);
+            detailStmt.setInt(2, productIds[productIdx]);
+            detailStmt.setInt(3, quantity);
+            detailStmt.setBigDecimal(4, BigDecimal.valueOf(price));
+            detailStmt.setBigDecimal(5, BigDecimal.valueOf(price));
+            detailStmt.setBigDecimal(6, BigDecimal.valueOf(lineTotal));
+            detailStmt.setString(7, itemStatus);
+            detailStmt.setTimestamp(8, Timestamp.valueOf(sentAt));
+            detailStmt.setTimestamp(9, cancelled ? null : Timestamp.valueOf(sentAt.plusMinutes(8 + rnd.nextInt(20))));
+            detailStmt.setTimestamp(10, Timestamp.valueOf(sentAt));
+            detailStmt.addBatch();
+            lineCount++;
+            
+            if (!cancelled && ingredientIds.length > 0) {
+                int ingredientId = ingredientIds[productIdx % ingredientIds.length];
+                addStock(stockStmt, ingredientId, "SALE", -(0.05 + rnd.nextDouble() * 0.25) * quantity,
+                    "ORDER", orderId, "Auto deduct for product ID " + productIds[productIdx], completedAt);
+            }
+        }
+        
+        // Customer, promotion, loyalty
+        int customerIdx = -1;
+        if (customerIds.length > 0 && rnd.nextDouble() < CUSTOMER_ORDER_RATIO) {
+            customerIdx = Arrays.binarySearch(customerCdf, rnd.nextDouble());
+            customerIdx = customerIdx >= 0 ? customerIdx : Math.min(-customerIdx - 1, customerIds.length - 1);
+        }
+        
+        int promoIdx = -1;
+        long discount = 0;
+        if (!cancelled && promotionIds.length > 0 && rnd.nextDouble() < PROMOTION_ORDER_RATIO) {
+            promoIdx = rnd.nextInt(promotionIds.length);
+            discount = promotionPercent[promoIdx]
+                ? Math.min(subtotal * promotionValues[promoIdx] / 100, promotionMaxDiscounts[promoIdx])
+                : Math.min(promotionValues[promoIdx], subtotal);
+        }
+        
+        int pointsUsed = 0;
+        if (!cancelled && customerIdx >= 0 && customerPoints[customerIdx] >= 500 && rnd.nextDouble() < 0.05) {
+            pointsUsed = 100 * (1 + rnd.nextInt(5));
+            discount = Math.min(subtotal, discount + pointsUsed * 100L);
+        }
+        
+        long taxable = subtotal - discount;
+        long tax = Math.round(taxable * VAT_PERCENT / 100);
+        long total = taxable + tax;
+        
+        int pointsEarned = 0;
+        if (!cancelled && customerIdx >= 0) {
+            scratchCustomer.setTotalSpent(BigDecimal.valueOf(customerSpent[customerIdx]));
+            scratchCustomer.updateTier();
+            pointsEarned = scratchCustomer.calculatePointsFromAmount(BigDecimal.valueOf(total));
+        }
+        
+        orderStmt.setLong(1, orderId);
+        orderStmt.setString(2, "S" + String.format("%011d", orderId));
+        if (customerIdx >= 0) {
+            orderStmt.setInt(3, customerIds[customerIdx]);
+        } else {
+            orderStmt.setNull(3, Types.INTEGER);
+        }
+        orderStmt.setInt(4, tableIds[tableIdx]);
+        orderStmt.setInt(5, staffIds[rnd.nextInt(staffIds.length)]);
+        orderStmt.setInt(6, guests);
+        orderStmt.setString(7, cancelled ? "CANCELLED" : "COMPLETED");
+        orderStmt.setBigDecimal(8, BigDecimal.valueOf(subtotal));
+        orderStmt.setBigDecimal(9, BigDecimal.valueOf(discount));
+        orderStmt.setBigDecimal(10, BigDecimal.valueOf(VAT_PERCENT));
+        orderStmt.setBigDecimal(11, BigDecimal.valueOf(tax));
+        orderStmt.setBigDecimal(12, BigDecimal.valueOf(total));
+        if (promoIdx >= 0) {
+            orderStmt.setInt(13, promotionIds[promoIdx]);
+        } else {
+            orderStmt.setNull(13, Types.INTEGER);
+        }
+        orderStmt.setInt(14, pointsEarned);
+        orderStmt.setInt(15, pointsUsed);
+        orderStmt.setTimestamp(16, Timestamp.valueOf(createdAt));
+        orderStmt.setTimestamp(17, cancelled ? null : Timestamp.valueOf(completedAt));
+        orderStmt.addBatch();
+        orderCount++;
+        
+        if (cancelled) {
+            return;
+        }
+        
+        Timestamp completedTs = Timestamp.valueOf(completedAt);
+        Integer customerId = customerIdx >= 0 ? customerIds[customerIdx] : null;
+        
+        if (promoIdx >= 0) {
+            promoStmt.setInt(1, promotionIds[promoIdx]);
+            promoStmt.setLong(2, orderId);
+            if (customerId != null) {
+                promoStmt.setInt(3, customerId);
+            } else {
+                promoStmt.setNull(3, Types.INTEGER);
+            }
+            promoStmt.setBigDecimal(4, BigDecimal.valueOf(discount));
+            promoStmt.setTimestamp(5, completedTs);
+            promoStmt.addBatch();
+            promotionUsage[promoIdx]++;
+            promoUsageCount++;
+        }
+        
+        if (customerId != null) {
+            if (pointsUsed > 0) {
+                customerPoints[customerIdx] -= pointsUsed;
+                addLoyalty(loyaltyStmt, customerId, orderId, -pointsUsed, customerPoints[customerIdx],
+                    "REDEEM", "Đổi điểm cho đơn hàng #" + orderId, completedTs);
+            }
+            customerSpent[customerIdx] += total;
+            customerVisits[customerIdx]++;
+            customerLastVisit[customerIdx] = day;
+            if (pointsEarned > 0) {
+                customerPoints[customerIdx] += pointsEarned;
+                addLoyalty(loyaltyStmt, customerId, orderId, pointsEarned, customerPoints[customerIdx],
+                    "EARN", "Tích điểm từ đơn hàng #" + orderId, completedTs);
+            }
+        }
+        
+        // Kitchen "ready" notification to one waiter
+        notificationStmt.setInt(1, waiterIds[rnd.nextInt(waiterIds.length)]);
+        notificationStmt.setString(2, "🍽️ Món sẵn sàng");
+        notificationStmt.setString(3, tableNames[tableIdx] + " có " + lines + " món cần lấy");
+        notificationStmt.setBoolean(4, !unread);
+        notificationStmt.setTimestamp(5, Timestamp.valueOf(createdAt.plusMinutes(15)));
+        notificationStmt.addBatch();
+        notificationCount++;
+    }
+    
+    private void addStock(PreparedStatement stmt, int ingredientId, String type, double quantity,
+                          String referenceType, Long referenceId, String note, LocalDateTime at) throws SQLException {
+        stmt.setInt(1, ingredientId);
+        stmt.setString(2, type);
+        stmt.setDouble(3, Math.round(quantity * 1000) / 1000.0);
+        stmt.setNull(4, Types.DECIMAL);
+        stmt.setString(5, referenceType);
+        if (referenceId != null) {
+            stmt.setLong(6, referenceId);
+        } else {
+            stmt.setNull(6, Types.INTEGER);
+        }
+        stmt.setString(7, note);
+        stmt.setTimestamp(8, Timestamp.valueOf(at));
+        stmt.addBatch();
+        stockCount++;
+    }
+    
+    private void addLoyalty(PreparedStatement stmt, int customerId, long orderId, int change, int balance,
+                            String type, String description, Timestamp at) throws SQLException {
+        stmt.setInt(1, customerId);
+        stmt.setLong(2, orderId);
+        stmt.setInt(3, change);
+        stmt.setInt(4, balance);
+        stmt.setString(5, type);
+        stmt.setString(6, description);
+        stmt.setTimestamp(7, at);
+        stmt.addBatch();
+        loyaltyCount++;
+    }
+    
+    /**
+     * Execute batches in foreign-key order and commit
+     */
+    private void flush(Connection conn, PreparedStatement[] batches) throws SQLException {
+        for (PreparedStatement stmt : batches) {
+            stmt.executeBatch();
+        }
+        conn.commit();
+        committedBatches++;
+        committedOrders = orderCount;
+    }
+    
+    // ==================== TOTALS ====================
+    
+    private void writeCustomerTotals(Connection conn) throws SQLException {
+        String sql = """
+            UPDATE customers SET total_spent = ?, visit_count = ?, loyalty_points = ?,
+                                 last_visit = ?, tier = ?
+            WHERE id = ?
+            """;
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < customerIds.length; i++) {
+                scratchCustomer.setTotalSpent(BigDecimal.valueOf(customerSpent[i]));
+                scratchCustomer.updateTier();
+                
+                stmt.setBigDecimal(1, BigDecimal.valueOf(customerSpent[i]));
+                stmt.setInt(2, customerVisits[i]);
+                stmt.setInt(3, customerPoints[i]);
+                stmt.setDate(4, customerLastVisit[i] != null ? Date.valueOf(customerLastVisit[i]) : null);
+                stmt.setString(5, scratchCustomer.getTier().name());
+                stmt.setInt(6, customerIds[i]);
+                stmt.addBatch();
+                
+                if ((i + 1) % 5000 == 0) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+    
+    private void writePromotionCounts(Connection conn) throws SQLException {
+        String sql = "UPDATE promotions SET used_count = used_count + ? WHERE id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < promotionIds.length; i++) {
+                if (promotionUsage[i] == 0) continue;
+                stmt.setLong(1, promotionUsage[i]);
+                stmt.setInt(2, promotionIds[i]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+    
+    // ==================== DISTRIBUTIONS ====================
+    
+    /**
+     * Zipf cumulative distribution over n items with exponent s.
+     * Ranks are shuffled so which items are popular also depends on the seed.
+     */
+    private double[] zipfCdf(int n, double s) {
+        double[] weights = new double[n];
+        Integer[] ranks = new Integer[n];
+        for (int i = 0; i < n; i++) ranks[i] = i + 1;
+        Collections.shuffle(Arrays.asList(ranks), rnd);
+        
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            weights[i] = 1.0 / Math.pow(ranks[i], s);
+            sum += weights[i];
+        }
+        
+        double[] cdf = new double[n];
+        double acc = 0;
+        for (int i = 0; i < n; i++) {
+            acc += weights[i] / sum;
+            cdf[i] = acc;
+        }
+        return cdf;
+    }
+    
+    /**
+     * Relative traffic of a day: weekends busier, slow growth over the period
+     */
+    private double dayFactor(LocalDate day, int dayIndex) {
+        double weekday = switch (day.getDayOfWeek()) {
+            case FRIDAY -> 1.3;
+            case SATURDAY -> 1.6;
+            case SUNDAY -> 1.5;
+            default -> 1.0;
+        };
+        double trend = 0.8 + 0.4 * dayIndex / Math.max(1, days - 1);
+        return weekday * trend;
+    }
+    
+    /**
+     * Second of day with lunch (~12:30) and dinner (~19:15) peaks
+     */
+    private int sampleSecondOfDay() {
+        double hour;
+        double p = rnd.nextDouble();
+        if (p < 0.35) {
+            hour = 12.5 + rnd.nextGaussian() * 0.7;
+        } else if (p < 0.85) {
+            hour = 19.25 + rnd.nextGaussian() * 1.0;
+        } else {
+            hour = 9 + rnd.nextDouble() * 13;
+        }
+        hour = Math.max(8.0, Math.min(22.5, hour));
+        return (int) (hour * 3600);
+    }
+    
+    private int geometric(double p) {
+        int n = 0;
+        while (rnd.nextDouble() > p && n < 12) {
+            n++;
+        }
+        return n;
+    }
+    
+    private int maxId(Connection conn, String table) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM " + table);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import com.restaurant.model.User;
 import com.restaurant.model.Notification;
 import com.restaurant.service.AuthService;
 import com.restaurant.service.NotificationService;
+import com.restaurant.util.RefreshScheduler;
+import com.restaurant.util.StartupTimer;
 import com.restaurant.util.ToastNotification;
 import com.restaurant.view.components.Sidebar;
 import com.restaurant.view.panels.DashboardPanel;
@@ -31,6 +33,14 @@ import java.awt.*;
 import java.awt.event.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Main Application Frame with Sidebar Navigation
@@ -49,6 +59,9 @@ import java.time.format.DateTimeFormatter;
  * │         │                                    │
  * │ [Logout]│                                    │
  * └─────────┴────────────────────────────────────┘
+ * 
+ * Panels are registered as factories and built on first navigation; the role's
+ * main panels are warmed up one per EDT turn after the first paint.
  */
 public class MainFrame extends JFrame {
     
@@ -73,6 +86,11 @@ public class MainFrame extends JFrame {
     private Timer clockTimer;
     private POSPanel posPanel;
     private ReportsPanel reportsPanel;
+    
+    // Lazy panels: id -> factory, and the ones already added to contentPanel
+    private final Map<String, Supplier<JComponent>> panelFactories = new LinkedHashMap<>();
+    private final Map<String, JComponent> builtPanels = new HashMap<>();
+    private final StartupTimer startupTimer = new StartupTimer("MainFrame startup");
     public static final String PANEL_DASHBOARD = "dashboard";
     public static final String PANEL_POS = "pos";
     public static final String PANEL_KITCHEN = "kitchen";
@@ -94,6 +112,7 @@ public class MainFrame extends JFrame {
         initializeComponents();
         setupKeyBindings();
         startClock();
+        startupTimer.phase("frame + sidebar");
         
         // Navigate to appropriate default panel based on role
         String defaultPanel = PANEL_DASHBOARD;
@@ -116,6 +135,7 @@ public class MainFrame extends JFrame {
         }
         
         navigateTo(defaultPanel, defaultTitle);
+        startupTimer.phase("default panel '" + defaultPanel + "'");
         
         logger.info("MainFrame initialized for user: {}", user.getUsername());
     }
@@ -133,6 +153,16 @@ public class MainFrame extends JFrame {
             public void windowClosing(WindowEvent e) {
                 confirmExit();
             }
+            
+            @Override
+            public void windowOpened(WindowEvent e) {
+                // Runs after the pending paint events - the first screen is usable
+                SwingUtilities.invokeLater(() -> {
+                    startupTimer.phase("first paint");
+                    startupTimer.report();
+                    warmUpPanels();
+                });
+            }
         });
     }
     
@@ -166,52 +196,130 @@ public class MainFrame extends JFrame {
         contentPanel = new JPanel(cardLayout);
         contentPanel.setBackground(BACKGROUND);
         
-        // Add panels - all real implementations
-        DashboardPanel dashboardPanel = new DashboardPanel(currentUser);
-        dashboardPanel.setOnNavigate(panelId -> {
-            String title = switch (panelId) {
-                case PANEL_POS -> "Bán hàng";
-                case PANEL_REPORTS -> "Báo cáo";
-                case PANEL_KITCHEN -> "Màn hình bếp";
-                case PANEL_MENU -> "Thực đơn";
-                case PANEL_INVENTORY -> "Kho hàng";
-                case PANEL_STAFF -> "Nhân viên";
-                case PANEL_SETTINGS -> "Cài đặt";
-                default -> "Tổng quan";
-            };
-            navigateTo(panelId, title);
+        registerPanels();
+        
+        panel.add(contentPanel, BorderLayout.CENTER);
+        
+        return panel;
+    }
+    
+    /**
+     * Register every panel as a factory; nothing touches the database until it is shown
+     */
+    private void registerPanels() {
+        panelFactories.put(PANEL_DASHBOARD, () -> {
+            DashboardPanel dashboardPanel = new DashboardPanel(currentUser);
+            dashboardPanel.setOnNavigate(panelId -> {
+                String title = switch (panelId) {
+                    case PANEL_POS -> "Bán hàng";
+                    case PANEL_REPORTS -> "Báo cáo";
+                    case PANEL_KITCHEN -> "Màn hình bếp";
+                    case PANEL_MENU -> "Thực đơn";
+                    case PANEL_INVENTORY -> "Kho hàng";
+                    case PANEL_STAFF -> "Nhân viên";
+                    case PANEL_SETTINGS -> "Cài đặt";
+                    default -> "Tổng quan";
+                };
+                navigateTo(panelId, title);
+            });
+            return dashboardPanel;
         });
-        contentPanel.add(dashboardPanel, PANEL_DASHBOARD);
-        
-        posPanel = new POSPanel(currentUser);
-        contentPanel.add(posPanel, PANEL_POS);
-        contentPanel.add(new KitchenPanel(currentUser), PANEL_KITCHEN);
-        contentPanel.add(new MenuPanel(currentUser), PANEL_MENU);
-        contentPanel.add(new InventoryPanel(currentUser), PANEL_INVENTORY);
-        contentPanel.add(new StaffPanel(currentUser), PANEL_STAFF);
-        contentPanel.add(new ScheduleManagementPanel(currentUser), PANEL_SCHEDULE);
-        contentPanel.add(new MySchedulePanel(currentUser), PANEL_MY_SCHEDULE);
-        contentPanel.add(new CustomerPanel(currentUser), PANEL_CUSTOMERS);
-        contentPanel.add(new PromotionPanel(currentUser), PANEL_PROMOTIONS);
-        contentPanel.add(new ReservationPanel(currentUser), PANEL_RESERVATIONS);
-        
-        contentPanel.add(new WaiterPanel(currentUser), PANEL_WAITER);
+        panelFactories.put(PANEL_POS, () -> posPanel = new POSPanel(currentUser));
+        panelFactories.put(PANEL_KITCHEN, () -> new KitchenPanel(currentUser));
+        panelFactories.put(PANEL_MENU, () -> new MenuPanel(currentUser));
+        panelFactories.put(PANEL_INVENTORY, () -> new InventoryPanel(currentUser));
+        panelFactories.put(PANEL_STAFF, () -> new StaffPanel(currentUser));
+        panelFactories.put(PANEL_SCHEDULE, () -> new ScheduleManagementPanel(currentUser));
+        panelFactories.put(PANEL_MY_SCHEDULE, () -> new MySchedulePanel(currentUser));
+        panelFactories.put(PANEL_CUSTOMERS, () -> new CustomerPanel(currentUser));
+        panelFactories.put(PANEL_PROMOTIONS, () -> new PromotionPanel(currentUser));
+        panelFactories.put(PANEL_RESERVATIONS, () -> new ReservationPanel(currentUser));
+        panelFactories.put(PANEL_WAITER, () -> new WaiterPanel(currentUser));
         
         // Reports panel with error handling
-        try {
-            reportsPanel = new ReportsPanel(currentUser);
-            contentPanel.add(reportsPanel, PANEL_REPORTS);
-            logger.info("ReportsPanel initialized successfully");
-        } catch (Exception e) {
-            logger.error("Failed to initialize ReportsPanel", e);
-            contentPanel.add(createPlaceholderPanel("📊", "Lỗi tải báo cáo", e.getMessage()), PANEL_REPORTS);
-        }
+        panelFactories.put(PANEL_REPORTS, () -> {
+            try {
+                reportsPanel = new ReportsPanel(currentUser);
+                logger.info("ReportsPanel initialized successfully");
+                return reportsPanel;
+            } catch (Exception e) {
+                logger.error("Failed to initialize ReportsPanel", e);
+                return createPlaceholderPanel("📊", "Lỗi tải báo cáo", e.getMessage());
+            }
+        });
         
-        contentPanel.add(new SettingsPanel(currentUser), PANEL_SETTINGS);
+        panelFactories.put(PANEL_SETTINGS, () -> new SettingsPanel(currentUser));
+    }
+    
+    /**
+     * Build the panel on first use and add it to the card layout
+     * 
+     * @return true if it was built by this call
+     */
+    private boolean ensurePanel(String panelId) {
+        if (builtPanels.containsKey(panelId)) return false;
         
-        panel.add(contentPanel, BorderLayout.CENTER);
+        Supplier<JComponent> factory = panelFactories.get(panelId);
+        if (factory == null) {
+            logger.warn("Unknown panel: {}", panelId);
+            return false;
+        }
         
-        return panel;
+        long start = System.nanoTime();
+        JComponent panel = factory.get();
+        builtPanels.put(panelId, panel);
+        contentPanel.add(panel, panelId);
+        logger.debug("Built panel '{}' in {} ms", panelId, (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+    
+    /**
+     * Main panels of the user's role (the top group of the sidebar)
+     */
+    private List<String> rolePanels() {
+        List<String> result = new ArrayList<>();
+        var role = currentUser.getRole();
+        if (role == null) return result;
+        
+        if (role.isChef() && !role.isAdmin()) {
+            result.add(PANEL_KITCHEN);
+            result.add(PANEL_MY_SCHEDULE);
+        } else if (role.isWaiter()) {
+            result.add(PANEL_WAITER);
+            result.add(PANEL_MY_SCHEDULE);
+        } else {
+            if (role.canAccessDashboard()) result.add(PANEL_DASHBOARD);
+            if (role.canAccessPOS()) result.add(PANEL_POS);
+            if (role.canAccessKitchen()) result.add(PANEL_KITCHEN);
+            if (!role.isAdmin() && !role.isManager()) result.add(PANEL_MY_SCHEDULE);
+        }
+        return result;
+    }
+    
+    /**
+     * Build the remaining role panels after the first paint. Swing components must be
+     * created on the EDT, so each one gets its own event-loop turn and clicks stay responsive.
+     */
+    private void warmUpPanels() {
+        Deque<String> pending = new ArrayDeque<>(rolePanels());
+        pending.removeIf(builtPanels::containsKey);
+        if (pending.isEmpty()) return;
+        
+        StartupTimer warmUpTimer = new StartupTimer("Panel warm-up");
+        Runnable[] next = new Runnable[1];
+        next[0] = () -> {
+            if (!isDisplayable()) return;       // Logged out meanwhile
+            String panelId = pending.poll();
+            if (panelId == null) {
+                warmUpTimer.report();
+                return;
+            }
+            if (ensurePanel(panelId)) {
+                warmUpTimer.phase(panelId);
+            }
+            SwingUtilities.invokeLater(next[0]);
+        };
+        SwingUtilities.invokeLater(next[0]);
     }
     
     private JPanel createHeader() {
@@ -278,8 +386,8 @@ public class MainFrame extends JFrame {
         panel.add(badge, "pos 16 0");
         
         // Refresh every 5 seconds for near-real-time notifications
-        Timer refreshTimer = new Timer(5000, e -> updateNotificationBadge(badge));
-        refreshTimer.start();
+        RefreshScheduler.getInstance().registerOnEdt(panel, "notification-badge", 5_000,
+            () -> updateNotificationBadge(badge));
         
         return panel;
     }
@@ -316,7 +424,8 @@ public class MainFrame extends JFrame {
                 notifItem.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.decode(AppConfig.Colors.BORDER)));
                 notifItem.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
                 
-                JLabel itemTitle = new JLabel(n.getIcon() + " " + n.getTitle());
+                JLabel itemTitle = new JLabel(n.getIcon() + " " + n.getTitle()
+                    + (n.getRepeatCount() > 1 ? " (×" + n.getRepeatCount() + ")" : ""));
                 itemTitle.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 12));
                 notifItem.add(itemTitle);
                 
@@ -328,7 +437,7 @@ public class MainFrame extends JFrame {
                 notifItem.addMouseListener(new MouseAdapter() {
                     @Override
                     public void mouseClicked(MouseEvent e) {
-                        NotificationService.getInstance().markAsRead(n.getId());
+                        NotificationService.getInstance().markAsRead(n.getId(), currentUser.getId());
                         popup.setVisible(false);
                         updateNotificationBadge(badge);
                     }
@@ -464,17 +573,20 @@ public class MainFrame extends JFrame {
      * Navigate to a specific panel
      */
     public void navigateTo(String panelId, String title) {
+        // A panel built just now has loaded fresh data in its constructor
+        boolean justBuilt = ensurePanel(panelId);
+        
         cardLayout.show(contentPanel, panelId);
         headerTitle.setText(title);
         sidebar.setActiveItem(panelId);
         
         // Refresh POS panel data when navigating to it
-        if (PANEL_POS.equals(panelId) && posPanel != null) {
+        if (PANEL_POS.equals(panelId) && posPanel != null && !justBuilt) {
             posPanel.refresh();
         }
         
         // Refresh Reports panel data when navigating to it
-        if (PANEL_REPORTS.equals(panelId) && reportsPanel != null) {
+        if (PANEL_REPORTS.equals(panelId) && reportsPanel != null && !justBuilt) {
             reportsPanel.refresh();
         }
         
@@ -601,6 +713,7 @@ public class MainFrame extends JFrame {
             if (clockTimer != null) {
                 clockTimer.stop();
             }
+            stopBackgroundWork();
             
             dispose();
             
@@ -624,11 +737,28 @@ public class MainFrame extends JFrame {
             if (clockTimer != null) {
                 clockTimer.stop();
             }
+            stopBackgroundWork();
             dispose();
             System.exit(0);
         }
     }
     
+    /**
+     * Detach built panels from shared managers and stop every scheduled refresh
+     */
+    private void stopBackgroundWork() {
+        for (JComponent panel : builtPanels.values()) {
+            if (panel instanceof KitchenPanel kitchen) {
+                kitchen.stopTimer();
+            } else if (panel instanceof WaiterPanel waiter) {
+                waiter.stopTimer();
+            } else if (panel instanceof DashboardPanel dashboard) {
+                dashboard.stopAutoRefresh();
+            }
+        }
+        RefreshScheduler.getInstance().shutdown();
+    }
+    
     /**
      * Get current logged in user
      */
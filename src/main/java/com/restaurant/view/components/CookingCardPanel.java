@@ -8,7 +8,6 @@ import com.restaurant.service.RecipeService;
 import com.restaurant.util.KitchenOrderManager;
 import com.restaurant.util.KitchenOrderManager.KitchenOrder;
 import com.restaurant.util.KitchenOrderManager.OrderItem;
-import com.restaurant.util.KitchenOrderManager.OrderStatus;
 import com.restaurant.util.ToastNotification;
 import net.miginfocom.swing.MigLayout;
 
@@ -269,21 +268,22 @@ public class CookingCardPanel extends JPanel {
     }
     
     private void handleAction() {
+        KitchenOrderManager manager = KitchenOrderManager.getInstance();
+        int itemIndex = itemIndex();
         int currentStep = item.getCurrentStep();
         int totalSteps = cookingSteps.size();
         
         if (currentStep == 0) {
-            // Start cooking
-            item.setCurrentStep(1);
-            order.setStatus(OrderStatus.PREPARING);
+            // Start cooking - the order becomes PREPARING
+            manager.setItemProgress(order.getId(), itemIndex, false, 1);
             ToastNotification.info(SwingUtilities.getWindowAncestor(this), 
                 "Bắt đầu nấu: " + item.getName());
         } else if (currentStep < totalSteps) {
             // Complete current step - advance to next
-            item.advanceStep();
+            manager.setItemProgress(order.getId(), itemIndex, false, currentStep + 1);
         } else {
             // Complete the item
-            item.setReady(true);
+            manager.setItemProgress(order.getId(), itemIndex, true, currentStep);
             
             // Deduct ingredients if not training mode
             InventoryService.getInstance().deductIngredients(
@@ -299,6 +299,17 @@ public class CookingCardPanel extends JPanel {
         }
     }
     
+    /**
+     * Position of this card's item in the order (by identity - equal items may repeat)
+     */
+    private int itemIndex() {
+        List<OrderItem> items = order.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == item) return i;
+        }
+        return -1;
+    }
+    
     private JSeparator createSeparator() {
         JSeparator sep = new JSeparator();
         sep.setForeground(new Color(255, 255, 255, 30));
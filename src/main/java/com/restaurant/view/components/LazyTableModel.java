@@ -0,0 +1,290 @@
+package com.restaurant.view.components;
+
+import com.restaurant.dao.PageSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * LazyTableModel - TableModel tải dữ liệu theo trang khi cuộn
+ *
+ * - Đọc từng trang 200 dòng từ PageSource (keyset) trên luồng nền
+ * - Chỉ giữ một cửa sổ vài trang gần nhất (LRU), bộ nhớ không tăng theo số dòng
+ * - Dòng chưa tải hiển thị placeholder, cập nhật khi trang về
+ * - Sắp xếp / lọc phía server qua PageSource.Query
+ *
+ * All state is touched on the EDT only; loader threads just run the queries.
+ *
+ * @param <T> loại dòng
+ */
+public class LazyTableModel<T> extends AbstractTableModel {
+    
+    private static final Logger logger = LogManager.getLogger(LazyTableModel.class);
+    
+    public static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 8;
+    private static final String LOADING_TEXT = "Đang tải…";
+    
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "lazy-table-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    
+    private static final class Page<T> {
+        final List<T> rows;
+        final Object[][] cells;
+        
+        Page(List<T> rows, Object[][] cells) {
+            this.rows = rows;
+            this.cells = cells;
+        }
+    }
+    
+    private final String[] columns;
+    private final Function<T, Object[]> rowMapper;
+    private final Set<Integer> editableColumns = new HashSet<>();
+    private int placeholderColumn = 1;
+    
+    private PageSource<T> source;
+    private PageSource.Query query = PageSource.Query.DEFAULT;
+    private int rowCount;
+    private int generation;
+    private IntConsumer countListener;
+    
+    private final Map<Integer, Page<T>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Page<T>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    /** Last row of every page seen so far - keyset anchors, one row per page */
+    private final TreeMap<Integer, T> pageEnds = new TreeMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    
+    /**
+     * @param columns   column headers
+     * @param source    data source; rows load on the first {@link #reload()}
+     * @param rowMapper row -> cell values (runs on the EDT, formatters need not be thread-safe)
+     */
+    public LazyTableModel(String[] columns, PageSource<T> source, Function<T, Object[]> rowMapper) {
+        this.columns = columns;
+        this.source = source;
+        this.rowMapper = rowMapper;
+    }
+    
+    // ==================== CONFIGURATION ====================
+    
+    public void setEditableColumns(int... cols) {
+        editableColumns.clear();
+        for (int c : cols) {
+            editableColumns.add(c);
+        }
+    }
+    
+    /** Column showing the "loading" text for rows not yet fetched (default 1, column 0 is usually a hidden id) */
+    public void setPlaceholderColumn(int column) {
+        this.placeholderColumn = column;
+    }
+    
+    /** Called on the EDT whenever the total row count is known */
+    public void setCountListener(IntConsumer listener) {
+        this.countListener = listener;
+    }
+    
+    /**
+     * Replace the data source and reload from the top
+     */
+    public void setSource(PageSource<T> source) {
+        this.source = source;
+        reload();
+    }
+    
+    public void setFilter(Object filter) {
+        if (Objects.equals(filter, query.filter())) return;
+        query = query.withFilter(filter);
+        reload();
+    }
+    
+    public void setSort(String sortKey, boolean ascending) {
+        query = query.withSort(sortKey, ascending);
+        reload();
+    }
+    
+    /**
+     * Replace sort and filter at once and reload
+     */
+    public void setQuery(PageSource.Query query) {
+        this.query = query;
+        reload();
+    }
+    
+    public PageSource.Query getQuery() {
+        return query;
+    }
+    
+    /**
+     * Drop cached pages and re-count; visible rows show placeholders until they reload
+     */
+    public void reload() {
+        generation++;
+        pages.clear();
+        pageEnds.clear();
+        loading.clear();
+        if (rowCount > 0) {
+            fireTableRowsUpdated(0, rowCount - 1);
+        }
+        if (source == null) return;
+        
+        int gen = generation;
+        PageSource<T> src = source;
+        PageSource.Query q = query;
+        LOADER.execute(() -> {
+            int count = src.count(q);
+            SwingUtilities.invokeLater(() -> {
+                if (gen != generation) return;
+                rowCount = count;
+                fireTableDataChanged();
+                if (countListener != null) {
+                    countListener.accept(count);
+                }
+            });
+        });
+    }
+    
+    /**
+     * Click a header to sort by that column (toggles direction); null key = not sortable
+     *
+     * @param sortKeys sort key per model column
+     */
+    public void installSortHeader(JTable table, String... sortKeys) {
+        JTableHeader header = table.getTableHeader();
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = header.columnAtPoint(e.getPoint());
+                if (viewColumn < 0) return;
+                int column = table.convertColumnIndexToModel(viewColumn);
+                if (column >= sortKeys.length || sortKeys[column] == null) return;
+                
+                String key = sortKeys[column];
+                boolean ascending = !key.equals(query.sortKey()) || !query.ascending();
+                setSort(key, ascending);
+                
+                for (int i = 0; i < table.getColumnCount(); i++) {
+                    TableColumn tc = table.getColumnModel().getColumn(i);
+                    int modelIndex = tc.getModelIndex();
+                    tc.setHeaderValue(modelIndex == column
+                        ? columns[modelIndex] + (ascending ? " ▲" : " ▼")
+                        : columns[modelIndex]);
+                }
+                header.repaint();
+            }
+        });
+    }
+    
+    // ==================== TABLE MODEL ====================
+    
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+    
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return editableColumns.contains(column) && getRow(row) != null;
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        int pageIndex = row / PAGE_SIZE;
+        int offset = row % PAGE_SIZE;
+        
+        // Prefetch the next page once the user is three quarters through this one
+        if (offset >= PAGE_SIZE * 3 / 4 && (pageIndex + 1) * PAGE_SIZE < rowCount) {
+            requestPage(pageIndex + 1);
+        }
+        
+        Page<T> page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return column == placeholderColumn ? LOADING_TEXT : null;
+        }
+        return offset < page.cells.length ? page.cells[offset][column] : null;
+    }
+    
+    /**
+     * Row object, or null if its page is not loaded
+     */
+    public T getRow(int row) {
+        Page<T> page = pages.get(row / PAGE_SIZE);
+        int offset = row % PAGE_SIZE;
+        return page != null && offset < page.rows.size() ? page.rows.get(offset) : null;
+    }
+    
+    // ==================== LOADING ====================
+    
+    private void requestPage(int pageIndex) {
+        if (source == null || pages.containsKey(pageIndex) || !loading.add(pageIndex)) return;
+        
+        // Nearest known anchor before this page; rows in between are skipped server-side
+        Map.Entry<Integer, T> anchor = pageEnds.floorEntry(pageIndex - 1);
+        T after = anchor != null ? anchor.getValue() : null;
+        int anchorPage = anchor != null ? anchor.getKey() : -1;
+        int skip = (pageIndex - 1 - anchorPage) * PAGE_SIZE;
+        
+        int gen = generation;
+        PageSource<T> src = source;
+        PageSource.Query q = query;
+        LOADER.execute(() -> {
+            List<T> rows = src.fetch(q, after, skip, PAGE_SIZE);
+            
+            SwingUtilities.invokeLater(() -> {
+                if (gen != generation) return;
+                loading.remove(pageIndex);
+                Object[][] cells = new Object[rows.size()][];
+                for (int i = 0; i < cells.length; i++) {
+                    cells[i] = rowMapper.apply(rows.get(i));
+                }
+                pages.put(pageIndex, new Page<>(rows, cells));
+                if (!rows.isEmpty()) {
+                    pageEnds.put(pageIndex, rows.get(rows.size() - 1));
+                }
+                
+                int first = pageIndex * PAGE_SIZE;
+                int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+                if (first <= last) {
+                    fireTableRowsUpdated(first, last);
+                }
+                logger.debug("Loaded page {} ({} rows, skip {})", pageIndex, rows.size(), skip);
+            });
+        });
+    }
+}
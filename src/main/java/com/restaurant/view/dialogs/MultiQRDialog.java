@@ -39,6 +39,8 @@ public class MultiQRDialog extends JDialog {
     private JPanel qrGridPanel;
     private JLabel headerLabel;
     private Map<Integer, JPanel> partCards = new HashMap<>();
+    /** One transfer description per part, so rebuilding the grid reuses the cached QR images */
+    private final Map<Integer, String> descriptions = new HashMap<>();
     
     public MultiQRDialog(Window owner, SplitBill splitBill, Runnable onUpdate) {
         super(owner, "Tất cả QR chuyển khoản", ModalityType.APPLICATION_MODAL);
@@ -158,22 +160,24 @@ public class MultiQRDialog extends JDialog {
         amountLabel.setForeground(PRIMARY);
         card.add(amountLabel, "center, gaptop 4");
         
-        // QR Code (smaller for grid)
-        String description = "SPLIT" + part.getPartNumber() + "_" + System.currentTimeMillis() % 10000;
-        ImageIcon qrIcon = QRCodeGenerator.generateVietQR(part.getAmount(), description, 180);
+        // QR Code (smaller for grid) - rendered in parallel on the QR pool, filled in when ready
+        String description = descriptions.computeIfAbsent(part.getPartNumber(),
+            n -> "SPLIT" + n + " " + System.currentTimeMillis() % 10000);
         
         JPanel qrWrapper = new JPanel(new MigLayout("insets 8", "[center]", "[center]"));
         qrWrapper.setBackground(Color.WHITE);
         qrWrapper.putClientProperty(FlatClientProperties.STYLE, "arc: 8");
         
-        if (qrIcon != null) {
-            qrWrapper.add(new JLabel(qrIcon));
-        } else {
-            JLabel errorLabel = new JLabel("⚠️");
-            errorLabel.setPreferredSize(new Dimension(180, 180));
-            errorLabel.setHorizontalAlignment(SwingConstants.CENTER);
-            qrWrapper.add(errorLabel);
-        }
+        JLabel qrLabel = new JLabel("⏳");
+        qrLabel.setPreferredSize(new Dimension(180, 180));
+        qrLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        qrWrapper.add(qrLabel);
+        
+        QRCodeGenerator.generateVietQRAsync(part.getAmount(), description, 180)
+            .thenAccept(qrIcon -> SwingUtilities.invokeLater(() -> {
+                qrLabel.setIcon(qrIcon);
+                qrLabel.setText(qrIcon != null ? null : "⚠️");
+            }));
         
         card.add(qrWrapper, "center, gaptop 8");
         
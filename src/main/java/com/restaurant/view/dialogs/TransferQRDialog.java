@@ -60,14 +60,14 @@ public class TransferQRDialog extends JDialog {
         qrPanel.setBackground(Color.WHITE);
         qrPanel.putClientProperty(FlatClientProperties.STYLE, "arc: 12");
         
-        String description = "SPLIT" + part.getPartNumber() + "_" + System.currentTimeMillis() % 10000;
+        String description = "SPLIT" + part.getPartNumber() + " " + System.currentTimeMillis() % 10000;
         ImageIcon qrIcon = QRCodeGenerator.generateVietQR(part.getAmount(), description, 240);
         
         if (qrIcon != null) {
             JLabel qrImage = new JLabel(qrIcon);
             qrPanel.add(qrImage);
         } else {
-            JLabel errorLabel = new JLabel("⚠️ Không thể tải QR");
+            JLabel errorLabel = new JLabel("⚠️ Chưa cấu hình tài khoản ngân hàng");
             errorLabel.setPreferredSize(new Dimension(240, 240));
             errorLabel.setHorizontalAlignment(SwingConstants.CENTER);
             errorLabel.setForeground(Color.RED);
@@ -7,18 +7,17 @@ import com.restaurant.model.Customer.CustomerTier;
 import com.restaurant.model.User;
 import com.restaurant.service.CustomerService;
 import com.restaurant.util.ToastNotification;
+import com.restaurant.view.components.LazyTableModel;
 import net.miginfocom.swing.MigLayout;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import java.awt.*;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Locale;
 
 /**
@@ -46,7 +45,7 @@ public class CustomerPanel extends JPanel {
     // UI Components
     private JTextField searchField;
     private JTable customerTable;
-    private DefaultTableModel tableModel;
+    private LazyTableModel<Customer> tableModel;
     private JLabel totalLabel;
     
     public CustomerPanel(User user) {
@@ -80,6 +79,14 @@ public class CustomerPanel extends JPanel {
         searchField = new JTextField(20);
         searchField.putClientProperty(FlatClientProperties.PLACEHOLDER_TEXT, "🔍 Tìm theo tên, SĐT...");
         searchField.addActionListener(e -> searchCustomers());
+        searchField.addKeyListener(new java.awt.event.KeyAdapter() {
+            @Override
+            public void keyReleased(java.awt.event.KeyEvent e) {
+                if (e.getKeyCode() != java.awt.event.KeyEvent.VK_ENTER) {
+                    searchCustomers(); // In-memory index, no DB round trip
+                }
+            }
+        });
         header.add(searchField);
         
         // Add button
@@ -102,12 +109,25 @@ public class CustomerPanel extends JPanel {
         
         // Table
         String[] columns = {"ID", "Tên khách hàng", "SĐT", "Hạng", "Điểm", "Tổng chi tiêu", "Số lần", "Thao tác"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) { return column == 7; }
-        };
+        // A search typed before the customer directory finished loading is re-run once it has
+        tableModel = new LazyTableModel<>(columns,
+            customerService.customerPages(() -> SwingUtilities.invokeLater(this::loadCustomers)), c -> new Object[]{
+            c.getId(),
+            c.getFullName(),
+            c.getPhone(),
+            c.getTier(),
+            c.getLoyaltyPoints(),
+            currencyFormat.format(c.getTotalSpent()),
+            c.getVisitCount(),
+            c.getId() // For actions
+        });
+        tableModel.setEditableColumns(7);
+        tableModel.setCountListener(count -> totalLabel.setText(
+            (searchField.getText().trim().isEmpty() ? "Tổng: " : "Tìm thấy: ") + count + " khách hàng"));
         
         customerTable = new JTable(tableModel);
+        // Server-side sort; pages are fetched as the user scrolls
+        tableModel.installSortHeader(customerTable, null, "name", null, null, "points", "spent", "visits", null);
         customerTable.setRowHeight(45);
         customerTable.setFont(new Font(AppConfig.FONT_FAMILY, Font.PLAIN, 13));
         customerTable.getTableHeader().setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 12));
@@ -147,21 +167,22 @@ public class CustomerPanel extends JPanel {
         JPanel panel = new JPanel(new MigLayout("insets 0, gap 16", "[grow][grow][grow][grow]", ""));
         panel.setOpaque(false);
         
+        // One grouped query (cached), not a full customer list
+        CustomerService.CustomerStats stats = customerService.getStats();
+        
         // Total customers
-        panel.add(createStatCard("👥", "Tổng khách", String.valueOf(customerService.getTotalCustomers()), PRIMARY), "grow");
+        panel.add(createStatCard("👥", "Tổng khách", String.valueOf(stats.getActiveTotal()), PRIMARY), "grow");
         
         // Birthday this week
-        int birthdayCount = customerService.getBirthdayCustomers().size();
-        panel.add(createStatCard("🎂", "Sinh nhật tuần này", String.valueOf(birthdayCount), WARNING), "grow");
+        panel.add(createStatCard("🎂", "Sinh nhật tuần này", String.valueOf(stats.getUpcomingBirthdays()), WARNING), "grow");
         
         // VIP count
-        long vipCount = customerService.getAllCustomers().stream()
-            .filter(c -> c.getTier() == CustomerTier.VIP || c.getTier() == CustomerTier.GOLD)
-            .count();
+        int vipCount = stats.getCount(CustomerTier.VIP) + stats.getCount(CustomerTier.GOLD);
         panel.add(createStatCard("⭐", "Khách VIP/Gold", String.valueOf(vipCount), SUCCESS), "grow");
         
-        // Today's visits (placeholder)
-        panel.add(createStatCard("📊", "Lượt ghé thăm", "Coming soon", TEXT_SECONDARY), "grow");
+        // Top spender
+        String topSpender = stats.getTopSpenders().isEmpty() ? "-" : stats.getTopSpenders().get(0).getFullName();
+        panel.add(createStatCard("🏆", "Chi tiêu cao nhất", topSpender, TEXT_SECONDARY), "grow");
         
         return panel;
     }
@@ -186,49 +207,12 @@ public class CustomerPanel extends JPanel {
     }
     
     private void loadCustomers() {
-        tableModel.setRowCount(0);
-        List<Customer> customers = customerService.getAllCustomers();
-        
-        for (Customer c : customers) {
-            tableModel.addRow(new Object[]{
-                c.getId(),
-                c.getFullName(),
-                c.getPhone(),
-                c.getTier(),
-                c.getLoyaltyPoints(),
-                currencyFormat.format(c.getTotalSpent()),
-                c.getVisitCount(),
-                c.getId() // For actions
-            });
-        }
-        
-        totalLabel.setText("Tổng: " + customers.size() + " khách hàng");
+        tableModel.reload();
     }
     
     private void searchCustomers() {
         String keyword = searchField.getText().trim();
-        if (keyword.isEmpty()) {
-            loadCustomers();
-            return;
-        }
-        
-        tableModel.setRowCount(0);
-        List<Customer> customers = customerService.searchCustomers(keyword);
-        
-        for (Customer c : customers) {
-            tableModel.addRow(new Object[]{
-                c.getId(),
-                c.getFullName(),
-                c.getPhone(),
-                c.getTier(),
-                c.getLoyaltyPoints(),
-                currencyFormat.format(c.getTotalSpent()),
-                c.getVisitCount(),
-                c.getId()
-            });
-        }
-        
-        totalLabel.setText("Tìm thấy: " + customers.size() + " khách hàng");
+        tableModel.setFilter(keyword.isEmpty() ? null : keyword);
     }
     
     private void showCustomerDialog(Customer customer) {
@@ -368,6 +352,12 @@ public class CustomerPanel extends JPanel {
                 boolean isSelected, boolean hasFocus, int row, int column) {
             
             CustomerTier tier = (CustomerTier) value;
+            if (tier == null) {
+                // Row still loading
+                setText("");
+                setOpaque(false);
+                return this;
+            }
             setText(tier.getDisplayName());
             setHorizontalAlignment(CENTER);
             setOpaque(true);
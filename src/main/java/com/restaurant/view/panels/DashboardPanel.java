@@ -3,7 +3,11 @@ package com.restaurant.view.panels;
 import com.formdev.flatlaf.FlatClientProperties;
 import com.restaurant.config.AppConfig;
 import com.restaurant.model.User;
+import com.restaurant.service.LiveStatsService;
+import com.restaurant.service.LiveStatsService.LiveStats;
+import com.restaurant.service.LiveStatsService.LowStockItem;
 import com.restaurant.service.TableService;
+import com.restaurant.util.RefreshScheduler;
 import com.restaurant.util.ToastNotification;
 import net.miginfocom.swing.MigLayout;
 import org.apache.logging.log4j.LogManager;
@@ -17,10 +21,9 @@ import java.awt.geom.RoundRectangle2D;
 import java.text.NumberFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Locale;
 import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.function.Consumer;
 
 /**
@@ -31,7 +34,8 @@ import java.util.function.Consumer;
  * - Mini revenue chart
  * - Loading skeleton animation
  * - Clickable stats cards
- * - Auto-refresh mỗi 30 giây
+ * - Doanh thu / đơn trong bếp / cảnh báo kho cập nhật trực tiếp từ LiveStatsService
+ * - Auto-refresh trạng thái bàn mỗi 30 giây
  */
 public class DashboardPanel extends JPanel {
     
@@ -51,9 +55,13 @@ public class DashboardPanel extends JPanel {
     private final User currentUser;
     private final NumberFormat currencyFormat;
     private final TableService tableService;
+    private final LiveStatsService liveStats;
+    private final Consumer<LiveStats> liveListener = stats -> SwingUtilities.invokeLater(() -> renderLive(stats));
     
     // Stats components (for updating)
     private JLabel revenueValue;
+    private JLabel revenueDetail;
+    private JLabel ticketTimeLabel;
     private JLabel tablesValue;
     private JLabel ordersValue;
     private JLabel alertsValue;
@@ -61,12 +69,9 @@ public class DashboardPanel extends JPanel {
     private JPanel recentOrdersTable;
     private JPanel alertsContainer;
     
-    // Loading state
-    private boolean isLoading = true;
-    private Timer pulseTimer;
-    
-    // Auto-refresh timer
-    private Timer refreshTimer;
+    // Auto-refresh and the live indicator's pulse, both on the shared scheduler
+    private RefreshScheduler.Registration autoRefresh;
+    private RefreshScheduler.Registration pulseAnimation;
     
     // Navigation callback
     private Consumer<String> onNavigate;
@@ -78,9 +83,16 @@ public class DashboardPanel extends JPanel {
         this.currentUser = user;
         this.currencyFormat = NumberFormat.getCurrencyInstance(new Locale("vi", "VN"));
         this.tableService = TableService.getInstance();
+        this.liveStats = LiveStatsService.getInstance();
         
         initializeUI();
-        startLoadingAnimation();
+        
+        liveStats.addListener(liveListener);
+        liveStats.start();
+        if (liveStats.getSnapshot() != null) {
+            renderLive(liveStats.getSnapshot());
+        }
+        
         loadDashboardData();
         startAutoRefresh();
     }
@@ -165,10 +177,10 @@ public class DashboardPanel extends JPanel {
         JPanel badge = new JPanel(new MigLayout("insets 4 8", "[]", ""));
         badge.setBackground(new Color(SUCCESS.getRed(), SUCCESS.getGreen(), SUCCESS.getBlue(), 40));
         badge.putClientProperty(FlatClientProperties.STYLE, "arc: 12");
-        JLabel comparison = new JLabel("📈 +15% so với hôm qua");
-        comparison.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 11));
-        comparison.setForeground(SUCCESS);
-        badge.add(comparison);
+        revenueDetail = new JLabel("-- đơn · -- khách");
+        revenueDetail.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 11));
+        revenueDetail.setForeground(SUCCESS);
+        badge.add(revenueDetail);
         card.add(badge, "center, gaptop 8");
         
         // Mini chart
@@ -266,6 +278,11 @@ public class DashboardPanel extends JPanel {
         label.setForeground(TEXT_SECONDARY);
         card.add(label, "center");
         
+        ticketTimeLabel = new JLabel(" ");
+        ticketTimeLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.PLAIN, 11));
+        ticketTimeLabel.setForeground(TEXT_SECONDARY);
+        card.add(ticketTimeLabel, "center");
+        
         // Pulsing dot indicator
         JPanel indicator = new JPanel() {
             private float alpha = 1.0f;
@@ -273,15 +290,11 @@ public class DashboardPanel extends JPanel {
                 setOpaque(false);
                 setPreferredSize(new Dimension(12, 12));
                 
-                // Pulse animation
-                Timer pulseTimer = new Timer();
-                pulseTimer.scheduleAtFixedRate(new TimerTask() {
-                    @Override
-                    public void run() {
-                        alpha = alpha > 0.3f ? alpha - 0.1f : 1.0f;
-                        repaint();
-                    }
-                }, 0, 100);
+                // Pulse animation (paused while the dashboard is hidden)
+                pulseAnimation = RefreshScheduler.getInstance().animate(this, 100, () -> {
+                    alpha = alpha > 0.3f ? alpha - 0.1f : 1.0f;
+                    repaint();
+                });
             }
             
             @Override
@@ -536,68 +549,16 @@ public class DashboardPanel extends JPanel {
         return card;
     }
     
-    /**
-     * Start loading skeleton animation
-     */
-    private void startLoadingAnimation() {
-        isLoading = true;
-        pulseTimer = new Timer();
-        pulseTimer.scheduleAtFixedRate(new TimerTask() {
-            private float alpha = 0.5f;
-            private boolean increasing = true;
-            
-            @Override
-            public void run() {
-                if (!isLoading) {
-                    pulseTimer.cancel();
-                    return;
-                }
-                
-                if (increasing) {
-                    alpha += 0.05f;
-                    if (alpha >= 1.0f) increasing = false;
-                } else {
-                    alpha -= 0.05f;
-                    if (alpha <= 0.5f) increasing = true;
-                }
-                
-                // Update loading labels opacity would go here
-                // For simplicity, we just show loading text
-            }
-        }, 0, 50);
-    }
-    
     private void loadDashboardData() {
         SwingWorker<DashboardStats, Void> worker = new SwingWorker<>() {
             @Override
             protected DashboardStats doInBackground() {
-                DashboardStats stats = new DashboardStats();
-                
-                try {
-                    // Simulate network delay for demo
-                    Thread.sleep(500);
-                    
-                    // Load table stats from database
-                    TableService.TableStats tableStats = tableService.getStats();
-                    stats.occupiedTables = tableStats.occupied();
-                    stats.totalTables = tableStats.total();
-                    
-                    // TODO: Load from OrderDAO when implemented
-                    stats.todayRevenue = 12500000;
-                    stats.pendingOrders = Math.max(1, stats.occupiedTables);
-                    stats.lowStockItems = 2;
-                    
-                } catch (Exception e) {
-                    logger.error("Error loading dashboard stats", e);
-                }
-                
-                return stats;
+                return loadStats();
             }
             
             @Override
             protected void done() {
                 try {
-                    isLoading = false;
                     DashboardStats stats = get();
                     updateUI(stats);
                 } catch (Exception e) {
@@ -608,26 +569,30 @@ public class DashboardPanel extends JPanel {
         worker.execute();
     }
     
+    private DashboardStats loadStats() {
+        DashboardStats stats = new DashboardStats();
+        
+        try {
+            // Revenue, orders and alerts come from LiveStatsService; only tables are read here
+            TableService.TableStats tableStats = tableService.getStats();
+            stats.occupiedTables = tableStats.occupied();
+            stats.totalTables = tableStats.total();
+            
+        } catch (Exception e) {
+            logger.error("Error loading dashboard stats", e);
+        }
+        
+        return stats;
+    }
+    
     private void updateUI(DashboardStats stats) {
         SwingUtilities.invokeLater(() -> {
-            // Animate revenue value
-            animateValue(revenueValue, currencyFormat.format(stats.todayRevenue));
-            
             // Update tables with progress
             tablesValue.setText(stats.occupiedTables + "/" + stats.totalTables);
             
-            // Update orders
-            ordersValue.setText(String.valueOf(stats.pendingOrders));
-            
-            // Update alerts
-            alertsValue.setText(String.valueOf(stats.lowStockItems));
-            
             // Update recent orders table
             updateRecentOrders();
             
-            // Update alerts list
-            updateAlertsList();
-            
             // Refresh chart
             if (revenueChartPanel != null) {
                 revenueChartPanel.repaint();
@@ -639,6 +604,22 @@ public class DashboardPanel extends JPanel {
         logger.info("Dashboard data loaded");
     }
     
+    /**
+     * Apply a live snapshot (EDT)
+     */
+    private void renderLive(LiveStats stats) {
+        animateValue(revenueValue, currencyFormat.format(stats.revenue()));
+        revenueDetail.setText(stats.completedOrders() + " đơn · " + stats.covers() + " khách");
+        
+        ordersValue.setText(String.valueOf(stats.openTickets()));
+        ticketTimeLabel.setText(stats.avgTicketMinutes() > 0
+            ? String.format("TB %.0f phút / đơn", stats.avgTicketMinutes())
+            : " ");
+        
+        alertsValue.setText(String.valueOf(stats.lowStockCount()));
+        updateAlertsList(stats.lowStockItems());
+    }
+    
     /**
      * Simple text animation effect
      */
@@ -662,41 +643,40 @@ public class DashboardPanel extends JPanel {
         recentOrdersTable.repaint();
     }
     
-    private void updateAlertsList() {
+    private void updateAlertsList(List<LowStockItem> items) {
         alertsContainer.removeAll();
         
-        // TODO: Load from IngredientDAO when implemented
-        addAlertItem(alertsContainer, "Cà phê hạt", "Còn 500g");
-        addAlertItem(alertsContainer, "Sữa tươi", "Còn 2L");
+        items.stream().limit(3).forEach(item -> addAlertItem(alertsContainer, item.name(),
+            "Còn " + formatQuantity(item.quantity()) + " " + (item.unit() != null ? item.unit() : "")));
         
         alertsContainer.revalidate();
         alertsContainer.repaint();
     }
     
+    private String formatQuantity(double quantity) {
+        return quantity == Math.rint(quantity) ? String.valueOf((long) quantity) : String.format("%.1f", quantity);
+    }
+    
     /**
-     * Start auto-refresh timer (every 30 seconds)
+     * Start auto-refresh (every 30 seconds while visible)
      */
     private void startAutoRefresh() {
-        refreshTimer = new Timer();
-        refreshTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                loadDashboardData();
-            }
-        }, 30000, 30000);
+        autoRefresh = RefreshScheduler.getInstance().register(this, "dashboard", 30_000,
+            () -> updateUI(loadStats()));
     }
     
     /**
      * Stop auto-refresh timer
      */
     public void stopAutoRefresh() {
-        if (refreshTimer != null) {
-            refreshTimer.cancel();
-            refreshTimer = null;
+        liveStats.removeListener(liveListener);
+        if (autoRefresh != null) {
+            autoRefresh.cancel();
+            autoRefresh = null;
         }
-        if (pulseTimer != null) {
-            pulseTimer.cancel();
-            pulseTimer = null;
+        if (pulseAnimation != null) {
+            pulseAnimation.cancel();
+            pulseAnimation = null;
         }
     }
     
@@ -704,6 +684,7 @@ public class DashboardPanel extends JPanel {
      * Manual refresh
      */
     public void refresh() {
+        liveStats.reconcileNow();
         loadDashboardData();
         ToastNotification.info(SwingUtilities.getWindowAncestor(this), "Đã làm mới dữ liệu");
     }
@@ -716,10 +697,7 @@ public class DashboardPanel extends JPanel {
      * Stats holder class
      */
     private static class DashboardStats {
-        long todayRevenue = 0;
         int occupiedTables = 0;
         int totalTables = 0;
-        int pendingOrders = 0;
-        int lowStockItems = 0;
     }
 }
@@ -3,7 +3,10 @@ package com.restaurant.view.panels;
 import com.formdev.flatlaf.FlatClientProperties;
 import com.restaurant.config.AppConfig;
 import com.restaurant.model.User;
+import com.restaurant.service.InventoryService;
+import com.restaurant.service.InventoryService.StockMovement;
 import com.restaurant.util.ToastNotification;
+import com.restaurant.view.components.LazyTableModel;
 import net.miginfocom.swing.MigLayout;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,7 +15,6 @@ import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
@@ -42,14 +44,14 @@ public class InventoryPanel extends JPanel {
     private static final Color ERROR_COLOR = Color.decode(AppConfig.Colors.ERROR);
     
     private final User currentUser;
+    private final DateTimeFormatter transactionTimeFormat = DateTimeFormatter.ofPattern("dd/MM HH:mm");
     private final List<InventoryItem> items = new ArrayList<>();
-    private final List<StockTransaction> transactions = new ArrayList<>();
     
     private JTabbedPane tabbedPane;
     private JTable inventoryTable;
     private DefaultTableModel inventoryModel;
     private JTable transactionTable;
-    private DefaultTableModel transactionModel;
+    private LazyTableModel<StockMovement> transactionModel;
     private JTextField searchField;
     
     public InventoryPanel(User user) {
@@ -183,8 +185,13 @@ public class InventoryPanel extends JPanel {
         JPanel toolbar = new JPanel(new MigLayout("insets 0", "[]8[]push[]", ""));
         toolbar.setOpaque(false);
         
-        JComboBox<String> typeFilter = new JComboBox<>(new String[]{"Tất cả", "Nhập kho", "Xuất kho", "Điều chỉnh"});
+        JComboBox<String> typeFilter = new JComboBox<>(new String[]{"Tất cả", "Nhập kho", "Xuất kho", "Điều chỉnh", "Bán hàng"});
         typeFilter.putClientProperty(FlatClientProperties.STYLE, "arc: 8");
+        typeFilter.addActionListener(e -> {
+            // Filtered server-side, same order as the combo items
+            String[] types = {null, "IN", "OUT", "ADJUSTMENT", "SALE"};
+            transactionModel.setFilter(types[typeFilter.getSelectedIndex()]);
+        });
         toolbar.add(new JLabel("Loại:"));
         toolbar.add(typeFilter);
         
@@ -196,9 +203,20 @@ public class InventoryPanel extends JPanel {
         
         // Transaction table
         String[] columns = {"ID", "Thời gian", "Loại", "Nguyên liệu", "Số lượng", "Ghi chú", "Người thực hiện"};
-        transactionModel = new DefaultTableModel(columns, 0);
+        transactionModel = new LazyTableModel<>(columns, InventoryService.getInstance().getStockMovementPages(),
+            t -> new Object[]{
+                t.id(),
+                t.createdAt() != null ? t.createdAt().format(transactionTimeFormat) : "",
+                typeLabel(t.type()),
+                t.ingredientName(),
+                (t.quantity().signum() > 0 ? "+" : "") + String.format("%.1f", t.quantity()) + " " + t.unit(),
+                t.note() != null ? t.note() : "",
+                t.username() != null ? t.username() : ""
+            });
         
         transactionTable = new JTable(transactionModel);
+        // Pages of 200 are fetched as the user scrolls; quantity sorts server-side
+        transactionModel.installSortHeader(transactionTable, null, null, null, null, "quantity", null, null);
         transactionTable.setRowHeight(40);
         transactionTable.setFont(new Font(AppConfig.FONT_FAMILY, Font.PLAIN, 13));
         transactionTable.getTableHeader().setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 13));
@@ -217,7 +235,7 @@ public class InventoryPanel extends JPanel {
                 String type = (String) value;
                 if ("Nhập kho".equals(type)) {
                     setForeground(SUCCESS_COLOR);
-                } else if ("Xuất kho".equals(type)) {
+                } else if ("Xuất kho".equals(type) || "Bán hàng".equals(type)) {
                     setForeground(ERROR_COLOR);
                 } else {
                     setForeground(WARNING_COLOR);
@@ -258,20 +276,16 @@ public class InventoryPanel extends JPanel {
     }
     
     private void loadTransactions() {
-        transactions.clear();
-        
-        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        
-        transactions.add(new StockTransaction(1, LocalDateTime.now().minusHours(2), "Nhập kho", 
-            "Cà phê hạt rang", 3.0, "Nhập từ NCC ABC", "admin"));
-        transactions.add(new StockTransaction(2, LocalDateTime.now().minusHours(5), "Xuất kho",
-            "Sữa tươi", -5.0, "Sử dụng trong ngày", "chef1"));
-        transactions.add(new StockTransaction(3, LocalDateTime.now().minusDays(1), "Nhập kho",
-            "Trứng gà", 100, "Nhập hàng tuần", "admin"));
-        transactions.add(new StockTransaction(4, LocalDateTime.now().minusDays(1), "Điều chỉnh",
-            "Bột mì", -2.0, "Hao hụt", "admin"));
-        
-        refreshTransactionTable();
+        transactionModel.reload();
+    }
+    
+    private static String typeLabel(String type) {
+        return switch (type) {
+            case "IN" -> "Nhập kho";
+            case "OUT" -> "Xuất kho";
+            case "SALE" -> "Bán hàng";
+            default -> "Điều chỉnh";
+        };
     }
     
     private void refreshInventoryTable() {
@@ -290,23 +304,6 @@ public class InventoryPanel extends JPanel {
         }
     }
     
-    private void refreshTransactionTable() {
-        transactionModel.setRowCount(0);
-        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM HH:mm");
-        
-        for (StockTransaction t : transactions) {
-            transactionModel.addRow(new Object[]{
-                t.id,
-                t.timestamp.format(fmt),
-                t.type,
-                t.itemName,
-                (t.quantity > 0 ? "+" : "") + String.format("%.1f", t.quantity),
-                t.note,
-                t.user
-            });
-        }
-    }
-    
     private void filterInventory() {
         String search = searchField.getText().toLowerCase().trim();
         inventoryModel.setRowCount(0);
@@ -422,18 +419,7 @@ public class InventoryPanel extends JPanel {
                 
                 item.quantity += qty;
                 
-                transactions.add(0, new StockTransaction(
-                    transactions.size() + 1,
-                    LocalDateTime.now(),
-                    "Nhập kho",
-                    item.name,
-                    qty,
-                    noteField.getText(),
-                    currentUser.getUsername()
-                ));
-                
                 refreshInventoryTable();
-                refreshTransactionTable();
                 ToastNotification.success(SwingUtilities.getWindowAncestor(this), 
                     "Đã nhập " + qty + " " + item.unit + " " + item.name);
             } catch (NumberFormatException e) {
@@ -487,21 +473,7 @@ public class InventoryPanel extends JPanel {
                 
                 item.quantity -= qty;
                 
-                String note = reasonCombo.getSelectedItem() + 
-                    (noteField.getText().isEmpty() ? "" : " - " + noteField.getText());
-                
-                transactions.add(0, new StockTransaction(
-                    transactions.size() + 1,
-                    LocalDateTime.now(),
-                    "Xuất kho",
-                    item.name,
-                    -qty,
-                    note,
-                    currentUser.getUsername()
-                ));
-                
                 refreshInventoryTable();
-                refreshTransactionTable();
                 ToastNotification.success(SwingUtilities.getWindowAncestor(this), 
                     "Đã xuất " + qty + " " + item.unit + " " + item.name);
             } catch (NumberFormatException e) {
@@ -594,25 +566,4 @@ public class InventoryPanel extends JPanel {
             return name + " (" + quantity + " " + unit + ")";
         }
     }
-    
-    private static class StockTransaction {
-        int id;
-        LocalDateTime timestamp;
-        String type;
-        String itemName;
-        double quantity;
-        String note;
-        String user;
-        
-        StockTransaction(int id, LocalDateTime timestamp, String type, String itemName, 
-                        double quantity, String note, String user) {
-            this.id = id;
-            this.timestamp = timestamp;
-            this.type = type;
-            this.itemName = itemName;
-            this.quantity = quantity;
-            this.note = note;
-            this.user = user;
-        }
-    }
 }
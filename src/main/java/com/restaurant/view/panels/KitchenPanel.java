@@ -10,6 +10,7 @@ import com.restaurant.util.KitchenOrderManager;
 import com.restaurant.util.KitchenOrderManager.KitchenOrder;
 import com.restaurant.util.KitchenOrderManager.OrderItem;
 import com.restaurant.util.KitchenOrderManager.OrderStatus;
+import com.restaurant.util.RefreshScheduler;
 import com.restaurant.util.ToastNotification;
 import com.restaurant.service.NotificationService;
 import com.restaurant.view.dialogs.CookingGameDialog;
@@ -21,10 +22,13 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Kitchen Display System (KDS) - Professional Kanban-style Layout
@@ -35,7 +39,7 @@ import java.util.function.Consumer;
  * - Color-coded urgency (green → yellow → red)
  * - Per-item completion checkboxes
  * - Full-screen mode for wall TVs
- * - Auto-refresh every 5 seconds
+ * - Auto-refresh every 10 seconds while visible
  */
 public class KitchenPanel extends JPanel {
     
@@ -61,6 +65,9 @@ public class KitchenPanel extends JPanel {
     private static final Font FONT_BODY = new Font("Segoe UI", Font.PLAIN, 12);
     private static final Font FONT_TIMER = new Font("Segoe UI", Font.BOLD, 16);
     
+    /** Elapsed-time labels show whole minutes; a 15 s tick keeps them at most 15 s late */
+    private static final int ELAPSED_TICK_MS = 15_000;
+    
     private final User currentUser;
     private final KitchenOrderManager orderManager;
     private final IOrderDAO orderDAO = new OrderDAOImpl();
@@ -72,8 +79,13 @@ public class KitchenPanel extends JPanel {
     private JPanel readyColumn;
     private JLabel statsLabel;
     private JLabel avgTimeLabel;
-    private Timer refreshTimer;
+    private RefreshScheduler.Registration autoRefresh;
     private Consumer<List<KitchenOrder>> orderListener;
+    private RefreshScheduler.Registration elapsedTicker;
+    
+    // Ticket cards pooled by order id, empty-state panels per column
+    private final Map<Integer, OrderCard> cardPool = new HashMap<>();
+    private final Map<JPanel, JPanel> emptyStates = new HashMap<>();
     
     // Counters for each column
     private int waitingCount = 0;
@@ -90,6 +102,7 @@ public class KitchenPanel extends JPanel {
         orders = orderManager.getPendingOrders();
         refreshColumns();
         startAutoRefresh();
+        startElapsedTicker();
     }
     
     private void initializeUI() {
@@ -226,11 +239,14 @@ public class KitchenPanel extends JPanel {
     private void setupOrderListener() {
         orderListener = updatedOrders -> {
             SwingUtilities.invokeLater(() -> {
+                // Beep for new orders (not for status changes made from this panel)
+                Set<Integer> known = orders.stream().map(KitchenOrder::getId).collect(Collectors.toSet());
+                boolean hasNew = updatedOrders.stream().anyMatch(o -> !known.contains(o.getId()));
+                
                 this.orders = new ArrayList<>(updatedOrders);
                 refreshColumns();
                 
-                // Beep for new orders
-                if (!orders.isEmpty()) {
+                if (hasNew) {
                     Toolkit.getDefaultToolkit().beep();
                 }
             });
@@ -243,48 +259,22 @@ public class KitchenPanel extends JPanel {
         refreshColumns();
     }
     
+    /**
+     * Reconcile the three columns with {@code orders}
+     *
+     * Cards are pooled by order id: a card is rebuilt only when its status or items
+     * changed, and a column is re-laid out only when its card list changed. The column
+     * panels are never replaced, so scroll positions stay where the cook left them.
+     */
     private void refreshColumns() {
-        // Safely get scroll positions (may be null on first call)
-        int waitingScrollPos = 0, cookingScrollPos = 0, readyScrollPos = 0;
-        JScrollPane waitingScroll = null, cookingScroll = null, readyScroll = null;
-        
-        try {
-            if (waitingColumn != null && waitingColumn.getParent() != null) {
-                Container parent = waitingColumn.getParent().getParent();
-                if (parent instanceof JScrollPane sp) {
-                    waitingScroll = sp;
-                    waitingScrollPos = sp.getVerticalScrollBar().getValue();
-                }
-            }
-            if (cookingColumn != null && cookingColumn.getParent() != null) {
-                Container parent = cookingColumn.getParent().getParent();
-                if (parent instanceof JScrollPane sp) {
-                    cookingScroll = sp;
-                    cookingScrollPos = sp.getVerticalScrollBar().getValue();
-                }
-            }
-            if (readyColumn != null && readyColumn.getParent() != null) {
-                Container parent = readyColumn.getParent().getParent();
-                if (parent instanceof JScrollPane sp) {
-                    readyScroll = sp;
-                    readyScrollPos = sp.getVerticalScrollBar().getValue();
-                }
-            }
-        } catch (Exception e) {
-            // Ignore - first call before UI fully initialized
-        }
-        
         if (waitingColumn == null || cookingColumn == null || readyColumn == null) {
             return; // UI not ready yet
         }
         
-        waitingColumn.removeAll();
-        cookingColumn.removeAll();
-        readyColumn.removeAll();
-        
-        waitingCount = 0;
-        cookingCount = 0;
-        readyCount = 0;
+        List<Component> waiting = new ArrayList<>();
+        List<Component> cooking = new ArrayList<>();
+        List<Component> ready = new ArrayList<>();
+        Set<Integer> liveIds = new HashSet<>();
         
         long totalTime = 0;
         int orderCount = 0;
@@ -296,30 +286,27 @@ public class KitchenPanel extends JPanel {
             for (KitchenOrder order : orders) {
                 totalTime += order.getMinutesElapsed();
                 orderCount++;
+                liveIds.add(order.getId());
                 
-                JPanel card = createOrderCard(order);
+                OrderCard card = cardPool.computeIfAbsent(order.getId(), id -> new OrderCard());
+                card.bind(order);
                 
                 switch (order.getStatus()) {
-                    case WAITING -> {
-                        waitingColumn.add(card, "growx");
-                        waitingCount++;
-                    }
-                    case PREPARING -> {
-                        cookingColumn.add(card, "growx");
-                        cookingCount++;
-                    }
-                    case READY -> {
-                        readyColumn.add(card, "growx");
-                        readyCount++;
-                    }
+                    case WAITING -> waiting.add(card);
+                    case PREPARING -> cooking.add(card);
+                    case READY -> ready.add(card);
                 }
             }
         }
+        cardPool.keySet().retainAll(liveIds);
         
-        // Add empty state if no cards
-        if (waitingCount == 0) addEmptyState(waitingColumn, "Không có đơn chờ");
-        if (cookingCount == 0) addEmptyState(cookingColumn, "Không có đơn đang nấu");
-        if (readyCount == 0) addEmptyState(readyColumn, "Không có đơn sẵn sàng");
+        waitingCount = waiting.size();
+        cookingCount = cooking.size();
+        readyCount = ready.size();
+        
+        reconcileColumn(waitingColumn, waiting, "Không có đơn chờ");
+        reconcileColumn(cookingColumn, cooking, "Không có đơn đang nấu");
+        reconcileColumn(readyColumn, ready, "Không có đơn sẵn sàng");
         
         // Update column counts safely
         try {
@@ -338,27 +325,26 @@ public class KitchenPanel extends JPanel {
         if (avgTimeLabel != null) {
             avgTimeLabel.setText("~ " + (orderCount > 0 ? (totalTime / orderCount) : 0) + " phút/đơn");
         }
+    }
+    
+    /**
+     * Make a column show exactly {@code cards} (in order); untouched if already so
+     */
+    private void reconcileColumn(JPanel column, List<Component> cards, String emptyMessage) {
+        List<Component> desired = cards.isEmpty()
+            ? List.of(emptyStates.computeIfAbsent(column, c -> createEmptyState(emptyMessage)))
+            : cards;
+        
+        if (List.of(column.getComponents()).equals(desired)) {
+            return;
+        }
         
-        waitingColumn.revalidate();
-        waitingColumn.repaint();
-        cookingColumn.revalidate();
-        cookingColumn.repaint();
-        readyColumn.revalidate();
-        readyColumn.repaint();
-        
-        // Restore scroll positions after repaint
-        final JScrollPane ws = waitingScroll;
-        final JScrollPane cs = cookingScroll;
-        final JScrollPane rs = readyScroll;
-        final int wsp = waitingScrollPos;
-        final int csp = cookingScrollPos;
-        final int rsp = readyScrollPos;
-        
-        SwingUtilities.invokeLater(() -> {
-            if (ws != null) ws.getVerticalScrollBar().setValue(wsp);
-            if (cs != null) cs.getVerticalScrollBar().setValue(csp);
-            if (rs != null) rs.getVerticalScrollBar().setValue(rsp);
-        });
+        column.removeAll();
+        for (Component c : desired) {
+            column.add(c, "growx");
+        }
+        column.revalidate();
+        column.repaint();
     }
     
     private void updateColumnCount(Container column, int count) {
@@ -375,7 +361,7 @@ public class KitchenPanel extends JPanel {
         }
     }
     
-    private void addEmptyState(JPanel column, String message) {
+    private JPanel createEmptyState(String message) {
         JPanel empty = new JPanel(new MigLayout("wrap, insets 24", "[center]", "[center]"));
         empty.setOpaque(false);
         
@@ -389,165 +375,208 @@ public class KitchenPanel extends JPanel {
         text.setForeground(TEXT_MUTED);
         empty.add(text);
         
-        column.add(empty, "growx");
+        return empty;
     }
     
-    private JPanel createOrderCard(KitchenOrder order) {
-        long minutes = order.getMinutesElapsed();
-        boolean isUrgent = minutes > 15;
-        Color accentColor = isUrgent ? STATUS_URGENT : getStatusColor(order.getStatus());
-        boolean isViewOnly = !currentUser.getRole().canAccessKitchen(); // Allow Chef, Admin, Manager to act
-        
-        JPanel card = new JPanel(new MigLayout("wrap, insets 8, gap 4", "[grow]", "")) {
-            @Override
-            protected void paintComponent(Graphics g) {
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                
-                // Background
-                g2d.setColor(CARD_BG);
+    /**
+     * Shared ticker: refresh elapsed-time labels (and urgency) of all pooled cards, paused while hidden
+     */
+    private void startElapsedTicker() {
+        elapsedTicker = RefreshScheduler.getInstance().animate(this, ELAPSED_TICK_MS, () -> {
+            for (OrderCard card : cardPool.values()) {
+                card.updateElapsed();
+            }
+        });
+    }
+    
+    /**
+     * OrderCard - Thẻ đơn bếp, tái sử dụng theo order id
+     */
+    private class OrderCard extends JPanel {
+        private final boolean isViewOnly = !currentUser.getRole().canAccessKitchen(); // Allow Chef, Admin, Manager to act
+        private final JLabel tableLabel = new JLabel();
+        private final JLabel timerLabel = new JLabel();
+        private KitchenOrder order;
+        /** Status + items as last rendered; content is rebuilt only when this changes */
+        private String signature;
+        private long minutes = -1;
+        private boolean isUrgent;
+        private Color accentColor = COL_WAITING;
+        
+        OrderCard() {
+            super(new MigLayout("wrap, insets 8, gap 4", "[grow]", ""));
+            setOpaque(false);
+            tableLabel.setFont(FONT_CARD_TITLE);
+            tableLabel.setForeground(TEXT_WHITE);
+            timerLabel.setFont(FONT_TIMER);
+        }
+        
+        void bind(KitchenOrder o) {
+            this.order = o; // Reloads create new instances; actions always use the latest
+            
+            StringBuilder sb = new StringBuilder().append(o.getStatus()).append('|').append(o.getTableName())
+                .append('|').append(o.getOrderCode());
+            for (OrderItem item : o.getItems()) {
+                sb.append('|').append(item.getQuantity()).append('x').append(item.getName())
+                    .append(item.isReady() ? "+" : "-").append(item.getCurrentStep() > 0 ? "c" : "");
+            }
+            String sig = sb.toString();
+            
+            if (!sig.equals(signature)) {
+                signature = sig;
+                rebuild();
+            }
+            updateElapsed();
+        }
+        
+        void updateElapsed() {
+            long m = order.getMinutesElapsed();
+            if (m == minutes) return;
+            minutes = m;
+            
+            String timeStr = m < 60 ? m + "'" : (m / 60) + "h" + (m % 60) + "'";
+            timerLabel.setText("⏱ " + timeStr);
+            boolean urgent = m > 15;
+            timerLabel.setForeground(urgent ? STATUS_URGENT : (m > 10 ? COL_WAITING : TEXT_MUTED));
+            
+            if (urgent != isUrgent) {
+                isUrgent = urgent;
+                accentColor = isUrgent ? STATUS_URGENT : getStatusColor(order.getStatus());
+                repaint();
+            }
+        }
+        
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2d = (Graphics2D) g.create();
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            
+            // Background
+            g2d.setColor(CARD_BG);
+            g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 8, 8);
+            
+            // Left accent bar
+            g2d.setColor(accentColor);
+            g2d.fillRoundRect(0, 0, 4, getHeight(), 8, 8);
+            g2d.fillRect(2, 0, 2, getHeight());
+            
+            // Urgent glow effect
+            if (isUrgent) {
+                g2d.setColor(new Color(239, 68, 68, 30));
                 g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 8, 8);
-                
-                // Left accent bar
-                g2d.setColor(accentColor);
-                g2d.fillRoundRect(0, 0, 4, getHeight(), 8, 8);
-                g2d.fillRect(2, 0, 2, getHeight());
-                
-                // Urgent glow effect
-                if (isUrgent) {
-                    g2d.setColor(new Color(239, 68, 68, 30));
-                    g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 8, 8);
-                }
-                
-                g2d.dispose();
             }
-        };
-        card.setOpaque(false);
-        
-        // Header row: Table name + Timer
-        JPanel headerRow = new JPanel(new MigLayout("insets 0", "[]push[]", "[center]"));
-        headerRow.setOpaque(false);
-        
-        JLabel tableLabel = new JLabel(order.getTableName());
-        tableLabel.setFont(FONT_CARD_TITLE);
-        tableLabel.setForeground(TEXT_WHITE);
-        headerRow.add(tableLabel);
-        
-        // Timer with icon
-        String timeStr = minutes < 60 ? minutes + "'" : (minutes/60) + "h" + (minutes%60) + "'";
-        JLabel timerLabel = new JLabel("⏱ " + timeStr);
-        timerLabel.setFont(FONT_TIMER);
-        timerLabel.setForeground(isUrgent ? STATUS_URGENT : (minutes > 10 ? COL_WAITING : TEXT_MUTED));
-        headerRow.add(timerLabel);
-        
-        card.add(headerRow, "growx");
-        
-        // Order code
-        JLabel codeLabel = new JLabel(order.getOrderCode());
-        codeLabel.setFont(FONT_BODY);
-        codeLabel.setForeground(TEXT_MUTED);
-        card.add(codeLabel);
-        
-        // Divider
-        JSeparator sep = new JSeparator();
-        sep.setForeground(new Color(255,255,255,30));
-        card.add(sep, "growx, gaptop 2, gapbottom 2");
-        
-        // Items list with checkboxes
-        JPanel itemsPanel = new JPanel(new MigLayout("wrap, insets 0, gap 2", "[grow]", ""));
-        itemsPanel.setOpaque(false);
-        
-        // Track checkboxes for item completion
-        List<JCheckBox> itemCheckboxes = new ArrayList<>();
-        List<KitchenOrderManager.OrderItem> orderItems = order.getItems();
-        
-        for (int i = 0; i < orderItems.size(); i++) {
-            KitchenOrderManager.OrderItem item = orderItems.get(i);
-            boolean isDone = item.isReady();
-            String displayText = item.getQuantity() + "x " + item.getName();
             
-            JPanel itemRow = new JPanel(new MigLayout("insets 0, gap 4", "[][grow]", ""));
-            itemRow.setOpaque(false);
+            g2d.dispose();
+        }
+        
+        private void rebuild() {
+            removeAll();
+            accentColor = isUrgent ? STATUS_URGENT : getStatusColor(order.getStatus());
             
-            JCheckBox check = new JCheckBox();
-            check.setSelected(isDone);
-            check.setOpaque(false);
-            check.setFocusPainted(false);
-            check.setEnabled(!isViewOnly); // Disable for view-only mode
-            check.setCursor(isViewOnly ? Cursor.getDefaultCursor() : Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+            // Header row: Table name + Timer
+            JPanel headerRow = new JPanel(new MigLayout("insets 0", "[]push[]", "[center]"));
+            headerRow.setOpaque(false);
+            tableLabel.setText(order.getTableName());
+            headerRow.add(tableLabel);
+            headerRow.add(timerLabel);
+            add(headerRow, "growx");
             
-            final int itemIndex = i;
-            final KitchenOrderManager.OrderItem currentItem = item;
-            check.addActionListener(e -> {
-                // Mark item as ready/not ready (in memory)
-                currentItem.setReady(check.isSelected());
-                // Also update currentStep to reflect status
-                if (check.isSelected()) {
-                    currentItem.setCurrentStep(3); // Completed
-                } else {
-                    currentItem.setCurrentStep(1); // Back to cooking
-                }
-                logger.debug("Item {} toggled: ready={}, step={}", currentItem.getName(), check.isSelected(), currentItem.getCurrentStep());
+            // Order code
+            JLabel codeLabel = new JLabel(order.getOrderCode());
+            codeLabel.setFont(FONT_BODY);
+            codeLabel.setForeground(TEXT_MUTED);
+            add(codeLabel);
+            
+            // Divider
+            JSeparator sep = new JSeparator();
+            sep.setForeground(new Color(255,255,255,30));
+            add(sep, "growx, gaptop 2, gapbottom 2");
+            
+            // Items list with checkboxes
+            JPanel itemsPanel = new JPanel(new MigLayout("wrap, insets 0, gap 2", "[grow]", ""));
+            itemsPanel.setOpaque(false);
+            
+            List<OrderItem> orderItems = order.getItems();
+            for (int i = 0; i < orderItems.size(); i++) {
+                OrderItem item = orderItems.get(i);
+                boolean isDone = item.isReady();
+                String displayText = item.getQuantity() + "x " + item.getName();
                 
-                // Persist to database
-                ItemStatus newStatus = check.isSelected() ? ItemStatus.READY : ItemStatus.COOKING;
-                if (currentItem.getOrderDetailId() > 0) {
-                    boolean success = orderDAO.updateOrderDetailStatus(currentItem.getOrderDetailId(), newStatus);
-                    logger.info("Updated DB: order_detail {} -> {} (success: {})", currentItem.getOrderDetailId(), newStatus, success);
-                }
+                JPanel itemRow = new JPanel(new MigLayout("insets 0, gap 4", "[][grow]", ""));
+                itemRow.setOpaque(false);
                 
-                // Re-determine order status based on all items
-                List<OrderItem> allItems = order.getItems();
-                boolean allReady = allItems.stream().allMatch(KitchenOrderManager.OrderItem::isReady);
-                boolean hasAnyCooking = allItems.stream().anyMatch(itm -> !itm.isReady() && itm.getCurrentStep() > 0);
+                JCheckBox check = new JCheckBox();
+                check.setSelected(isDone);
+                check.setOpaque(false);
+                check.setFocusPainted(false);
+                check.setEnabled(!isViewOnly); // Disable for view-only mode
+                check.setCursor(isViewOnly ? Cursor.getDefaultCursor() : Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
                 
-                if (allReady) {
-                    order.setStatus(OrderStatus.READY);
-                    refreshColumns();
-                    ToastNotification.success(SwingUtilities.getWindowAncestor(this), 
-                        "Tất cả món đã xong: " + order.getTableName());
-                    Toolkit.getDefaultToolkit().beep();
-                } else if (hasAnyCooking) {
-                    order.setStatus(OrderStatus.PREPARING);
-                    refreshColumns();
-                } else {
-                    refreshColumns();
+                final int itemIndex = i;
+                check.addActionListener(e -> toggleItem(itemIndex, check.isSelected()));
+                itemRow.add(check);
+                
+                JLabel itemLabel = new JLabel(displayText);
+                itemLabel.setFont(FONT_BODY);
+                itemLabel.setForeground(isDone ? TEXT_MUTED : TEXT_WHITE);
+                if (isDone) {
+                    itemLabel.setText("<html><s>" + displayText + "</s></html>");
                 }
-            });
-            itemCheckboxes.add(check);
-            itemRow.add(check);
-            
-            JLabel itemLabel = new JLabel(displayText);
-            itemLabel.setFont(FONT_BODY);
-            itemLabel.setForeground(isDone ? TEXT_MUTED : TEXT_WHITE);
-            if (isDone) {
-                itemLabel.setText("<html><s>" + displayText + "</s></html>");
+                
+                // Click to open cooking game
+                if (!isViewOnly && !isDone) {
+                    itemLabel.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+                    itemLabel.setToolTipText("🎮 Click để mở game nấu ăn");
+                    itemLabel.addMouseListener(new java.awt.event.MouseAdapter() {
+                        @Override
+                        public void mouseClicked(java.awt.event.MouseEvent e) {
+                            CookingGameDialog.showDialog(
+                                KitchenPanel.this, order, order.getItems().get(itemIndex), isViewOnly,
+                                () -> refreshColumns()
+                            );
+                        }
+                    });
+                }
+                itemRow.add(itemLabel, "growx");
+                
+                itemsPanel.add(itemRow, "growx");
             }
             
-            // Click to open cooking game
-            if (!isViewOnly && !isDone) {
-                itemLabel.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-                itemLabel.setToolTipText("🎮 Click để mở game nấu ăn");
-                final OrderItem clickedItem = item;
-                itemLabel.addMouseListener(new java.awt.event.MouseAdapter() {
-                    @Override
-                    public void mouseClicked(java.awt.event.MouseEvent e) {
-                        CookingGameDialog.showDialog(
-                            KitchenPanel.this, order, clickedItem, isViewOnly, 
-                            () -> refreshColumns()
-                        );
-                    }
-                });
+            add(itemsPanel, "growx");
+            
+            // Action buttons based on status - show for Chef, Admin, Manager
+            if (!isViewOnly) {
+                add(createActions(), "growx, gaptop 4");
             }
-            itemRow.add(itemLabel, "growx");
             
-            itemsPanel.add(itemRow, "growx");
+            revalidate();
+            repaint();
         }
         
-        card.add(itemsPanel, "growx");
+        private void toggleItem(int itemIndex, boolean selected) {
+            OrderItem currentItem = order.getItems().get(itemIndex);
+            // Mark item as ready/not ready (in memory); step 3 = Completed, 1 = Back to cooking
+            int step = selected ? 3 : 1;
+            KitchenOrder updated = orderManager.setItemProgress(order.getId(), itemIndex, selected, step);
+            logger.debug("Item {} toggled: ready={}, step={}", currentItem.getName(), selected, step);
+            
+            // Persist to database
+            ItemStatus newStatus = selected ? ItemStatus.READY : ItemStatus.COOKING;
+            if (currentItem.getOrderDetailId() > 0) {
+                boolean success = orderDAO.updateOrderDetailStatus(currentItem.getOrderDetailId(), newStatus);
+                logger.info("Updated DB: order_detail {} -> {} (success: {})", currentItem.getOrderDetailId(), newStatus, success);
+            }
+            
+            // The manager re-determined the order status from all items
+            loadOrders();
+            if (updated != null && updated.getStatus() == OrderStatus.READY) {
+                ToastNotification.success(SwingUtilities.getWindowAncestor(KitchenPanel.this), 
+                    "Tất cả món đã xong: " + order.getTableName());
+                Toolkit.getDefaultToolkit().beep();
+            }
+        }
         
-        // Action buttons based on status - show for Chef, Admin, Manager
-        if (!isViewOnly) {
+        private JPanel createActions() {
             JPanel actionsPanel = new JPanel(new MigLayout("insets 0, gap 4", "[grow][grow]", ""));
             actionsPanel.setOpaque(false);
             
@@ -555,15 +584,14 @@ public class KitchenPanel extends JPanel {
                 JButton startBtn = createActionButton("🔥 Bắt đầu", COL_COOKING);
                 startBtn.addActionListener(e -> {
                     // Mark all items as COOKING in DB and update currentStep
-                    for (OrderItem item : orderItems) {
-                        item.setCurrentStep(1); // Started cooking
+                    for (OrderItem item : order.getItems()) {
                         if (item.getOrderDetailId() > 0) {
                             orderDAO.updateOrderDetailStatus(item.getOrderDetailId(), ItemStatus.COOKING);
                         }
                     }
-                    order.setStatus(OrderStatus.PREPARING);
-                    refreshColumns();
-                    ToastNotification.info(SwingUtilities.getWindowAncestor(this), 
+                    orderManager.startCooking(order.getId());
+                    loadOrders();
+                    ToastNotification.info(SwingUtilities.getWindowAncestor(KitchenPanel.this), 
                         "Bắt đầu nấu: " + order.getTableName());
                 });
                 actionsPanel.add(startBtn, "grow, span 2, h 32!");
@@ -571,16 +599,14 @@ public class KitchenPanel extends JPanel {
                 JButton doneBtn = createActionButton("✅ Xong tất cả", COL_READY);
                 doneBtn.addActionListener(e -> {
                     // Mark all items as ready in memory AND DB
-                    for (OrderItem item : orderItems) {
-                        item.setReady(true);
-                        item.setCurrentStep(3); // Completed
+                    for (OrderItem item : order.getItems()) {
                         if (item.getOrderDetailId() > 0) {
                             orderDAO.updateOrderDetailStatus(item.getOrderDetailId(), ItemStatus.READY);
                         }
                     }
-                    order.setStatus(OrderStatus.READY);
-                    refreshColumns();
-                    ToastNotification.success(SwingUtilities.getWindowAncestor(this), 
+                    orderManager.markAllReady(order.getId());
+                    loadOrders();
+                    ToastNotification.success(SwingUtilities.getWindowAncestor(KitchenPanel.this), 
                         "Sẵn sàng: " + order.getTableName());
                     Toolkit.getDefaultToolkit().beep();
                 });
@@ -593,7 +619,7 @@ public class KitchenPanel extends JPanel {
                     NotificationService.getInstance().notifyWaiters(order.getTableName(), readyCount);
                     
                     Toolkit.getDefaultToolkit().beep();
-                    ToastNotification.info(SwingUtilities.getWindowAncestor(this), 
+                    ToastNotification.info(SwingUtilities.getWindowAncestor(KitchenPanel.this), 
                         "Đã gọi phục vụ: " + order.getTableName());
                 });
                 actionsPanel.add(ringBtn, "grow, h 32!");
@@ -601,15 +627,13 @@ public class KitchenPanel extends JPanel {
                 JButton clearBtn = createActionButton("✓ Đã lấy", CARD_BG);
                 clearBtn.addActionListener(e -> {
                     orderManager.completeOrder(order.getId());
-                    refreshColumns();
+                    loadOrders();
                 });
                 actionsPanel.add(clearBtn, "grow, h 32!");
             }
             
-            card.add(actionsPanel, "growx, gaptop 4");
+            return actionsPanel;
         }
-        
-        return card;
     }
     
     private JButton createActionButton(String text, Color bgColor) {
@@ -656,18 +680,10 @@ public class KitchenPanel extends JPanel {
     }
     
     private void startAutoRefresh() {
-        refreshTimer = new Timer();
-        refreshTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                SwingUtilities.invokeLater(() -> {
-                    // Load from database for real-time sync
-                    orderManager.loadFromDatabase();
-                    orders = orderManager.getPendingOrders();
-                    refreshColumns();
-                });
-            }
-        }, 5000, 10000); // Auto-refresh every 10 seconds
+        // Load from database for real-time sync every 10 seconds while visible;
+        // the order listener redraws the columns on the EDT
+        autoRefresh = RefreshScheduler.getInstance().register(this, "kitchen", 10_000,
+            orderManager::loadFromDatabase);
     }
     
     public void refresh() {
@@ -678,8 +694,11 @@ public class KitchenPanel extends JPanel {
     }
     
     public void stopTimer() {
-        if (refreshTimer != null) {
-            refreshTimer.cancel();
+        if (autoRefresh != null) {
+            autoRefresh.cancel();
+        }
+        if (elapsedTicker != null) {
+            elapsedTicker.cancel();
         }
         if (orderListener != null) {
             orderManager.removeListener(orderListener);
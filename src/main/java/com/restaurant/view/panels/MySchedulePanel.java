@@ -9,6 +9,7 @@ import com.restaurant.model.ShiftTemplate;
 import com.restaurant.model.User;
 import com.restaurant.model.WorkSchedule;
 import com.restaurant.service.ScheduleService;
+import com.restaurant.util.RefreshScheduler;
 import com.restaurant.util.ToastNotification;
 import net.miginfocom.swing.MigLayout;
 import org.apache.logging.log4j.LogManager;
@@ -80,9 +81,8 @@ public class MySchedulePanel extends JPanel {
         
         add(tabbedPane, "grow");
         
-        // Auto-refresh status every 5 seconds
-        javax.swing.Timer refreshTimer = new javax.swing.Timer(5000, e -> loadMyRequests());
-        refreshTimer.start();
+        // Auto-refresh status every 5 seconds while visible
+        RefreshScheduler.getInstance().registerOnEdt(this, "my-requests", 5_000, this::loadMyRequests);
     }
     
     private JPanel createHeader() {
@@ -17,6 +17,7 @@ import com.restaurant.service.ReservationService;
 import com.restaurant.service.OrderService;
 import com.restaurant.util.KitchenOrderManager;
 import com.restaurant.util.KitchenOrderManager.KitchenOrder;
+import com.restaurant.util.QRCodeGenerator;
 import com.restaurant.util.ToastNotification;
 import net.miginfocom.swing.MigLayout;
 import org.apache.logging.log4j.LogManager;
@@ -30,8 +31,12 @@ import java.text.NumberFormat;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * POS Panel - Enhanced với Menu Grid và Table Status Management
@@ -59,6 +64,11 @@ public class POSPanel extends JPanel {
     private static final Color ERROR = Color.decode(AppConfig.Colors.ERROR);
     private static final Color BORDER = Color.decode(AppConfig.Colors.BORDER);
     
+    // Product card styling, shared by all cached cards
+    private static final Font FONT_PRODUCT_ICON = new Font("Segoe UI Emoji", Font.PLAIN, 24);
+    private static final Font FONT_PRODUCT_TEXT = new Font(AppConfig.FONT_FAMILY, Font.BOLD, 11);
+    private static final Color PRODUCT_HOVER_BG = new Color(PRIMARY.getRed(), PRIMARY.getGreen(), PRIMARY.getBlue(), 30);
+    
     private final User currentUser;
     private final TableService tableService;
     private final CategoryService categoryService;
@@ -70,6 +80,10 @@ public class POSPanel extends JPanel {
     private final List<Table> tables = new ArrayList<>();
     private final List<Category> categories = new ArrayList<>();
     private final List<Product> products = new ArrayList<>();
+    // Menu cache: available products per category and one card per product, rebuilt per menu version
+    private final Map<Integer, List<Product>> productsByCategory = new HashMap<>();
+    private final Map<Integer, JPanel> productCards = new HashMap<>();
+    private long loadedMenuVersion = -1;
     private final List<OrderItem> orderItems = new ArrayList<>();
     
     // Current order from database
@@ -78,6 +92,8 @@ public class POSPanel extends JPanel {
     // State
     private Table selectedTable;
     private JPanel selectedTableCard;
+    private final Map<Integer, TableCard> tableCards = new HashMap<>();
+    private List<Integer> visibleTableIds = new ArrayList<>();
     private Category selectedCategory;
     private boolean showingMenu = false;
     
@@ -88,6 +104,7 @@ public class POSPanel extends JPanel {
     private JPanel menuPanel;
     private JPanel categoryTabs;
     private JPanel productGrid;
+    private JTextField productSearchField;
     private JToggleButton tableMapBtn;
     private JToggleButton menuBtn;
     private JComboBox<String> areaFilter;
@@ -341,7 +358,26 @@ public class POSPanel extends JPanel {
         catScroll.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_NEVER);
         catScroll.setPreferredSize(new Dimension(0, 45));
         
-        menuPanel.add(catScroll, BorderLayout.NORTH);
+        // Quick search (bỏ dấu: "pho" tìm được "Phở")
+        productSearchField = new JTextField();
+        productSearchField.putClientProperty(FlatClientProperties.PLACEHOLDER_TEXT, "🔍 Tìm món nhanh...");
+        productSearchField.putClientProperty(FlatClientProperties.STYLE, "arc: 8");
+        productSearchField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyReleased(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    productSearchField.setText("");
+                }
+                refreshProductGrid();
+            }
+        });
+        
+        JPanel menuHeader = new JPanel(new MigLayout("insets 0, wrap", "[grow]", "[]8[]"));
+        menuHeader.setOpaque(false);
+        menuHeader.add(productSearchField, "growx, h 34!");
+        menuHeader.add(catScroll, "growx");
+        
+        menuPanel.add(menuHeader, BorderLayout.NORTH);
         
         // Product grid
         productGrid = new JPanel(new MigLayout("wrap 5, gap 12", "[grow][grow][grow][grow][grow]", ""));
@@ -687,8 +723,8 @@ public class POSPanel extends JPanel {
     
     private void loadData() {
         loadTables();
+        loadProducts();  // Before categories: selecting the first tab renders the cached cards
         loadCategories();
-        loadProducts();
     }
     
     private void loadTables() {
@@ -769,117 +805,188 @@ public class POSPanel extends JPanel {
     
     private void loadProducts() {
         products.clear();
+        productsByCategory.clear();
+        productCards.clear();
+        loadedMenuVersion = productService.getMenuVersion(); // Read first: a concurrent edit bumps it again
         try {
             products.addAll(productService.getAllProducts());
         } catch (Exception e) {
             logger.error("Error loading products", e);
         }
+        
+        for (Product product : products) {
+            if (product.isAvailable()) {
+                productsByCategory.computeIfAbsent(product.getCategoryId(), k -> new ArrayList<>()).add(product);
+            }
+        }
     }
     
     // ==================== TABLE GRID ====================
     
+    /**
+     * Reconcile the grid with {@code tables}: cards are reused by table id and only
+     * cards whose content changed are repainted; the grid is relaid out only when the
+     * set or order of visible tables changes.
+     */
     private void refreshTableGrid() {
-        tableGrid.removeAll();
-        
+        long start = System.nanoTime();
         String selectedArea = (String) areaFilter.getSelectedItem();
+        Set<String> readyTables = KitchenOrderManager.getInstance().getReadyTableNames();
         
+        List<Integer> visible = new ArrayList<>();
+        Set<Integer> existing = new HashSet<>();
         for (Table table : tables) {
+            existing.add(table.getId());
             if ("Tất cả".equals(selectedArea) || table.getArea().equals(selectedArea)) {
-                JPanel card = createTableCard(table);
-                tableGrid.add(card, "grow, w 140!, h 120!");
+                visible.add(table.getId());
+                TableCard card = tableCards.get(table.getId());
+                if (card == null) {
+                    card = new TableCard();
+                    tableCards.put(table.getId(), card);
+                }
+                boolean ready = table.hasActiveOrder() && readyTables.contains(table.getName());
+                boolean selected = selectedTable != null && selectedTable.getId() == table.getId();
+                card.update(table, ready, selected);
             }
         }
+        tableCards.keySet().retainAll(existing);
         
-        tableGrid.revalidate();
-        tableGrid.repaint();
-    }
-    
-    private JPanel createTableCard(Table table) {
-        Color statusColor = Color.decode(table.getStatus().getColorHex());
-        boolean isSelected = selectedTable != null && selectedTable.getId() == table.getId();
-        
-        JPanel card = new JPanel(new MigLayout("fill, wrap, insets 10", "[center]", "[]2[]2[]2[]")) {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2d.setColor(statusColor);
-                g2d.fillRoundRect(0, 0, getWidth(), 4, 8, 8);
-                g2d.dispose();
+        if (!visible.equals(visibleTableIds)) {
+            tableGrid.removeAll();
+            for (int id : visible) {
+                tableGrid.add(tableCards.get(id), "grow, w 140!, h 120!");
             }
-        };
-        card.setBackground(SURFACE);
-        card.setBorder(BorderFactory.createLineBorder(isSelected ? PRIMARY : BORDER, isSelected ? 2 : 1));
-        card.putClientProperty(FlatClientProperties.STYLE, "arc: 12");
-        card.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-        
-        // Table name
-        JLabel nameLabel = new JLabel(table.getName());
-        nameLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 15));
-        nameLabel.setForeground(TEXT_PRIMARY);
-        card.add(nameLabel, "center");
-        
-        // Capacity
-        String capText = table.hasActiveOrder() 
-            ? "👤 " + table.getGuestCount() + "/" + table.getCapacity()
-            : "👤 " + table.getCapacity() + " chỗ";
-        JLabel capLabel = new JLabel(capText);
-        capLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.PLAIN, 11));
-        capLabel.setForeground(TEXT_SECONDARY);
-        card.add(capLabel, "center");
+            visibleTableIds = visible;
+            tableGrid.revalidate();
+            tableGrid.repaint();
+        }
         
-        // Status badge
-        JPanel badge = new JPanel(new MigLayout("insets 2 8", "[]", ""));
-        badge.setBackground(new Color(statusColor.getRed(), statusColor.getGreen(), statusColor.getBlue(), 50));
-        badge.putClientProperty(FlatClientProperties.STYLE, "arc: 8");
-        JLabel statusLabel = new JLabel(table.getStatusDisplay());
-        statusLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 10));
-        statusLabel.setForeground(statusColor);
-        badge.add(statusLabel);
-        card.add(badge, "center");
-        
-        // Duration (if occupied)
-        if (table.hasActiveOrder() && table.getOccupiedSince() != null) {
-            long mins = Duration.between(table.getOccupiedSince(), LocalDateTime.now()).toMinutes();
-            JLabel timeLabel = new JLabel("⏱ " + mins + " phút");
+        logger.debug("Table grid refreshed in {} µs ({} cards)", (System.nanoTime() - start) / 1000, visible.size());
+    }
+    
+    /**
+     * TableCard - Thẻ bàn trên sơ đồ, tạo một lần và cập nhật tại chỗ
+     */
+    private class TableCard extends JPanel {
+        private final JLabel nameLabel = new JLabel();
+        private final JLabel capLabel = new JLabel();
+        private final JPanel badge = new JPanel(new MigLayout("insets 2 8", "[]", ""));
+        private final JLabel statusLabel = new JLabel();
+        private final JLabel timeLabel = new JLabel();
+        private final JPanel readyBadge = new JPanel(new MigLayout("insets 3 8", "[]", ""));
+        
+        private Table table;
+        private Color statusColor = BORDER;
+        private boolean selected;
+        /** Everything the card shows; compared to skip unchanged cards */
+        private String renderedState;
+        
+        TableCard() {
+            super(new MigLayout("fill, wrap, insets 10, hidemode 3", "[center]", "[]2[]2[]2[]"));
+            setBackground(SURFACE);
+            setBorder(BorderFactory.createLineBorder(BORDER, 1));
+            putClientProperty(FlatClientProperties.STYLE, "arc: 12");
+            setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+            
+            nameLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 15));
+            nameLabel.setForeground(TEXT_PRIMARY);
+            add(nameLabel, "center");
+            
+            capLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.PLAIN, 11));
+            capLabel.setForeground(TEXT_SECONDARY);
+            add(capLabel, "center");
+            
+            badge.putClientProperty(FlatClientProperties.STYLE, "arc: 8");
+            statusLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 10));
+            badge.add(statusLabel);
+            add(badge, "center");
+            
             timeLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.PLAIN, 10));
             timeLabel.setForeground(TEXT_SECONDARY);
-            card.add(timeLabel, "center");
-        }
-        
-        // Ready indicator (if kitchen completed order)
-        if (table.hasActiveOrder() && 
-            KitchenOrderManager.getInstance().hasReadyOrderForTable(table.getName())) {
-            JPanel readyBadge = new JPanel(new MigLayout("insets 3 8", "[]", ""));
+            add(timeLabel, "center");
+            
             readyBadge.setBackground(SUCCESS);
             readyBadge.putClientProperty(FlatClientProperties.STYLE, "arc: 8");
             JLabel readyLabel = new JLabel("🍽️ Món sẵn sàng");
             readyLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 10));
             readyLabel.setForeground(Color.WHITE);
             readyBadge.add(readyLabel);
-            card.add(readyBadge, "center, gaptop 4");
+            add(readyBadge, "center, gaptop 4");
+            
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    selectTable(table, TableCard.this);
+                }
+                @Override
+                public void mouseEntered(MouseEvent e) {
+                    if (!isSelectedCard()) setBorder(BorderFactory.createLineBorder(statusColor, 2));
+                }
+                @Override
+                public void mouseExited(MouseEvent e) {
+                    if (!isSelectedCard()) setBorder(BorderFactory.createLineBorder(BORDER, 1));
+                }
+            });
         }
         
-        // Click handlers
-        card.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                selectTable(table, card);
+        private boolean isSelectedCard() {
+            return selectedTable != null && table != null && selectedTable.getId() == table.getId();
+        }
+        
+        void update(Table t, boolean ready, boolean isSelected) {
+            this.table = t; // Click handler always acts on the latest instance
+            
+            boolean occupied = t.hasActiveOrder();
+            String capText = occupied
+                ? "👤 " + t.getGuestCount() + "/" + t.getCapacity()
+                : "👤 " + t.getCapacity() + " chỗ";
+            String timeText = occupied && t.getOccupiedSince() != null
+                ? "⏱ " + Duration.between(t.getOccupiedSince(), LocalDateTime.now()).toMinutes() + " phút"
+                : null;
+            
+            String state = t.getName() + '|' + capText + '|' + t.getStatus() + '|' + t.getStatusDisplay()
+                + '|' + timeText + '|' + ready + '|' + isSelected;
+            if (state.equals(renderedState)) return;
+            
+            boolean firstRender = renderedState == null;
+            boolean layoutChanged = firstRender
+                || (timeText == null) == timeLabel.isVisible()
+                || ready != readyBadge.isVisible();
+            renderedState = state;
+            
+            statusColor = Color.decode(t.getStatus().getColorHex());
+            nameLabel.setText(t.getName());
+            capLabel.setText(capText);
+            badge.setBackground(new Color(statusColor.getRed(), statusColor.getGreen(), statusColor.getBlue(), 50));
+            statusLabel.setText(t.getStatusDisplay());
+            statusLabel.setForeground(statusColor);
+            timeLabel.setText(timeText != null ? timeText : "");
+            timeLabel.setVisible(timeText != null);
+            readyBadge.setVisible(ready);
+            
+            if (firstRender || isSelected != selected) {
+                setBorder(BorderFactory.createLineBorder(isSelected ? PRIMARY : BORDER, isSelected ? 2 : 1));
+                selected = isSelected;
             }
-            @Override
-            public void mouseEntered(MouseEvent e) {
-                if (!isSelected) card.setBorder(BorderFactory.createLineBorder(statusColor, 2));
+            if (isSelected) {
+                selectedTableCard = this;
             }
-            @Override
-            public void mouseExited(MouseEvent e) {
-                if (selectedTable == null || selectedTable.getId() != table.getId()) {
-                    card.setBorder(BorderFactory.createLineBorder(BORDER, 1));
-                }
+            
+            if (layoutChanged) {
+                revalidate();
             }
-        });
+            repaint();
+        }
         
-        return card;
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Graphics2D g2d = (Graphics2D) g.create();
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setColor(statusColor);
+            g2d.fillRoundRect(0, 0, getWidth(), 4, 8, 8);
+            g2d.dispose();
+        }
     }
     
     // ==================== CATEGORY & PRODUCT GRID ====================
@@ -932,20 +1039,37 @@ public class POSPanel extends JPanel {
         return btn;
     }
     
+    /**
+     * Show the cached cards of the selected category (or of the search results)
+     */
     private void refreshProductGrid() {
-        productGrid.removeAll();
-        
-        if (selectedCategory == null) {
-            productGrid.revalidate();
-            productGrid.repaint();
-            return;
+        if (productService.getMenuVersion() != loadedMenuVersion) {
+            loadProducts();
         }
         
-        for (Product product : products) {
-            if (product.getCategoryId() == selectedCategory.getId() && product.isAvailable()) {
-                JPanel card = createProductCard(product);
-                productGrid.add(card, "grow, w 120!, h 100!");
+        List<Product> visible;
+        String query = productSearchField != null ? productSearchField.getText().trim() : "";
+        if (!query.isEmpty()) {
+            // Search across all categories, ranked by relevance
+            visible = new ArrayList<>();
+            for (Product product : productService.searchProducts(query)) {
+                if (product.isAvailable()) {
+                    visible.add(product);
+                }
             }
+        } else if (selectedCategory != null) {
+            visible = productsByCategory.getOrDefault(selectedCategory.getId(), List.of());
+        } else {
+            visible = List.of();
+        }
+        
+        productGrid.removeAll();
+        for (Product product : visible) {
+            JPanel card = productCards.computeIfAbsent(product.getId(), id -> createProductCard(product));
+            // Card may have been hidden while hovered
+            card.setBackground(BACKGROUND);
+            card.setBorder(BorderFactory.createLineBorder(BORDER, 1));
+            productGrid.add(card, "grow, w 120!, h 100!");
         }
         
         productGrid.revalidate();
@@ -962,20 +1086,20 @@ public class POSPanel extends JPanel {
         // Icon mapping based on product name
         String icon = getProductIcon(product);
         JLabel iconLabel = new JLabel(icon);
-        iconLabel.setFont(new Font("Segoe UI Emoji", Font.PLAIN, 24));
+        iconLabel.setFont(FONT_PRODUCT_ICON);
         card.add(iconLabel, "center");
         
         // Name (truncated)
         String name = product.getName();
         if (name.length() > 12) name = name.substring(0, 10) + "...";
         JLabel nameLabel = new JLabel(name);
-        nameLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 11));
+        nameLabel.setFont(FONT_PRODUCT_TEXT);
         nameLabel.setForeground(TEXT_PRIMARY);
         card.add(nameLabel, "center");
         
         // Price
         JLabel priceLabel = new JLabel(formatShortPrice(product.getPrice()));
-        priceLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 11));
+        priceLabel.setFont(FONT_PRODUCT_TEXT);
         priceLabel.setForeground(SUCCESS);
         card.add(priceLabel, "center");
         
@@ -987,7 +1111,7 @@ public class POSPanel extends JPanel {
             }
             @Override
             public void mouseEntered(MouseEvent e) {
-                card.setBackground(new Color(PRIMARY.getRed(), PRIMARY.getGreen(), PRIMARY.getBlue(), 30));
+                card.setBackground(PRODUCT_HOVER_BG);
                 card.setBorder(BorderFactory.createLineBorder(PRIMARY, 2));
             }
             @Override
@@ -1811,7 +1935,7 @@ public class POSPanel extends JPanel {
         logger.info("Sent {} items to kitchen, marked {} as sent in database", pendingItems.size(), updatedCount);
         
         // Force kitchen to reload from database
-        KitchenOrderManager.getInstance().loadFromDatabase();
+        KitchenOrderManager.getInstance().reloadFromDatabase();
         
         // Refresh UI to show updated status
         refreshOrderItems();
@@ -1971,11 +2095,29 @@ public class POSPanel extends JPanel {
         final com.restaurant.model.Promotion[] appliedPromotion = {null};
         final BigDecimal[] couponDiscount = {BigDecimal.ZERO};
         
+        // Bill lines for promotions limited to some products / categories
+        Map<Integer, Integer> categoryOfProduct = new HashMap<>();
+        for (Product product : products) {
+            categoryOfProduct.put(product.getId(), product.getCategoryId());
+        }
+        List<com.restaurant.service.PromotionService.BillLine> billLines = new ArrayList<>();
+        for (OrderItem item : orderItems) {
+            billLines.add(new com.restaurant.service.PromotionService.BillLine(item.productId,
+                categoryOfProduct.getOrDefault(item.productId, 0), item.price.multiply(new BigDecimal(item.quantity))));
+        }
+        
         // Labels for dynamic amount display (will be added to panels later)
         JLabel qrAmountLabel = new JLabel();
         qrAmountLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 18));
         qrAmountLabel.setForeground(SUCCESS);
         
+        // QR is drawn locally, so it is redrawn whenever the amount changes
+        String qrDescription = selectedTable.getName().replace(" ", "") + " " + System.currentTimeMillis() % 10000;
+        JLabel qrImage = new JLabel();
+        qrImage.setPreferredSize(new Dimension(220, 220));
+        qrImage.setHorizontalAlignment(SwingConstants.CENTER);
+        qrImage.setForeground(ERROR);
+        
         JLabel cardAmountLabel = new JLabel();
         cardAmountLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 20));
         cardAmountLabel.setForeground(SUCCESS);
@@ -1992,6 +2134,9 @@ public class POSPanel extends JPanel {
             BigDecimal finalAmount = calculateFinalAmount.get();
             totalValue.setText(currencyFormat.format(finalAmount));
             qrAmountLabel.setText("Số tiền: " + currencyFormat.format(finalAmount));
+            ImageIcon qrIcon = QRCodeGenerator.generateVietQR(finalAmount, qrDescription, 220);
+            qrImage.setIcon(qrIcon);
+            qrImage.setText(qrIcon == null ? "⚠️ Chưa cấu hình tài khoản ngân hàng" : null);
             cardAmountLabel.setText("Số tiền: " + currencyFormat.format(finalAmount));
             boolean hasDiscount = couponDiscount[0].compareTo(BigDecimal.ZERO) > 0
                 || discountFromPoints[0].compareTo(BigDecimal.ZERO) > 0
@@ -2038,10 +2183,10 @@ public class POSPanel extends JPanel {
                         com.restaurant.model.Customer newCust = new com.restaurant.model.Customer();
                         newCust.setPhone(phone);
                         newCust.setFullName(inputName.trim());
-                        com.restaurant.service.CustomerService.getInstance().createCustomer(newCust);
+                        boolean created = com.restaurant.service.CustomerService.getInstance().createCustomer(newCust);
                         
-                        // Reload and display
-                        com.restaurant.model.Customer createdCust = com.restaurant.service.CustomerService.getInstance().getByPhone(phone);
+                        // Display (createCustomer filled in the id, defaults are already set)
+                        com.restaurant.model.Customer createdCust = created ? newCust : null;
                         if (createdCust != null) {
                             selectedCustomer[0] = createdCust;
                             custName.setText("✅ " + createdCust.getFullName() + " (Mới)");
@@ -2069,6 +2214,38 @@ public class POSPanel extends JPanel {
             }
         });
         
+        // Phone prefix suggestions from the in-memory directory
+        JPopupMenu phoneSuggestions = new JPopupMenu();
+        phoneSuggestions.setFocusable(false);
+        phoneField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyReleased(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    phoneSuggestions.setVisible(false);
+                    searchCustBtn.doClick();
+                    return;
+                }
+                
+                String prefix = phoneField.getText().trim();
+                phoneSuggestions.setVisible(false);
+                phoneSuggestions.removeAll();
+                if (prefix.length() < 3) return;
+                
+                for (com.restaurant.util.PhonePrefixIndex.Entry entry :
+                        com.restaurant.service.CustomerService.getInstance().suggestByPhone(prefix, 8)) {
+                    JMenuItem item = new JMenuItem(entry.getPhone() + "  -  " + entry.getFullName());
+                    item.addActionListener(ev -> {
+                        phoneField.setText(entry.getPhone());
+                        searchCustBtn.doClick();
+                    });
+                    phoneSuggestions.add(item);
+                }
+                if (phoneSuggestions.getComponentCount() > 0) {
+                    phoneSuggestions.show(phoneField, 0, phoneField.getHeight());
+                }
+            }
+        });
+        
         // Redeem points input listener
         redeemInput.addKeyListener(new KeyAdapter() {
             @Override
@@ -2150,9 +2327,13 @@ public class POSPanel extends JPanel {
             com.restaurant.model.Promotion promo = com.restaurant.service.PromotionService.getInstance()
                 .validateCode(code, total, selectedCustomer[0]);
             
-            if (promo != null && promo.isValid()) {
+            BigDecimal promoDiscount = promo != null
+                ? com.restaurant.service.PromotionService.getInstance().calculateDiscount(promo, total, billLines)
+                : BigDecimal.ZERO;
+            
+            if (promo != null && promo.isValid() && promoDiscount.compareTo(BigDecimal.ZERO) > 0) {
                 appliedPromotion[0] = promo;
-                couponDiscount[0] = promo.calculateDiscount(total);
+                couponDiscount[0] = promoDiscount;
                 
                 appliedLabel.setText("✅ " + promo.getName());
                 discountLabel.setText("Giảm: " + currencyFormat.format(couponDiscount[0]));
@@ -2190,11 +2371,16 @@ public class POSPanel extends JPanel {
             
             StringBuilder suggestText = new StringBuilder();
             for (com.restaurant.model.Promotion p : autoPromotions) {
+                BigDecimal suggested = com.restaurant.service.PromotionService.getInstance()
+                    .calculateDiscount(p, total, billLines);
+                if (suggested.compareTo(BigDecimal.ZERO) <= 0) continue;    // No eligible item on this bill
                 if (suggestText.length() > 0) suggestText.append(", ");
-                suggestText.append(p.getName()).append(" (-").append(currencyFormat.format(p.calculateDiscount(total))).append(")");
+                suggestText.append(p.getName()).append(" (-").append(currencyFormat.format(suggested)).append(")");
             }
             suggestLabel.setText("💡 " + suggestText.toString());
-            couponSection.add(suggestLabel, "growx, gaptop 4");
+            if (suggestText.length() > 0) {
+                couponSection.add(suggestLabel, "growx, gaptop 4");
+            }
         }
         
         content.add(couponSection, "growx, gaptop 8");
@@ -2336,34 +2522,10 @@ public class POSPanel extends JPanel {
         qrTitle.setForeground(TEXT_PRIMARY);
         qrPanel.add(qrTitle, "center");
         
-        // Generate VietQR
-        String bankId = "970436";
-        String accountNo = "1029849106";
-        String accountName = "DOAN VINH HUNG";
-        BigDecimal initialAmount = calculateFinalAmount.get();
-        long amount = initialAmount.longValue();
-        String description = selectedTable.getName().replace(" ", "") + "_" + System.currentTimeMillis() % 10000;
-        String vietQRUrl = String.format(
-            "https://img.vietqr.io/image/%s-%s-compact2.png?amount=%d&addInfo=%s&accountName=%s",
-            bankId, accountNo, amount, description, accountName.replace(" ", "%20")
-        );
-        
-        try {
-            java.net.URL url = new java.net.URL(vietQRUrl);
-            ImageIcon qrIcon = new ImageIcon(url);
-            Image scaled = qrIcon.getImage().getScaledInstance(220, 220, Image.SCALE_SMOOTH);
-            JLabel qrImage = new JLabel(new ImageIcon(scaled));
-            qrPanel.add(qrImage, "center, gaptop 12");
-        } catch (Exception ex) {
-            JLabel qrPlaceholder = new JLabel("⚠️ Không thể tải QR");
-            qrPlaceholder.setPreferredSize(new Dimension(220, 220));
-            qrPlaceholder.setHorizontalAlignment(SwingConstants.CENTER);
-            qrPlaceholder.setForeground(ERROR);
-            qrPanel.add(qrPlaceholder, "center");
-            logger.warn("Failed to load QR: {}", ex.getMessage());
-        }
+        // QR image is filled in by updateTotals
+        qrPanel.add(qrImage, "center, gaptop 12");
         
-        JLabel bankInfo = new JLabel("STK: " + accountNo + " - VietcomBank");
+        JLabel bankInfo = new JLabel(QRCodeGenerator.getBankInfo());
         bankInfo.setFont(new Font(AppConfig.FONT_FAMILY, Font.BOLD, 15));
         bankInfo.setForeground(PRIMARY);
         qrPanel.add(bankInfo, "center, gaptop 12");
@@ -2441,14 +2603,84 @@ public class POSPanel extends JPanel {
         // Nhận tiền & Hoàn tất button  
         JButton confirmBtn = createActionBtn("✓ Nhận tiền & Hoàn tất", SUCCESS);
         confirmBtn.addActionListener(e -> {
-            // Set customer for loyalty processing
-            paymentCustomer = selectedCustomer[0];
-            paymentPointsToRedeem = pointsToRedeem[0];
-            // Set promotion for tracking
-            paymentPromotion = appliedPromotion[0];
-            paymentPromotionDiscount = couponDiscount[0];
-            dialog.dispose();
-            completePayment();
+            com.restaurant.model.Promotion promotion = appliedPromotion[0];
+            BigDecimal discount = couponDiscount[0];
+            com.restaurant.model.Customer customer = selectedCustomer[0];
+            int points = pointsToRedeem[0];
+            Order order = currentOrder;
+            boolean withCoupon = promotion != null && discount.compareTo(BigDecimal.ZERO) > 0 && order != null;
+            boolean withPoints = customer != null && points > 0 && order != null;
+            Integer customerId = customer != null ? customer.getId() : null;
+            
+            // Coupon and points are redeemed before the order is completed, off the EDT
+            confirmBtn.setEnabled(false);
+            new SwingWorker<Redemption, Void>() {
+                @Override
+                protected Redemption doInBackground() {
+                    // Coupon usage limit reached meanwhile: drop the discount, cashier collects the new total
+                    if (withCoupon && !com.restaurant.service.PromotionService.getInstance()
+                            .applyPromotion(promotion.getId(), order.getId(), customerId, discount)) {
+                        return Redemption.COUPON_REFUSED;
+                    }
+                    
+                    // Points the same way, against the locked balance: if it no longer covers
+                    // them (spent on another terminal), drop the points discount and recalculate
+                    if (withPoints && com.restaurant.service.CustomerService.getInstance()
+                            .redeemPoints(customer.getId(), order.getId(), points).compareTo(BigDecimal.ZERO) == 0) {
+                        if (withCoupon) {
+                            // Confirming again redeems the coupon again
+                            com.restaurant.service.PromotionService.getInstance()
+                                .revokePromotion(promotion.getId(), order.getId(), customerId);
+                        }
+                        return Redemption.POINTS_REFUSED;
+                    }
+                    return Redemption.DONE;
+                }
+                
+                @Override
+                protected void done() {
+                    confirmBtn.setEnabled(true);
+                    Redemption result;
+                    try {
+                        result = get();
+                    } catch (Exception ex) {
+                        logger.error("Error redeeming coupon/points", ex);
+                        ToastNotification.error(dialog, "Không thể hoàn tất thanh toán, vui lòng thử lại!");
+                        return;
+                    }
+                    
+                    if (result == Redemption.COUPON_REFUSED) {
+                        removeCouponBtn.doClick();
+                        ToastNotification.error(dialog, "Mã " + promotion.getCode() + " đã hết lượt sử dụng - tổng tiền đã được tính lại!");
+                        return;
+                    }
+                    if (result == Redemption.POINTS_REFUSED) {
+                        pointsToRedeem[0] = 0;
+                        discountFromPoints[0] = BigDecimal.ZERO;
+                        redeemInput.setText("");
+                        redeemValue.setText("= 0 ₫ (không đủ điểm)");
+                        updateTotals.run();
+                        ToastNotification.error(dialog, "Khách không còn đủ điểm - đã bỏ giảm giá điểm, tổng tiền đã được tính lại!");
+                        return;
+                    }
+                    if (withCoupon) {
+                        logger.info("Recorded promotion {} usage for order {}, discount: {}",
+                            promotion.getCode(), order.getOrderCode(), discount);
+                    }
+                    if (withPoints) {
+                        logger.info("Redeemed {} points for customer {}", points, customer.getId());
+                    }
+                    
+                    // Set customer for loyalty processing
+                    paymentCustomer = customer;
+                    paymentPointsToRedeem = points;
+                    // Set promotion for tracking
+                    paymentPromotion = promotion;
+                    paymentPromotionDiscount = discount;
+                    dialog.dispose();
+                    completePayment();
+                }
+            }.execute();
         });
         buttons.add(confirmBtn, "grow, h 50!");
         
@@ -2562,13 +2794,6 @@ public class POSPanel extends JPanel {
                 if (paymentCustomer != null) {
                     BigDecimal orderTotal = currentOrder.getTotalAmount();
                     
-                    // Redeem points if requested
-                    if (paymentPointsToRedeem > 0) {
-                        com.restaurant.service.CustomerService.getInstance()
-                            .redeemPoints(paymentCustomer.getId(), currentOrder.getId(), paymentPointsToRedeem);
-                        logger.info("Redeemed {} points for customer {}", paymentPointsToRedeem, paymentCustomer.getId());
-                    }
-                    
                     // Earn points from purchase
                     com.restaurant.service.CustomerService.getInstance()
                         .processOrderCompletion(paymentCustomer.getId(), currentOrder.getId(), orderTotal);
@@ -2577,20 +2802,39 @@ public class POSPanel extends JPanel {
                     logger.info("Customer {} earned {} points from order {}", 
                         paymentCustomer.getId(), pointsEarned, currentOrder.getOrderCode());
                 }
-                
-                // Record promotion usage if coupon was applied
-                if (paymentPromotion != null && paymentPromotionDiscount != null && paymentPromotionDiscount.compareTo(BigDecimal.ZERO) > 0) {
-                    com.restaurant.service.PromotionService.getInstance().applyPromotion(
-                        paymentPromotion.getId(),
-                        currentOrder.getId(),
-                        paymentCustomer != null ? paymentCustomer.getId() : null,
-                        paymentPromotionDiscount
-                    );
-                    logger.info("Recorded promotion {} usage for order {}, discount: {}", 
-                        paymentPromotion.getCode(), currentOrder.getOrderCode(), paymentPromotionDiscount);
-                }
             } else {
                 logger.error("Failed to complete order {} in database", currentOrder.getOrderCode());
+                
+                // Coupon and points were redeemed in the payment dialog; give them back (off the EDT)
+                int orderId = currentOrder.getId();
+                com.restaurant.model.Promotion promotion = paymentPromotion;
+                boolean withCoupon = promotion != null && paymentPromotionDiscount != null
+                    && paymentPromotionDiscount.compareTo(BigDecimal.ZERO) > 0;
+                Integer customerId = paymentCustomer != null ? paymentCustomer.getId() : null;
+                int points = paymentPointsToRedeem;
+                new SwingWorker<Void, Void>() {
+                    @Override
+                    protected Void doInBackground() {
+                        if (withCoupon) {
+                            com.restaurant.service.PromotionService.getInstance()
+                                .revokePromotion(promotion.getId(), orderId, customerId);
+                        }
+                        if (customerId != null && points > 0) {
+                            com.restaurant.service.CustomerService.getInstance()
+                                .refundPoints(customerId, orderId, points);
+                        }
+                        return null;
+                    }
+                    
+                    @Override
+                    protected void done() {
+                        try {
+                            get();
+                        } catch (Exception ex) {
+                            logger.error("Error returning coupon/points for order {}", orderId, ex);
+                        }
+                    }
+                }.execute();
             }
             currentOrder = null;
         }
@@ -2671,6 +2915,9 @@ public class POSPanel extends JPanel {
         loadData();
     }
     
+    /** Outcome of redeeming coupon and points in the payment dialog */
+    private enum Redemption { DONE, COUPON_REFUSED, POINTS_REFUSED }
+    
     // Order item helper class
     private static class OrderItem {
         int id;  // OrderDetail ID from database
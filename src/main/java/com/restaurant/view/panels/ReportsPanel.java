@@ -5,6 +5,8 @@ import com.restaurant.config.AppConfig;
 import com.restaurant.model.User;
 import com.restaurant.service.ReportService;
 import com.restaurant.service.ReportService.*;
+import com.restaurant.util.ReportCache;
+import com.restaurant.util.ReportExporter;
 import com.restaurant.util.ToastNotification;
 import net.miginfocom.swing.MigLayout;
 import org.apache.logging.log4j.LogManager;
@@ -13,12 +15,13 @@ import org.apache.logging.log4j.Logger;
 import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
-import java.io.*;
+import java.io.File;
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Reports Panel - Báo cáo doanh thu và thống kê
@@ -55,11 +58,18 @@ public class ReportsPanel extends JPanel {
     private JLabel statOrdersValue;
     private JLabel statGuestsValue;
     private JLabel statAvgValue;
+    private JLabel statRevenueTrend;
+    private JLabel statOrdersTrend;
+    private JLabel statGuestsTrend;
+    private JLabel statAvgTrend;
     
     // Date range
     private LocalDate fromDate;
     private LocalDate toDate;
     
+    /** Sections of an older load are dropped when a newer one is running */
+    private int loadGeneration;
+    
     public ReportsPanel(User user) {
         this.currentUser = user;
         this.reportService = ReportService.getInstance();
@@ -158,18 +168,22 @@ public class ReportsPanel extends JPanel {
         // Create stat cards and store references
         JPanel revenueCard = createStatCard("💰", "Tổng doanh thu");
         statRevenueValue = (JLabel) ((JPanel)revenueCard).getComponent(1);
+        statRevenueTrend = (JLabel) ((JPanel)revenueCard).getComponent(2);
         panel.add(revenueCard, "grow");
         
         JPanel ordersCard = createStatCard("🧾", "Số đơn hàng");
         statOrdersValue = (JLabel) ((JPanel)ordersCard).getComponent(1);
+        statOrdersTrend = (JLabel) ((JPanel)ordersCard).getComponent(2);
         panel.add(ordersCard, "grow");
         
         JPanel guestsCard = createStatCard("👥", "Khách hàng");
         statGuestsValue = (JLabel) ((JPanel)guestsCard).getComponent(1);
+        statGuestsTrend = (JLabel) ((JPanel)guestsCard).getComponent(2);
         panel.add(guestsCard, "grow");
         
         JPanel avgCard = createStatCard("🍽️", "TB/Đơn");
         statAvgValue = (JLabel) ((JPanel)avgCard).getComponent(1);
+        statAvgTrend = (JLabel) ((JPanel)avgCard).getComponent(2);
         panel.add(avgCard, "grow");
         
         return panel;
@@ -191,6 +205,11 @@ public class ReportsPanel extends JPanel {
         valueLabel.setForeground(TEXT_PRIMARY);
         card.add(valueLabel);
         
+        JLabel trendLabel = new JLabel(" ");
+        trendLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.PLAIN, 11));
+        trendLabel.setForeground(TEXT_SECONDARY);
+        card.add(trendLabel);
+        
         return card;
     }
     
@@ -342,82 +361,138 @@ public class ReportsPanel extends JPanel {
         logger.debug("Date range: {} to {}", fromDate, toDate);
     }
     
+    /**
+     * Load all sections in parallel; each one renders as soon as its query returns
+     */
     private void loadRealData() {
-        try {
-            // Load summary stats - ALWAYS show real data
-            ReportSummary summary = reportService.getSummary(fromDate, toDate);
-            
-            // Update stats cards with real values (even if 0)
-            statRevenueValue.setText(formatCurrency(summary.totalRevenue()));
-            statOrdersValue.setText(String.valueOf(summary.totalOrders()));
-            statGuestsValue.setText(String.valueOf(summary.totalGuests()));
-            statAvgValue.setText(formatCurrency(summary.avgPerOrder()));
-            
-            // Load daily revenue
-            List<DailyRevenue> dailyData = reportService.getDailyRevenue(fromDate, toDate);
+        int generation = ++loadGeneration;
+        DashboardLoad load = reportService.loadDashboard(new DateRange(fromDate, toDate), 10);
+        
+        statRevenueValue.setText("...");
+        statOrdersValue.setText("...");
+        statGuestsValue.setText("...");
+        statAvgValue.setText("...");
+        
+        onSection(load.summary(), generation, this::renderSummary, () -> {
+            // Show error state, not demo data
+            statRevenueValue.setText("Lỗi");
+            statOrdersValue.setText("--");
+            statGuestsValue.setText("--");
+            statAvgValue.setText("--");
+        });
+        onSection(load.dailyRevenue(), generation, this::renderDailyRevenue, () -> {
             revenueModel.setRowCount(0);
-            BigDecimal total = BigDecimal.ZERO;
-            
-            DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM");
-            if (dailyData.isEmpty()) {
-                // Show "no data" row for today if empty
+            totalRevenueLabel.setText("--");
+        });
+        onSection(load.topProducts(), generation, this::renderTopProducts, () -> {
+            topProductsModel.setRowCount(0);
+            topProductsModel.addRow(new Object[]{"-", "Lỗi tải dữ liệu", "-", "-"});
+        });
+        // Trends need both periods
+        onSection(load.summary().thenCombine(load.previousSummary(), (current, previous) -> new ReportSummary[]{current, previous}),
+            generation, pair -> renderTrends(pair[0], pair[1]), () -> {
+                for (JLabel trend : new JLabel[]{statRevenueTrend, statOrdersTrend, statGuestsTrend, statAvgTrend}) {
+                    trend.setText(" ");
+                }
+            });
+        
+        load.bundle().thenAccept(bundle -> logger.info("Loaded real data: {} orders, {} revenue for {} to {}",
+            bundle.summary().totalOrders(), bundle.summary().totalRevenue(), bundle.range().from(), bundle.range().to()));
+    }
+    
+    private <T> void onSection(CompletableFuture<T> future, int generation,
+                               Consumer<T> renderer, Runnable onError) {
+        future.whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (generation != loadGeneration) return;
+            if (error != null) {
+                logger.error("Error loading report section", error);
+                onError.run();
+            } else {
+                renderer.accept(value);
+            }
+        }));
+    }
+    
+    private void renderSummary(ReportSummary summary) {
+        // Update stats cards with real values (even if 0)
+        statRevenueValue.setText(formatCurrency(summary.totalRevenue()));
+        statOrdersValue.setText(String.valueOf(summary.totalOrders()));
+        statGuestsValue.setText(String.valueOf(summary.totalGuests()));
+        statAvgValue.setText(formatCurrency(summary.avgPerOrder()));
+    }
+    
+    private void renderTrends(ReportSummary current, ReportSummary previous) {
+        setTrend(statRevenueTrend, current.totalRevenue(), previous.totalRevenue());
+        setTrend(statOrdersTrend, BigDecimal.valueOf(current.totalOrders()), BigDecimal.valueOf(previous.totalOrders()));
+        setTrend(statGuestsTrend, BigDecimal.valueOf(current.totalGuests()), BigDecimal.valueOf(previous.totalGuests()));
+        setTrend(statAvgTrend, current.avgPerOrder(), previous.avgPerOrder());
+    }
+    
+    private void setTrend(JLabel label, BigDecimal current, BigDecimal previous) {
+        if (previous == null || previous.signum() == 0) {
+            label.setText("Kỳ trước: --");
+            label.setForeground(TEXT_SECONDARY);
+            return;
+        }
+        BigDecimal change = (current != null ? current : BigDecimal.ZERO).subtract(previous)
+            .multiply(BigDecimal.valueOf(100))
+            .divide(previous, 1, java.math.RoundingMode.HALF_UP);
+        label.setText((change.signum() >= 0 ? "▲ " : "▼ ") + change.abs() + "% so với kỳ trước");
+        label.setForeground(change.signum() >= 0 ? SUCCESS : WARNING);
+    }
+    
+    private void renderDailyRevenue(List<DailyRevenue> dailyData) {
+        revenueModel.setRowCount(0);
+        BigDecimal total = BigDecimal.ZERO;
+        
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM");
+        if (dailyData.isEmpty()) {
+            // Show "no data" row for today if empty
+            revenueModel.addRow(new Object[]{
+                toDate.format(fmt),
+                "0",
+                "0 ₫",
+                "0 ₫",
+                "0 ₫"
+            });
+        } else {
+            for (DailyRevenue dr : dailyData) {
                 revenueModel.addRow(new Object[]{
-                    toDate.format(fmt),
-                    "0",
-                    "0 ₫",
-                    "0 ₫",
-                    "0 ₫"
+                    dr.date().format(fmt),
+                    dr.orderCount(),
+                    formatCurrency(dr.grossRevenue()),
+                    formatCurrency(dr.discount()),
+                    formatCurrency(dr.netRevenue())
                 });
-            } else {
-                for (DailyRevenue dr : dailyData) {
-                    revenueModel.addRow(new Object[]{
-                        dr.date().format(fmt),
-                        dr.orderCount(),
-                        formatCurrency(dr.grossRevenue()),
-                        formatCurrency(dr.discount()),
-                        formatCurrency(dr.netRevenue())
-                    });
-                    total = total.add(dr.netRevenue());
-                }
+                total = total.add(dr.netRevenue());
             }
-            totalRevenueLabel.setText(formatCurrency(total));
-            
-            // Load top products
-            List<TopProduct> topProducts = reportService.getTopProducts(fromDate, toDate, 10);
-            topProductsModel.setRowCount(0);
-            
-            if (topProducts.isEmpty()) {
+        }
+        totalRevenueLabel.setText(formatCurrency(total));
+    }
+    
+    private void renderTopProducts(List<TopProduct> topProducts) {
+        topProductsModel.setRowCount(0);
+        
+        if (topProducts.isEmpty()) {
+            topProductsModel.addRow(new Object[]{
+                "-", "Chưa có dữ liệu", "-", "-"
+            });
+        } else {
+            for (TopProduct tp : topProducts) {
+                String medal = switch (tp.rank()) {
+                    case 1 -> "🥇";
+                    case 2 -> "🥈";
+                    case 3 -> "🥉";
+                    default -> String.valueOf(tp.rank());
+                };
+                
                 topProductsModel.addRow(new Object[]{
-                    "-", "Chưa có dữ liệu", "-", "-"
+                    medal,
+                    tp.name(),
+                    tp.quantity(),
+                    formatCurrency(tp.revenue())
                 });
-            } else {
-                for (TopProduct tp : topProducts) {
-                    String medal = switch (tp.rank()) {
-                        case 1 -> "🥇";
-                        case 2 -> "🥈";
-                        case 3 -> "🥉";
-                        default -> String.valueOf(tp.rank());
-                    };
-                    
-                    topProductsModel.addRow(new Object[]{
-                        medal,
-                        tp.name(),
-                        tp.quantity(),
-                        formatCurrency(tp.revenue())
-                    });
-                }
             }
-            
-            logger.info("Loaded real data: {} orders, {} revenue for {} to {}", 
-                summary.totalOrders(), summary.totalRevenue(), fromDate, toDate);
-            
-        } catch (Exception e) {
-            logger.error("Error loading real data", e);
-            // Show error state, not demo data
-            statRevenueValue.setText("Lỗi");
-            statOrdersValue.setText("--");
-            statGuestsValue.setText("--");
-            statAvgValue.setText("--");
         }
     }
     
@@ -427,355 +502,144 @@ public class ReportsPanel extends JPanel {
     }
     
     private void exportToCSV() {
-        DateTimeFormatter dateFmt = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        String fromDateStr = fromDate.format(dateFmt);
-        String toDateStr = toDate.format(dateFmt);
-        
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("Xuất báo cáo CSV");
-        fileChooser.setSelectedFile(new File("BaoCaoDoanhThu_" + 
-            fromDate.format(DateTimeFormatter.ofPattern("ddMMyyyy")) + "_" +
-            toDate.format(DateTimeFormatter.ofPattern("ddMMyyyy")) + ".csv"));
-        
-        int result = fileChooser.showSaveDialog(SwingUtilities.getWindowAncestor(this));
-        if (result == JFileChooser.APPROVE_OPTION) {
-            File file = fileChooser.getSelectedFile();
-            
-            if (!file.getName().toLowerCase().endsWith(".csv")) {
-                file = new File(file.getAbsolutePath() + ".csv");
-            }
-            
-            try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
-                    new FileOutputStream(file), StandardCharsets.UTF_8))) {
-                
-                writer.print('\ufeff'); // BOM for Excel UTF-8
-                
-                // Header with clear formatting
-                writer.println("╔══════════════════════════════════════════════════════════════╗");
-                writer.println("║           BÁO CÁO DOANH THU - RESTAURANT POS                 ║");
-                writer.println("╚══════════════════════════════════════════════════════════════╝");
-                writer.println();
-                writer.println("Ngày xuất báo cáo:," + LocalDate.now().format(dateFmt));
-                writer.println("Kỳ báo cáo:," + periodFilter.getSelectedItem());
-                writer.println("Từ ngày:," + fromDateStr);
-                writer.println("Đến ngày:," + toDateStr);
-                writer.println();
-                
-                // Summary stats in clear table format
-                writer.println("═══════════════════════════════════════════════════════════════");
-                writer.println("                     THỐNG KÊ TỔNG QUAN                        ");
-                writer.println("═══════════════════════════════════════════════════════════════");
-                writer.println();
-                writer.println("Chỉ số,Giá trị");
-                writer.println("Tổng doanh thu," + cleanCurrency(statRevenueValue.getText()));
-                writer.println("Số đơn hàng," + statOrdersValue.getText());
-                writer.println("Số khách hàng," + statGuestsValue.getText());
-                writer.println("Trung bình/đơn," + cleanCurrency(statAvgValue.getText()));
-                writer.println();
-                
-                // Revenue table
-                writer.println("═══════════════════════════════════════════════════════════════");
-                writer.println("                    DOANH THU THEO NGÀY                         ");
-                writer.println("═══════════════════════════════════════════════════════════════");
-                writer.println();
-                writer.println("Ngày,Số đơn,Doanh thu,Giảm giá,Thực thu");
-                for (int i = 0; i < revenueModel.getRowCount(); i++) {
-                    String dateCol = revenueModel.getValueAt(i, 0).toString();
-                    // Convert dd/MM to dd/MM/yyyy
-                    String fullDate = dateCol + "/" + LocalDate.now().getYear();
-                    writer.println(fullDate + "," +
-                        revenueModel.getValueAt(i, 1) + "," +
-                        cleanCurrency(revenueModel.getValueAt(i, 2).toString()) + "," +
-                        cleanCurrency(revenueModel.getValueAt(i, 3).toString()) + "," +
-                        cleanCurrency(revenueModel.getValueAt(i, 4).toString()));
-                }
-                writer.println();
-                writer.println("TỔNG CỘNG,," + cleanCurrency(totalRevenueLabel.getText()) + ",,");
-                writer.println();
-                
-                // Top products
-                writer.println("═══════════════════════════════════════════════════════════════");
-                writer.println("                    TOP MÓN BÁN CHẠY                           ");
-                writer.println("═══════════════════════════════════════════════════════════════");
-                writer.println();
-                writer.println("Hạng,Tên món,Số lượng bán,Doanh thu");
-                for (int i = 0; i < topProductsModel.getRowCount(); i++) {
-                    String rank = topProductsModel.getValueAt(i, 0).toString()
-                        .replace("🥇", "1").replace("🥈", "2").replace("🥉", "3");
-                    writer.println(rank + "," +
-                        "\"" + topProductsModel.getValueAt(i, 1) + "\"," +
-                        topProductsModel.getValueAt(i, 2) + "," +
-                        cleanCurrency(topProductsModel.getValueAt(i, 3).toString()));
-                }
-                writer.println();
-                writer.println("═══════════════════════════════════════════════════════════════");
-                writer.println("                          HẾT BÁO CÁO                           ");
-                writer.println("═══════════════════════════════════════════════════════════════");
-                
-                writer.flush();
-                logger.info("CSV report exported to: {}", file.getAbsolutePath());
-                
-                ToastNotification.success(SwingUtilities.getWindowAncestor(this), 
-                    "✅ Đã xuất: " + file.getName());
-                
-                // Open folder
-                if (Desktop.isDesktopSupported()) {
-                    Desktop.getDesktop().open(file.getParentFile());
-                }
-                
-            } catch (Exception e) {
-                logger.error("CSV export error", e);
-                ToastNotification.error(SwingUtilities.getWindowAncestor(this), "Lỗi xuất CSV: " + e.getMessage());
-            }
+        File file = chooseExportFile("Xuất báo cáo CSV", ".csv");
+        if (file != null) {
+            runExport("CSV", file, ReportExporter::writeCsv);
         }
     }
     
     private void exportToExcel() {
-        DateTimeFormatter dateFmt = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        
+        File file = chooseExportFile("Xuất báo cáo Excel", ".xlsx");
+        if (file != null) {
+            runExport("Excel", file, ReportExporter::writeExcel);
+        }
+    }
+    
+    private File chooseExportFile(String title, String extension) {
         JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("Xuất báo cáo Excel");
+        fileChooser.setDialogTitle(title);
         fileChooser.setSelectedFile(new File("BaoCaoDoanhThu_" + 
-            fromDate.format(DateTimeFormatter.ofPattern("ddMMyyyy")) + ".xlsx"));
+            fromDate.format(DateTimeFormatter.ofPattern("ddMMyyyy")) + "_" +
+            toDate.format(DateTimeFormatter.ofPattern("ddMMyyyy")) + extension));
         
-        int result = fileChooser.showSaveDialog(SwingUtilities.getWindowAncestor(this));
-        if (result == JFileChooser.APPROVE_OPTION) {
-            File file = fileChooser.getSelectedFile();
+        if (fileChooser.showSaveDialog(SwingUtilities.getWindowAncestor(this)) != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+        File file = fileChooser.getSelectedFile();
+        if (!file.getName().toLowerCase().endsWith(extension)) {
+            file = new File(file.getAbsolutePath() + extension);
+        }
+        return file;
+    }
+    
+    @FunctionalInterface
+    private interface ExportWriter {
+        long write(File file, ReportExporter.ReportData data, ReportExporter.LineSource lines,
+                   ReportExporter.Progress progress) throws Exception;
+    }
+    
+    /**
+     * Run an export on a background worker with a progress dialog.
+     * Order lines stream from the database cursor straight into the file.
+     */
+    private void runExport(String format, File file, ExportWriter exportWriter) {
+        Window owner = SwingUtilities.getWindowAncestor(this);
+        LocalDate from = fromDate;
+        LocalDate to = toDate;
+        String periodLabel = (String) periodFilter.getSelectedItem();
+        
+        JDialog dialog = new JDialog(owner, "Xuất báo cáo " + format, Dialog.ModalityType.MODELESS);
+        JPanel content = new JPanel(new MigLayout("wrap, insets 20, gap 10", "[320!]", ""));
+        JLabel statusLabel = new JLabel("Đang tổng hợp báo cáo...");
+        statusLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.PLAIN, 13));
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+        JButton cancelBtn = new JButton("Hủy");
+        content.add(statusLabel, "growx");
+        content.add(progressBar, "growx, h 22!");
+        content.add(cancelBtn, "right");
+        dialog.setContentPane(content);
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        dialog.pack();
+        dialog.setLocationRelativeTo(owner);
+        
+        long[] total = {0};
+        
+        SwingWorker<Long, Long> worker = new SwingWorker<>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                ReportBundle bundle = reportService.loadDashboard(new DateRange(from, to), 10).bundle().get();
+                ReportExporter.ReportData data = new ReportExporter.ReportData(periodLabel, from, to,
+                    bundle.summary(), bundle.dailyRevenue(), bundle.topProducts());
+                total[0] = reportService.countOrderLines(from, to);
+                publish(0L);
+                
+                SwingWorker<Long, Long> worker = this;
+                return exportWriter.write(file, data,
+                    handler -> reportService.streamOrderLines(from, to, handler),
+                    new ReportExporter.Progress() {
+                        @Override
+                        public void rowsWritten(long rows) {
+                            publish(rows);
+                        }
+                        
+                        @Override
+                        public boolean isCancelled() {
+                            return worker.isCancelled();
+                        }
+                    });
+            }
             
-            if (!file.getName().toLowerCase().endsWith(".xlsx")) {
-                file = new File(file.getAbsolutePath() + ".xlsx");
+            @Override
+            protected void process(List<Long> chunks) {
+                long rows = chunks.get(chunks.size() - 1);
+                long max = Math.max(total[0], rows);
+                progressBar.setIndeterminate(false);
+                progressBar.setValue(max > 0 ? (int) (rows * 100 / max) : 100);
+                progressBar.setString(String.format("%,d / %,d dòng", rows, max));
+                statusLabel.setText("Đang ghi chi tiết món...");
             }
             
-            try (org.apache.poi.xssf.usermodel.XSSFWorkbook workbook = 
-                    new org.apache.poi.xssf.usermodel.XSSFWorkbook()) {
-                
-                org.apache.poi.xssf.usermodel.XSSFSheet sheet = 
-                    workbook.createSheet("Báo cáo doanh thu");
-                
-                // Create styles
-                org.apache.poi.xssf.usermodel.XSSFCellStyle titleStyle = workbook.createCellStyle();
-                org.apache.poi.xssf.usermodel.XSSFFont titleFont = workbook.createFont();
-                titleFont.setBold(true);
-                titleFont.setFontHeightInPoints((short) 18);
-                titleFont.setColor(new org.apache.poi.xssf.usermodel.XSSFColor(
-                    new byte[]{(byte)255, (byte)255, (byte)255}, null));
-                titleStyle.setFont(titleFont);
-                titleStyle.setFillForegroundColor(new org.apache.poi.xssf.usermodel.XSSFColor(
-                    new byte[]{(byte)40, (byte)167, (byte)69}, null)); // Green
-                titleStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                titleStyle.setAlignment(org.apache.poi.ss.usermodel.HorizontalAlignment.CENTER);
-                
-                org.apache.poi.xssf.usermodel.XSSFCellStyle headerStyle = workbook.createCellStyle();
-                org.apache.poi.xssf.usermodel.XSSFFont headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerFont.setFontHeightInPoints((short) 11);
-                headerFont.setColor(new org.apache.poi.xssf.usermodel.XSSFColor(
-                    new byte[]{(byte)255, (byte)255, (byte)255}, null));
-                headerStyle.setFont(headerFont);
-                headerStyle.setFillForegroundColor(new org.apache.poi.xssf.usermodel.XSSFColor(
-                    new byte[]{(byte)52, (byte)58, (byte)64}, null)); // Dark gray
-                headerStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                headerStyle.setAlignment(org.apache.poi.ss.usermodel.HorizontalAlignment.CENTER);
-                headerStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                headerStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                
-                org.apache.poi.xssf.usermodel.XSSFCellStyle sectionStyle = workbook.createCellStyle();
-                org.apache.poi.xssf.usermodel.XSSFFont sectionFont = workbook.createFont();
-                sectionFont.setBold(true);
-                sectionFont.setFontHeightInPoints((short) 12);
-                sectionStyle.setFont(sectionFont);
-                sectionStyle.setFillForegroundColor(new org.apache.poi.xssf.usermodel.XSSFColor(
-                    new byte[]{(byte)230, (byte)230, (byte)230}, null)); // Light gray
-                sectionStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                
-                org.apache.poi.xssf.usermodel.XSSFCellStyle dataStyle = workbook.createCellStyle();
-                dataStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderTop(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderLeft(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                dataStyle.setBorderRight(org.apache.poi.ss.usermodel.BorderStyle.THIN);
-                
-                org.apache.poi.xssf.usermodel.XSSFCellStyle currencyStyle = workbook.createCellStyle();
-                currencyStyle.cloneStyleFrom(dataStyle);
-                currencyStyle.setDataFormat(workbook.createDataFormat().getFormat("#,##0"));
-                currencyStyle.setAlignment(org.apache.poi.ss.usermodel.HorizontalAlignment.RIGHT);
-                
-                org.apache.poi.xssf.usermodel.XSSFCellStyle totalStyle = workbook.createCellStyle();
-                org.apache.poi.xssf.usermodel.XSSFFont totalFont = workbook.createFont();
-                totalFont.setBold(true);
-                totalStyle.setFont(totalFont);
-                totalStyle.setFillForegroundColor(new org.apache.poi.xssf.usermodel.XSSFColor(
-                    new byte[]{(byte)255, (byte)243, (byte)205}, null)); // Light yellow
-                totalStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-                totalStyle.setBorderBottom(org.apache.poi.ss.usermodel.BorderStyle.DOUBLE);
-                
-                int rowNum = 0;
-                
-                // Title row (merged)
-                org.apache.poi.ss.usermodel.Row titleRow = sheet.createRow(rowNum++);
-                titleRow.setHeightInPoints(30);
-                org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
-                titleCell.setCellValue("📊 BÁO CÁO DOANH THU - RESTAURANT POS");
-                titleCell.setCellStyle(titleStyle);
-                sheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(0, 0, 0, 4));
-                
-                rowNum++; // Empty row
-                
-                // Info section
-                createInfoRow(sheet, rowNum++, "Ngày xuất:", LocalDate.now().format(dateFmt), sectionStyle, dataStyle);
-                createInfoRow(sheet, rowNum++, "Kỳ báo cáo:", (String)periodFilter.getSelectedItem(), sectionStyle, dataStyle);
-                createInfoRow(sheet, rowNum++, "Từ ngày:", fromDate.format(dateFmt), sectionStyle, dataStyle);
-                createInfoRow(sheet, rowNum++, "Đến ngày:", toDate.format(dateFmt), sectionStyle, dataStyle);
-                
-                rowNum++; // Empty row
-                
-                // Summary section
-                org.apache.poi.ss.usermodel.Row summaryHeader = sheet.createRow(rowNum++);
-                org.apache.poi.ss.usermodel.Cell summaryCell = summaryHeader.createCell(0);
-                summaryCell.setCellValue("📈 THỐNG KÊ TỔNG QUAN");
-                summaryCell.setCellStyle(sectionStyle);
-                sheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(rowNum-1, rowNum-1, 0, 4));
-                
-                createSummaryRow(sheet, rowNum++, "Tổng doanh thu", cleanCurrency(statRevenueValue.getText()), headerStyle, currencyStyle);
-                createSummaryRow(sheet, rowNum++, "Số đơn hàng", statOrdersValue.getText(), headerStyle, dataStyle);
-                createSummaryRow(sheet, rowNum++, "Số khách", statGuestsValue.getText(), headerStyle, dataStyle);
-                createSummaryRow(sheet, rowNum++, "Trung bình/đơn", cleanCurrency(statAvgValue.getText()), headerStyle, currencyStyle);
-                
-                rowNum++; // Empty row
-                
-                // Revenue table header
-                org.apache.poi.ss.usermodel.Row revHeader = sheet.createRow(rowNum++);
-                org.apache.poi.ss.usermodel.Cell revCell = revHeader.createCell(0);
-                revCell.setCellValue("📅 DOANH THU THEO NGÀY");
-                revCell.setCellStyle(sectionStyle);
-                sheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(rowNum-1, rowNum-1, 0, 4));
-                
-                org.apache.poi.ss.usermodel.Row revColHeader = sheet.createRow(rowNum++);
-                String[] revColumns = {"Ngày", "Số đơn", "Doanh thu", "Giảm giá", "Thực thu"};
-                for (int i = 0; i < revColumns.length; i++) {
-                    org.apache.poi.ss.usermodel.Cell cell = revColHeader.createCell(i);
-                    cell.setCellValue(revColumns[i]);
-                    cell.setCellStyle(headerStyle);
+            @Override
+            protected void done() {
+                dialog.dispose();
+                if (isCancelled()) {
+                    ToastNotification.info(owner, "Đã hủy xuất báo cáo");
+                    return;
                 }
-                
-                // Revenue data
-                for (int i = 0; i < revenueModel.getRowCount(); i++) {
-                    org.apache.poi.ss.usermodel.Row row = sheet.createRow(rowNum++);
-                    row.createCell(0).setCellValue(revenueModel.getValueAt(i, 0) + "/" + LocalDate.now().getYear());
-                    row.getCell(0).setCellStyle(dataStyle);
-                    
-                    row.createCell(1).setCellValue(Integer.parseInt(revenueModel.getValueAt(i, 1).toString()));
-                    row.getCell(1).setCellStyle(dataStyle);
+                try {
+                    long rows = get();
+                    logger.info("{} report exported to: {} ({} lines)", format, file.getAbsolutePath(), rows);
+                    ToastNotification.success(owner, "✅ Đã xuất " + format + ": " + file.getName());
                     
-                    for (int j = 2; j < 5; j++) {
-                        org.apache.poi.ss.usermodel.Cell cell = row.createCell(j);
-                        try {
-                            cell.setCellValue(Long.parseLong(cleanCurrency(revenueModel.getValueAt(i, j).toString())));
-                        } catch (NumberFormatException e) {
-                            cell.setCellValue(0);
-                        }
-                        cell.setCellStyle(currencyStyle);
+                    if (Desktop.isDesktopSupported()) {
+                        Desktop.getDesktop().open(format.equals("CSV") ? file.getParentFile() : file);
                     }
-                }
-                
-                // Total row
-                org.apache.poi.ss.usermodel.Row totalRow = sheet.createRow(rowNum++);
-                totalRow.createCell(0).setCellValue("TỔNG CỘNG");
-                totalRow.getCell(0).setCellStyle(totalStyle);
-                totalRow.createCell(4).setCellValue(Long.parseLong(cleanCurrency(totalRevenueLabel.getText())));
-                totalRow.getCell(4).setCellStyle(totalStyle);
-                
-                rowNum++; // Empty row
-                
-                // Top products
-                org.apache.poi.ss.usermodel.Row topHeader = sheet.createRow(rowNum++);
-                org.apache.poi.ss.usermodel.Cell topCell = topHeader.createCell(0);
-                topCell.setCellValue("🏆 TOP MÓN BÁN CHẠY");
-                topCell.setCellStyle(sectionStyle);
-                sheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(rowNum-1, rowNum-1, 0, 3));
-                
-                org.apache.poi.ss.usermodel.Row topColHeader = sheet.createRow(rowNum++);
-                String[] topColumns = {"Hạng", "Tên món", "Số lượng", "Doanh thu"};
-                for (int i = 0; i < topColumns.length; i++) {
-                    org.apache.poi.ss.usermodel.Cell cell = topColHeader.createCell(i);
-                    cell.setCellValue(topColumns[i]);
-                    cell.setCellStyle(headerStyle);
-                }
-                
-                for (int i = 0; i < topProductsModel.getRowCount(); i++) {
-                    org.apache.poi.ss.usermodel.Row row = sheet.createRow(rowNum++);
-                    String rank = topProductsModel.getValueAt(i, 0).toString()
-                        .replace("🥇", "1").replace("🥈", "2").replace("🥉", "3");
-                    row.createCell(0).setCellValue(rank);
-                    row.getCell(0).setCellStyle(dataStyle);
-                    row.createCell(1).setCellValue(topProductsModel.getValueAt(i, 1).toString());
-                    row.getCell(1).setCellStyle(dataStyle);
-                    row.createCell(2).setCellValue(Integer.parseInt(topProductsModel.getValueAt(i, 2).toString()));
-                    row.getCell(2).setCellStyle(dataStyle);
-                    try {
-                        row.createCell(3).setCellValue(Long.parseLong(cleanCurrency(topProductsModel.getValueAt(i, 3).toString())));
-                    } catch (NumberFormatException e) {
-                        row.createCell(3).setCellValue(0);
+                } catch (java.util.concurrent.ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof java.util.concurrent.CancellationException) {
+                        ToastNotification.info(owner, "Đã hủy xuất báo cáo");
+                        return;
                     }
-                    row.getCell(3).setCellStyle(currencyStyle);
+                    logger.error("{} export error", format, cause);
+                    ToastNotification.error(owner, "Lỗi xuất " + format + ": " + cause.getMessage());
+                } catch (Exception e) {
+                    logger.error("{} export error", format, e);
                 }
-                
-                // Auto-size columns
-                for (int i = 0; i < 5; i++) {
-                    sheet.autoSizeColumn(i);
-                    sheet.setColumnWidth(i, Math.min(sheet.getColumnWidth(i) + 512, 10000));
-                }
-                
-                // Write to file
-                try (java.io.FileOutputStream fos = new java.io.FileOutputStream(file)) {
-                    workbook.write(fos);
-                }
-                
-                logger.info("Excel report exported to: {}", file.getAbsolutePath());
-                
-                ToastNotification.success(SwingUtilities.getWindowAncestor(this), 
-                    "✅ Đã xuất Excel: " + file.getName());
-                
-                if (Desktop.isDesktopSupported()) {
-                    Desktop.getDesktop().open(file);
-                }
-                
-            } catch (Exception e) {
-                logger.error("Excel export error", e);
-                ToastNotification.error(SwingUtilities.getWindowAncestor(this), "Lỗi xuất Excel: " + e.getMessage());
             }
-        }
-    }
-    
-    private void createInfoRow(org.apache.poi.xssf.usermodel.XSSFSheet sheet, int rowNum, 
-            String label, String value, 
-            org.apache.poi.xssf.usermodel.XSSFCellStyle labelStyle, 
-            org.apache.poi.xssf.usermodel.XSSFCellStyle valueStyle) {
-        org.apache.poi.ss.usermodel.Row row = sheet.createRow(rowNum);
-        org.apache.poi.ss.usermodel.Cell labelCell = row.createCell(0);
-        labelCell.setCellValue(label);
-        labelCell.setCellStyle(labelStyle);
-        org.apache.poi.ss.usermodel.Cell valueCell = row.createCell(1);
-        valueCell.setCellValue(value);
-        valueCell.setCellStyle(valueStyle);
-    }
-    
-    private void createSummaryRow(org.apache.poi.xssf.usermodel.XSSFSheet sheet, int rowNum,
-            String label, String value,
-            org.apache.poi.xssf.usermodel.XSSFCellStyle labelStyle,
-            org.apache.poi.xssf.usermodel.XSSFCellStyle valueStyle) {
-        org.apache.poi.ss.usermodel.Row row = sheet.createRow(rowNum);
-        org.apache.poi.ss.usermodel.Cell labelCell = row.createCell(0);
-        labelCell.setCellValue(label);
-        labelCell.setCellStyle(labelStyle);
-        org.apache.poi.ss.usermodel.Cell valueCell = row.createCell(1);
-        try {
-            valueCell.setCellValue(Long.parseLong(value));
-        } catch (NumberFormatException e) {
-            valueCell.setCellValue(value);
-        }
-        valueCell.setCellStyle(valueStyle);
+        };
+        
+        // Cancelling only sets the flag - the worker stops at the next line and removes the partial file
+        cancelBtn.addActionListener(e -> {
+            cancelBtn.setEnabled(false);
+            statusLabel.setText("Đang hủy...");
+            worker.cancel(false);
+        });
+        
+        worker.execute();
+        dialog.setVisible(true);
     }
     
     private void printReport() {
@@ -784,10 +648,6 @@ public class ReportsPanel extends JPanel {
         // TODO: Implement print functionality using java.awt.print
     }
     
-    private String cleanCurrency(String value) {
-        return value.replace(",", "").replace(" ₫", "").replace("₫", "").trim();
-    }
-    
     private JButton createButton(String text, Color bgColor, Runnable action) {
         JButton btn = new JButton(text);
         btn.setFont(new Font(AppConfig.FONT_FAMILY, Font.PLAIN, 13));
@@ -802,6 +662,8 @@ public class ReportsPanel extends JPanel {
     }
     
     public void refresh() {
+        // Orders completed on other terminals don't reach this process's cache
+        ReportCache.getInstance().invalidateDay(LocalDate.now());
         loadReportData();
         ToastNotification.info(SwingUtilities.getWindowAncestor(this), "Đã làm mới báo cáo");
     }
@@ -2,6 +2,7 @@ package com.restaurant.view.panels;
 
 import com.formdev.flatlaf.FlatClientProperties;
 import com.restaurant.config.AppConfig;
+import com.restaurant.dao.PageSource;
 import com.restaurant.model.Reservation;
 import com.restaurant.model.Reservation.Status;
 import com.restaurant.model.Table;
@@ -9,13 +10,14 @@ import com.restaurant.model.User;
 import com.restaurant.service.ReservationService;
 import com.restaurant.service.ServiceResult;
 import com.restaurant.service.TableService;
+import com.restaurant.util.RefreshScheduler;
 import com.restaurant.util.ToastNotification;
+import com.restaurant.view.components.LazyTableModel;
 import net.miginfocom.swing.MigLayout;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import java.awt.*;
 import java.time.LocalDate;
@@ -48,7 +50,7 @@ public class ReservationPanel extends JPanel {
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd/MM HH:mm");
     
     private JTable reservationTable;
-    private DefaultTableModel tableModel;
+    private LazyTableModel<Reservation> tableModel;
     private JLabel totalLabel;
     private JLabel dateLabel;
     private LocalDate viewDate = LocalDate.now();
@@ -146,10 +148,19 @@ public class ReservationPanel extends JPanel {
         
         // Table
         String[] columns = {"ID", "Thời gian", "Bàn", "Khách hàng", "SĐT", "Số người", "Trạng thái", "Ghi chú", "Thao tác"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) { return column == 8; }
-        };
+        tableModel = new LazyTableModel<>(columns, reservationService.getReservationPages(), r -> new Object[]{
+            r.getId(),
+            r.getReservationTime().format(timeFormatter),
+            r.getTableName() != null ? r.getTableName() : "Bàn " + r.getTableId(),
+            r.getCustomerName(),
+            r.getCustomerPhone(),
+            r.getGuestCount() + " người",
+            r,  // For status rendering
+            r.getNotes() != null ? r.getNotes() : "",
+            r.getId()
+        });
+        tableModel.setEditableColumns(8);
+        tableModel.setCountListener(count -> totalLabel.setText("Tổng: " + count + " lịch đặt bàn"));
         
         reservationTable = new JTable(tableModel);
         reservationTable.setRowHeight(50);
@@ -223,30 +234,8 @@ public class ReservationPanel extends JPanel {
     }
     
     private void loadReservations() {
-        tableModel.setRowCount(0);
-        
-        // Use DAO to get by date - temporary workaround
-        List<Reservation> reservations = reservationService.getTodayReservations()
-            .stream()
-            .filter(r -> r.getReservationTime().toLocalDate().equals(viewDate))
-            .sorted((a, b) -> a.getReservationTime().compareTo(b.getReservationTime()))
-            .toList();
-        
-        for (Reservation r : reservations) {
-            tableModel.addRow(new Object[]{
-                r.getId(),
-                r.getReservationTime().format(timeFormatter),
-                r.getTableName() != null ? r.getTableName() : "Bàn " + r.getTableId(),
-                r.getCustomerName(),
-                r.getCustomerPhone(),
-                r.getGuestCount() + " người",
-                r,  // For status rendering
-                r.getNotes() != null ? r.getNotes() : "",
-                r.getId()
-            });
-        }
-        
-        totalLabel.setText("Tổng: " + reservations.size() + " lịch đặt bàn");
+        // Pages for the selected day only, earliest first
+        tableModel.setQuery(new PageSource.Query("time", true, viewDate));
     }
     
     private void showReservationDialog(Reservation reservation) {
@@ -255,7 +244,7 @@ public class ReservationPanel extends JPanel {
         
         JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(this),
             isNew ? "Đặt bàn mới" : "Sửa đặt bàn", Dialog.ModalityType.APPLICATION_MODAL);
-        dialog.setSize(450, 500);
+        dialog.setSize(480, 600);
         dialog.setLocationRelativeTo(this);
         
         JPanel content = new JPanel(new MigLayout("wrap 2, insets 20", "[][grow]", ""));
@@ -317,15 +306,59 @@ public class ReservationPanel extends JPanel {
         }
         content.add(timeSpinner, "growx");
         
+        // Free tables for this time / party size, best fit first - click to pick
+        content.add(new JLabel("Bàn trống:"), "top");
+        JPanel suggestionsPanel = new JPanel(new MigLayout("insets 0, gap 4, wrap 3", "[grow, fill]", ""));
+        suggestionsPanel.setOpaque(false);
+        content.add(suggestionsPanel, "growx");
+        
+        JLabel conflictLabel = new JLabel(" ");
+        conflictLabel.setFont(new Font(AppConfig.FONT_FAMILY, Font.PLAIN, 11));
+        content.add(conflictLabel, "skip, growx");
+        
+        int excludeId = isNew ? -1 : reservation.getId();
+        int[] suggestionGeneration = {0};
+        Runnable updateSuggestions = () -> {
+            LocalDateTime time = readDateTime(dateSpinner, timeSpinner);
+            int guests = (int) guestSpinner.getValue();
+            Table selected = (Table) tableCombo.getSelectedItem();
+            int generation = ++suggestionGeneration[0];
+            
+            new SwingWorker<Availability, Void>() {
+                @Override
+                protected Availability doInBackground() {
+                    List<Table> free = reservationService.findAvailableTables(time, guests, excludeId);
+                    boolean conflict = selected != null
+                        && reservationService.hasTimeConflict(selected.getId(), time, excludeId);
+                    return new Availability(free, conflict);
+                }
+                
+                @Override
+                protected void done() {
+                    if (generation != suggestionGeneration[0]) return;
+                    try {
+                        showAvailability(get(), tableCombo, suggestionsPanel, conflictLabel);
+                    } catch (Exception ex) {
+                        logger.error("Error loading table availability", ex);
+                    }
+                }
+            }.execute();
+        };
+        guestSpinner.addChangeListener(e -> updateSuggestions.run());
+        dateSpinner.addChangeListener(e -> updateSuggestions.run());
+        timeSpinner.addChangeListener(e -> updateSuggestions.run());
+        tableCombo.addActionListener(e -> updateSuggestions.run());
+        updateSuggestions.run();
+        
         // Notes
         content.add(new JLabel("Ghi chú:"));
         JTextArea notesArea = new JTextArea(reservation.getNotes(), 3, 20);
         content.add(new JScrollPane(notesArea), "growx");
         
         // Status (for editing)
+        JComboBox<Status> statusCombo = new JComboBox<>(Status.values());
         if (!isNew) {
             content.add(new JLabel("Trạng thái:"));
-            JComboBox<Status> statusCombo = new JComboBox<>(Status.values());
             statusCombo.setSelectedItem(reservation.getStatus());
             content.add(statusCombo, "growx");
         }
@@ -353,23 +386,7 @@ public class ReservationPanel extends JPanel {
                 return;
             }
             
-            // Build datetime
-            java.util.Date dateVal = (java.util.Date) dateSpinner.getValue();
-            java.util.Date timeVal = (java.util.Date) timeSpinner.getValue();
-            
-            java.util.Calendar dateCal = java.util.Calendar.getInstance();
-            dateCal.setTime(dateVal);
-            
-            java.util.Calendar timeCal = java.util.Calendar.getInstance();
-            timeCal.setTime(timeVal);
-            
-            LocalDateTime reserveTime = LocalDateTime.of(
-                dateCal.get(java.util.Calendar.YEAR),
-                dateCal.get(java.util.Calendar.MONTH) + 1,
-                dateCal.get(java.util.Calendar.DAY_OF_MONTH),
-                timeCal.get(java.util.Calendar.HOUR_OF_DAY),
-                timeCal.get(java.util.Calendar.MINUTE)
-            );
+            LocalDateTime reserveTime = readDateTime(dateSpinner, timeSpinner);
             
             finalReservation.setTableId(selectedTable.getId());
             finalReservation.setCustomerName(name);
@@ -389,10 +406,15 @@ public class ReservationPanel extends JPanel {
                     ToastNotification.error(dialog, result.getMessage());
                 }
             } else {
-                // Update - would need update method in service
-                ToastNotification.success(dialog, "Đã cập nhật!");
-                dialog.dispose();
-                loadReservations();
+                finalReservation.setStatus((Status) statusCombo.getSelectedItem());
+                ServiceResult<Reservation> result = reservationService.updateReservation(finalReservation);
+                if (result.isSuccess()) {
+                    ToastNotification.success(dialog, result.getMessage());
+                    dialog.dispose();
+                    loadReservations();
+                } else {
+                    ToastNotification.error(dialog, result.getMessage());
+                }
             }
         });
         buttons.add(saveBtn);
@@ -407,9 +429,65 @@ public class ReservationPanel extends JPanel {
         dialog.setVisible(true);
     }
     
+    /** Free tables for the dialog's current time / guests, and whether the chosen table clashes */
+    private record Availability(List<Table> freeTables, boolean selectedConflicts) {}
+    
+    private static final int MAX_SUGGESTIONS = 6;
+    
+    private void showAvailability(Availability availability, JComboBox<Table> tableCombo,
+                                  JPanel suggestionsPanel, JLabel conflictLabel) {
+        suggestionsPanel.removeAll();
+        List<Table> free = availability.freeTables();
+        if (free.isEmpty()) {
+            JLabel none = new JLabel("Không còn bàn phù hợp");
+            none.setForeground(TEXT_SECONDARY);
+            suggestionsPanel.add(none, "span");
+        }
+        for (Table table : free.subList(0, Math.min(MAX_SUGGESTIONS, free.size()))) {
+            JButton pick = new JButton(table.getName() + " · " + table.getCapacity() + " chỗ");
+            pick.setFont(new Font(AppConfig.FONT_FAMILY, Font.PLAIN, 11));
+            pick.setFocusable(false);
+            pick.addActionListener(e -> {
+                for (int i = 0; i < tableCombo.getItemCount(); i++) {
+                    if (tableCombo.getItemAt(i).getId() == table.getId()) {
+                        tableCombo.setSelectedIndex(i);
+                        break;
+                    }
+                }
+            });
+            suggestionsPanel.add(pick);
+        }
+        
+        if (availability.selectedConflicts()) {
+            conflictLabel.setText("⚠️ Bàn đã chọn có lịch trong khung 90 phút");
+            conflictLabel.setForeground(ERROR);
+        } else {
+            conflictLabel.setText("✓ Bàn đã chọn còn trống");
+            conflictLabel.setForeground(SUCCESS);
+        }
+        suggestionsPanel.revalidate();
+        suggestionsPanel.repaint();
+    }
+    
+    private static LocalDateTime readDateTime(JSpinner dateSpinner, JSpinner timeSpinner) {
+        java.util.Calendar dateCal = java.util.Calendar.getInstance();
+        dateCal.setTime((java.util.Date) dateSpinner.getValue());
+        
+        java.util.Calendar timeCal = java.util.Calendar.getInstance();
+        timeCal.setTime((java.util.Date) timeSpinner.getValue());
+        
+        return LocalDateTime.of(
+            dateCal.get(java.util.Calendar.YEAR),
+            dateCal.get(java.util.Calendar.MONTH) + 1,
+            dateCal.get(java.util.Calendar.DAY_OF_MONTH),
+            timeCal.get(java.util.Calendar.HOUR_OF_DAY),
+            timeCal.get(java.util.Calendar.MINUTE)
+        );
+    }
+    
     private void startAutoRefresh() {
-        Timer timer = new Timer(30000, e -> loadReservations());
-        timer.start();
+        // The table model pages in the background; this only resets its query
+        RefreshScheduler.getInstance().registerOnEdt(this, "reservations", 30_000, this::loadReservations);
     }
     
     // ==================== RENDERERS ====================
@@ -420,6 +498,12 @@ public class ReservationPanel extends JPanel {
                 boolean isSelected, boolean hasFocus, int row, int column) {
             
             Reservation r = (Reservation) value;
+            if (r == null) {
+                // Row still loading
+                setText("");
+                setOpaque(false);
+                return this;
+            }
             Status status = r.getStatus();
             setText(status.getDisplayName());
             setHorizontalAlignment(CENTER);
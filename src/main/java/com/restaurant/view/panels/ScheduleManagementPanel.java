@@ -9,6 +9,7 @@ import com.restaurant.model.User;
 import com.restaurant.model.WorkSchedule;
 import com.restaurant.service.ScheduleService;
 import com.restaurant.service.UserService;
+import com.restaurant.util.RefreshScheduler;
 import com.restaurant.util.ToastNotification;
 import net.miginfocom.swing.MigLayout;
 import org.apache.logging.log4j.LogManager;
@@ -65,11 +66,8 @@ public class ScheduleManagementPanel extends JPanel {
         initializeUI();
         loadData();
         
-        // Auto-refresh leave requests every 5 seconds for near-real-time updates
-        javax.swing.Timer refreshTimer = new javax.swing.Timer(5000, e -> {
-            loadLeaveRequests();
-        });
-        refreshTimer.start();
+        // Auto-refresh leave requests every 5 seconds while visible
+        RefreshScheduler.getInstance().registerOnEdt(this, "leave-requests", 5_000, this::loadLeaveRequests);
     }
     
     private void initializeUI() {
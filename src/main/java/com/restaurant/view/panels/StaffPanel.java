@@ -13,7 +13,9 @@ import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Staff Management Panel - Quản lý nhân viên
@@ -236,15 +238,27 @@ public class StaffPanel extends JPanel {
     }
     
     private void filterStaff() {
-        String search = searchField.getText().toLowerCase().trim();
+        String search = searchField.getText().trim();
         String roleSelect = (String) roleFilter.getSelectedItem();
         
+        // Ranked, diacritic-insensitive matches from UserService's index (filled by loadStaff)
+        List<StaffMember> candidates = staffList;
+        if (!search.isEmpty()) {
+            Map<Integer, StaffMember> byId = new HashMap<>();
+            for (StaffMember s : staffList) {
+                byId.put(s.id, s);
+            }
+            candidates = new ArrayList<>();
+            for (User user : userService.searchUsers(search)) {
+                StaffMember s = byId.get(user.getId());
+                if (s != null) {
+                    candidates.add(s);
+                }
+            }
+        }
+        
         tableModel.setRowCount(0);
-        for (StaffMember s : staffList) {
-            boolean matchSearch = search.isEmpty() || 
-                                  s.username.toLowerCase().contains(search) ||
-                                  s.fullName.toLowerCase().contains(search);
-            
+        for (StaffMember s : candidates) {
             boolean matchRole;
             if ("Nhân viên".equals(roleSelect)) {
                 // Hide ADMIN
@@ -255,7 +269,7 @@ public class StaffPanel extends JPanel {
                 matchRole = s.role.equals(roleSelect);
             }
             
-            if (matchSearch && matchRole) {
+            if (matchRole) {
                 tableModel.addRow(new Object[]{
                     s.id,
                     s.username,
@@ -10,6 +10,7 @@ import com.restaurant.util.KitchenOrderManager;
 import com.restaurant.util.KitchenOrderManager.KitchenOrder;
 import com.restaurant.util.KitchenOrderManager.OrderItem;
 import com.restaurant.util.KitchenOrderManager.OrderStatus;
+import com.restaurant.util.RefreshScheduler;
 import com.restaurant.util.ToastNotification;
 import net.miginfocom.swing.MigLayout;
 import org.apache.logging.log4j.LogManager;
@@ -20,8 +21,6 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.function.Consumer;
 
 /**
@@ -68,7 +67,7 @@ public class WaiterPanel extends JPanel {
     private JPanel ordersGrid;
     private JLabel statsLabel;
     private JLabel emptyLabel;
-    private Timer refreshTimer;
+    private RefreshScheduler.Registration autoRefresh;
     private Consumer<List<KitchenOrder>> orderListener;
     private int lastReadyCount = 0;
     
@@ -165,16 +164,14 @@ public class WaiterPanel extends JPanel {
                 refreshOrdersGrid();
                 
                 // Beep if new ready orders appeared
-                long readyCount = updatedOrders.stream()
-                    .filter(o -> o.getStatus() == OrderStatus.READY)
-                    .count();
+                int readyCount = orderManager.countPendingOrders(OrderStatus.READY);
                 
                 if (readyCount > lastReadyCount && lastReadyCount >= 0) {
                     Toolkit.getDefaultToolkit().beep();
                     ToastNotification.info(SwingUtilities.getWindowAncestor(this),
                         "🔔 Có món mới cần lấy!");
                 }
-                lastReadyCount = (int) readyCount;
+                lastReadyCount = readyCount;
             });
         };
         orderManager.addListener(orderListener);
@@ -417,18 +414,14 @@ public class WaiterPanel extends JPanel {
     }
     
     private void startAutoRefresh() {
-        refreshTimer = new Timer();
-        refreshTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                SwingUtilities.invokeLater(() -> refresh());
-            }
-        }, 5000, 5000); // Refresh every 5 seconds
+        // Every 5 seconds while visible; the order listener redraws the grid on the EDT
+        autoRefresh = RefreshScheduler.getInstance().register(this, "waiter", 5_000,
+            orderManager::loadFromDatabase);
     }
     
     public void stopTimer() {
-        if (refreshTimer != null) {
-            refreshTimer.cancel();
+        if (autoRefresh != null) {
+            autoRefresh.cancel();
         }
         if (orderListener != null) {
             orderManager.removeListener(orderListener);